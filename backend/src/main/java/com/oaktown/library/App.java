@@ -1,9 +1,22 @@
 package com.oaktown.library;
 
+import com.oaktown.library.dao.BorrowingDAO;
+import com.oaktown.library.dao.FeeLedgerDAO;
+import com.oaktown.library.dao.OutboxDAO;
 import com.oaktown.library.model.*;
+import com.oaktown.library.service.FeeAccrualJob;
+import com.oaktown.library.service.FileOutboxSink;
 import com.oaktown.library.service.Library;
+import com.oaktown.library.service.LoanArchiver;
+import com.oaktown.library.service.OutboxRelay;
+import com.oaktown.library.util.AvailabilityFeed;
 import com.oaktown.library.util.DatabaseConnection;
+import com.oaktown.library.web.AvailabilityEventServer;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
@@ -15,32 +28,98 @@ import java.util.Scanner;
 public class App {
     
     private final Library library;
+    // One of each loan job per database that holds loans, i.e. per branch shard
+    private final List<LoanArchiver> loanArchivers = new ArrayList<>();
+    private final List<FeeAccrualJob> feeAccrualJobs = new ArrayList<>();
+    private final List<OutboxRelay> outboxRelays = new ArrayList<>();
+    private final AvailabilityEventServer eventServer;
     private final Scanner scanner;
     
     public App() {
         this.library = new Library();
         this.scanner = new Scanner(System.in);
+        
+        // Build the lookup filters that reject unknown ISBNs and member IDs
+        this.library.warmUpLookupFilters();
+        
+        DatabaseConnection dbConnection = DatabaseConnection.getInstance();
+        
+        // Forget idempotency keys once they are past their retention period
+        this.library.startRequestPurge(dbConnection.getIntProperty("requests.purge.interval.minutes", 60));
+        
+        // The archiver, fee accrual and outbox relay run on every database holding
+        // loans: each branch shard, or the MySQL database; none on the file store
+        boolean archive = Boolean.parseBoolean(dbConnection.getProperty("loans.archive.enabled", "true"));
+        boolean accrueFees = Boolean.parseBoolean(dbConnection.getProperty("fees.accrual.enabled", "true"));
+        boolean outbox = Boolean.parseBoolean(dbConnection.getProperty("outbox.enabled", "false"));
+        FileOutboxSink outboxSink = outbox
+            ? new FileOutboxSink(Paths.get(dbConnection.getProperty("outbox.sink.file", "data/loan-events.jsonl")))
+            : null;
+        for (DatabaseConnection loans : library.getLoanDatabases()) {
+            // Keep borrowed_items small by moving returned loans to loan_history
+            if (archive) {
+                LoanArchiver archiver = new LoanArchiver(new BorrowingDAO(loans), loans);
+                archiver.start(loans.getIntProperty("loans.archive.interval.minutes", 60));
+                loanArchivers.add(archiver);
+            }
+            
+            // Keep fee_ledger current with the charges open loans have accrued
+            if (accrueFees) {
+                FeeAccrualJob feeAccrualJob = new FeeAccrualJob(new FeeLedgerDAO(loans), loans);
+                feeAccrualJob.start(LocalTime.parse(loans.getProperty("fees.accrual.time", "02:00")));
+                feeAccrualJobs.add(feeAccrualJob);
+            }
+            
+            // Deliver loan events from the outbox to a JSON-lines file; BorrowingDAO only
+            // writes events when the outbox is enabled, so they never pile up unconsumed
+            if (outbox) {
+                OutboxRelay relay = new OutboxRelay(new OutboxDAO(loans), loans);
+                relay.addSink(outboxSink);
+                relay.start(loans.getIntProperty("outbox.poll.ms", 500),
+                            loans.getIntProperty("outbox.retention.hours", 72));
+                outboxRelays.add(relay);
+            }
+        }
+        
+        // Push availability changes to browsers and kiosks over server-sent events
+        this.eventServer = new AvailabilityEventServer(AvailabilityFeed.getInstance(), dbConnection);
+        if (Boolean.parseBoolean(dbConnection.getProperty("events.http.enabled", "false"))) {
+            try {
+                this.eventServer.start();
+            } catch (IOException e) {
+                System.err.println("Could not start availability event server: " + e.getMessage());
+            }
+        }
+
     }
     
     public static void main(String[] args) {
         System.out.println("=== OakTown Library Management System ===");
         System.out.println("Initializing...");
         
-        // Test database connection
+        // Test database connection; the embedded file store needs no server
         DatabaseConnection dbConn = DatabaseConnection.getInstance();
-        if (!dbConn.testConnection()) {
+        if (usesFileStore(dbConn)) {
+            System.out.println("Using the embedded data file " + dbConn.getProperty("storage.file.path", "data/oaktown-library.log"));
+        } else if (!dbConn.testConnection()) {
             System.err.println("Failed to connect to database. Please check your configuration.");
             System.err.println("Make sure MySQL is running and the database 'oaktown_library' exists.");
             return;
+        } else if (dbConn.isEmbedded()) {
+            System.out.println("Using the embedded database " + dbConn.getUrl());
+        } else {
+            System.out.println("Database connection successful!");
         }
-        
-        System.out.println("Database connection successful!");
         System.out.println();
         
         App app = new App();
         app.run();
     }
     
+    private static boolean usesFileStore(DatabaseConnection dbConnection) {
+        return "file".equalsIgnoreCase(dbConnection.getProperty("storage.backend", "mysql"));
+    }
+    
     /**
      * Main application loop
      */
@@ -94,6 +173,11 @@ public class App {
             }
         }
         
+        loanArchivers.forEach(LoanArchiver::stop);
+        feeAccrualJobs.forEach(FeeAccrualJob::stop);
+        eventServer.stop();
+        outboxRelays.forEach(OutboxRelay::stop);
+        library.shutdown();
         scanner.close();
     }
     
@@ -146,7 +230,7 @@ public class App {
         System.out.println("-".repeat(120));
         
         for (LibraryItem item : items) {
-            String status = item.isAvailable() ? "Available" : "Borrowed";
+            String status = item.isAvailable() ? "Available" : item.isReserved() ? "On hold" : "Borrowed";
             System.out.printf("%-20s %-40s %-25s %-6d %-15s %-12s%n",
                     item.getIsbn(),
                     truncate(item.getTitle(), 38),
@@ -1,166 +1,659 @@
 package com.oaktown.library.dao;
 
+import com.oaktown.library.model.FeeLedgerEntry;
+import com.oaktown.library.model.Member;
+import com.oaktown.library.model.OutboxEvent;
+import com.oaktown.library.model.ProcessedRequest;
+import com.oaktown.library.util.AvailabilityFeed;
 import com.oaktown.library.util.DatabaseConnection;
+import com.oaktown.library.util.GroupCommitQueue;
+import com.oaktown.library.util.RowMapper;
+import com.oaktown.library.util.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Data Access Object for borrowing transactions.
  * Handles all database operations related to borrowing and returning items.
  */
-public class BorrowingDAO {
+public class BorrowingDAO implements BorrowingRepository {
+    
+    // Hot-path queries. Each projects only the columns it reads and is answered
+    // from a covering index in schema.sql; QueryPlanTest guards against full scans.
+    static final String FIND_OPEN_LOAN_SQL =
+        "SELECT id, borrow_date, daily_cost FROM borrowed_items " +
+        "WHERE isbn = ? AND member_id = ? AND status = 'BORROWED'";
+    
+    static final String CURRENT_LOANS_SQL =
+        "SELECT bi.isbn, bi.borrow_date, bi.due_date, bi.daily_cost, li.title, li.author " +
+        "FROM borrowed_items bi JOIN library_items li ON bi.isbn = li.isbn " +
+        "WHERE bi.member_id = ? AND bi.status = 'BORROWED' " +
+        "ORDER BY bi.borrow_date";
+    
+    // Recently returned loans are still in borrowed_items until the archiver moves them
+    static final String BORROWING_HISTORY_SQL =
+        "SELECT bi.isbn, li.title, li.author, bi.borrow_date, bi.return_date, bi.total_cost " +
+        "FROM borrowed_items bi JOIN library_items li ON bi.isbn = li.isbn " +
+        "WHERE bi.member_id = ? AND bi.status = 'RETURNED' " +
+        "UNION ALL " +
+        "SELECT lh.isbn, li.title, li.author, lh.borrow_date, lh.return_date, lh.total_cost " +
+        "FROM loan_history lh JOIN library_items li ON lh.isbn = li.isbn " +
+        "WHERE lh.member_id = ? " +
+        "ORDER BY return_date DESC";
+    
+    static final String OVERDUE_LOANS_SQL =
+        "SELECT bi.isbn, bi.member_id, bi.borrow_date, bi.due_date, li.title, li.author, m.name AS member_name " +
+        "FROM borrowed_items bi " +
+        "JOIN library_items li ON bi.isbn = li.isbn " +
+        "JOIN members m ON bi.member_id = m.member_id " +
+        "WHERE bi.status = 'BORROWED' AND bi.due_date < CURRENT_DATE " +
+        "ORDER BY bi.due_date";
+    
+    private static final RowMapper.Factory<Map<String, Object>> CURRENT_LOAN_ROWS = columns -> {
+        int isbn = columns.require("isbn");
+        int title = columns.require("title");
+        int author = columns.require("author");
+        int borrowDate = columns.require("borrow_date");
+        int dueDate = columns.require("due_date");
+        int dailyCost = columns.require("daily_cost");
+        
+        return rs -> {
+            Map<String, Object> item = new HashMap<>();
+            item.put("isbn", rs.getString(isbn));
+            item.put("title", rs.getString(title));
+            item.put("author", rs.getString(author));
+            item.put("borrowDate", rs.getDate(borrowDate).toLocalDate());
+            item.put("dueDate", rs.getDate(dueDate).toLocalDate());
+            item.put("dailyCost", rs.getDouble(dailyCost));
+            return item;
+        };
+    };
+    
+    private static final RowMapper.Factory<Map<String, Object>> HISTORY_ROWS = columns -> {
+        int isbn = columns.require("isbn");
+        int title = columns.require("title");
+        int author = columns.require("author");
+        int borrowDate = columns.require("borrow_date");
+        int returnDate = columns.require("return_date");
+        int totalCost = columns.require("total_cost");
+        
+        return rs -> {
+            Map<String, Object> item = new HashMap<>();
+            item.put("isbn", rs.getString(isbn));
+            item.put("title", rs.getString(title));
+            item.put("author", rs.getString(author));
+            item.put("borrowDate", rs.getDate(borrowDate).toLocalDate());
+            item.put("returnDate", rs.getDate(returnDate).toLocalDate());
+            item.put("totalCost", rs.getDouble(totalCost));
+            return item;
+        };
+    };
+    
+    private static final RowMapper.Factory<Map<String, Object>> OVERDUE_ROWS = columns -> {
+        int isbn = columns.require("isbn");
+        int title = columns.require("title");
+        int author = columns.require("author");
+        int memberId = columns.require("member_id");
+        int memberName = columns.require("member_name");
+        int borrowDate = columns.require("borrow_date");
+        int dueDate = columns.require("due_date");
+        
+        return rs -> {
+            Map<String, Object> item = new HashMap<>();
+            LocalDate due = rs.getDate(dueDate).toLocalDate();
+            item.put("isbn", rs.getString(isbn));
+            item.put("title", rs.getString(title));
+            item.put("author", rs.getString(author));
+            item.put("memberId", rs.getString(memberId));
+            item.put("memberName", rs.getString(memberName));
+            item.put("borrowDate", rs.getDate(borrowDate).toLocalDate());
+            item.put("dueDate", due);
+            item.put("daysOverdue", java.time.temporal.ChronoUnit.DAYS.between(due, LocalDate.now()));
+            return item;
+        };
+    };
+    
+    // One group-commit queue and committer thread per database, shared by its DAOs
+    private static final Map<DatabaseConnection, GroupCommitQueue> GROUP_COMMITS = new ConcurrentHashMap<>();
     
     private final DatabaseConnection dbConnection;
+    private final TransactionTemplate txTemplate;
+    // true: this DAO updates library_items itself; false: the borrowed_items triggers do
+    private final boolean applicationWrites;
+    private final int holdPickupDays;
+    // Record loan events in outbox_events; off unless a relay consumes them
+    private final boolean outboxEnabled;
+    // Committed borrows and returns are pushed to availability subscribers
+    private final AvailabilityFeed availabilityFeed = AvailabilityFeed.getInstance();
+    // Coalesce borrows and returns into shared transactions, through GROUP_COMMITS
+    private final boolean groupCommitEnabled;
     
     public BorrowingDAO() {
-        this.dbConnection = DatabaseConnection.getInstance();
+        this(DatabaseConnection.getInstance());
+    }
+    
+    /**
+     * Create a DAO on a specific database, e.g. one branch shard
+     */
+    public BorrowingDAO(DatabaseConnection dbConnection) {
+        this.dbConnection = dbConnection;
+        this.txTemplate = new TransactionTemplate(dbConnection);
+        this.applicationWrites = "application".equalsIgnoreCase(
+            dbConnection.getProperty("borrowing.availability.writes", "trigger"));
+        this.holdPickupDays = dbConnection.getIntProperty("holds.pickup.days", HoldDAO.DEFAULT_PICKUP_DAYS);
+        this.outboxEnabled = Boolean.parseBoolean(dbConnection.getProperty("outbox.enabled", "false"));
+        this.groupCommitEnabled = Boolean.parseBoolean(dbConnection.getProperty("borrowing.group.commit.enabled", "false"));
+    }
+    
+    /**
+     * The group-commit queue of this DAO's database, started on first use, so a DAO
+     * that never borrows or returns (e.g. the archiver's) starts no thread
+     * @return the queue, or null when group commit is disabled
+     */
+    private GroupCommitQueue groupCommit() {
+        if (!groupCommitEnabled) {
+            return null;
+        }
+        return GROUP_COMMITS.computeIfAbsent(dbConnection, db -> new GroupCommitQueue("loanGroupCommit", txTemplate,
+            db.getIntProperty("borrowing.group.commit.max.batch", 64),
+            db.getIntProperty("borrowing.group.commit.max.delay.ms", 5)));
     }
     
     /**
      * Borrow an item
+     * @throws OptimisticLockException if the item changed concurrently; nothing was written
      */
     public boolean borrowItem(String isbn, String memberId, int borrowDays, double dailyCost) {
-        Connection conn = null;
+        if (groupCommitEnabled) {
+            return await(borrowItemAsync(isbn, memberId, borrowDays, dailyCost));
+        }
+        
+        return retryAfterLapsedHold(isbn, () -> {
+            try {
+                boolean success = txTemplate.execute("borrowItem",
+                    conn -> rollbackUnless(conn, borrowInTransaction(conn, isbn, memberId, borrowDays, dailyCost)));
+                if (success) {
+                    committed(isbn, memberId, false);
+                }
+                return success;
+                
+            } catch (SQLException e) {
+                System.err.println("Error borrowing item: " + e.getMessage());
+                return false;
+            }
+        });
+    }
+    
+    /**
+     * Borrow an item at most once per client request ID.
+     * A replayed request ID returns the recorded outcome without borrowing again.
+     * @throws OptimisticLockException if the item changed concurrently; nothing was written
+     * @throws IllegalArgumentException if the request ID was recorded for a different request
+     */
+    public boolean borrowItem(String requestId, String isbn, String memberId, int borrowDays, double dailyCost) {
+        return retryAfterLapsedHold(isbn, () -> executeOnce(requestId, ProcessedRequest.Operation.BORROW, isbn, memberId,
+            "borrowItem", conn -> borrowInTransaction(conn, isbn, memberId, borrowDays, dailyCost), () -> false));
+    }
+    
+    /**
+     * Return an item
+     * @throws OptimisticLockException if the item changed concurrently; nothing was written
+     */
+    public boolean returnItem(String isbn, String memberId) {
+        if (groupCommitEnabled) {
+            return await(returnItemAsync(isbn, memberId));
+        }
+        
+        AtomicBoolean reserved = new AtomicBoolean();
         try {
-            conn = dbConnection.getTransactionConnection();
+            boolean success = txTemplate.execute("returnItem",
+                conn -> rollbackUnless(conn, returnInTransaction(conn, isbn, memberId, reserved)));
+            if (success) {
+                committed(isbn, memberId, !reserved.get());
+            }
+            return success;
             
-            // Check if item is available
-            if (!isItemAvailable(conn, isbn)) {
+        } catch (SQLException e) {
+            System.err.println("Error returning item: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Return an item at most once per client request ID.
+     * A replayed request ID returns the recorded outcome without returning again.
+     * @throws OptimisticLockException if the item changed concurrently; nothing was written
+     * @throws IllegalArgumentException if the request ID was recorded for a different request
+     */
+    public boolean returnItem(String requestId, String isbn, String memberId) {
+        AtomicBoolean reserved = new AtomicBoolean();
+        return executeOnce(requestId, ProcessedRequest.Operation.RETURN, isbn, memberId, "returnItem",
+            conn -> returnInTransaction(conn, isbn, memberId, reserved), () -> !reserved.get());
+    }
+    
+    /**
+     * Borrow an item without waiting for the commit. With group commit enabled the
+     * borrow shares a transaction with other loan operations; otherwise it runs now.
+     * @return completes after the commit; exceptionally with OptimisticLockException on a conflict
+     */
+    public CompletableFuture<Boolean> borrowItemAsync(String isbn, String memberId, int borrowDays, double dailyCost) {
+        GroupCommitQueue groupCommit = groupCommit();
+        if (groupCommit == null) {
+            return runNow(() -> borrowItem(isbn, memberId, borrowDays, dailyCost));
+        }
+        GroupCommitQueue.Operation borrow = conn -> borrowInTransaction(conn, isbn, memberId, borrowDays, dailyCost);
+        return groupCommit.submit(borrow)
+            // Off the committer thread, which must not wait on its own queue
+            .handleAsync((success, failure) -> {
+                Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                if (cause instanceof HoldLapsedException) {
+                    expireLapsedHold(isbn);
+                    return groupCommit.submit(borrow);
+                }
+                return cause == null ? CompletableFuture.completedFuture(success) : CompletableFuture.<Boolean>failedFuture(cause);
+            })
+            .thenCompose(Function.identity())
+            .thenApply(success -> {
+                if (success) {
+                    committed(isbn, memberId, false);
+                }
+                return success;
+            });
+    }
+    
+    /**
+     * Return an item without waiting for the commit. With group commit enabled the
+     * return shares a transaction with other loan operations; otherwise it runs now.
+     * @return completes after the commit; exceptionally with OptimisticLockException on a conflict
+     */
+    public CompletableFuture<Boolean> returnItemAsync(String isbn, String memberId) {
+        GroupCommitQueue groupCommit = groupCommit();
+        if (groupCommit == null) {
+            return runNow(() -> returnItem(isbn, memberId));
+        }
+        AtomicBoolean reserved = new AtomicBoolean();
+        return groupCommit.submit(conn -> returnInTransaction(conn, isbn, memberId, reserved))
+            .thenApply(success -> {
+                if (success) {
+                    committed(isbn, memberId, !reserved.get());
+                }
+                return success;
+            });
+    }
+    
+    /**
+     * Stop the group-commit thread of this DAO's database after committing what is
+     * queued. The queue is shared by every BorrowingDAO on the database; a later
+     * borrow or return starts a new one.
+     */
+    public void shutdown() {
+        GroupCommitQueue groupCommit = GROUP_COMMITS.remove(dbConnection);
+        if (groupCommit != null) {
+            groupCommit.shutdown();
+        }
+    }
+    
+    /**
+     * Run a borrow; if it ran into another member's lapsed hold, expire that hold
+     * and promote the next one in a transaction of their own, then borrow again
+     */
+    private boolean retryAfterLapsedHold(String isbn, Supplier<Boolean> borrow) {
+        try {
+            return borrow.get();
+        } catch (HoldLapsedException e) {
+            expireLapsedHold(isbn);
+        }
+        try {
+            return borrow.get();
+        } catch (HoldLapsedException e) {
+            System.err.println("Could not expire lapsed hold: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private void expireLapsedHold(String isbn) {
+        try {
+            txTemplate.execute("expireHold", conn -> HoldDAO.expireLapsedHold(conn, isbn, holdPickupDays));
+        } catch (SQLException e) {
+            System.err.println("Error expiring hold: " + e.getMessage());
+        }
+    }
+    
+    private static CompletableFuture<Boolean> runNow(Supplier<Boolean> operation) {
+        try {
+            return CompletableFuture.completedFuture(operation.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * Wait for a group-commit result, rethrowing the operation's own runtime exception
+     */
+    private static boolean await(CompletableFuture<Boolean> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * After a commit: announce the availability change, and read the member's
+     * loans from the primary until the replicas have caught up
+     * @param available false after a borrow, or after a return that reserved the item for a hold
+     */
+    private void committed(String isbn, String memberId, boolean available) {
+        dbConnection.recordWrite(memberId);
+        availabilityFeed.publish(isbn, memberId, available);
+    }
+    
+    /**
+     * Roll back the work of a callback that did not apply, so the template commits nothing
+     */
+    private static boolean rollbackUnless(Connection conn, boolean applied) throws SQLException {
+        if (!applied) {
+            conn.rollback();
+        }
+        return applied;
+    }
+    
+    /**
+     * Borrowing work shared by the plain, idempotent and group-commit variants.
+     * Returns false possibly after writing; the caller must roll back.
+     */
+    private boolean borrowInTransaction(Connection conn, String isbn, String memberId,
+                                        int borrowDays, double dailyCost) throws SQLException {
+        if (applicationWrites) {
+            // Mark the item borrowed; the WHERE clause doubles as the availability check
+            if (!markItemBorrowed(conn, isbn, memberId)) {
                 return false;
             }
-            
-            // Check if member can borrow more items
-            if (!canMemberBorrow(conn, memberId)) {
+        } else {
+            // Check if item is available and remember the version we saw
+            int version = findAvailableItemVersion(conn, isbn);
+            if (version < 0) {
                 return false;
             }
             
-            LocalDate borrowDate = LocalDate.now();
-            LocalDate dueDate = borrowDate.plusDays(borrowDays);
+            // Claim the item; fails if another transaction changed it in the meantime
+            if (!compareAndBumpVersion(conn, isbn, version, true)) {
+                throw new OptimisticLockException(isbn, version);
+            }
+        }
+        
+        // An item returned to a queue is kept for the member whose hold is ready
+        if (!HoldDAO.claimReadyHold(conn, isbn, memberId)) {
+            return false;
+        }
+        
+        // Take one of the member's loan slots; fails once the limit is reached
+        if (!reserveLoanSlot(conn, memberId)) {
+            return false;
+        }
+        
+        LocalDate borrowDate = LocalDate.now();
+        LocalDate dueDate = borrowDate.plusDays(borrowDays);
+        
+        // Insert borrowing record
+        String borrowSql = "INSERT INTO borrowed_items (isbn, member_id, borrow_date, due_date, daily_cost, status) VALUES (?, ?, ?, ?, ?, 'BORROWED')";
+        
+        int loanId;
+        try (PreparedStatement stmt = conn.prepareStatement(borrowSql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, isbn);
+            stmt.setString(2, memberId);
+            stmt.setDate(3, Date.valueOf(borrowDate));
+            stmt.setDate(4, Date.valueOf(dueDate));
+            stmt.setDouble(5, dailyCost);
             
-            // Insert borrowing record
-            String borrowSql = "INSERT INTO borrowed_items (isbn, member_id, borrow_date, due_date, daily_cost, status) VALUES (?, ?, ?, ?, ?, 'BORROWED')";
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            ResultSet keys = stmt.getGeneratedKeys();
+            loanId = keys.next() ? keys.getInt(1) : 0;
+        }
+        
+        // Record the event for the outbox relay in the same transaction
+        if (outboxEnabled) {
+            OutboxDAO.insertEvent(conn, OutboxEvent.Type.LOAN_BORROWED, loanId, isbn, memberId,
+                "{\"borrowDate\":\"" + borrowDate + "\",\"dueDate\":\"" + dueDate +
+                "\",\"dailyCost\":\"" + BigDecimal.valueOf(dailyCost).setScale(2, RoundingMode.HALF_UP) + "\"}");
+        }
+        return true;
+    }
+    
+    /**
+     * Return work shared by the plain, idempotent and group-commit variants.
+     * Returns false possibly after writing; the caller must roll back.
+     * @param reserved set to whether the item was reserved for the next hold
+     */
+    private boolean returnInTransaction(Connection conn, String isbn, String memberId,
+                                        AtomicBoolean reserved) throws SQLException {
+        // Find the borrowing record
+        int borrowingId;
+        LocalDate borrowDate;
+        long dailyCents;
+        
+        try (PreparedStatement findStmt = conn.prepareStatement(FIND_OPEN_LOAN_SQL)) {
+            findStmt.setString(1, isbn);
+            findStmt.setString(2, memberId);
             
-            try (PreparedStatement stmt = conn.prepareStatement(borrowSql)) {
-                stmt.setString(1, isbn);
-                stmt.setString(2, memberId);
-                stmt.setDate(3, Date.valueOf(borrowDate));
-                stmt.setDate(4, Date.valueOf(dueDate));
-                stmt.setDouble(5, dailyCost);
-                
-                int result = stmt.executeUpdate();
-                
-                if (result > 0) {
-                    conn.commit();
-                    return true;
-                } else {
-                    conn.rollback();
-                    return false;
-                }
+            ResultSet rs = findStmt.executeQuery();
+            if (rs.next()) {
+                borrowingId = rs.getInt("id");
+                borrowDate = rs.getDate("borrow_date").toLocalDate();
+                dailyCents = rs.getBigDecimal("daily_cost").movePointRight(2).longValueExact();
+            } else {
+                return false; // No active borrowing found
             }
+        }
+        
+        if (applicationWrites) {
+            // Release the item before touching the loan row, same lock order as borrowing
+            markItemReturned(conn, isbn);
+        } else {
+            // Claim the item row so a concurrent writer holding a stale version fails
+            int version = findItemVersion(conn, isbn);
+            if (version < 0) {
+                return false; // The item itself is gone
+            }
+            if (!compareAndBumpVersion(conn, isbn, version, false)) {
+                throw new OptimisticLockException(isbn, version);
+            }
+        }
+        
+        // Calculate total cost in whole cents
+        LocalDate returnDate = LocalDate.now();
+        long daysOut = FeeLedgerEntry.chargeableDays(borrowDate, returnDate);
+        BigDecimal totalCost = BigDecimal.valueOf(daysOut * dailyCents, 2);
+        
+        // Update borrowing record
+        String updateSql = "UPDATE borrowed_items SET return_date = ?, total_cost = ?, status = 'RETURNED' WHERE id = ?";
+        
+        try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+            updateStmt.setDate(1, Date.valueOf(returnDate));
+            updateStmt.setBigDecimal(2, totalCost);
+            updateStmt.setInt(3, borrowingId);
             
-        } catch (SQLException e) {
-            System.err.println("Error borrowing item: " + e.getMessage());
-            DatabaseConnection.rollbackAndClose(conn);
-            return false;
-        } finally {
-            DatabaseConnection.closeConnection(conn);
+            if (updateStmt.executeUpdate() == 0) {
+                return false;
+            }
         }
+        
+        // The loan's final cost is on the loan row now; drop its accrued fees
+        try (PreparedStatement ledgerStmt = conn.prepareStatement("DELETE FROM fee_ledger WHERE borrowing_id = ?")) {
+            ledgerStmt.setInt(1, borrowingId);
+            ledgerStmt.executeUpdate();
+        }
+        
+        // Keep the item for the next member waiting for it; it stays unavailable
+        reserved.set(HoldDAO.promoteNextHold(conn, isbn, holdPickupDays) != null);
+        
+        if (outboxEnabled) {
+            OutboxDAO.insertEvent(conn, OutboxEvent.Type.LOAN_RETURNED, borrowingId, isbn, memberId,
+                "{\"returnDate\":\"" + returnDate + "\",\"totalCost\":\"" + totalCost + "\"}");
+        }
+        
+        releaseLoanSlot(conn, memberId);
+        return true;
     }
     
     /**
-     * Return an item
+     * Run a loan operation guarded by its request ID, through the group-commit queue
+     * when it is enabled. The request row is inserted first in the same transaction,
+     * so a concurrent duplicate blocks on the key and then fails with a duplicate-key
+     * error, after which the stored outcome is returned if it was recorded for the same
+     * operation, item and member. A refused operation is undone back to its savepoint
+     * and only the refusal is recorded.
      */
-    public boolean returnItem(String isbn, String memberId) {
-        Connection conn = null;
+    private boolean executeOnce(String requestId, ProcessedRequest.Operation operation, String isbn, String memberId,
+                                String metricName, TransactionTemplate.TransactionCallback<Boolean> work,
+                                BooleanSupplier availableAfter) {
+        AtomicBoolean outcome = new AtomicBoolean();
+        GroupCommitQueue.Operation guarded = conn -> {
+            insertProcessedRequest(conn, requestId, operation, isbn, memberId, true);
+            Savepoint beforeWork = conn.setSavepoint();
+            outcome.set(work.doInTransaction(conn));
+            if (!outcome.get()) {
+                conn.rollback(beforeWork);
+                markRequestRefused(conn, requestId);
+            }
+            return true;
+        };
+        
+        GroupCommitQueue groupCommit = groupCommit();
+        boolean recorded;
         try {
-            conn = dbConnection.getTransactionConnection();
-            
-            // Find the borrowing record
-            String findSql = "SELECT * FROM borrowed_items WHERE isbn = ? AND member_id = ? AND status = 'BORROWED'";
-            
-            int borrowingId = -1;
-            LocalDate borrowDate = null;
-            double dailyCost = 0.0;
-            
-            try (PreparedStatement findStmt = conn.prepareStatement(findSql)) {
-                findStmt.setString(1, isbn);
-                findStmt.setString(2, memberId);
-                
-                ResultSet rs = findStmt.executeQuery();
-                if (rs.next()) {
-                    borrowingId = rs.getInt("id");
-                    borrowDate = rs.getDate("borrow_date").toLocalDate();
-                    dailyCost = rs.getDouble("daily_cost");
-                } else {
-                    return false; // No active borrowing found
-                }
+            recorded = groupCommit != null
+                ? await(groupCommit.submit(guarded))
+                : txTemplate.execute(metricName, guarded::apply);
+        } catch (SQLException e) {
+            if (!isDuplicateKey(e)) {
+                System.err.println("Error processing request " + requestId + ": " + e.getMessage());
+                return false;
             }
+            recorded = false;
+        }
+        
+        if (!recorded) {
+            // A duplicate committed first, or the group transaction failed and nothing was recorded
+            Optional<ProcessedRequest> previous = findProcessedRequest(requestId);
+            if (!previous.isPresent()) {
+                System.err.println("Error processing request " + requestId + ": not recorded");
+                return false;
+            }
+            return previous.get().replay(operation, isbn, memberId);
+        }
+        if (outcome.get()) {
+            committed(isbn, memberId, availableAfter.getAsBoolean());
+        }
+        return outcome.get();
+    }
+    
+    /**
+     * Find the recorded outcome of a client request, with the operation, item and member it was for
+     * @return the request, or empty if the request ID has not been processed
+     */
+    public Optional<ProcessedRequest> findProcessedRequest(String requestId) {
+        String sql = "SELECT operation, isbn, member_id, success FROM processed_requests WHERE request_id = ?";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             
-            // Calculate total cost
-            LocalDate returnDate = LocalDate.now();
-            long daysOut = java.time.temporal.ChronoUnit.DAYS.between(borrowDate, returnDate);
-            if (daysOut < 1) daysOut = 1; // Minimum 1 day charge
-            double totalCost = daysOut * dailyCost;
-            
-            // Update borrowing record
-            String updateSql = "UPDATE borrowed_items SET return_date = ?, total_cost = ?, status = 'RETURNED' WHERE id = ?";
+            stmt.setString(1, requestId);
+            ResultSet rs = stmt.executeQuery();
             
-            try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
-                updateStmt.setDate(1, Date.valueOf(returnDate));
-                updateStmt.setDouble(2, totalCost);
-                updateStmt.setInt(3, borrowingId);
-                
-                int result = updateStmt.executeUpdate();
-                
-                if (result > 0) {
-                    conn.commit();
-                    return true;
-                } else {
-                    conn.rollback();
-                    return false;
-                }
+            if (rs.next()) {
+                ProcessedRequest.Operation operation = ProcessedRequest.Operation.valueOf(rs.getString("operation"));
+                return Optional.of(new ProcessedRequest(requestId, operation, rs.getString("isbn"),
+                    rs.getString("member_id"), rs.getBoolean("success")));
             }
             
         } catch (SQLException e) {
-            System.err.println("Error returning item: " + e.getMessage());
-            DatabaseConnection.rollbackAndClose(conn);
-            return false;
-        } finally {
-            DatabaseConnection.closeConnection(conn);
+            System.err.println("Error finding processed request: " + e.getMessage());
         }
+        
+        return Optional.empty();
     }
     
     /**
-     * Get currently borrowed items for a member
+     * Delete request records older than the retention period
+     * @return number of records removed
      */
-    public List<Map<String, Object>> getCurrentlyBorrowedItems(String memberId) {
-        List<Map<String, Object>> items = new ArrayList<>();
-        String sql = "SELECT bi.*, li.title, li.author FROM borrowed_items bi " +
-                    "JOIN library_items li ON bi.isbn = li.isbn " +
-                    "WHERE bi.member_id = ? AND bi.status = 'BORROWED' " +
-                    "ORDER BY bi.borrow_date";
+    public int purgeProcessedRequests(int retentionHours) {
+        String sql = "DELETE FROM processed_requests WHERE processed_at < ?";
         
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
+            stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours)));
+            return stmt.executeUpdate();
+            
+        } catch (SQLException e) {
+            System.err.println("Error purging processed requests: " + e.getMessage());
+            return 0;
+        }
+    }
+    
+    private void insertProcessedRequest(Connection conn, String requestId, ProcessedRequest.Operation operation,
+                                        String isbn, String memberId, boolean success) throws SQLException {
+        String sql = "INSERT INTO processed_requests (request_id, operation, isbn, member_id, success) VALUES (?, ?, ?, ?, ?)";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, requestId);
+            stmt.setString(2, operation.name());
+            stmt.setString(3, isbn);
+            stmt.setString(4, memberId);
+            stmt.setBoolean(5, success);
+            stmt.executeUpdate();
+        }
+    }
+    
+    private static void markRequestRefused(Connection conn, String requestId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("UPDATE processed_requests SET success = FALSE WHERE request_id = ?")) {
+            stmt.setString(1, requestId);
+            stmt.executeUpdate();
+        }
+    }
+    
+    private static boolean isDuplicateKey(SQLException e) {
+        return e instanceof SQLIntegrityConstraintViolationException
+            || (e.getSQLState() != null && e.getSQLState().startsWith("23"));
+    }
+    
+    /**
+     * Get currently borrowed items for a member.
+     * Read-only; may be served by a replica.
+     */
+    public List<Map<String, Object>> getCurrentlyBorrowedItems(String memberId) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        try (Connection conn = dbConnection.getReadConnection(memberId);
+             PreparedStatement stmt = conn.prepareStatement(CURRENT_LOANS_SQL)) {
+            
             stmt.setString(1, memberId);
             ResultSet rs = stmt.executeQuery();
             
-            while (rs.next()) {
-                Map<String, Object> item = new HashMap<>();
-                item.put("isbn", rs.getString("isbn"));
-                item.put("title", rs.getString("title"));
-                item.put("author", rs.getString("author"));
-                item.put("borrowDate", rs.getDate("borrow_date").toLocalDate());
-                item.put("dueDate", rs.getDate("due_date").toLocalDate());
-                item.put("dailyCost", rs.getDouble("daily_cost"));
-                items.add(item);
-            }
+            items.addAll(RowMapper.mapAll(rs, CURRENT_LOAN_ROWS));
             
         } catch (SQLException e) {
             System.err.println("Error getting currently borrowed items: " + e.getMessage());
@@ -170,31 +663,19 @@ public class BorrowingDAO {
     }
     
     /**
-     * Get borrowing history for a member
+     * Get borrowing history for a member.
+     * Read-only; may be served by a replica.
      */
     public List<Map<String, Object>> getBorrowingHistory(String memberId) {
         List<Map<String, Object>> items = new ArrayList<>();
-        String sql = "SELECT bi.*, li.title, li.author FROM borrowed_items bi " +
-                    "JOIN library_items li ON bi.isbn = li.isbn " +
-                    "WHERE bi.member_id = ? AND bi.status = 'RETURNED' " +
-                    "ORDER BY bi.return_date DESC";
-        
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dbConnection.getReadConnection(memberId);
+             PreparedStatement stmt = conn.prepareStatement(BORROWING_HISTORY_SQL)) {
             
             stmt.setString(1, memberId);
+            stmt.setString(2, memberId);
             ResultSet rs = stmt.executeQuery();
             
-            while (rs.next()) {
-                Map<String, Object> item = new HashMap<>();
-                item.put("isbn", rs.getString("isbn"));
-                item.put("title", rs.getString("title"));
-                item.put("author", rs.getString("author"));
-                item.put("borrowDate", rs.getDate("borrow_date").toLocalDate());
-                item.put("returnDate", rs.getDate("return_date").toLocalDate());
-                item.put("totalCost", rs.getDouble("total_cost"));
-                items.add(item);
-            }
+            items.addAll(RowMapper.mapAll(rs, HISTORY_ROWS));
             
         } catch (SQLException e) {
             System.err.println("Error getting borrowing history: " + e.getMessage());
@@ -204,117 +685,178 @@ public class BorrowingDAO {
     }
     
     /**
-     * Check if item is available
+     * Move one batch of returned loans from borrowed_items to loan_history,
+     * keeping the hot table down to open and recently returned loans
+     * @param minAgeDays only loans returned at least this many days ago are moved
+     * @return number of loans moved; less than batchSize once nothing is left
+     */
+    public int archiveReturnedLoans(int batchSize, int minAgeDays) {
+        String selectSql = "SELECT id FROM borrowed_items WHERE status = 'RETURNED' AND return_date <= ? " +
+                          "ORDER BY id LIMIT ? FOR UPDATE";
+        
+        try {
+            return txTemplate.execute("archiveLoans", conn -> {
+                List<Integer> ids = new ArrayList<>();
+                try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+                    stmt.setDate(1, Date.valueOf(LocalDate.now().minusDays(minAgeDays)));
+                    stmt.setInt(2, batchSize);
+                    ResultSet rs = stmt.executeQuery();
+                    while (rs.next()) {
+                        ids.add(rs.getInt("id"));
+                    }
+                }
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                
+                String idList = String.join(",", Collections.nCopies(ids.size(), "?"));
+                String copySql = "INSERT INTO loan_history (id, isbn, member_id, borrow_date, due_date, return_date, " +
+                                "daily_cost, total_cost, created_timestamp) " +
+                                "SELECT id, isbn, member_id, borrow_date, due_date, return_date, " +
+                                "daily_cost, total_cost, created_timestamp " +
+                                "FROM borrowed_items WHERE id IN (" + idList + ")";
+                String deleteSql = "DELETE FROM borrowed_items WHERE id IN (" + idList + ")";
+                
+                try (PreparedStatement copyStmt = conn.prepareStatement(copySql);
+                     PreparedStatement deleteStmt = conn.prepareStatement(deleteSql)) {
+                    for (int i = 0; i < ids.size(); i++) {
+                        copyStmt.setInt(i + 1, ids.get(i));
+                        deleteStmt.setInt(i + 1, ids.get(i));
+                    }
+                    copyStmt.executeUpdate();
+                    return deleteStmt.executeUpdate();
+                }
+            });
+            
+        } catch (SQLException e) {
+            System.err.println("Error archiving returned loans: " + e.getMessage());
+            return 0;
+        }
+    }
+    
+    /**
+     * Check if item is available, or reserved for a hold that the caller checks next
+     * @return the item's current version, or -1 if it is missing or already borrowed
      */
-    private boolean isItemAvailable(Connection conn, String isbn) throws SQLException {
-        String sql = "SELECT available FROM library_items WHERE isbn = ?";
+    private int findAvailableItemVersion(Connection conn, String isbn) throws SQLException {
+        String sql = "SELECT current_borrower, version FROM library_items WHERE isbn = ?";
         
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, isbn);
             ResultSet rs = stmt.executeQuery();
             
-            if (rs.next()) {
-                return rs.getBoolean("available");
+            if (rs.next() && rs.getString("current_borrower") == null) {
+                return rs.getInt("version");
             }
-            return false;
+            return -1;
         }
     }
     
     /**
-     * Check if member can borrow more items
+     * Read the current version of an item
+     * @return the version, or -1 if the item does not exist
      */
-    private boolean canMemberBorrow(Connection conn, String memberId) throws SQLException {
-        String sql = "SELECT COUNT(*) as count FROM borrowed_items WHERE member_id = ? AND status = 'BORROWED'";
+    private int findItemVersion(Connection conn, String isbn) throws SQLException {
+        String sql = "SELECT version FROM library_items WHERE isbn = ?";
         
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, memberId);
+            stmt.setString(1, isbn);
             ResultSet rs = stmt.executeQuery();
             
-            if (rs.next()) {
-                int currentCount = rs.getInt("count");
-                return currentCount < 5; // Max 5 items per member
-            }
-            return true;
+            return rs.next() ? rs.getInt("version") : -1;
         }
     }
     
     /**
-     * Get overdue items
+     * Compare-and-set the item version. The availability itself is flipped by the
+     * borrowed_items triggers; this update only guarantees nobody else wrote in between.
+     * @param requireAvailable also require the item to still be on the shelf, available or reserved
+     * @return false if the row changed since {@code expectedVersion} was read
      */
-    public List<Map<String, Object>> getOverdueItems() {
-        List<Map<String, Object>> items = new ArrayList<>();
-        String sql = "SELECT bi.*, li.title, li.author, m.name as member_name FROM borrowed_items bi " +
-                    "JOIN library_items li ON bi.isbn = li.isbn " +
-                    "JOIN members m ON bi.member_id = m.member_id " +
-                    "WHERE bi.status = 'BORROWED' AND bi.due_date < CURRENT_DATE " +
-                    "ORDER BY bi.due_date";
+    private boolean compareAndBumpVersion(Connection conn, String isbn, int expectedVersion,
+                                          boolean requireAvailable) throws SQLException {
+        String sql = "UPDATE library_items SET version = version + 1 WHERE isbn = ? AND version = ?" +
+                    (requireAvailable ? " AND current_borrower IS NULL" : "");
         
-        try (Connection conn = dbConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
-            while (rs.next()) {
-                Map<String, Object> item = new HashMap<>();
-                item.put("isbn", rs.getString("isbn"));
-                item.put("title", rs.getString("title"));
-                item.put("author", rs.getString("author"));
-                item.put("memberId", rs.getString("member_id"));
-                item.put("memberName", rs.getString("member_name"));
-                item.put("borrowDate", rs.getDate("borrow_date").toLocalDate());
-                item.put("dueDate", rs.getDate("due_date").toLocalDate());
-                item.put("daysOverdue", 
-                    java.time.temporal.ChronoUnit.DAYS.between(
-                        rs.getDate("due_date").toLocalDate(), 
-                        LocalDate.now()
-                    )
-                );
-                items.add(item);
-            }
-            
-        } catch (SQLException e) {
-            System.err.println("Error getting overdue items: " + e.getMessage());
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, isbn);
+            stmt.setInt(2, expectedVersion);
+            return stmt.executeUpdate() > 0;
         }
+    }
+    
+    /**
+     * Application-side replacement for the after_borrow_insert trigger. A reserved item
+     * is taken too; the ready hold check that follows decides who may have it.
+     * @return false if the item does not exist or is already borrowed
+     */
+    private boolean markItemBorrowed(Connection conn, String isbn, String memberId) throws SQLException {
+        String sql = "UPDATE library_items SET available = FALSE, current_borrower = ?, version = version + 1 " +
+                    "WHERE isbn = ? AND current_borrower IS NULL";
         
-        return items;
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, memberId);
+            stmt.setString(2, isbn);
+            return stmt.executeUpdate() > 0;
+        }
     }
     
     /**
-     * Calculate borrowing cost for a period
+     * Application-side replacement for the after_borrow_update trigger
      */
-    public double calculateBorrowingCost(String isbn, int days) {
-        String sql = "SELECT item_type FROM library_items WHERE isbn = ?";
+    private void markItemReturned(Connection conn, String isbn) throws SQLException {
+        String sql = "UPDATE library_items SET available = TRUE, current_borrower = NULL, version = version + 1 " +
+                    "WHERE isbn = ?";
         
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, isbn);
-            ResultSet rs = stmt.executeQuery();
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Check the borrow limit and count the new loan in one conditional update,
+     * so concurrent checkouts by the same member cannot overshoot the limit
+     * @return false if the member is at the limit or does not exist
+     */
+    private boolean reserveLoanSlot(Connection conn, String memberId) throws SQLException {
+        String sql = "UPDATE members SET active_loans = active_loans + 1 WHERE member_id = ? AND active_loans < ?";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, memberId);
+            stmt.setInt(2, Member.MAX_BORROW_LIMIT);
+            return stmt.executeUpdate() > 0;
+        }
+    }
+    
+    /**
+     * Give back the loan slot taken by {@link #reserveLoanSlot}
+     */
+    private void releaseLoanSlot(Connection conn, String memberId) throws SQLException {
+        String sql = "UPDATE members SET active_loans = active_loans - 1 WHERE member_id = ? AND active_loans > 0";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, memberId);
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Get overdue items.
+     * Read-only; may be served by a replica.
+     */
+    public List<Map<String, Object>> getOverdueItems() {
+        List<Map<String, Object>> items = new ArrayList<>();
+        try (Connection conn = dbConnection.getReadConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(OVERDUE_LOANS_SQL)) {
             
-            if (rs.next()) {
-                String itemType = rs.getString("item_type");
-                double dailyCost;
-                
-                switch (itemType) {
-                    case "BOOK":
-                        dailyCost = 0.50;
-                        break;
-                    case "REFERENCE_BOOK":
-                        dailyCost = 1.00;
-                        break;
-                    case "MAGAZINE":
-                        dailyCost = 0.25;
-                        break;
-                    default:
-                        dailyCost = 0.50;
-                }
-                
-                return dailyCost * days;
-            }
+            items.addAll(RowMapper.mapAll(rs, OVERDUE_ROWS));
             
         } catch (SQLException e) {
-            System.err.println("Error calculating borrowing cost: " + e.getMessage());
+            System.err.println("Error getting overdue items: " + e.getMessage());
         }
         
-        return 0.0;
+        return items;
     }
 }
\ No newline at end of file
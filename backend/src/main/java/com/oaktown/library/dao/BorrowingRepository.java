@@ -0,0 +1,77 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.ProcessedRequest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Storage of loans and of processed client requests, implemented on MySQL by
+ * {@link BorrowingDAO}, on the embedded file store by {@link FileBorrowingDAO},
+ * and across per-branch databases by {@link ShardedBorrowingRepository}.
+ */
+public interface BorrowingRepository {
+    
+    /**
+     * Borrow an item
+     * @return false if the item is not available or the member is at the borrow limit
+     * @throws OptimisticLockException if the item changed concurrently; nothing was written
+     */
+    boolean borrowItem(String isbn, String memberId, int borrowDays, double dailyCost);
+    
+    /**
+     * Borrow an item at most once per client request ID.
+     * A replayed request ID returns the recorded outcome without borrowing again.
+     * @throws OptimisticLockException if the item changed concurrently; nothing was written
+     * @throws IllegalArgumentException if the request ID was recorded for a different request
+     */
+    boolean borrowItem(String requestId, String isbn, String memberId, int borrowDays, double dailyCost);
+    
+    /**
+     * Return an item
+     * @return false if the member has no open loan of the item
+     * @throws OptimisticLockException if the item changed concurrently; nothing was written
+     */
+    boolean returnItem(String isbn, String memberId);
+    
+    /**
+     * Return an item at most once per client request ID.
+     * A replayed request ID returns the recorded outcome without returning again.
+     * @throws OptimisticLockException if the item changed concurrently; nothing was written
+     * @throws IllegalArgumentException if the request ID was recorded for a different request
+     */
+    boolean returnItem(String requestId, String isbn, String memberId);
+    
+    /**
+     * Find the recorded outcome of a client request, with the operation, item and member it was for
+     * @return the request, or empty if the request ID has not been processed
+     */
+    Optional<ProcessedRequest> findProcessedRequest(String requestId);
+    
+    /**
+     * Delete request records older than the retention period
+     * @return number of records removed
+     */
+    int purgeProcessedRequests(int retentionHours);
+    
+    /**
+     * Get currently borrowed items for a member, oldest loan first
+     */
+    List<Map<String, Object>> getCurrentlyBorrowedItems(String memberId);
+    
+    /**
+     * Get borrowing history for a member, most recent return first
+     */
+    List<Map<String, Object>> getBorrowingHistory(String memberId);
+    
+    /**
+     * Get open loans past their due date, most overdue first
+     */
+    List<Map<String, Object>> getOverdueItems();
+    
+    /**
+     * Finish pending writes and stop background threads
+     */
+    void shutdown();
+}
@@ -0,0 +1,142 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.FeeLedgerEntry;
+import com.oaktown.library.util.DatabaseConnection;
+import com.oaktown.library.util.TransactionTemplate;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for the fee_ledger table, which holds the charges
+ * accrued so far by loans that are still out.
+ */
+public class FeeLedgerDAO {
+    
+    // Keyset page over the borrowed_items primary key, skipping loans already
+    // accrued through the target day so an interrupted run resumes where it stopped
+    static final String LOANS_TO_ACCRUE_SQL =
+        "SELECT bi.id, bi.member_id, bi.isbn, bi.borrow_date, bi.due_date, bi.daily_cost " +
+        "FROM borrowed_items bi LEFT JOIN fee_ledger fl ON fl.borrowing_id = bi.id " +
+        "WHERE bi.id > ? AND bi.status = 'BORROWED' " +
+        "AND (fl.accrued_through IS NULL OR fl.accrued_through < ?) " +
+        "ORDER BY bi.id LIMIT ?";
+    
+    // Writes nothing once the loan is no longer out, so an accrual that races a
+    // return cannot recreate the ledger row the return just deleted
+    static final String UPSERT_ENTRY_SQL =
+        "INSERT INTO fee_ledger (borrowing_id, member_id, isbn, chargeable_days, overdue_days, " +
+        "accrued_cents, accrued_through) " +
+        "SELECT id, member_id, isbn, ?, ?, ?, ? FROM borrowed_items WHERE id = ? AND status = 'BORROWED' " +
+        "ON DUPLICATE KEY UPDATE chargeable_days = VALUES(chargeable_days), " +
+        "overdue_days = VALUES(overdue_days), accrued_cents = VALUES(accrued_cents), " +
+        "accrued_through = VALUES(accrued_through)";
+    
+    static final String OUTSTANDING_SQL =
+        "SELECT COALESCE(SUM(accrued_cents), 0) FROM fee_ledger WHERE member_id = ?";
+    
+    private final DatabaseConnection dbConnection;
+    private final TransactionTemplate txTemplate;
+    
+    public FeeLedgerDAO() {
+        this(DatabaseConnection.getInstance());
+    }
+    
+    /**
+     * Create a DAO on a specific database, e.g. one branch shard
+     */
+    public FeeLedgerDAO(DatabaseConnection dbConnection) {
+        this.dbConnection = dbConnection;
+        this.txTemplate = new TransactionTemplate(dbConnection);
+    }
+    
+    /**
+     * Read the next page of open loans that have not been accrued through asOf
+     * @param afterId only loans with a larger id are read
+     * @return loans in id order, at most limit of them
+     */
+    public List<FeeLedgerEntry> findLoansToAccrue(int afterId, LocalDate asOf, int limit) {
+        List<FeeLedgerEntry> loans = new ArrayList<>();
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(LOANS_TO_ACCRUE_SQL)) {
+            
+            stmt.setInt(1, afterId);
+            stmt.setDate(2, Date.valueOf(asOf));
+            stmt.setInt(3, limit);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                loans.add(new FeeLedgerEntry(
+                    rs.getInt(1),
+                    rs.getString(2),
+                    rs.getString(3),
+                    rs.getDate(4).toLocalDate(),
+                    rs.getDate(5).toLocalDate(),
+                    rs.getBigDecimal(6).movePointRight(2).longValueExact()));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error reading loans to accrue: " + e.getMessage());
+        }
+        
+        return loans;
+    }
+    
+    /**
+     * Insert or update ledger rows as one JDBC batch in a single short transaction.
+     * Entries for loans returned since they were read are skipped.
+     * @return number of ledger rows inserted or changed, or 0 if the batch failed
+     */
+    public int saveEntries(List<FeeLedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        
+        try {
+            return txTemplate.execute("accrueFees", conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(UPSERT_ENTRY_SQL)) {
+                    for (FeeLedgerEntry entry : entries) {
+                        stmt.setLong(1, entry.getChargeableDays());
+                        stmt.setLong(2, entry.getOverdueDays());
+                        stmt.setLong(3, entry.getAccruedCents());
+                        stmt.setDate(4, Date.valueOf(entry.getAccruedThrough()));
+                        stmt.setInt(5, entry.getBorrowingId());
+                        stmt.addBatch();
+                    }
+                    int written = 0;
+                    for (int count : stmt.executeBatch()) {
+                        if (count != 0) {
+                            written++;
+                        }
+                    }
+                    return written;
+                }
+            });
+            
+        } catch (SQLException e) {
+            System.err.println("Error saving fee ledger entries: " + e.getMessage());
+            return 0;
+        }
+    }
+    
+    /**
+     * Total fees accrued by a member's open loans as of the last accrual run
+     */
+    public long getOutstandingCents(String memberId) {
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(OUTSTANDING_SQL)) {
+            
+            stmt.setString(1, memberId);
+            ResultSet rs = stmt.executeQuery();
+            
+            return rs.next() ? rs.getLong(1) : 0;
+            
+        } catch (SQLException e) {
+            System.err.println("Error reading outstanding fees: " + e.getMessage());
+            return 0;
+        }
+    }
+}
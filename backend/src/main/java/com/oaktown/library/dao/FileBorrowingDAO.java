@@ -0,0 +1,365 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.dao.FileRecords.StoredHolds;
+import com.oaktown.library.dao.FileRecords.StoredItem;
+import com.oaktown.library.dao.FileRecords.StoredLoan;
+import com.oaktown.library.dao.FileRecords.StoredMember;
+import com.oaktown.library.model.FeeLedgerEntry;
+import com.oaktown.library.model.LibraryItem;
+import com.oaktown.library.model.Member;
+import com.oaktown.library.model.ProcessedRequest;
+import com.oaktown.library.util.AvailabilityFeed;
+import com.oaktown.library.util.LogStore;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loans kept in the embedded {@link LogStore} instead of MySQL.
+ *
+ * A borrow or return checks the item and member records and then writes the item,
+ * member and loan records as one atomic store record, all while holding the store's
+ * monitor. Writers are therefore serialized and never see a concurrent change, so
+ * unlike {@link BorrowingDAO} this class never throws OptimisticLockException.
+ * Hold queues are the {@link FileHoldDAO} records: a return makes the next hold ready
+ * and only its member can borrow the item until the pickup window lapses.
+ * The fee ledger and the outbox live only in MySQL and are not maintained here.
+ */
+public class FileBorrowingDAO implements BorrowingRepository {
+
+    private final LogStore store;
+    private final AvailabilityFeed availabilityFeed = AvailabilityFeed.getInstance();
+    // Days a ready hold keeps the item for its member
+    private final int holdPickupDays;
+    // Next loan ID; guarded by the store's monitor
+    private long nextLoanId;
+
+    public FileBorrowingDAO(LogStore store) {
+        this(store, HoldDAO.DEFAULT_PICKUP_DAYS);
+    }
+
+    public FileBorrowingDAO(LogStore store, int holdPickupDays) {
+        this.store = store;
+        this.holdPickupDays = holdPickupDays;
+        long maxLoanId = 0;
+        for (String key : store.scan(FileRecords.LOAN).keySet()) {
+            maxLoanId = Math.max(maxLoanId, loanId(key));
+        }
+        this.nextLoanId = maxLoanId + 1;
+    }
+
+    @Override
+    public boolean borrowItem(String isbn, String memberId, int borrowDays, double dailyCost) {
+        expireLapsedHold(isbn);
+        return execute(null, isbn, memberId, true, writes -> borrow(writes, isbn, memberId, borrowDays, dailyCost));
+    }
+
+    @Override
+    public boolean borrowItem(String requestId, String isbn, String memberId, int borrowDays, double dailyCost) {
+        expireLapsedHold(isbn);
+        return execute(requestId, isbn, memberId, true, writes -> borrow(writes, isbn, memberId, borrowDays, dailyCost));
+    }
+
+    @Override
+    public boolean returnItem(String isbn, String memberId) {
+        return execute(null, isbn, memberId, false, writes -> giveBack(writes, isbn, memberId));
+    }
+
+    @Override
+    public boolean returnItem(String requestId, String isbn, String memberId) {
+        return execute(requestId, isbn, memberId, false, writes -> giveBack(writes, isbn, memberId));
+    }
+
+    @Override
+    public Optional<ProcessedRequest> findProcessedRequest(String requestId) {
+        byte[] bytes = store.get(FileRecords.REQUEST + requestId);
+        return bytes != null ? Optional.of(FileRecords.decodeRequest(requestId, bytes)) : Optional.empty();
+    }
+
+    @Override
+    public int purgeProcessedRequests(int retentionHours) {
+        long cutoff = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(retentionHours);
+        Map<String, byte[]> deletes = new HashMap<>();
+        for (Map.Entry<String, byte[]> entry : store.scan(FileRecords.REQUEST).entrySet()) {
+            if (FileRecords.requestProcessedAt(entry.getValue()) < cutoff) {
+                deletes.put(entry.getKey(), null);
+            }
+        }
+
+        try {
+            store.write(deletes);
+            return deletes.size();
+
+        } catch (IOException e) {
+            System.err.println("Error purging processed requests: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> getCurrentlyBorrowedItems(String memberId) {
+        List<Map<String, Object>> items = new ArrayList<>();
+        StoredMember member = FileMemberDAO.load(store, memberId);
+        if (member == null) {
+            return items;
+        }
+
+        List<StoredLoan> loans = new ArrayList<>();
+        for (String isbn : member.current) {
+            StoredItem item = FileLibraryItemDAO.load(store, isbn);
+            if (item != null && item.openLoanId > 0) {
+                loans.add(loadLoan(item.openLoanId));
+            }
+        }
+        loans.sort(Comparator.comparing(loan -> loan.borrowDate));
+
+        for (StoredLoan loan : loans) {
+            LibraryItem libraryItem = FileLibraryItemDAO.load(store, loan.isbn).item;
+            Map<String, Object> item = new HashMap<>();
+            item.put("isbn", loan.isbn);
+            item.put("title", libraryItem.getTitle());
+            item.put("author", libraryItem.getAuthor());
+            item.put("borrowDate", loan.borrowDate);
+            item.put("dueDate", loan.dueDate);
+            item.put("dailyCost", loan.dailyCents / 100.0);
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * Get borrowing history for a member. Scans every loan record, which is
+     * fine for the branch-sized catalogs this store is meant for.
+     */
+    @Override
+    public List<Map<String, Object>> getBorrowingHistory(String memberId) {
+        List<StoredLoan> loans = new ArrayList<>();
+        for (Map.Entry<String, byte[]> entry : store.scan(FileRecords.LOAN).entrySet()) {
+            StoredLoan loan = FileRecords.decodeLoan(loanId(entry.getKey()), entry.getValue());
+            if (loan.returnDate != null && loan.memberId.equals(memberId)) {
+                loans.add(loan);
+            }
+        }
+        loans.sort(Comparator.comparing((StoredLoan loan) -> loan.returnDate).reversed());
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (StoredLoan loan : loans) {
+            StoredItem stored = FileLibraryItemDAO.load(store, loan.isbn);
+            if (stored == null) {
+                continue; // Item deleted since
+            }
+            Map<String, Object> item = new HashMap<>();
+            item.put("isbn", loan.isbn);
+            item.put("title", stored.item.getTitle());
+            item.put("author", stored.item.getAuthor());
+            item.put("borrowDate", loan.borrowDate);
+            item.put("returnDate", loan.returnDate);
+            item.put("totalCost", loan.totalCents / 100.0);
+            items.add(item);
+        }
+        return items;
+    }
+
+    @Override
+    public List<Map<String, Object>> getOverdueItems() {
+        LocalDate today = LocalDate.now();
+        List<StoredLoan> loans = new ArrayList<>();
+        for (Map.Entry<String, byte[]> entry : store.scan(FileRecords.ITEM).entrySet()) {
+            StoredItem stored = FileRecords.decodeItem(entry.getKey().substring(FileRecords.ITEM.length()), entry.getValue());
+            if (stored.openLoanId > 0) {
+                StoredLoan loan = loadLoan(stored.openLoanId);
+                if (loan.dueDate.isBefore(today)) {
+                    loans.add(loan);
+                }
+            }
+        }
+        loans.sort(Comparator.comparing(loan -> loan.dueDate));
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (StoredLoan loan : loans) {
+            LibraryItem libraryItem = FileLibraryItemDAO.load(store, loan.isbn).item;
+            StoredMember member = FileMemberDAO.load(store, loan.memberId);
+            Map<String, Object> item = new HashMap<>();
+            item.put("isbn", loan.isbn);
+            item.put("title", libraryItem.getTitle());
+            item.put("author", libraryItem.getAuthor());
+            item.put("memberId", loan.memberId);
+            item.put("memberName", member != null ? member.member.getName() : null);
+            item.put("borrowDate", loan.borrowDate);
+            item.put("dueDate", loan.dueDate);
+            item.put("daysOverdue", ChronoUnit.DAYS.between(loan.dueDate, today));
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * The store is owned by whoever opened it; nothing is queued here
+     */
+    @Override
+    public void shutdown() {
+    }
+
+    @FunctionalInterface
+    private interface LoanChange {
+        /**
+         * Stage the record changes of one borrow or return
+         * @return false if the operation does not apply; nothing staged is written
+         */
+        boolean stage(Map<String, byte[]> writes);
+    }
+
+    /**
+     * Run a borrow or return under the store's monitor and write its records, plus the
+     * request record for a guarded request, as one atomic store write
+     * @param requestId client request ID, or null for an unguarded operation
+     * @throws IllegalArgumentException if the request ID was recorded for a different request
+     */
+    private boolean execute(String requestId, String isbn, String memberId, boolean borrowing, LoanChange change) {
+        ProcessedRequest.Operation operation =
+            borrowing ? ProcessedRequest.Operation.BORROW : ProcessedRequest.Operation.RETURN;
+        boolean success;
+        boolean reserved;
+        try {
+            synchronized (store) {
+                if (requestId != null) {
+                    Optional<ProcessedRequest> previous = findProcessedRequest(requestId);
+                    if (previous.isPresent()) {
+                        return previous.get().replay(operation, isbn, memberId);
+                    }
+                }
+
+                Map<String, byte[]> writes = new HashMap<>();
+                success = change.stage(writes);
+                if (!success) {
+                    writes.clear();
+                }
+                // A return that made a hold ready wrote the hold queue; the item is kept for that member
+                reserved = !borrowing && writes.containsKey(FileRecords.HOLDS + isbn);
+                if (requestId != null) {
+                    ProcessedRequest request = new ProcessedRequest(requestId, operation, isbn, memberId, success);
+                    writes.put(FileRecords.REQUEST + requestId,
+                               FileRecords.encodeRequest(request, System.currentTimeMillis()));
+                }
+                store.write(writes);
+            }
+
+        } catch (IOException e) {
+            System.err.println("Error " + (borrowing ? "borrowing" : "returning") + " item: " + e.getMessage());
+            return false;
+        }
+
+        if (success) {
+            availabilityFeed.publish(isbn, memberId, !borrowing && !reserved);
+        }
+        return success;
+    }
+
+    /**
+     * Expire the ready hold on an item if its pickup window has lapsed and make the
+     * next waiting hold ready, the same way a return does. Written on its own, so the
+     * next member keeps the item even if the borrow that follows is refused.
+     */
+    private void expireLapsedHold(String isbn) {
+        try {
+            synchronized (store) {
+                StoredHolds holds = FileHoldDAO.load(store, isbn);
+                if (holds == null || !holds.isLapsed(LocalDate.now())) {
+                    return;
+                }
+                holds.promoteNext(holdPickupDays);
+                FileHoldDAO.save(store, isbn, holds);
+            }
+
+        } catch (IOException e) {
+            System.err.println("Error expiring hold: " + e.getMessage());
+        }
+    }
+
+    private boolean borrow(Map<String, byte[]> writes, String isbn, String memberId, int borrowDays, double dailyCost) {
+        StoredItem item = FileLibraryItemDAO.load(store, isbn);
+        if (item == null || !item.item.isAvailable()) {
+            return false;
+        }
+        StoredMember member = FileMemberDAO.load(store, memberId);
+        if (member == null || member.current.size() >= Member.MAX_BORROW_LIMIT) {
+            return false;
+        }
+        StoredHolds holds = FileHoldDAO.load(store, isbn);
+        if (holds != null && holds.readyMember != null) {
+            if (!memberId.equals(holds.readyMember)) {
+                return false; // Kept for another member
+            }
+            // The borrower's own hold is fulfilled
+            holds.readyMember = null;
+            holds.readyUntil = null;
+            writes.put(FileRecords.HOLDS + isbn, FileHoldDAO.record(holds));
+        }
+
+        LocalDate borrowDate = LocalDate.now();
+        long dailyCents = BigDecimal.valueOf(dailyCost).setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+        StoredLoan loan = new StoredLoan(nextLoanId++, isbn, memberId, borrowDate, borrowDate.plusDays(borrowDays), dailyCents);
+
+        item.item.setBorrowerForDAO(memberId);
+        item.item.setVersionForDAO(item.item.getVersion() + 1);
+        item.openLoanId = loan.id;
+        member.current.add(isbn);
+
+        writes.put(FileRecords.ITEM + isbn, FileRecords.encodeItem(item));
+        writes.put(FileRecords.MEMBER + memberId, FileRecords.encodeMember(member));
+        writes.put(FileRecords.LOAN + loan.id, FileRecords.encodeLoan(loan));
+        return true;
+    }
+
+    private boolean giveBack(Map<String, byte[]> writes, String isbn, String memberId) {
+        StoredItem item = FileLibraryItemDAO.load(store, isbn);
+        if (item == null || item.openLoanId == 0 || !memberId.equals(item.item.getCurrentBorrower())) {
+            return false; // No active borrowing found
+        }
+        StoredLoan loan = loadLoan(item.openLoanId);
+
+        // Calculate total cost in whole cents
+        loan.returnDate = LocalDate.now();
+        loan.totalCents = FeeLedgerEntry.chargeableDays(loan.borrowDate, loan.returnDate) * loan.dailyCents;
+
+        item.item.setBorrowerForDAO(null);
+        item.item.setVersionForDAO(item.item.getVersion() + 1);
+        item.openLoanId = 0;
+
+        writes.put(FileRecords.ITEM + isbn, FileRecords.encodeItem(item));
+        writes.put(FileRecords.LOAN + loan.id, FileRecords.encodeLoan(loan));
+
+        StoredMember member = FileMemberDAO.load(store, memberId);
+        if (member != null) {
+            member.current.remove(isbn);
+            if (!member.previous.contains(isbn)) {
+                member.previous.add(isbn);
+            }
+            writes.put(FileRecords.MEMBER + memberId, FileRecords.encodeMember(member));
+        }
+
+        StoredHolds holds = FileHoldDAO.load(store, isbn);
+        if (holds != null && holds.readyMember == null && holds.promoteNext(holdPickupDays) != null) {
+            writes.put(FileRecords.HOLDS + isbn, FileHoldDAO.record(holds));
+        }
+        return true;
+    }
+
+    private StoredLoan loadLoan(long id) {
+        return FileRecords.decodeLoan(id, store.get(FileRecords.LOAN + id));
+    }
+
+    private static long loanId(String key) {
+        return Long.parseLong(key.substring(FileRecords.LOAN.length()));
+    }
+}
@@ -0,0 +1,117 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.dao.FileRecords.StoredHolds;
+import com.oaktown.library.dao.FileRecords.StoredItem;
+import com.oaktown.library.util.AvailabilityFeed;
+import com.oaktown.library.util.LogStore;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * Hold queues kept in the embedded {@link LogStore} instead of MySQL, one record
+ * per item. Like {@link HoldDAO}, a return makes the oldest waiting hold ready and
+ * {@link FileBorrowingDAO} keeps the item for that member until the pickup window
+ * lapses; all changes are made while holding the store's monitor.
+ */
+public class FileHoldDAO implements HoldRepository {
+
+    private final LogStore store;
+    // Days a ready hold keeps the item for its member
+    private final int pickupDays;
+
+    public FileHoldDAO(LogStore store, int pickupDays) {
+        this.store = store;
+        this.pickupDays = pickupDays;
+    }
+
+    @Override
+    public PlaceResult placeHold(String isbn, String memberId) {
+        try {
+            synchronized (store) {
+                StoredItem item = FileLibraryItemDAO.load(store, isbn);
+                if (item == null) {
+                    return PlaceResult.NOT_FOUND;
+                }
+                StoredHolds holds = load(store, isbn);
+                if (item.item.isAvailable() && readyHolder(holds) == null) {
+                    return PlaceResult.ITEM_AVAILABLE;
+                }
+                if (memberId.equals(item.item.getCurrentBorrower())) {
+                    return PlaceResult.ALREADY_BORROWED;
+                }
+                if (holds == null) {
+                    holds = new StoredHolds(null, null, new ArrayList<>());
+                }
+                if (memberId.equals(holds.readyMember) || holds.waiting.contains(memberId)) {
+                    return PlaceResult.ALREADY_HOLDING;
+                }
+
+                holds.waiting.add(memberId);
+                store.put(FileRecords.HOLDS + isbn, FileRecords.encodeHolds(holds));
+                return PlaceResult.PLACED;
+            }
+
+        } catch (IOException e) {
+            System.err.println("Error placing hold: " + e.getMessage());
+            return PlaceResult.FAILED;
+        }
+    }
+
+    @Override
+    public String cancelHold(String isbn, String memberId) {
+        try {
+            synchronized (store) {
+                StoredHolds holds = load(store, isbn);
+                if (holds == null) {
+                    return null;
+                }
+                String nextHolder = null;
+                boolean released = false;
+                if (memberId.equals(holds.readyMember)) {
+                    nextHolder = holds.promoteNext(pickupDays);
+                    released = nextHolder == null;
+                } else if (!holds.waiting.remove(memberId)) {
+                    return null;
+                }
+
+                save(store, isbn, holds);
+                if (released) {
+                    AvailabilityFeed.getInstance().publish(isbn, memberId, true);
+                }
+                return nextHolder;
+            }
+
+        } catch (IOException e) {
+            System.err.println("Error cancelling hold: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public String findReadyHolder(String isbn) {
+        return readyHolder(load(store, isbn));
+    }
+
+    static StoredHolds load(LogStore store, String isbn) {
+        byte[] bytes = store.get(FileRecords.HOLDS + isbn);
+        return bytes != null ? FileRecords.decodeHolds(isbn, bytes) : null;
+    }
+
+    static void save(LogStore store, String isbn, StoredHolds holds) throws IOException {
+        store.write(Collections.singletonMap(FileRecords.HOLDS + isbn, record(holds)));
+    }
+
+    /**
+     * The store record of a hold queue, or null to delete it once nobody is holding the item
+     */
+    static byte[] record(StoredHolds holds) {
+        return holds.readyMember == null && holds.waiting.isEmpty() ? null : FileRecords.encodeHolds(holds);
+    }
+
+    private static String readyHolder(StoredHolds holds) {
+        return holds != null && !holds.isLapsed(LocalDate.now()) ? holds.readyMember : null;
+    }
+}
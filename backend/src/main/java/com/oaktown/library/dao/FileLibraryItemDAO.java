@@ -0,0 +1,215 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.dao.FileRecords.StoredItem;
+import com.oaktown.library.dao.FileRecords.StoredLoan;
+import com.oaktown.library.dao.FileRecords.StoredMember;
+import com.oaktown.library.model.ItemType;
+import com.oaktown.library.model.LibraryItem;
+import com.oaktown.library.util.LogStore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Library items kept in the embedded {@link LogStore} instead of MySQL.
+ * Every lookup is answered from the store's in-memory index, so there is
+ * no key filter to warm up and no query to coalesce.
+ */
+public class FileLibraryItemDAO implements LibraryItemRepository {
+
+    private static final Comparator<LibraryItem> BY_TITLE =
+        Comparator.comparing(LibraryItem::getTitle, String.CASE_INSENSITIVE_ORDER);
+
+    private final LogStore store;
+
+    public FileLibraryItemDAO(LogStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public boolean createLibraryItem(LibraryItem item) {
+        String key = FileRecords.ITEM + item.getIsbn();
+
+        try {
+            synchronized (store) {
+                if (store.containsKey(key)) {
+                    return false;
+                }
+                store.put(key, FileRecords.encodeItem(new StoredItem(item, 0)));
+                return true;
+            }
+
+        } catch (IOException e) {
+            System.err.println("Error creating library item: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public LibraryItem findByIsbn(String isbn) {
+        StoredItem stored = load(store, isbn);
+        return stored != null ? withHolds(stored.item) : null;
+    }
+
+    @Override
+    public ItemType findItemType(String isbn) {
+        LibraryItem item = findByIsbn(isbn);
+        return item != null ? item.getType() : null;
+    }
+
+    @Override
+    public Map<String, ItemType> findItemTypes(Collection<String> isbns) {
+        Map<String, ItemType> types = new HashMap<>();
+        for (String isbn : isbns) {
+            ItemType type = findItemType(isbn);
+            if (type != null) {
+                types.put(isbn, type);
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Nothing to build: the store's index already answers unknown ISBNs from memory
+     */
+    @Override
+    public void initializeKeyFilter() {
+    }
+
+    @Override
+    public List<LibraryItem> findAll() {
+        List<LibraryItem> items = new ArrayList<>();
+        for (Map.Entry<String, byte[]> entry : store.scan(FileRecords.ITEM).entrySet()) {
+            items.add(withHolds(decode(entry.getKey(), entry.getValue()).item));
+        }
+        items.sort(BY_TITLE);
+        return items;
+    }
+
+    @Override
+    public List<LibraryItem> findAvailableByTitleKeyword(String keyword) {
+        String needle = keyword.toLowerCase(Locale.ROOT);
+        List<LibraryItem> items = new ArrayList<>();
+        for (LibraryItem item : findAll()) {
+            if (item.canBeBorrowed() && item.getTitle().toLowerCase(Locale.ROOT).contains(needle)) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    @Override
+    public boolean updateAvailability(String isbn, boolean available, String borrowerId) {
+        try {
+            synchronized (store) {
+                StoredItem stored = load(store, isbn);
+                if (stored == null) {
+                    return false;
+                }
+                setAvailability(stored, available, borrowerId);
+                return true;
+            }
+
+        } catch (IOException e) {
+            System.err.println("Error updating item availability: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean updateAvailability(LibraryItem item, boolean available, String borrowerId) {
+        try {
+            synchronized (store) {
+                StoredItem stored = load(store, item.getIsbn());
+                if (stored == null || stored.item.getVersion() != item.getVersion()) {
+                    throw new OptimisticLockException(item.getIsbn(), item.getVersion());
+                }
+                setAvailability(stored, available, borrowerId);
+            }
+
+            item.setVersionForDAO(item.getVersion() + 1);
+            item.setBorrowerForDAO(available ? null : borrowerId);
+            return true;
+
+        } catch (IOException e) {
+            System.err.println("Error updating item availability: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Delete an item and its open loan, giving the borrower's loan slot back
+     */
+    @Override
+    public boolean deleteLibraryItem(String isbn) {
+        try {
+            synchronized (store) {
+                StoredItem stored = load(store, isbn);
+                if (stored == null) {
+                    return false;
+                }
+
+                Map<String, byte[]> writes = new HashMap<>();
+                writes.put(FileRecords.ITEM + isbn, null);
+                if (stored.openLoanId > 0) {
+                    String loanKey = FileRecords.LOAN + stored.openLoanId;
+                    StoredLoan loan = FileRecords.decodeLoan(stored.openLoanId, store.get(loanKey));
+                    StoredMember borrower = FileMemberDAO.load(store, loan.memberId);
+                    if (borrower != null) {
+                        borrower.current.remove(isbn);
+                        writes.put(FileRecords.MEMBER + loan.memberId, FileRecords.encodeMember(borrower));
+                    }
+                    writes.put(loanKey, null);
+                }
+                store.write(writes);
+                return true;
+            }
+
+        } catch (IOException e) {
+            System.err.println("Error deleting library item: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Load an item with its open loan ID
+     * @return the stored item, or null if the ISBN is unknown
+     */
+    static StoredItem load(LogStore store, String isbn) {
+        byte[] bytes = store.get(FileRecords.ITEM + isbn);
+        return bytes != null ? FileRecords.decodeItem(isbn, bytes) : null;
+    }
+
+    /**
+     * Show an item on the shelf as reserved while a hold on it is ready, as the
+     * MySQL catalog does; the item record itself only knows its borrower
+     */
+    private LibraryItem withHolds(LibraryItem item) {
+        if (item.isAvailable()) {
+            FileRecords.StoredHolds holds = FileHoldDAO.load(store, item.getIsbn());
+            if (holds != null && holds.readyMember != null) {
+                item.setReservedForDAO();
+            }
+        }
+        return item;
+    }
+
+    private static StoredItem decode(String key, byte[] bytes) {
+        return FileRecords.decodeItem(key.substring(FileRecords.ITEM.length()), bytes);
+    }
+
+    /**
+     * Administrative override: bumps the version and leaves any loan record as it is
+     */
+    private void setAvailability(StoredItem stored, boolean available, String borrowerId) throws IOException {
+        stored.item.setBorrowerForDAO(available ? null : borrowerId);
+        stored.item.setVersionForDAO(stored.item.getVersion() + 1);
+        store.put(FileRecords.ITEM + stored.item.getIsbn(), FileRecords.encodeItem(stored));
+    }
+}
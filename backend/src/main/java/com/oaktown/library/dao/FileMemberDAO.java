@@ -0,0 +1,155 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.dao.FileRecords.StoredMember;
+import com.oaktown.library.model.Member;
+import com.oaktown.library.util.LogStore;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Members kept in the embedded {@link LogStore} instead of MySQL.
+ * Each member record also lists the ISBNs the member has on loan and has
+ * returned, so loading a member never has to look at the loans themselves.
+ */
+public class FileMemberDAO implements MemberRepository {
+
+    private static final Comparator<Member> BY_NAME = Comparator.comparing(Member::getName, String.CASE_INSENSITIVE_ORDER);
+
+    private final LogStore store;
+
+    public FileMemberDAO(LogStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public boolean createMember(Member member) {
+        String key = FileRecords.MEMBER + member.getMemberId();
+        StoredMember stored = new StoredMember(member, new ArrayList<>(), new ArrayList<>());
+
+        try {
+            synchronized (store) {
+                if (store.containsKey(key)) {
+                    return false;
+                }
+                store.put(key, FileRecords.encodeMember(stored));
+                return true;
+            }
+
+        } catch (IOException e) {
+            System.err.println("Error creating member: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public Member findById(String memberId) {
+        StoredMember stored = load(store, memberId);
+        return stored != null ? stored.member : null;
+    }
+
+    /**
+     * Nothing to build: the store's index already answers unknown member IDs from memory
+     */
+    @Override
+    public void initializeKeyFilter() {
+    }
+
+    @Override
+    public List<Member> findAll() {
+        List<Member> members = new ArrayList<>();
+        for (Map.Entry<String, byte[]> entry : store.scan(FileRecords.MEMBER).entrySet()) {
+            String memberId = entry.getKey().substring(FileRecords.MEMBER.length());
+            members.add(FileRecords.decodeMember(memberId, entry.getValue()).member);
+        }
+        members.sort(BY_NAME);
+        return members;
+    }
+
+    /**
+     * Update contact details and status; the member's loans are kept as stored
+     */
+    @Override
+    public boolean updateMember(Member member) {
+        try {
+            synchronized (store) {
+                StoredMember existing = load(store, member.getMemberId());
+                if (existing == null) {
+                    return false;
+                }
+                StoredMember updated = new StoredMember(member, existing.current, existing.previous);
+                store.put(FileRecords.MEMBER + member.getMemberId(), FileRecords.encodeMember(updated));
+                return true;
+            }
+
+        } catch (IOException e) {
+            System.err.println("Error updating member: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Delete a member. Refused while the member has items on loan, since
+     * those items would otherwise stay checked out to nobody.
+     */
+    @Override
+    public boolean deleteMember(String memberId) {
+        try {
+            synchronized (store) {
+                StoredMember existing = load(store, memberId);
+                if (existing == null || !existing.current.isEmpty()) {
+                    return false;
+                }
+                store.delete(FileRecords.MEMBER + memberId);
+                return true;
+            }
+
+        } catch (IOException e) {
+            System.err.println("Error deleting member: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public List<String> getCurrentlyBorrowedItems(String memberId) {
+        StoredMember stored = load(store, memberId);
+        return stored != null ? stored.current : Collections.emptyList();
+    }
+
+    @Override
+    public List<String> getPreviouslyBorrowedItems(String memberId) {
+        StoredMember stored = load(store, memberId);
+        return stored != null ? stored.previous : Collections.emptyList();
+    }
+
+    @Override
+    public List<Member> findByName(String namePattern) {
+        String needle = namePattern.toLowerCase(Locale.ROOT);
+        List<Member> members = new ArrayList<>();
+        for (Member member : findAll()) {
+            if (member.getName().toLowerCase(Locale.ROOT).contains(needle)) {
+                members.add(member);
+            }
+        }
+        return members;
+    }
+
+    @Override
+    public boolean memberExists(String memberId) {
+        return store.containsKey(FileRecords.MEMBER + memberId);
+    }
+
+    /**
+     * Load a member with its current and previous loans
+     * @return the stored member, or null if the ID is unknown
+     */
+    static StoredMember load(LogStore store, String memberId) {
+        byte[] bytes = store.get(FileRecords.MEMBER + memberId);
+        return bytes != null ? FileRecords.decodeMember(memberId, bytes) : null;
+    }
+}
@@ -0,0 +1,334 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary layouts of the records the file-backed DAOs keep in a {@link com.oaktown.library.util.LogStore}.
+ * Keys are a type prefix plus the natural key, e.g. "item:978-0134685991".
+ */
+final class FileRecords {
+
+    static final String ITEM = "item:";
+    static final String MEMBER = "member:";
+    static final String LOAN = "loan:";
+    static final String REQUEST = "request:";
+    static final String HOLDS = "holds:";
+
+    /**
+     * A catalog item plus the ID of its open loan, 0 while it is on the shelf
+     */
+    static final class StoredItem {
+        final LibraryItem item;
+        long openLoanId;
+
+        StoredItem(LibraryItem item, long openLoanId) {
+            this.item = item;
+            this.openLoanId = openLoanId;
+        }
+    }
+
+    /**
+     * A member's profile plus the ISBNs it has on loan and has returned
+     */
+    static final class StoredMember {
+        final Member member;
+        final List<String> current;
+        final List<String> previous;
+
+        StoredMember(Member member, List<String> current, List<String> previous) {
+            this.member = member;
+            this.current = current;
+            this.previous = previous;
+        }
+    }
+
+    static final class StoredLoan {
+        final long id;
+        final String isbn;
+        final String memberId;
+        final LocalDate borrowDate;
+        final LocalDate dueDate;
+        final long dailyCents;
+        LocalDate returnDate;
+        long totalCents;
+
+        StoredLoan(long id, String isbn, String memberId, LocalDate borrowDate, LocalDate dueDate, long dailyCents) {
+            this.id = id;
+            this.isbn = isbn;
+            this.memberId = memberId;
+            this.borrowDate = borrowDate;
+            this.dueDate = dueDate;
+            this.dailyCents = dailyCents;
+        }
+    }
+
+    /**
+     * The hold queue of one item: the member whose hold is ready, if any, and
+     * the members still waiting, oldest first
+     */
+    static final class StoredHolds {
+        String readyMember;
+        LocalDate readyUntil;
+        final List<String> waiting;
+
+        StoredHolds(String readyMember, LocalDate readyUntil, List<String> waiting) {
+            this.readyMember = readyMember;
+            this.readyUntil = readyUntil;
+            this.waiting = waiting;
+        }
+
+        boolean isLapsed(LocalDate today) {
+            return readyMember != null && readyUntil.isBefore(today);
+        }
+
+        /**
+         * Clear the ready hold and make the oldest waiting hold ready in its place
+         * @return the member whose hold became ready, or null if nobody is waiting
+         */
+        String promoteNext(int pickupDays) {
+            readyMember = waiting.isEmpty() ? null : waiting.remove(0);
+            readyUntil = readyMember != null ? LocalDate.now().plusDays(pickupDays) : null;
+            return readyMember;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private FileRecords() {
+    }
+
+    static byte[] encodeItem(StoredItem stored) {
+        LibraryItem item = stored.item;
+        return encode(out -> {
+            out.writeUTF(item.getType().name());
+            out.writeUTF(item.getTitle());
+            out.writeUTF(item.getAuthor());
+            out.writeInt(item.getPublicationYear());
+            writeNullable(out, item.getCurrentBorrower());
+            out.writeInt(item.getVersion());
+            out.writeLong(stored.openLoanId);
+            if (item instanceof Book) {
+                Book book = (Book) item;
+                out.writeInt(book.getPages());
+                out.writeUTF(book.getGenre());
+                out.writeBoolean(item instanceof ReferenceBook && ((ReferenceBook) item).isRestricted());
+            } else if (item instanceof Magazine) {
+                Magazine magazine = (Magazine) item;
+                out.writeInt(magazine.getIssueNumber());
+                out.writeInt(magazine.getVolume());
+                out.writeUTF(magazine.getFrequency());
+            }
+        });
+    }
+
+    static StoredItem decodeItem(String isbn, byte[] bytes) {
+        try (DataInputStream in = decoder(bytes)) {
+            ItemType type = ItemType.valueOf(in.readUTF());
+            String title = in.readUTF();
+            String author = in.readUTF();
+            int year = in.readInt();
+            String borrower = readNullable(in);
+            int version = in.readInt();
+            long openLoanId = in.readLong();
+
+            LibraryItem item;
+            if (type == ItemType.MAGAZINE) {
+                item = new Magazine(isbn, title, author, year, in.readInt(), in.readInt(), in.readUTF());
+            } else {
+                int pages = in.readInt();
+                String genre = in.readUTF();
+                boolean restricted = in.readBoolean();
+                item = type == ItemType.REFERENCE_BOOK
+                    ? new ReferenceBook(isbn, title, author, year, pages, genre, restricted)
+                    : new Book(isbn, title, author, year, pages, genre);
+            }
+            item.setVersionForDAO(version);
+            item.setBorrowerForDAO(borrower);
+            return new StoredItem(item, openLoanId);
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt item record " + isbn, e);
+        }
+    }
+
+    static byte[] encodeMember(StoredMember stored) {
+        Member member = stored.member;
+        return encode(out -> {
+            out.writeUTF(member.getName());
+            writeNullable(out, member.getEmail());
+            writeNullable(out, member.getPhone());
+            writeNullable(out, member.getAddress());
+            out.writeLong(member.getRegistrationDate().toEpochDay());
+            out.writeBoolean(member.isActive());
+            writeList(out, stored.current);
+            writeList(out, stored.previous);
+        });
+    }
+
+    /**
+     * Decode a member; like MemberDAO, the returned Member carries its current loans
+     */
+    static StoredMember decodeMember(String memberId, byte[] bytes) {
+        try (DataInputStream in = decoder(bytes)) {
+            Member member = new Member(memberId, in.readUTF(), readNullable(in), readNullable(in), readNullable(in),
+                LocalDate.ofEpochDay(in.readLong()), in.readBoolean());
+            List<String> current = readList(in);
+            List<String> previous = readList(in);
+            // Returned ISBNs stand in for the loan count, which the file store does not keep
+            member.setReturnedLoanCountForDAO(previous.size());
+
+            for (String isbn : current) {
+                try {
+                    member.borrowItem(isbn);
+                } catch (IllegalStateException e) {
+                    // Inactive members keep their loans on record but cannot be handed them
+                }
+            }
+            return new StoredMember(member, current, previous);
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt member record " + memberId, e);
+        }
+    }
+
+    static byte[] encodeLoan(StoredLoan loan) {
+        return encode(out -> {
+            out.writeUTF(loan.isbn);
+            out.writeUTF(loan.memberId);
+            out.writeLong(loan.borrowDate.toEpochDay());
+            out.writeLong(loan.dueDate.toEpochDay());
+            out.writeLong(loan.dailyCents);
+            out.writeBoolean(loan.returnDate != null);
+            if (loan.returnDate != null) {
+                out.writeLong(loan.returnDate.toEpochDay());
+                out.writeLong(loan.totalCents);
+            }
+        });
+    }
+
+    static StoredLoan decodeLoan(long id, byte[] bytes) {
+        try (DataInputStream in = decoder(bytes)) {
+            StoredLoan loan = new StoredLoan(id, in.readUTF(), in.readUTF(), LocalDate.ofEpochDay(in.readLong()),
+                LocalDate.ofEpochDay(in.readLong()), in.readLong());
+            if (in.readBoolean()) {
+                loan.returnDate = LocalDate.ofEpochDay(in.readLong());
+                loan.totalCents = in.readLong();
+            }
+            return loan;
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt loan record " + id, e);
+        }
+    }
+
+    static byte[] encodeHolds(StoredHolds holds) {
+        return encode(out -> {
+            writeNullable(out, holds.readyMember);
+            if (holds.readyMember != null) {
+                out.writeLong(holds.readyUntil.toEpochDay());
+            }
+            writeList(out, holds.waiting);
+        });
+    }
+
+    static StoredHolds decodeHolds(String isbn, byte[] bytes) {
+        try (DataInputStream in = decoder(bytes)) {
+            String readyMember = readNullable(in);
+            LocalDate readyUntil = readyMember != null ? LocalDate.ofEpochDay(in.readLong()) : null;
+            return new StoredHolds(readyMember, readyUntil, readList(in));
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt hold record " + isbn, e);
+        }
+    }
+
+    /**
+     * A processed request: its outcome, when it was recorded, and the operation,
+     * item and member it was for
+     */
+    static byte[] encodeRequest(ProcessedRequest request, long processedAtMillis) {
+        return encode(out -> {
+            out.writeBoolean(request.isSuccess());
+            out.writeLong(processedAtMillis);
+            out.writeUTF(request.getOperation().name());
+            out.writeUTF(request.getIsbn());
+            out.writeUTF(request.getMemberId());
+        });
+    }
+
+    static ProcessedRequest decodeRequest(String requestId, byte[] bytes) {
+        try (DataInputStream in = decoder(bytes)) {
+            boolean success = in.readBoolean();
+            in.readLong();
+            return new ProcessedRequest(requestId, ProcessedRequest.Operation.valueOf(in.readUTF()), in.readUTF(),
+                in.readUTF(), success);
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt request record " + requestId, e);
+        }
+    }
+
+    static long requestProcessedAt(byte[] bytes) {
+        try (DataInputStream in = decoder(bytes)) {
+            in.readBoolean();
+            return in.readLong();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt request record", e);
+        }
+    }
+
+    private static byte[] encode(Writer writer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writer.write(out);
+        } catch (IOException e) {
+            // Writing to memory cannot fail
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream decoder(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeList(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static List<String> readList(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(in.readUTF());
+        }
+        return values;
+    }
+}
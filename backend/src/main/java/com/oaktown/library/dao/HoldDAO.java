@@ -0,0 +1,292 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.util.AvailabilityFeed;
+import com.oaktown.library.util.DatabaseConnection;
+import com.oaktown.library.util.TransactionTemplate;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Data Access Object for the holds table.
+ * Holds on an ISBN form a FIFO queue ordered by id. When a loan is returned
+ * the oldest WAITING hold becomes READY in the same transaction, and until
+ * its pickup window lapses only that member can borrow the item. A lapsed
+ * hold expires and passes the item on to the next member in the queue.
+ * While a hold is READY the item is reserved: library_items.available stays
+ * FALSE with no current_borrower, so searches and the catalog do not offer it.
+ */
+public class HoldDAO implements HoldRepository {
+    
+    static final String NEXT_WAITING_SQL =
+        "SELECT id, member_id FROM holds WHERE isbn = ? AND status = 'WAITING' ORDER BY id LIMIT 1 FOR UPDATE";
+    
+    static final String READY_HOLD_SQL =
+        "SELECT id, member_id, ready_until FROM holds WHERE isbn = ? AND status = 'READY' FOR UPDATE";
+    
+    public static final int DEFAULT_PICKUP_DAYS = 3;
+    
+    private final DatabaseConnection dbConnection;
+    private final TransactionTemplate txTemplate;
+    // Days a ready hold keeps the item for its member
+    private final int pickupDays;
+    
+    public HoldDAO() {
+        this(DatabaseConnection.getInstance());
+    }
+    
+    /**
+     * Create a DAO on a specific database, e.g. one branch shard
+     */
+    public HoldDAO(DatabaseConnection dbConnection) {
+        this.dbConnection = dbConnection;
+        this.txTemplate = new TransactionTemplate(dbConnection);
+        this.pickupDays = dbConnection.getIntProperty("holds.pickup.days", DEFAULT_PICKUP_DAYS);
+    }
+    
+    /**
+     * Queue a hold for a member on a borrowed item. The item row is locked first,
+     * so a hold cannot slip in after a concurrent return has already looked for one.
+     */
+    @Override
+    public PlaceResult placeHold(String isbn, String memberId) {
+        String itemSql = "SELECT available, current_borrower FROM library_items WHERE isbn = ? FOR UPDATE";
+        String existingSql = "SELECT 1 FROM holds WHERE isbn = ? AND member_id = ? AND status IN ('WAITING', 'READY')";
+        String insertSql = "INSERT INTO holds (isbn, member_id, status) VALUES (?, ?, 'WAITING')";
+    
+        try {
+            return txTemplate.execute("placeHold", conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(itemSql)) {
+                    stmt.setString(1, isbn);
+                    ResultSet rs = stmt.executeQuery();
+                    if (!rs.next()) {
+                        return PlaceResult.NOT_FOUND;
+                    }
+                    // On the shelf, or reserved for a hold that has lapsed
+                    if (rs.getString("current_borrower") == null && findReadyHolder(conn, isbn) == null) {
+                        return PlaceResult.ITEM_AVAILABLE;
+                    }
+                    if (memberId.equals(rs.getString("current_borrower"))) {
+                        return PlaceResult.ALREADY_BORROWED;
+                    }
+                }
+    
+                try (PreparedStatement stmt = conn.prepareStatement(existingSql)) {
+                    stmt.setString(1, isbn);
+                    stmt.setString(2, memberId);
+                    if (stmt.executeQuery().next()) {
+                        return PlaceResult.ALREADY_HOLDING;
+                    }
+                }
+    
+                try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
+                    stmt.setString(1, isbn);
+                    stmt.setString(2, memberId);
+                    stmt.executeUpdate();
+                }
+                return PlaceResult.PLACED;
+            });
+    
+        } catch (SQLException e) {
+            System.err.println("Error placing hold: " + e.getMessage());
+            return PlaceResult.FAILED;
+        }
+    }
+    
+    /**
+     * Cancel a member's waiting or ready hold. Cancelling a ready hold passes
+     * the item on to the next member in the queue, or with nobody waiting puts
+     * it back on the shelf.
+     * @return the member whose hold became ready as a result, or null
+     */
+    @Override
+    public String cancelHold(String isbn, String memberId) {
+        String findSql = "SELECT id, status FROM holds WHERE isbn = ? AND member_id = ? " +
+                        "AND status IN ('WAITING', 'READY') FOR UPDATE";
+        String cancelSql = "UPDATE holds SET status = 'CANCELLED' WHERE id = ?";
+        AtomicBoolean released = new AtomicBoolean();
+    
+        try {
+            String nextHolder = txTemplate.execute("cancelHold", conn -> {
+                released.set(false);
+                int holdId;
+                boolean ready;
+                try (PreparedStatement stmt = conn.prepareStatement(findSql)) {
+                    stmt.setString(1, isbn);
+                    stmt.setString(2, memberId);
+                    ResultSet rs = stmt.executeQuery();
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    holdId = rs.getInt("id");
+                    ready = "READY".equals(rs.getString("status"));
+                }
+    
+                try (PreparedStatement stmt = conn.prepareStatement(cancelSql)) {
+                    stmt.setInt(1, holdId);
+                    stmt.executeUpdate();
+                }
+    
+                if (!ready) {
+                    return null;
+                }
+                String next = promoteNextHold(conn, isbn, pickupDays);
+                if (next == null) {
+                    releaseItem(conn, isbn);
+                    released.set(true);
+                }
+                return next;
+            });
+            
+            if (released.get()) {
+                AvailabilityFeed.getInstance().publish(isbn, memberId, true);
+            }
+            return nextHolder;
+    
+        } catch (SQLException e) {
+            System.err.println("Error cancelling hold: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Find the member whose hold on an item is ready for pickup
+     * @return the member ID, or null if no hold is ready
+     */
+    @Override
+    public String findReadyHolder(String isbn) {
+        try (Connection conn = dbConnection.getConnection()) {
+            return findReadyHolder(conn, isbn);
+    
+        } catch (SQLException e) {
+            System.err.println("Error finding ready hold: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Make the oldest waiting hold on an item ready for pickup and reserve the item.
+     * Runs inside the caller's transaction, after the item row has been locked.
+     * @return the member whose hold became ready, or null if nobody is waiting
+     */
+    static String promoteNextHold(Connection conn, String isbn, int pickupDays) throws SQLException {
+        int holdId;
+        String memberId;
+        try (PreparedStatement stmt = conn.prepareStatement(NEXT_WAITING_SQL)) {
+            stmt.setString(1, isbn);
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
+                return null;
+            }
+            holdId = rs.getInt("id");
+            memberId = rs.getString("member_id");
+        }
+    
+        String readySql = "UPDATE holds SET status = 'READY', ready_until = ? WHERE id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(readySql)) {
+            stmt.setDate(1, Date.valueOf(LocalDate.now().plusDays(pickupDays)));
+            stmt.setInt(2, holdId);
+            stmt.executeUpdate();
+        }
+        
+        // Reserve the item: off the shelf, but not lent to anyone
+        String reserveSql = "UPDATE library_items SET available = FALSE, version = version + 1 " +
+                           "WHERE isbn = ? AND current_borrower IS NULL";
+        try (PreparedStatement stmt = conn.prepareStatement(reserveSql)) {
+            stmt.setString(1, isbn);
+            stmt.executeUpdate();
+        }
+        return memberId;
+    }
+    
+    /**
+     * Check a borrower against the ready hold on an item, if any.
+     * The borrower's own hold is fulfilled.
+     * @return false if another member's hold is still within its pickup window
+     * @throws HoldLapsedException if another member's hold has lapsed; nothing was written
+     */
+    static boolean claimReadyHold(Connection conn, String isbn, String memberId) throws SQLException {
+        int holdId;
+        try (PreparedStatement stmt = conn.prepareStatement(READY_HOLD_SQL)) {
+            stmt.setString(1, isbn);
+            ResultSet rs = stmt.executeQuery();
+            if (!rs.next()) {
+                return true;
+            }
+            holdId = rs.getInt("id");
+            if (!memberId.equals(rs.getString("member_id"))) {
+                if (rs.getDate("ready_until").toLocalDate().isBefore(LocalDate.now())) {
+                    throw new HoldLapsedException(isbn);
+                }
+                return false;
+            }
+        }
+    
+        setStatus(conn, holdId, "FULFILLED");
+        return true;
+    }
+    
+    /**
+     * Expire the ready hold on an item if its pickup window has lapsed and make
+     * the next waiting hold ready, the same way a return does. With nobody
+     * waiting the item goes back on the shelf.
+     * Runs inside the caller's transaction and locks the item row first.
+     * @return the member whose hold became ready, or null if none did
+     */
+    static String expireLapsedHold(Connection conn, String isbn, int pickupDays) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT 1 FROM library_items WHERE isbn = ? FOR UPDATE")) {
+            stmt.setString(1, isbn);
+            stmt.executeQuery();
+        }
+    
+        int holdId;
+        try (PreparedStatement stmt = conn.prepareStatement(READY_HOLD_SQL)) {
+            stmt.setString(1, isbn);
+            ResultSet rs = stmt.executeQuery();
+            // Another borrower may have expired it already
+            if (!rs.next() || !rs.getDate("ready_until").toLocalDate().isBefore(LocalDate.now())) {
+                return null;
+            }
+            holdId = rs.getInt("id");
+        }
+    
+        setStatus(conn, holdId, "EXPIRED");
+        String next = promoteNextHold(conn, isbn, pickupDays);
+        if (next == null) {
+            releaseItem(conn, isbn);
+        }
+        return next;
+    }
+    
+    /**
+     * Put a reserved item back on the shelf once no hold is ready
+     */
+    private static void releaseItem(Connection conn, String isbn) throws SQLException {
+        String sql = "UPDATE library_items SET available = TRUE, version = version + 1 " +
+                    "WHERE isbn = ? AND current_borrower IS NULL";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, isbn);
+            stmt.executeUpdate();
+        }
+    }
+    
+    private static void setStatus(Connection conn, int holdId, String status) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("UPDATE holds SET status = ? WHERE id = ?")) {
+            stmt.setString(1, status);
+            stmt.setInt(2, holdId);
+            stmt.executeUpdate();
+        }
+    }
+    
+    private static String findReadyHolder(Connection conn, String isbn) throws SQLException {
+        String sql = "SELECT member_id FROM holds WHERE isbn = ? AND status = 'READY' AND ready_until >= ?";
+    
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, isbn);
+            stmt.setDate(2, Date.valueOf(LocalDate.now()));
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.oaktown.library.dao;
+
+/**
+ * Thrown when a borrow finds another member's ready hold whose pickup window
+ * has lapsed. The hold has to be expired and the next one promoted in a
+ * transaction of their own, so the borrow's transaction is rolled back and
+ * the caller retries once that is done.
+ */
+public class HoldLapsedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String isbn;
+
+    public HoldLapsedException(String isbn) {
+        super("Ready hold on " + isbn + " has lapsed");
+        this.isbn = isbn;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+}
@@ -0,0 +1,39 @@
+package com.oaktown.library.dao;
+
+/**
+ * Storage of the hold queues, implemented on MySQL by {@link HoldDAO} and across
+ * per-branch databases by {@link ShardedHoldRepository}. Holds are promoted and
+ * claimed by the borrowing repository inside its own loan transactions.
+ */
+public interface HoldRepository {
+    
+    /**
+     * Outcome of {@link #placeHold}
+     */
+    enum PlaceResult {
+        PLACED,
+        ITEM_AVAILABLE,
+        ALREADY_HOLDING,
+        ALREADY_BORROWED,
+        NOT_FOUND,
+        FAILED
+    }
+    
+    /**
+     * Queue a hold for a member on a borrowed item
+     */
+    PlaceResult placeHold(String isbn, String memberId);
+    
+    /**
+     * Cancel a member's waiting or ready hold. Cancelling a ready hold passes
+     * the item on to the next member in the queue.
+     * @return the member whose hold became ready as a result, or null
+     */
+    String cancelHold(String isbn, String memberId);
+    
+    /**
+     * Find the member whose hold on an item is ready for pickup
+     * @return the member ID, or null if no hold is ready
+     */
+    String findReadyHolder(String isbn);
+}
@@ -1,84 +1,331 @@
 package com.oaktown.library.dao;
 
 import com.oaktown.library.model.*;
+import com.oaktown.library.util.CatalogSnapshot;
+import com.oaktown.library.util.ColumnIndex;
 import com.oaktown.library.util.DatabaseConnection;
+import com.oaktown.library.util.KeyPresenceFilter;
+import com.oaktown.library.util.RowMapper;
+import com.oaktown.library.util.SingleFlight;
+import com.oaktown.library.util.StringPool;
+import com.oaktown.library.util.TransactionTemplate;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Access Object for LibraryItem entities.
  * Handles all database operations related to library items.
  */
-public class LibraryItemDAO {
+public class LibraryItemDAO implements LibraryItemRepository {
+    
+    // Shared by all DAO instances so concurrent identical lookups coalesce process-wide
+    private static final SingleFlight<String, LibraryItem> ISBN_LOOKUPS = new SingleFlight<>("findByIsbn");
+    // Rejects unknown ISBNs (scanner noise, non-catalog barcodes) without a query
+    private static final KeyPresenceFilter ISBN_FILTER = new KeyPresenceFilter("isbn", 10_000, 30);
+    // Columns that repeat across many rows; mapped items share one String per value
+    private static final StringPool AUTHORS = new StringPool(100_000);
+    private static final StringPool GENRES = new StringPool(1_024);
+    private static final StringPool FREQUENCIES = new StringPool(64);
+    
+    // Item reads for the two catalog layouts; both alias library_items as li and
+    // return the same column labels, so mapResultSetToLibraryItem handles either
+    static final String JOINED_SELECT =
+        "SELECT li.isbn, li.title, li.author, li.publication_year, li.item_type, li.current_borrower, " +
+        "li.available, li.version, b.pages, b.genre, rb.restricted, m.issue_number, m.volume, m.frequency " +
+        "FROM library_items li " +
+        "LEFT JOIN books b ON li.isbn = b.isbn " +
+        "LEFT JOIN reference_books rb ON li.isbn = rb.isbn " +
+        "LEFT JOIN magazines m ON li.isbn = m.isbn ";
+    
+    static final String SINGLE_TABLE_SELECT =
+        "SELECT li.isbn, li.title, li.author, li.publication_year, li.item_type, li.current_borrower, " +
+        "li.available, li.version, li.pages, li.genre, li.restricted, li.issue_number, li.volume, li.frequency " +
+        "FROM library_items li ";
+    
+    /**
+     * Maps a catalog row by column position. The subtype constructor is picked
+     * from a table keyed by ItemType that is built once per result set.
+     * Authors, genres and frequencies are pooled, so a cached catalog holds
+     * each distinct value once.
+     */
+    public static final RowMapper.Factory<LibraryItem> ROW_MAPPER = columns -> {
+        int isbn = columns.require("isbn");
+        int title = columns.require("title");
+        int author = columns.require("author");
+        int publicationYear = columns.require("publication_year");
+        int itemType = columns.require("item_type");
+        int currentBorrower = columns.require("current_borrower");
+        int available = columns.require("available");
+        int version = columns.require("version");
+        int pages = columns.find("pages");
+        int genre = columns.find("genre");
+        int restricted = columns.find("restricted");
+        int issueNumber = columns.find("issue_number");
+        int volume = columns.find("volume");
+        int frequency = columns.find("frequency");
+        
+        Map<ItemType, RowMapper<LibraryItem>> subtypes = new EnumMap<>(ItemType.class);
+        subtypes.put(ItemType.BOOK, rs -> new Book(rs.getString(isbn), rs.getString(title),
+            AUTHORS.intern(rs.getString(author)), rs.getInt(publicationYear), rs.getInt(pages),
+            GENRES.intern(rs.getString(genre))));
+        subtypes.put(ItemType.REFERENCE_BOOK, rs -> new ReferenceBook(rs.getString(isbn), rs.getString(title),
+            AUTHORS.intern(rs.getString(author)), rs.getInt(publicationYear), rs.getInt(pages),
+            GENRES.intern(rs.getString(genre)), rs.getBoolean(restricted)));
+        subtypes.put(ItemType.MAGAZINE, rs -> new Magazine(rs.getString(isbn), rs.getString(title),
+            AUTHORS.intern(rs.getString(author)), rs.getInt(publicationYear), rs.getInt(issueNumber),
+            rs.getInt(volume), FREQUENCIES.intern(rs.getString(frequency))));
+        
+        return rs -> {
+            ItemType type = ItemType.fromCode(rs.getString(itemType));
+            RowMapper<LibraryItem> subtype = type != null ? subtypes.get(type) : null;
+            if (subtype == null) {
+                return null;
+            }
+            LibraryItem item = subtype.mapRow(rs);
+            item.setVersionForDAO(rs.getInt(version));
+            
+            // Set borrowing status
+            String borrower = rs.getString(currentBorrower);
+            if (!rs.getBoolean(available) && borrower != null) {
+                item.setBorrowerForDAO(borrower);
+            } else if (!rs.getBoolean(available)) {
+                item.setReservedForDAO();
+            }
+            return item;
+        };
+    };
     
     private final DatabaseConnection dbConnection;
+    private final TransactionTemplate txTemplate;
+    // true: subtype columns live in library_items itself (catalog.layout=single)
+    private final boolean singleTable;
     
     public LibraryItemDAO() {
-        this.dbConnection = DatabaseConnection.getInstance();
+        this(DatabaseConnection.getInstance());
+    }
+    
+    /**
+     * Create a DAO on a specific database, e.g. one branch shard
+     */
+    public LibraryItemDAO(DatabaseConnection dbConnection) {
+        this.dbConnection = dbConnection;
+        this.txTemplate = new TransactionTemplate(dbConnection);
+        this.singleTable = "single".equalsIgnoreCase(dbConnection.getProperty("catalog.layout", "joined"));
     }
     
     /**
      * Create a new library item in the database
      */
     public boolean createLibraryItem(LibraryItem item) {
-        Connection conn = null;
         try {
-            conn = dbConnection.getTransactionConnection();
-            
-            // Insert into library_items table
-            String itemSql = "INSERT INTO library_items (isbn, title, author, publication_year, item_type, current_borrower, available) VALUES (?, ?, ?, ?, ?, ?, ?)";
-            
-            try (PreparedStatement stmt = conn.prepareStatement(itemSql)) {
-                stmt.setString(1, item.getIsbn());
-                stmt.setString(2, item.getTitle());
-                stmt.setString(3, item.getAuthor());
-                stmt.setInt(4, item.getPublicationYear());
-                stmt.setString(5, item.getItemType().toUpperCase().replace(" ", "_"));
-                stmt.setString(6, item.getCurrentBorrower());
-                stmt.setBoolean(7, item.isAvailable());
+            boolean created = txTemplate.execute("createLibraryItem", conn -> {
+                if (singleTable) {
+                    return insertSingleTableItem(conn, item);
+                }
                 
-                stmt.executeUpdate();
-            }
-            
-            // Insert into specific type table
-            boolean success = false;
-            if (item instanceof ReferenceBook) {
-                success = insertReferenceBook(conn, (ReferenceBook) item);
-            } else if (item instanceof Book) {
-                success = insertBook(conn, (Book) item);
-            } else if (item instanceof Magazine) {
-                success = insertMagazine(conn, (Magazine) item);
-            }
+                // Insert into library_items table
+                String itemSql = "INSERT INTO library_items (isbn, title, author, publication_year, item_type, current_borrower, available) VALUES (?, ?, ?, ?, ?, ?, ?)";
+                
+                try (PreparedStatement stmt = conn.prepareStatement(itemSql)) {
+                    stmt.setString(1, item.getIsbn());
+                    stmt.setString(2, item.getTitle());
+                    stmt.setString(3, item.getAuthor());
+                    stmt.setInt(4, item.getPublicationYear());
+                    stmt.setString(5, item.getType().name());
+                    stmt.setString(6, item.getCurrentBorrower());
+                    stmt.setBoolean(7, item.isAvailable());
+                    
+                    stmt.executeUpdate();
+                }
+                
+                // Insert into specific type table
+                boolean success = false;
+                if (item instanceof ReferenceBook) {
+                    success = insertReferenceBook(conn, (ReferenceBook) item);
+                } else if (item instanceof Book) {
+                    success = insertBook(conn, (Book) item);
+                } else if (item instanceof Magazine) {
+                    success = insertMagazine(conn, (Magazine) item);
+                }
+                
+                if (!success) {
+                    conn.rollback();
+                }
+                return success;
+            });
             
-            if (success) {
-                conn.commit();
-                return true;
-            } else {
-                conn.rollback();
-                return false;
+            if (created) {
+                ISBN_FILTER.recordPresent(item.getIsbn());
             }
+            return created;
             
         } catch (SQLException e) {
             System.err.println("Error creating library item: " + e.getMessage());
-            DatabaseConnection.rollbackAndClose(conn);
             return false;
-        } finally {
-            DatabaseConnection.closeConnection(conn);
         }
     }
     
     /**
-     * Find library item by ISBN
+     * Find library item by ISBN.
+     * Concurrent lookups for the same ISBN share a single database query,
+     * but each caller gets its own copy of the item, since updateAvailability
+     * changes the version and borrower of the item it is given.
      */
     public LibraryItem findByIsbn(String isbn) {
-        String sql = "SELECT li.*, b.pages, b.genre, rb.restricted, m.issue_number, m.volume, m.frequency " +
-                    "FROM library_items li " +
-                    "LEFT JOIN books b ON li.isbn = b.isbn " +
-                    "LEFT JOIN reference_books rb ON li.isbn = rb.isbn " +
-                    "LEFT JOIN magazines m ON li.isbn = m.isbn " +
-                    "WHERE li.isbn = ?";
+        if (!ISBN_FILTER.mightExist(isbn)) {
+            return null;
+        }
+        return ISBN_LOOKUPS.execute(isbn, () -> loadByIsbn(isbn), LibraryItemDAO::copyOf);
+    }
+    
+    /**
+     * Find only the type of an item, without loading the item itself
+     * @return the item type, or null if the ISBN is unknown
+     */
+    public ItemType findItemType(String isbn) {
+        if (!ISBN_FILTER.mightExist(isbn)) {
+            return null;
+        }
+        
+        String sql = "SELECT item_type FROM library_items WHERE isbn = ?";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, isbn);
+            ResultSet rs = stmt.executeQuery();
+            
+            if (rs.next()) {
+                return ItemType.fromCode(rs.getString(1));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error finding item type: " + e.getMessage());
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Find the types of several items with one query
+     * @return item type by ISBN; unknown ISBNs are left out
+     */
+    public Map<String, ItemType> findItemTypes(Collection<String> isbns) {
+        Map<String, ItemType> types = new HashMap<>();
+        List<String> candidates = new ArrayList<>();
+        for (String isbn : isbns) {
+            if (ISBN_FILTER.mightExist(isbn)) {
+                candidates.add(isbn);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return types;
+        }
+        
+        String placeholders = String.join(", ", Collections.nCopies(candidates.size(), "?"));
+        String sql = "SELECT isbn, item_type FROM library_items WHERE isbn IN (" + placeholders + ")";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            for (int i = 0; i < candidates.size(); i++) {
+                stmt.setString(i + 1, candidates.get(i));
+            }
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                ItemType type = ItemType.fromCode(rs.getString(2));
+                if (type != null) {
+                    types.put(rs.getString(1), type);
+                }
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error finding item types: " + e.getMessage());
+        }
+        
+        return types;
+    }
+    
+    /**
+     * Build the ISBN presence filter from a streaming scan of all ISBNs.
+     * Does nothing but switch the filter off when lookup.filter.enabled is false.
+     */
+    public void initializeKeyFilter() {
+        if (!Boolean.parseBoolean(dbConnection.getProperty("lookup.filter.enabled", "true"))) {
+            ISBN_FILTER.disable();
+            return;
+        }
+        
+        try (Connection conn = dbConnection.getConnection()) {
+            long count;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM library_items")) {
+                count = rs.next() ? rs.getLong(1) : 0;
+            }
+            
+            ISBN_FILTER.rebuild(count, sink -> {
+                try (Statement stmt = conn.createStatement()) {
+                    dbConnection.enableStreaming(stmt);
+                    try (ResultSet rs = stmt.executeQuery("SELECT isbn FROM library_items")) {
+                        while (rs.next()) {
+                            sink.accept(rs.getString(1));
+                        }
+                    }
+                }
+            });
+            
+        } catch (SQLException e) {
+            System.err.println("Error building ISBN filter: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Per-ISBN counts of lookups that were served by another caller's in-flight query
+     */
+    public static Map<String, Long> getCoalescedLookups() {
+        return ISBN_LOOKUPS.getCoalescedCounts();
+    }
+    
+    /**
+     * A detached copy of an item, as the row mapper would have built it
+     */
+    static LibraryItem copyOf(LibraryItem item) {
+        LibraryItem copy;
+        if (item instanceof ReferenceBook) {
+            ReferenceBook book = (ReferenceBook) item;
+            copy = new ReferenceBook(book.getIsbn(), book.getTitle(), book.getAuthor(), book.getPublicationYear(),
+                book.getPages(), book.getGenre(), book.isRestricted());
+        } else if (item instanceof Book) {
+            Book book = (Book) item;
+            copy = new Book(book.getIsbn(), book.getTitle(), book.getAuthor(), book.getPublicationYear(),
+                book.getPages(), book.getGenre());
+        } else {
+            Magazine magazine = (Magazine) item;
+            copy = new Magazine(magazine.getIsbn(), magazine.getTitle(), magazine.getAuthor(),
+                magazine.getPublicationYear(), magazine.getIssueNumber(), magazine.getVolume(), magazine.getFrequency());
+        }
+        copy.setVersionForDAO(item.getVersion());
+        if (item.getCurrentBorrower() != null) {
+            copy.setBorrowerForDAO(item.getCurrentBorrower());
+        } else if (item.isReserved()) {
+            copy.setReservedForDAO();
+        }
+        return copy;
+    }
+    
+    /**
+     * Query a library item by ISBN
+     */
+    private LibraryItem loadByIsbn(String isbn) {
+        String sql = selectItems() + "WHERE li.isbn = ?";
         
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -87,8 +334,9 @@ public class LibraryItemDAO {
             ResultSet rs = stmt.executeQuery();
             
             if (rs.next()) {
-                return mapResultSetToLibraryItem(rs);
+                return ROW_MAPPER.bind(ColumnIndex.of(rs)).mapRow(rs);
             }
+            ISBN_FILTER.recordMissing(isbn);
             
         } catch (SQLException e) {
             System.err.println("Error finding library item: " + e.getMessage());
@@ -98,27 +346,18 @@ public class LibraryItemDAO {
     }
     
     /**
-     * Get all library items
+     * Get all library items.
+     * Read-only; may be served by a replica.
      */
     public List<LibraryItem> findAll() {
         List<LibraryItem> items = new ArrayList<>();
-        String sql = "SELECT li.*, b.pages, b.genre, rb.restricted, m.issue_number, m.volume, m.frequency " +
-                    "FROM library_items li " +
-                    "LEFT JOIN books b ON li.isbn = b.isbn " +
-                    "LEFT JOIN reference_books rb ON li.isbn = rb.isbn " +
-                    "LEFT JOIN magazines m ON li.isbn = m.isbn " +
-                    "ORDER BY li.title";
+        String sql = selectItems() + "ORDER BY li.title";
         
-        try (Connection conn = dbConnection.getConnection();
+        try (Connection conn = dbConnection.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            while (rs.next()) {
-                LibraryItem item = mapResultSetToLibraryItem(rs);
-                if (item != null) {
-                    items.add(item);
-                }
-            }
+            items.addAll(RowMapper.mapAll(rs, ROW_MAPPER));
             
         } catch (SQLException e) {
             System.err.println("Error getting all library items: " + e.getMessage());
@@ -128,27 +367,21 @@ public class LibraryItemDAO {
     }
     
     /**
-     * Find available items by title keyword
+     * Find available items by title keyword.
+     * Read-only; may be served by a replica.
      */
     public List<LibraryItem> findAvailableByTitleKeyword(String keyword) {
         List<LibraryItem> items = new ArrayList<>();
-        String sql = "SELECT li.*, b.pages, b.genre, rb.restricted, m.issue_number, m.volume, m.frequency " +
-                    "FROM library_items li " +
-                    "LEFT JOIN books b ON li.isbn = b.isbn " +
-                    "LEFT JOIN reference_books rb ON li.isbn = rb.isbn " +
-                    "LEFT JOIN magazines m ON li.isbn = m.isbn " +
-                    "WHERE li.available = TRUE AND li.title LIKE ? " +
-                    "ORDER BY li.title";
+        String sql = selectItems() + "WHERE li.available = TRUE AND li.title LIKE ? ORDER BY li.title";
         
-        try (Connection conn = dbConnection.getConnection();
+        try (Connection conn = dbConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setString(1, "%" + keyword + "%");
             ResultSet rs = stmt.executeQuery();
             
-            while (rs.next()) {
-                LibraryItem item = mapResultSetToLibraryItem(rs);
-                if (item != null && item.canBeBorrowed()) {
+            for (LibraryItem item : RowMapper.mapAll(rs, ROW_MAPPER)) {
+                if (item.canBeBorrowed()) {
                     items.add(item);
                 }
             }
@@ -161,10 +394,11 @@ public class LibraryItemDAO {
     }
     
     /**
-     * Update library item availability
+     * Update library item availability unconditionally (administrative override).
+     * Still bumps the row version so that concurrent optimistic writers notice the change.
      */
     public boolean updateAvailability(String isbn, boolean available, String borrowerId) {
-        String sql = "UPDATE library_items SET available = ?, current_borrower = ? WHERE isbn = ?";
+        String sql = "UPDATE library_items SET available = ?, current_borrower = ?, version = version + 1 WHERE isbn = ?";
         
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -181,17 +415,63 @@ public class LibraryItemDAO {
         }
     }
     
+    /**
+     * Update availability only if the item has not changed since it was loaded.
+     * On success the item's version and borrower are refreshed in place.
+     * @throws OptimisticLockException if the stored version no longer matches
+     */
+    public boolean updateAvailability(LibraryItem item, boolean available, String borrowerId) {
+        String sql = "UPDATE library_items SET available = ?, current_borrower = ?, version = version + 1 " +
+                    "WHERE isbn = ? AND version = ?";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setBoolean(1, available);
+            stmt.setString(2, borrowerId);
+            stmt.setString(3, item.getIsbn());
+            stmt.setInt(4, item.getVersion());
+            
+            if (stmt.executeUpdate() == 0) {
+                throw new OptimisticLockException(item.getIsbn(), item.getVersion());
+            }
+            
+            item.setVersionForDAO(item.getVersion() + 1);
+            item.setBorrowerForDAO(available ? null : borrowerId);
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error updating item availability: " + e.getMessage());
+            return false;
+        }
+    }
+    
     /**
      * Delete library item
      */
     public boolean deleteLibraryItem(String isbn) {
         String sql = "DELETE FROM library_items WHERE isbn = ?";
+        // The cascade removes open loans too, so give the borrower's slot back first
+        String releaseSql = "UPDATE members SET active_loans = active_loans - 1 WHERE active_loans > 0 AND member_id IN " +
+                           "(SELECT member_id FROM borrowed_items WHERE isbn = ? AND status = 'BORROWED')";
         
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        // Cascades into the subtype tables and borrowed_items
+        try {
+            boolean deleted = txTemplate.execute("deleteLibraryItem", conn -> {
+                try (PreparedStatement releaseStmt = conn.prepareStatement(releaseSql)) {
+                    releaseStmt.setString(1, isbn);
+                    releaseStmt.executeUpdate();
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setString(1, isbn);
+                    return stmt.executeUpdate() > 0;
+                }
+            });
             
-            stmt.setString(1, isbn);
-            return stmt.executeUpdate() > 0;
+            if (deleted) {
+                ISBN_FILTER.recordDeleted(isbn);
+            }
+            return deleted;
             
         } catch (SQLException e) {
             System.err.println("Error deleting library item: " + e.getMessage());
@@ -199,6 +479,91 @@ public class LibraryItemDAO {
         }
     }
     
+    /**
+     * Stream the analytics columns of every item straight from a result set,
+     * without building LibraryItem objects. Read-only; may be served by a replica.
+     */
+    public boolean scanCatalog(CatalogSnapshot.RowSink sink) {
+        String sql = singleTable
+            ? "SELECT li.isbn, li.item_type, li.publication_year, li.author, li.available, li.pages, li.genre " +
+              "FROM library_items li"
+            : "SELECT li.isbn, li.item_type, li.publication_year, li.author, li.available, b.pages, b.genre " +
+              "FROM library_items li LEFT JOIN books b ON li.isbn = b.isbn";
+        
+        try (Connection conn = dbConnection.getReadConnection();
+             Statement stmt = conn.createStatement()) {
+            
+            dbConnection.enableStreaming(stmt);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    ItemType type = ItemType.fromCode(rs.getString(2));
+                    if (type == null) {
+                        continue;
+                    }
+                    // As in Book, a book without a genre is "General"
+                    String genre = rs.getString(7);
+                    if (type != ItemType.MAGAZINE && genre == null) {
+                        genre = "General";
+                    }
+                    sink.accept(rs.getString(1), type, rs.getInt(3), rs.getInt(6), rs.getString(4), genre,
+                                rs.getBoolean(5));
+                }
+            }
+            return true;
+            
+        } catch (SQLException e) {
+            System.err.println("Error scanning the catalog: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private String selectItems() {
+        return singleTable ? SINGLE_TABLE_SELECT : JOINED_SELECT;
+    }
+    
+    /**
+     * Insert an item with its subtype columns into library_items (single-table layout)
+     */
+    private boolean insertSingleTableItem(Connection conn, LibraryItem item) throws SQLException {
+        String sql = "INSERT INTO library_items (isbn, title, author, publication_year, item_type, current_borrower, available, " +
+                    "pages, genre, restricted, issue_number, volume, frequency) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, item.getIsbn());
+            stmt.setString(2, item.getTitle());
+            stmt.setString(3, item.getAuthor());
+            stmt.setInt(4, item.getPublicationYear());
+            stmt.setString(5, item.getType().name());
+            stmt.setString(6, item.getCurrentBorrower());
+            stmt.setBoolean(7, item.isAvailable());
+            
+            // Columns of the other subtypes stay NULL
+            stmt.setNull(8, Types.INTEGER);
+            stmt.setNull(9, Types.VARCHAR);
+            stmt.setNull(10, Types.BOOLEAN);
+            stmt.setNull(11, Types.INTEGER);
+            stmt.setNull(12, Types.INTEGER);
+            stmt.setNull(13, Types.VARCHAR);
+            if (item instanceof Book) {
+                Book book = (Book) item;
+                stmt.setInt(8, book.getPages());
+                stmt.setString(9, book.getGenre());
+                if (item instanceof ReferenceBook) {
+                    stmt.setBoolean(10, ((ReferenceBook) item).isRestricted());
+                }
+            } else if (item instanceof Magazine) {
+                Magazine magazine = (Magazine) item;
+                stmt.setInt(11, magazine.getIssueNumber());
+                stmt.setInt(12, magazine.getVolume());
+                stmt.setString(13, magazine.getFrequency());
+            } else {
+                return false;
+            }
+            
+            return stmt.executeUpdate() > 0;
+        }
+    }
+    
     /**
      * Insert book record
      */
@@ -249,50 +614,4 @@ public class LibraryItemDAO {
             return stmt.executeUpdate() > 0;
         }
     }
-    
-    /**
-     * Map ResultSet to LibraryItem object
-     */
-    private LibraryItem mapResultSetToLibraryItem(ResultSet rs) throws SQLException {
-        String isbn = rs.getString("isbn");
-        String title = rs.getString("title");
-        String author = rs.getString("author");
-        int publicationYear = rs.getInt("publication_year");
-        String itemType = rs.getString("item_type");
-        String currentBorrower = rs.getString("current_borrower");
-        boolean available = rs.getBoolean("available");
-        
-        LibraryItem item = null;
-        
-        switch (itemType) {
-            case "REFERENCE_BOOK":
-                int pages = rs.getInt("pages");
-                String genre = rs.getString("genre");
-                boolean restricted = rs.getBoolean("restricted");
-                item = new ReferenceBook(isbn, title, author, publicationYear, pages, genre, restricted);
-                break;
-                
-            case "BOOK":
-                pages = rs.getInt("pages");
-                genre = rs.getString("genre");
-                item = new Book(isbn, title, author, publicationYear, pages, genre);
-                break;
-                
-            case "MAGAZINE":
-                int issueNumber = rs.getInt("issue_number");
-                int volume = rs.getInt("volume");
-                String frequency = rs.getString("frequency");
-                item = new Magazine(isbn, title, author, publicationYear, issueNumber, volume, frequency);
-                break;
-        }
-        
-        if (item != null) {
-            // Set borrowing status
-            if (!available && currentBorrower != null) {
-                item.setBorrowerForDAO(currentBorrower);
-            }
-        }
-        
-        return item;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.ItemType;
+import com.oaktown.library.model.LibraryItem;
+import com.oaktown.library.util.CatalogSnapshot;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage of the library catalog, implemented on MySQL by {@link LibraryItemDAO},
+ * on the embedded file store by {@link FileLibraryItemDAO},
+ * and across per-branch databases by {@link ShardedLibraryItemRepository}.
+ */
+public interface LibraryItemRepository {
+    
+    /**
+     * Create a new library item
+     * @return false if the item could not be stored or the ISBN is already taken
+     */
+    boolean createLibraryItem(LibraryItem item);
+    
+    /**
+     * Find library item by ISBN
+     * @return the item, or null if the ISBN is unknown
+     */
+    LibraryItem findByIsbn(String isbn);
+    
+    /**
+     * Find only the type of an item, without loading the item itself
+     * @return the item type, or null if the ISBN is unknown
+     */
+    ItemType findItemType(String isbn);
+    
+    /**
+     * Find the types of several items at once
+     * @return item type by ISBN; unknown ISBNs are left out
+     */
+    Map<String, ItemType> findItemTypes(Collection<String> isbns);
+    
+    /**
+     * Prepare any in-memory structures that speed up lookups of unknown ISBNs
+     */
+    void initializeKeyFilter();
+    
+    /**
+     * Get all library items, ordered by title
+     */
+    List<LibraryItem> findAll();
+    
+    /**
+     * Find borrowable items whose title contains a keyword, ordered by title
+     */
+    List<LibraryItem> findAvailableByTitleKeyword(String keyword);
+    
+    /**
+     * Update library item availability unconditionally (administrative override)
+     */
+    boolean updateAvailability(String isbn, boolean available, String borrowerId);
+    
+    /**
+     * Update availability only if the item has not changed since it was loaded.
+     * On success the item's version and borrower are refreshed in place.
+     * @throws OptimisticLockException if the stored version no longer matches
+     */
+    boolean updateAvailability(LibraryItem item, boolean available, String borrowerId);
+    
+    /**
+     * Delete a library item together with its loans
+     */
+    boolean deleteLibraryItem(String isbn);
+    
+    /**
+     * Stream the columns of every item that analytics scans need into a sink.
+     * This default goes through findAll; storage that can skip building
+     * LibraryItem objects overrides it.
+     * @return false if the scan failed part way; the sink may have seen some rows
+     */
+    default boolean scanCatalog(CatalogSnapshot.RowSink sink) {
+        for (LibraryItem item : findAll()) {
+            sink.accept(item);
+        }
+        return true;
+    }
+}
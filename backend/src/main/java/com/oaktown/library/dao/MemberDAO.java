@@ -1,23 +1,59 @@
 package com.oaktown.library.dao;
 
 import com.oaktown.library.model.Member;
+import com.oaktown.library.util.ColumnIndex;
 import com.oaktown.library.util.DatabaseConnection;
+import com.oaktown.library.util.KeyPresenceFilter;
+import com.oaktown.library.util.RowMapper;
+import com.oaktown.library.util.SingleFlight;
+import com.oaktown.library.util.TransactionTemplate;
 
 import java.sql.*;
-import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Access Object for Member entities.
  * Handles all database operations related to members.
  */
-public class MemberDAO {
+public class MemberDAO implements MemberRepository {
+    
+    // Shared by all DAO instances so concurrent identical lookups coalesce process-wide
+    private static final SingleFlight<String, Member> MEMBER_LOOKUPS = new SingleFlight<>("findMemberById");
+    // Rejects mistyped member IDs without a query
+    private static final KeyPresenceFilter MEMBER_FILTER = new KeyPresenceFilter("member", 10_000, 30);
+    
+    // Loaded with every member; both are answered from borrowed_items/loan_history indexes
+    static final String CURRENT_ITEMS_SQL =
+        "SELECT isbn FROM borrowed_items WHERE member_id = ? AND status = 'BORROWED'";
+    
+    static final String PREVIOUS_ITEMS_SQL =
+        "SELECT isbn FROM borrowed_items WHERE member_id = ? AND status = 'RETURNED' " +
+        "UNION SELECT isbn FROM loan_history WHERE member_id = ?";
+    
+    // Lifetime returned loans, archived ones included; they decide the member's tier
+    static final String RETURNED_LOANS_SQL =
+        "SELECT (SELECT COUNT(*) FROM borrowed_items WHERE member_id = ? AND status = 'RETURNED') + " +
+        "(SELECT COUNT(*) FROM loan_history WHERE member_id = ?)";
+    
+    private static final String MEMBER_COLUMNS =
+        "member_id, name, email, phone, address, registration_date, active";
     
     private final DatabaseConnection dbConnection;
+    private final TransactionTemplate txTemplate;
+    private final RowMapper.Factory<Member> rowMapper = this::bindMemberMapper;
     
     public MemberDAO() {
-        this.dbConnection = DatabaseConnection.getInstance();
+        this(DatabaseConnection.getInstance());
+    }
+    
+    /**
+     * Create a DAO on a specific database, e.g. one branch shard
+     */
+    public MemberDAO(DatabaseConnection dbConnection) {
+        this.dbConnection = dbConnection;
+        this.txTemplate = new TransactionTemplate(dbConnection);
     }
     
     /**
@@ -26,18 +62,25 @@ public class MemberDAO {
     public boolean createMember(Member member) {
         String sql = "INSERT INTO members (member_id, name, email, phone, address, registration_date, active) VALUES (?, ?, ?, ?, ?, ?, ?)";
         
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try {
+            boolean created = txTemplate.execute("createMember", conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setString(1, member.getMemberId());
+                    stmt.setString(2, member.getName());
+                    stmt.setString(3, member.getEmail());
+                    stmt.setString(4, member.getPhone());
+                    stmt.setString(5, member.getAddress());
+                    stmt.setDate(6, Date.valueOf(member.getRegistrationDate()));
+                    stmt.setBoolean(7, member.isActive());
+                    
+                    return stmt.executeUpdate() > 0;
+                }
+            });
             
-            stmt.setString(1, member.getMemberId());
-            stmt.setString(2, member.getName());
-            stmt.setString(3, member.getEmail());
-            stmt.setString(4, member.getPhone());
-            stmt.setString(5, member.getAddress());
-            stmt.setDate(6, Date.valueOf(member.getRegistrationDate()));
-            stmt.setBoolean(7, member.isActive());
-            
-            return stmt.executeUpdate() > 0;
+            if (created) {
+                MEMBER_FILTER.recordPresent(member.getMemberId());
+            }
+            return created;
             
         } catch (SQLException e) {
             System.err.println("Error creating member: " + e.getMessage());
@@ -46,10 +89,79 @@ public class MemberDAO {
     }
     
     /**
-     * Find a member by ID
+     * Find a member by ID.
+     * Concurrent lookups for the same member share a single database query,
+     * but each caller gets its own copy of the member.
      */
     public Member findById(String memberId) {
-        String sql = "SELECT * FROM members WHERE member_id = ?";
+        if (!MEMBER_FILTER.mightExist(memberId)) {
+            return null;
+        }
+        return MEMBER_LOOKUPS.execute(memberId, () -> loadById(memberId), MemberDAO::copyOf);
+    }
+    
+    /**
+     * Build the member ID presence filter from a streaming scan of all member IDs.
+     * Does nothing but switch the filter off when lookup.filter.enabled is false.
+     */
+    public void initializeKeyFilter() {
+        if (!Boolean.parseBoolean(dbConnection.getProperty("lookup.filter.enabled", "true"))) {
+            MEMBER_FILTER.disable();
+            return;
+        }
+        
+        try (Connection conn = dbConnection.getConnection()) {
+            long count;
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM members")) {
+                count = rs.next() ? rs.getLong(1) : 0;
+            }
+            
+            MEMBER_FILTER.rebuild(count, sink -> {
+                try (Statement stmt = conn.createStatement()) {
+                    dbConnection.enableStreaming(stmt);
+                    try (ResultSet rs = stmt.executeQuery("SELECT member_id FROM members")) {
+                        while (rs.next()) {
+                            sink.accept(rs.getString(1));
+                        }
+                    }
+                }
+            });
+            
+        } catch (SQLException e) {
+            System.err.println("Error building member filter: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Per-member counts of lookups that were served by another caller's in-flight query
+     */
+    public static Map<String, Long> getCoalescedLookups() {
+        return MEMBER_LOOKUPS.getCoalescedCounts();
+    }
+    
+    /**
+     * A detached copy of a member, with the same current loans and loan count
+     */
+    static Member copyOf(Member member) {
+        Member copy = new Member(member.getMemberId(), member.getName(), member.getEmail(), member.getPhone(),
+            member.getAddress(), member.getRegistrationDate(), member.isActive());
+        copy.setReturnedLoanCountForDAO(member.getReturnedLoanCount());
+        for (String isbn : member.getCurrentlyBorrowedItems()) {
+            try {
+                copy.borrowItem(isbn);
+            } catch (Exception e) {
+                // Dropped when loading, too
+            }
+        }
+        return copy;
+    }
+    
+    /**
+     * Query a member by ID
+     */
+    private Member loadById(String memberId) {
+        String sql = "SELECT " + MEMBER_COLUMNS + " FROM members WHERE member_id = ?";
         
         try (Connection conn = dbConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -57,9 +169,11 @@ public class MemberDAO {
             stmt.setString(1, memberId);
             ResultSet rs = stmt.executeQuery();
             
-            if (rs.next()) {
-                return mapResultSetToMember(rs);
+            Member member = RowMapper.mapFirst(rs, rowMapper);
+            if (member != null) {
+                return member;
             }
+            MEMBER_FILTER.recordMissing(memberId);
             
         } catch (SQLException e) {
             System.err.println("Error finding member: " + e.getMessage());
@@ -69,19 +183,18 @@ public class MemberDAO {
     }
     
     /**
-     * Get all members
+     * Get all members.
+     * Read-only; may be served by a replica.
      */
     public List<Member> findAll() {
         List<Member> members = new ArrayList<>();
-        String sql = "SELECT * FROM members ORDER BY name";
+        String sql = "SELECT " + MEMBER_COLUMNS + " FROM members ORDER BY name";
         
-        try (Connection conn = dbConnection.getConnection();
+        try (Connection conn = dbConnection.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
-            while (rs.next()) {
-                members.add(mapResultSetToMember(rs));
-            }
+            members.addAll(RowMapper.mapAll(rs, rowMapper));
             
         } catch (SQLException e) {
             System.err.println("Error getting all members: " + e.getMessage());
@@ -96,17 +209,19 @@ public class MemberDAO {
     public boolean updateMember(Member member) {
         String sql = "UPDATE members SET name = ?, email = ?, phone = ?, address = ?, active = ? WHERE member_id = ?";
         
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            
-            stmt.setString(1, member.getName());
-            stmt.setString(2, member.getEmail());
-            stmt.setString(3, member.getPhone());
-            stmt.setString(4, member.getAddress());
-            stmt.setBoolean(5, member.isActive());
-            stmt.setString(6, member.getMemberId());
-            
-            return stmt.executeUpdate() > 0;
+        try {
+            return txTemplate.execute("updateMember", conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setString(1, member.getName());
+                    stmt.setString(2, member.getEmail());
+                    stmt.setString(3, member.getPhone());
+                    stmt.setString(4, member.getAddress());
+                    stmt.setBoolean(5, member.isActive());
+                    stmt.setString(6, member.getMemberId());
+                    
+                    return stmt.executeUpdate() > 0;
+                }
+            });
             
         } catch (SQLException e) {
             System.err.println("Error updating member: " + e.getMessage());
@@ -120,11 +235,19 @@ public class MemberDAO {
     public boolean deleteMember(String memberId) {
         String sql = "DELETE FROM members WHERE member_id = ?";
         
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        // Cascades into borrowed_items, so it can deadlock with concurrent checkouts
+        try {
+            boolean deleted = txTemplate.execute("deleteMember", conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    stmt.setString(1, memberId);
+                    return stmt.executeUpdate() > 0;
+                }
+            });
             
-            stmt.setString(1, memberId);
-            return stmt.executeUpdate() > 0;
+            if (deleted) {
+                MEMBER_FILTER.recordDeleted(memberId);
+            }
+            return deleted;
             
         } catch (SQLException e) {
             System.err.println("Error deleting member: " + e.getMessage());
@@ -137,10 +260,8 @@ public class MemberDAO {
      */
     public List<String> getCurrentlyBorrowedItems(String memberId) {
         List<String> items = new ArrayList<>();
-        String sql = "SELECT isbn FROM borrowed_items WHERE member_id = ? AND status = 'BORROWED'";
-        
         try (Connection conn = dbConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(CURRENT_ITEMS_SQL)) {
             
             stmt.setString(1, memberId);
             ResultSet rs = stmt.executeQuery();
@@ -157,16 +278,35 @@ public class MemberDAO {
     }
     
     /**
-     * Get previously borrowed items for a member
+     * Count the loans a member has returned, archived ones included
+     */
+    private int countReturnedLoans(String memberId) {
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(RETURNED_LOANS_SQL)) {
+            
+            stmt.setString(1, memberId);
+            stmt.setString(2, memberId);
+            ResultSet rs = stmt.executeQuery();
+            
+            return rs.next() ? rs.getInt(1) : 0;
+            
+        } catch (SQLException e) {
+            System.err.println("Error counting returned loans: " + e.getMessage());
+            return 0;
+        }
+    }
+    
+    /**
+     * Get previously borrowed items for a member.
+     * Read-only; may be served by a replica.
      */
     public List<String> getPreviouslyBorrowedItems(String memberId) {
         List<String> items = new ArrayList<>();
-        String sql = "SELECT DISTINCT isbn FROM borrowed_items WHERE member_id = ? AND status = 'RETURNED'";
-        
-        try (Connection conn = dbConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dbConnection.getReadConnection(memberId);
+             PreparedStatement stmt = conn.prepareStatement(PREVIOUS_ITEMS_SQL)) {
             
             stmt.setString(1, memberId);
+            stmt.setString(2, memberId);
             ResultSet rs = stmt.executeQuery();
             
             while (rs.next()) {
@@ -181,21 +321,20 @@ public class MemberDAO {
     }
     
     /**
-     * Find members by name (partial match)
+     * Find members by name (partial match).
+     * Read-only; may be served by a replica.
      */
     public List<Member> findByName(String namePattern) {
         List<Member> members = new ArrayList<>();
-        String sql = "SELECT * FROM members WHERE name LIKE ? ORDER BY name";
+        String sql = "SELECT " + MEMBER_COLUMNS + " FROM members WHERE name LIKE ? ORDER BY name";
         
-        try (Connection conn = dbConnection.getConnection();
+        try (Connection conn = dbConnection.getReadConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             stmt.setString(1, "%" + namePattern + "%");
             ResultSet rs = stmt.executeQuery();
             
-            while (rs.next()) {
-                members.add(mapResultSetToMember(rs));
-            }
+            members.addAll(RowMapper.mapAll(rs, rowMapper));
             
         } catch (SQLException e) {
             System.err.println("Error finding members by name: " + e.getMessage());
@@ -208,6 +347,10 @@ public class MemberDAO {
      * Check if member exists
      */
     public boolean memberExists(String memberId) {
+        if (!MEMBER_FILTER.mightExist(memberId)) {
+            return false;
+        }
+        
         String sql = "SELECT 1 FROM members WHERE member_id = ?";
         
         try (Connection conn = dbConnection.getConnection();
@@ -216,7 +359,11 @@ public class MemberDAO {
             stmt.setString(1, memberId);
             ResultSet rs = stmt.executeQuery();
             
-            return rs.next();
+            if (rs.next()) {
+                return true;
+            }
+            MEMBER_FILTER.recordMissing(memberId);
+            return false;
             
         } catch (SQLException e) {
             System.err.println("Error checking if member exists: " + e.getMessage());
@@ -225,33 +372,33 @@ public class MemberDAO {
     }
     
     /**
-     * Map ResultSet to Member object
+     * Bind a member mapper to a result set. Each mapped member also gets its
+     * current loans and returned loan count loaded, with separate queries per member.
      */
-    private Member mapResultSetToMember(ResultSet rs) throws SQLException {
-        String memberId = rs.getString("member_id");
-        String name = rs.getString("name");
-        String email = rs.getString("email");
-        String phone = rs.getString("phone");
-        String address = rs.getString("address");
-        LocalDate registrationDate = rs.getDate("registration_date").toLocalDate();
-        boolean active = rs.getBoolean("active");
-        
-        Member member = new Member(memberId, name, email, phone, address, registrationDate, active);
-        
-        // Load borrowed items
-        List<String> currentItems = getCurrentlyBorrowedItems(memberId);
-        List<String> previousItems = getPreviouslyBorrowedItems(memberId);
+    private RowMapper<Member> bindMemberMapper(ColumnIndex columns) throws SQLException {
+        int memberId = columns.require("member_id");
+        int name = columns.require("name");
+        int email = columns.require("email");
+        int phone = columns.require("phone");
+        int address = columns.require("address");
+        int registrationDate = columns.require("registration_date");
+        int active = columns.require("active");
         
-        // Set the borrowed items (using reflection or a setter method if available)
-        // For now, we'll populate them manually
-        for (String isbn : currentItems) {
-            try {
-                member.borrowItem(isbn);
-            } catch (Exception e) {
-                // Item might already be added, ignore
+        return rs -> {
+            Member member = new Member(rs.getString(memberId), rs.getString(name), rs.getString(email),
+                rs.getString(phone), rs.getString(address), rs.getDate(registrationDate).toLocalDate(),
+                rs.getBoolean(active));
+            
+            // Load borrowed items
+            for (String isbn : getCurrentlyBorrowedItems(member.getMemberId())) {
+                try {
+                    member.borrowItem(isbn);
+                } catch (Exception e) {
+                    // Item might already be added, ignore
+                }
             }
-        }
-        
-        return member;
+            member.setReturnedLoanCountForDAO(countReturnedLoans(member.getMemberId()));
+            return member;
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,65 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.Member;
+
+import java.util.List;
+
+/**
+ * Storage of library members, implemented on MySQL by {@link MemberDAO},
+ * on the embedded file store by {@link FileMemberDAO},
+ * and across per-branch databases by {@link ShardedMemberRepository}.
+ */
+public interface MemberRepository {
+    
+    /**
+     * Create a new member
+     * @return false if the member could not be stored or the ID is already taken
+     */
+    boolean createMember(Member member);
+    
+    /**
+     * Find a member by ID, with the member's current loans filled in
+     * @return the member, or null if the ID is unknown
+     */
+    Member findById(String memberId);
+    
+    /**
+     * Prepare any in-memory structures that speed up lookups of unknown member IDs
+     */
+    void initializeKeyFilter();
+    
+    /**
+     * Get all members, ordered by name
+     */
+    List<Member> findAll();
+    
+    /**
+     * Update member contact details and status
+     */
+    boolean updateMember(Member member);
+    
+    /**
+     * Delete a member
+     */
+    boolean deleteMember(String memberId);
+    
+    /**
+     * Get the ISBNs a member is currently borrowing
+     */
+    List<String> getCurrentlyBorrowedItems(String memberId);
+    
+    /**
+     * Get the ISBNs a member has borrowed and returned
+     */
+    List<String> getPreviouslyBorrowedItems(String memberId);
+    
+    /**
+     * Find members by name (partial match), ordered by name
+     */
+    List<Member> findByName(String namePattern);
+    
+    /**
+     * Check if member exists
+     */
+    boolean memberExists(String memberId);
+}
@@ -0,0 +1,28 @@
+package com.oaktown.library.dao;
+
+/**
+ * Thrown when a compare-and-set update on a library item fails because
+ * the row's version changed since it was read.
+ * The transaction has already been rolled back; callers may reload and retry.
+ */
+public class OptimisticLockException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String isbn;
+    private final int expectedVersion;
+
+    public OptimisticLockException(String isbn, int expectedVersion) {
+        super("Library item " + isbn + " was modified concurrently (expected version " + expectedVersion + ")");
+        this.isbn = isbn;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public int getExpectedVersion() {
+        return expectedVersion;
+    }
+}
@@ -0,0 +1,165 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.OutboxEvent;
+import com.oaktown.library.util.DatabaseConnection;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for the transactional outbox: outbox_events, written in the
+ * same transaction as each loan change, and outbox_cursors, the last event id
+ * each relay consumer has delivered.
+ */
+public class OutboxDAO {
+    
+    static final String EVENTS_AFTER_SQL =
+        "SELECT id, event_type, loan_id, isbn, member_id, payload, created_at " +
+        "FROM outbox_events WHERE id > ? ORDER BY id LIMIT ?";
+    
+    private final DatabaseConnection dbConnection;
+    
+    public OutboxDAO() {
+        this(DatabaseConnection.getInstance());
+    }
+    
+    /**
+     * Create a DAO on a specific database, e.g. one branch shard
+     */
+    public OutboxDAO(DatabaseConnection dbConnection) {
+        this.dbConnection = dbConnection;
+    }
+    
+    /**
+     * Append an event inside the caller's transaction
+     */
+    static void insertEvent(Connection conn, OutboxEvent.Type type, int loanId, String isbn,
+                            String memberId, String payload) throws SQLException {
+        String sql = "INSERT INTO outbox_events (event_type, loan_id, isbn, member_id, payload) VALUES (?, ?, ?, ?, ?)";
+        
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, type.name());
+            stmt.setInt(2, loanId);
+            stmt.setString(3, isbn);
+            stmt.setString(4, memberId);
+            stmt.setString(5, payload);
+            stmt.executeUpdate();
+        }
+    }
+    
+    /**
+     * Read events after a cursor position, oldest first
+     */
+    public List<OutboxEvent> findEventsAfter(long afterId, int limit) {
+        List<OutboxEvent> events = new ArrayList<>();
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(EVENTS_AFTER_SQL)) {
+            
+            stmt.setLong(1, afterId);
+            stmt.setInt(2, limit);
+            ResultSet rs = stmt.executeQuery();
+            
+            while (rs.next()) {
+                events.add(new OutboxEvent(
+                    rs.getLong(1),
+                    OutboxEvent.Type.valueOf(rs.getString(2)),
+                    rs.getInt(3),
+                    rs.getString(4),
+                    rs.getString(5),
+                    rs.getString(6),
+                    rs.getTimestamp(7).toLocalDateTime()));
+            }
+            
+        } catch (SQLException e) {
+            System.err.println("Error reading outbox events: " + e.getMessage());
+        }
+        
+        return events;
+    }
+    
+    /**
+     * Write a tombstone over an event id that is missing from the sequence. A transaction
+     * still holding the id makes the insert wait; it fails if that transaction commits
+     * and succeeds only once the id is known to have rolled back.
+     * @return true if the tombstone was written
+     */
+    public boolean insertTombstone(long id) {
+        String sql = "INSERT INTO outbox_events (id, event_type, loan_id, isbn, member_id, payload) " +
+                    "VALUES (?, 'TOMBSTONE', 0, '', '', '{}')";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setLong(1, id);
+            return stmt.executeUpdate() > 0;
+            
+        } catch (SQLException e) {
+            System.err.println("Error writing outbox tombstone " + id + ": " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Last event id delivered to a consumer
+     * @return the cursor, 0 for a new consumer, or -1 if it could not be read
+     */
+    public long readCursor(String consumer) {
+        String sql = "SELECT last_event_id FROM outbox_cursors WHERE consumer = ?";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, consumer);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+            
+        } catch (SQLException e) {
+            System.err.println("Error reading outbox cursor: " + e.getMessage());
+            return -1;
+        }
+    }
+    
+    /**
+     * Record that a consumer has delivered every event up to lastEventId
+     */
+    public boolean saveCursor(String consumer, long lastEventId) {
+        String sql = "INSERT INTO outbox_cursors (consumer, last_event_id) VALUES (?, ?) " +
+                    "ON DUPLICATE KEY UPDATE last_event_id = VALUES(last_event_id)";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setString(1, consumer);
+            stmt.setLong(2, lastEventId);
+            return stmt.executeUpdate() > 0;
+            
+        } catch (SQLException e) {
+            System.err.println("Error saving outbox cursor: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Delete events, and the tombstones between them, that every consumer has passed
+     * once they are older than the retention period
+     * @return number of events deleted
+     */
+    public int purgeDeliveredEvents(int retentionHours) {
+        String sql = "DELETE FROM outbox_events WHERE created_at < ? " +
+                    "AND id <= (SELECT COALESCE(MIN(last_event_id), 0) FROM outbox_cursors)";
+        
+        try (Connection conn = dbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            stmt.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours)));
+            return stmt.executeUpdate();
+            
+        } catch (SQLException e) {
+            System.err.println("Error purging outbox events: " + e.getMessage());
+            return 0;
+        }
+    }
+}
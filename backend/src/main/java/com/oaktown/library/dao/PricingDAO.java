@@ -0,0 +1,60 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.ItemType;
+import com.oaktown.library.model.MemberTier;
+import com.oaktown.library.model.PricingRate;
+import com.oaktown.library.util.DatabaseConnection;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for the pricing_rates table.
+ */
+public class PricingDAO {
+    
+    private final DatabaseConnection dbConnection;
+    
+    public PricingDAO() {
+        this(DatabaseConnection.getInstance());
+    }
+    
+    /**
+     * Create a DAO on a specific database, e.g. one branch shard
+     */
+    public PricingDAO(DatabaseConnection dbConnection) {
+        this.dbConnection = dbConnection;
+    }
+    
+    /**
+     * Load every pricing rate
+     * @throws SQLException if the rates cannot be read; callers decide on a fallback
+     */
+    public List<PricingRate> loadRates() throws SQLException {
+        List<PricingRate> rates = new ArrayList<>();
+        String sql = "SELECT item_type, member_tier, valid_from, valid_to, daily_cents FROM pricing_rates";
+        
+        try (Connection conn = dbConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            
+            while (rs.next()) {
+                ItemType itemType = ItemType.fromCode(rs.getString(1));
+                if (itemType == null) {
+                    continue;
+                }
+                String tier = rs.getString(2);
+                Date validTo = rs.getDate(4);
+                rates.add(new PricingRate(
+                    itemType,
+                    tier != null ? MemberTier.valueOf(tier) : null,
+                    rs.getDate(3).toLocalDate(),
+                    validTo != null ? validTo.toLocalDate() : null,
+                    rs.getInt(5)));
+            }
+        }
+        
+        return rates;
+    }
+}
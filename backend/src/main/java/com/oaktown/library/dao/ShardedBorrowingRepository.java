@@ -0,0 +1,126 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.ProcessedRequest;
+import com.oaktown.library.util.BranchShards;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Loans spread over per-branch databases. A loan is written on the shard that
+ * holds both the item and the member, so borrowing stays a local transaction;
+ * a member can therefore only borrow copies of their own branch. The overdue
+ * report and request bookkeeping are gathered from every shard in parallel.
+ */
+public class ShardedBorrowingRepository implements BorrowingRepository {
+
+    private static final Comparator<Map<String, Object>> BY_DUE_DATE =
+        Comparator.comparing(item -> (LocalDate) item.get("dueDate"));
+
+    private final BranchShards shards;
+    private final Map<String, BorrowingRepository> byBranch = new LinkedHashMap<>();
+
+    public ShardedBorrowingRepository(BranchShards shards) {
+        this.shards = shards;
+        for (String branch : shards.branches()) {
+            byBranch.put(branch, new BorrowingDAO(shards.connection(branch)));
+        }
+    }
+
+    @Override
+    public boolean borrowItem(String isbn, String memberId, int borrowDays, double dailyCost) {
+        BorrowingRepository shard = loanShard(isbn, memberId);
+        return shard != null && shard.borrowItem(isbn, memberId, borrowDays, dailyCost);
+    }
+
+    @Override
+    public boolean borrowItem(String requestId, String isbn, String memberId, int borrowDays, double dailyCost) {
+        BorrowingRepository shard = loanShard(isbn, memberId);
+        return shard != null && shard.borrowItem(requestId, isbn, memberId, borrowDays, dailyCost);
+    }
+
+    @Override
+    public boolean returnItem(String isbn, String memberId) {
+        BorrowingRepository shard = loanShard(isbn, memberId);
+        return shard != null && shard.returnItem(isbn, memberId);
+    }
+
+    @Override
+    public boolean returnItem(String requestId, String isbn, String memberId) {
+        BorrowingRepository shard = loanShard(isbn, memberId);
+        return shard != null && shard.returnItem(requestId, isbn, memberId);
+    }
+
+    /**
+     * Request IDs carry no branch, so every shard is asked
+     */
+    @Override
+    public Optional<ProcessedRequest> findProcessedRequest(String requestId) {
+        List<ProcessedRequest> outcomes = shards.gather(byBranch, shard ->
+            shard.findProcessedRequest(requestId).map(Collections::singletonList).orElse(Collections.emptyList()));
+        return outcomes.isEmpty() ? Optional.empty() : Optional.of(outcomes.get(0));
+    }
+
+    @Override
+    public int purgeProcessedRequests(int retentionHours) {
+        int purged = 0;
+        for (int count : shards.gather(byBranch, shard ->
+                Collections.singletonList(shard.purgeProcessedRequests(retentionHours)))) {
+            purged += count;
+        }
+        return purged;
+    }
+
+    @Override
+    public List<Map<String, Object>> getCurrentlyBorrowedItems(String memberId) {
+        BorrowingRepository shard = shardOf(memberId);
+        return shard != null ? shard.getCurrentlyBorrowedItems(memberId) : Collections.emptyList();
+    }
+
+    @Override
+    public List<Map<String, Object>> getBorrowingHistory(String memberId) {
+        BorrowingRepository shard = shardOf(memberId);
+        return shard != null ? shard.getBorrowingHistory(memberId) : Collections.emptyList();
+    }
+
+    @Override
+    public List<Map<String, Object>> getOverdueItems() {
+        List<Map<String, Object>> items = shards.gather(byBranch, BorrowingRepository::getOverdueItems);
+        items.sort(BY_DUE_DATE);
+        return items;
+    }
+
+    /**
+     * Stop every shard's group-commit thread and the fan-out threads
+     */
+    @Override
+    public void shutdown() {
+        for (BorrowingRepository shard : byBranch.values()) {
+            shard.shutdown();
+        }
+        shards.shutdown();
+    }
+
+    /**
+     * The shard a loan of this item by this member lives on
+     * @return the shard, or null if the item and member belong to different branches
+     */
+    private BorrowingRepository loanShard(String isbn, String memberId) {
+        String branch = shards.branchOf(isbn);
+        if (branch == null || !branch.equals(shards.branchOf(memberId))) {
+            System.err.println("Cannot lend " + isbn + " to " + memberId + ": item and member are not in the same branch");
+            return null;
+        }
+        return byBranch.get(branch);
+    }
+
+    private BorrowingRepository shardOf(String memberId) {
+        String branch = shards.branchOf(memberId);
+        return branch != null ? byBranch.get(branch) : null;
+    }
+}
@@ -0,0 +1,54 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.util.BranchShards;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds spread over per-branch databases. A hold lives on the shard of its item,
+ * next to the loans that promote and claim it, so a member can only hold copies
+ * of their own branch.
+ */
+public class ShardedHoldRepository implements HoldRepository {
+
+    private final BranchShards shards;
+    private final Map<String, HoldRepository> byBranch = new LinkedHashMap<>();
+
+    public ShardedHoldRepository(BranchShards shards) {
+        this.shards = shards;
+        for (String branch : shards.branches()) {
+            byBranch.put(branch, new HoldDAO(shards.connection(branch)));
+        }
+    }
+
+    @Override
+    public PlaceResult placeHold(String isbn, String memberId) {
+        String branch = shards.branchOf(isbn);
+        if (branch == null) {
+            return PlaceResult.NOT_FOUND;
+        }
+        if (!branch.equals(shards.branchOf(memberId))) {
+            System.err.println("Cannot hold " + isbn + " for " + memberId + ": item and member are not in the same branch");
+            return PlaceResult.FAILED;
+        }
+        return byBranch.get(branch).placeHold(isbn, memberId);
+    }
+
+    @Override
+    public String cancelHold(String isbn, String memberId) {
+        HoldRepository shard = shardOf(isbn);
+        return shard != null ? shard.cancelHold(isbn, memberId) : null;
+    }
+
+    @Override
+    public String findReadyHolder(String isbn) {
+        HoldRepository shard = shardOf(isbn);
+        return shard != null ? shard.findReadyHolder(isbn) : null;
+    }
+
+    private HoldRepository shardOf(String isbn) {
+        String branch = shards.branchOf(isbn);
+        return branch != null ? byBranch.get(branch) : null;
+    }
+}
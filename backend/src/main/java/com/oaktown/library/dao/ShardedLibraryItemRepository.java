@@ -0,0 +1,130 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.ItemType;
+import com.oaktown.library.model.LibraryItem;
+import com.oaktown.library.util.BranchShards;
+import com.oaktown.library.util.CatalogSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Library items spread over per-branch databases. An item lives on the shard of
+ * its copy ID's branch; catalog-wide listings and searches are gathered from
+ * every shard in parallel and merged by title.
+ */
+public class ShardedLibraryItemRepository implements LibraryItemRepository {
+
+    private static final Comparator<LibraryItem> BY_TITLE =
+        Comparator.comparing(LibraryItem::getTitle, String.CASE_INSENSITIVE_ORDER);
+
+    private final BranchShards shards;
+    private final Map<String, LibraryItemRepository> byBranch = new LinkedHashMap<>();
+
+    public ShardedLibraryItemRepository(BranchShards shards) {
+        this.shards = shards;
+        for (String branch : shards.branches()) {
+            byBranch.put(branch, new LibraryItemDAO(shards.connection(branch)));
+        }
+    }
+
+    @Override
+    public boolean createLibraryItem(LibraryItem item) {
+        LibraryItemRepository shard = shardOf(item.getIsbn());
+        return shard != null && shard.createLibraryItem(item);
+    }
+
+    @Override
+    public LibraryItem findByIsbn(String isbn) {
+        LibraryItemRepository shard = shardOf(isbn);
+        return shard != null ? shard.findByIsbn(isbn) : null;
+    }
+
+    @Override
+    public ItemType findItemType(String isbn) {
+        LibraryItemRepository shard = shardOf(isbn);
+        return shard != null ? shard.findItemType(isbn) : null;
+    }
+
+    /**
+     * One query per branch the ISBNs belong to
+     */
+    @Override
+    public Map<String, ItemType> findItemTypes(Collection<String> isbns) {
+        Map<String, List<String>> isbnsByBranch = new HashMap<>();
+        for (String isbn : isbns) {
+            String branch = shards.branchOf(isbn);
+            if (branch != null) {
+                isbnsByBranch.computeIfAbsent(branch, b -> new ArrayList<>()).add(isbn);
+            }
+        }
+
+        Map<String, ItemType> types = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : isbnsByBranch.entrySet()) {
+            types.putAll(byBranch.get(entry.getKey()).findItemTypes(entry.getValue()));
+        }
+        return types;
+    }
+
+    /**
+     * Left off: the ISBN filter is shared process-wide, so a rebuild from one
+     * shard would reject the ISBNs of all the others
+     */
+    @Override
+    public void initializeKeyFilter() {
+    }
+
+    @Override
+    public List<LibraryItem> findAll() {
+        List<LibraryItem> items = shards.gather(byBranch, LibraryItemRepository::findAll);
+        items.sort(BY_TITLE);
+        return items;
+    }
+
+    @Override
+    public List<LibraryItem> findAvailableByTitleKeyword(String keyword) {
+        List<LibraryItem> items = shards.gather(byBranch, shard -> shard.findAvailableByTitleKeyword(keyword));
+        items.sort(BY_TITLE);
+        return items;
+    }
+
+    @Override
+    public boolean updateAvailability(String isbn, boolean available, String borrowerId) {
+        LibraryItemRepository shard = shardOf(isbn);
+        return shard != null && shard.updateAvailability(isbn, available, borrowerId);
+    }
+
+    @Override
+    public boolean updateAvailability(LibraryItem item, boolean available, String borrowerId) {
+        LibraryItemRepository shard = shardOf(item.getIsbn());
+        return shard != null && shard.updateAvailability(item, available, borrowerId);
+    }
+
+    @Override
+    public boolean deleteLibraryItem(String isbn) {
+        LibraryItemRepository shard = shardOf(isbn);
+        return shard != null && shard.deleteLibraryItem(isbn);
+    }
+
+    /**
+     * Streams the shards one after another, since the sink is not thread-safe
+     */
+    @Override
+    public boolean scanCatalog(CatalogSnapshot.RowSink sink) {
+        boolean complete = true;
+        for (LibraryItemRepository shard : byBranch.values()) {
+            complete &= shard.scanCatalog(sink);
+        }
+        return complete;
+    }
+
+    private LibraryItemRepository shardOf(String isbn) {
+        String branch = shards.branchOf(isbn);
+        return branch != null ? byBranch.get(branch) : null;
+    }
+}
@@ -0,0 +1,99 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.Member;
+import com.oaktown.library.util.BranchShards;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Members spread over per-branch databases. A member lives on the shard of the
+ * branch in their member ID; member listings and name searches are gathered from
+ * every shard in parallel and merged by name.
+ */
+public class ShardedMemberRepository implements MemberRepository {
+
+    private static final Comparator<Member> BY_NAME = Comparator.comparing(Member::getName, String.CASE_INSENSITIVE_ORDER);
+
+    private final BranchShards shards;
+    private final Map<String, MemberRepository> byBranch = new LinkedHashMap<>();
+
+    public ShardedMemberRepository(BranchShards shards) {
+        this.shards = shards;
+        for (String branch : shards.branches()) {
+            byBranch.put(branch, new MemberDAO(shards.connection(branch)));
+        }
+    }
+
+    @Override
+    public boolean createMember(Member member) {
+        MemberRepository shard = shardOf(member.getMemberId());
+        return shard != null && shard.createMember(member);
+    }
+
+    @Override
+    public Member findById(String memberId) {
+        MemberRepository shard = shardOf(memberId);
+        return shard != null ? shard.findById(memberId) : null;
+    }
+
+    /**
+     * Left off: the member ID filter is shared process-wide, so a rebuild from
+     * one shard would reject the members of all the others
+     */
+    @Override
+    public void initializeKeyFilter() {
+    }
+
+    @Override
+    public List<Member> findAll() {
+        List<Member> members = shards.gather(byBranch, MemberRepository::findAll);
+        members.sort(BY_NAME);
+        return members;
+    }
+
+    @Override
+    public boolean updateMember(Member member) {
+        MemberRepository shard = shardOf(member.getMemberId());
+        return shard != null && shard.updateMember(member);
+    }
+
+    @Override
+    public boolean deleteMember(String memberId) {
+        MemberRepository shard = shardOf(memberId);
+        return shard != null && shard.deleteMember(memberId);
+    }
+
+    @Override
+    public List<String> getCurrentlyBorrowedItems(String memberId) {
+        MemberRepository shard = shardOf(memberId);
+        return shard != null ? shard.getCurrentlyBorrowedItems(memberId) : Collections.emptyList();
+    }
+
+    @Override
+    public List<String> getPreviouslyBorrowedItems(String memberId) {
+        MemberRepository shard = shardOf(memberId);
+        return shard != null ? shard.getPreviouslyBorrowedItems(memberId) : Collections.emptyList();
+    }
+
+    @Override
+    public List<Member> findByName(String namePattern) {
+        List<Member> members = shards.gather(byBranch, shard -> shard.findByName(namePattern));
+        members.sort(BY_NAME);
+        return members;
+    }
+
+    @Override
+    public boolean memberExists(String memberId) {
+        MemberRepository shard = shardOf(memberId);
+        return shard != null && shard.memberExists(memberId);
+    }
+
+    private MemberRepository shardOf(String memberId) {
+        String branch = shards.branchOf(memberId);
+        return branch != null ? byBranch.get(branch) : null;
+    }
+}
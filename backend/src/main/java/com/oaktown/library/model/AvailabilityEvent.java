@@ -0,0 +1,55 @@
+package com.oaktown.library.model;
+
+import java.time.Instant;
+
+/**
+ * A committed change in an item's availability: borrowed (unavailable) or returned (available).
+ * A return that makes a hold ready is published as unavailable, since the item is kept
+ * for that member; it becomes available once the hold is cancelled or lapses.
+ * Events carry the new state rather than a delta, so a repeated event is harmless.
+ */
+public final class AvailabilityEvent {
+    
+    private final long sequence;
+    private final String isbn;
+    private final String memberId;
+    private final boolean available;
+    private final Instant timestamp;
+    
+    public AvailabilityEvent(long sequence, String isbn, String memberId, boolean available, Instant timestamp) {
+        this.sequence = sequence;
+        this.isbn = isbn;
+        this.memberId = memberId;
+        this.available = available;
+        this.timestamp = timestamp;
+    }
+    
+    public long getSequence() {
+        return sequence;
+    }
+    
+    public String getIsbn() {
+        return isbn;
+    }
+    
+    /**
+     * The member who borrowed or returned the item
+     */
+    public String getMemberId() {
+        return memberId;
+    }
+    
+    public boolean isAvailable() {
+        return available;
+    }
+    
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+    
+    @Override
+    public String toString() {
+        return "AvailabilityEvent{#" + sequence + " " + isbn + (available ? " returned" : " borrowed") +
+               " by " + memberId + "}";
+    }
+}
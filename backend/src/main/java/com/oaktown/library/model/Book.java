@@ -6,7 +6,8 @@ package com.oaktown.library.model;
  */
 public class Book extends LibraryItem {
     
-    private static final double DAILY_COST = 0.50;
+    // Books with more pages than this are long books
+    public static final int LONG_BOOK_PAGES = 500;
     
     private int pages;
     private String genre;
@@ -33,12 +34,12 @@ public class Book extends LibraryItem {
     // Implementation of abstract methods from LibraryItem
     @Override
     public double calculateDailyCost() {
-        return DAILY_COST;
+        return ItemType.BOOK.getDailyCost();
     }
     
     @Override
-    public String getItemType() {
-        return "Book";
+    public ItemType getType() {
+        return ItemType.BOOK;
     }
     
     @Override
@@ -62,7 +63,7 @@ public class Book extends LibraryItem {
     
     // Business logic specific to books
     public boolean isLongBook() {
-        return pages > 500;
+        return pages > LONG_BOOK_PAGES;
     }
     
     public String getBookCategory() {
@@ -0,0 +1,90 @@
+package com.oaktown.library.model;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * One row of the fee_ledger table: the charges an open loan has accrued
+ * up to a given day, at the daily rate recorded when it was borrowed.
+ */
+public class FeeLedgerEntry {
+    
+    private final int borrowingId;
+    private final String memberId;
+    private final String isbn;
+    private final LocalDate borrowDate;
+    private final LocalDate dueDate;
+    private final long dailyCents;
+    
+    private LocalDate accruedThrough;
+    private long chargeableDays;
+    private long overdueDays;
+    private long accruedCents;
+    
+    public FeeLedgerEntry(int borrowingId, String memberId, String isbn,
+                          LocalDate borrowDate, LocalDate dueDate, long dailyCents) {
+        this.borrowingId = borrowingId;
+        this.memberId = memberId;
+        this.isbn = isbn;
+        this.borrowDate = borrowDate;
+        this.dueDate = dueDate;
+        this.dailyCents = dailyCents;
+    }
+    
+    /**
+     * Days charged for a loan returned on the given day; every loan pays for at least one day
+     */
+    public static long chargeableDays(LocalDate borrowDate, LocalDate returnDate) {
+        return Math.max(1, ChronoUnit.DAYS.between(borrowDate, returnDate));
+    }
+    
+    /**
+     * Recompute the charges as if the loan were returned on the given day
+     */
+    public void accrueThrough(LocalDate asOf) {
+        this.accruedThrough = asOf;
+        this.chargeableDays = chargeableDays(borrowDate, asOf);
+        this.overdueDays = Math.max(0, ChronoUnit.DAYS.between(dueDate, asOf));
+        this.accruedCents = chargeableDays * dailyCents;
+    }
+    
+    public int getBorrowingId() {
+        return borrowingId;
+    }
+    
+    public String getMemberId() {
+        return memberId;
+    }
+    
+    public String getIsbn() {
+        return isbn;
+    }
+    
+    public LocalDate getBorrowDate() {
+        return borrowDate;
+    }
+    
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+    
+    public long getDailyCents() {
+        return dailyCents;
+    }
+    
+    public LocalDate getAccruedThrough() {
+        return accruedThrough;
+    }
+    
+    public long getChargeableDays() {
+        return chargeableDays;
+    }
+    
+    public long getOverdueDays() {
+        return overdueDays;
+    }
+    
+    public long getAccruedCents() {
+        return accruedCents;
+    }
+}
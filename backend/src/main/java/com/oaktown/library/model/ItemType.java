@@ -0,0 +1,49 @@
+package com.oaktown.library.model;
+
+/**
+ * Kinds of library items, with the per-type rules that pricing and the DAOs
+ * look up. The constant names are the item_type values stored in the database.
+ */
+public enum ItemType {
+    BOOK("Book", 50),
+    REFERENCE_BOOK("Reference Book", 100),
+    MAGAZINE("Magazine", 25);
+    
+    private static final ItemType[] VALUES = values();
+    
+    private final String displayName;
+    private final int dailyCents;
+    
+    ItemType(String displayName, int dailyCents) {
+        this.displayName = displayName;
+        this.dailyCents = dailyCents;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    /**
+     * List price per day in cents, used when no pricing_rates row applies
+     */
+    public int getDailyCents() {
+        return dailyCents;
+    }
+    
+    public double getDailyCost() {
+        return dailyCents / 100.0;
+    }
+    
+    /**
+     * Resolve a database item_type value
+     * @return the type, or null if the value is not a known type
+     */
+    public static ItemType fromCode(String code) {
+        for (ItemType type : VALUES) {
+            if (type.name().equals(code)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
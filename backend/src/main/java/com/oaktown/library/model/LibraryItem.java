@@ -17,6 +17,7 @@ public abstract class LibraryItem {
     private int publicationYear;
     private String currentBorrower; // Member ID or null if available
     private boolean available;
+    private int version; // Row version used for optimistic locking
     
     // Protected constructor for inheritance
     protected LibraryItem(String isbn, String title, String author, int publicationYear) {
@@ -32,7 +33,11 @@ public abstract class LibraryItem {
     public abstract double calculateDailyCost();
     
     // Abstract method for item type identification
-    public abstract String getItemType();
+    public abstract ItemType getType();
+    
+    public String getItemType() {
+        return getType().getDisplayName();
+    }
     
     // Abstract method for getting item-specific information
     public abstract String getItemDetails();
@@ -70,6 +75,17 @@ public abstract class LibraryItem {
         return available;
     }
     
+    /**
+     * @return true while a returned item is kept on the shelf for a ready hold
+     */
+    public boolean isReserved() {
+        return !available && currentBorrower == null;
+    }
+    
+    public int getVersion() {
+        return version;
+    }
+    
     // Protected setters for subclass access
     protected void setCurrentBorrower(String memberId) {
         this.currentBorrower = memberId;
@@ -82,6 +98,17 @@ public abstract class LibraryItem {
         this.available = (memberId == null);
     }
     
+    // Public method for DAO access
+    public void setReservedForDAO() {
+        this.currentBorrower = null;
+        this.available = false;
+    }
+    
+    // Public method for DAO access
+    public void setVersionForDAO(int version) {
+        this.version = version;
+    }
+    
     protected void setAvailable(boolean available) {
         this.available = available;
         if (available) {
@@ -130,7 +157,7 @@ public abstract class LibraryItem {
     public String toString() {
         return String.format("%s: \"%s\" by %s (%d) [%s] - %s", 
                 getItemType(), title, author, publicationYear, isbn,
-                available ? "Available" : "Borrowed by " + currentBorrower);
+                available ? "Available" : currentBorrower != null ? "Borrowed by " + currentBorrower : "Reserved for a hold");
     }
     
     // Additional utility method
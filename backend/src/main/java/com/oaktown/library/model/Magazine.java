@@ -6,17 +6,18 @@ package com.oaktown.library.model;
  */
 public class Magazine extends LibraryItem {
     
-    private static final double DAILY_COST = 0.25;
+    private static final int DEFAULT_MAX_BORROW_DAYS = 14;
     
     private int issueNumber;
     private int volume;
     private String frequency; // weekly, monthly, quarterly, etc.
+    private Frequency frequencyType; // parsed once from frequency; null if not a known frequency
     
     public Magazine(String isbn, String title, String author, int publicationYear, int issueNumber) {
         super(isbn, title, author, publicationYear);
         this.issueNumber = validateIssueNumber(issueNumber);
         this.volume = 1;
-        this.frequency = "Monthly";
+        setFrequency(null);
     }
     
     public Magazine(String isbn, String title, String author, int publicationYear, 
@@ -24,7 +25,13 @@ public class Magazine extends LibraryItem {
         super(isbn, title, author, publicationYear);
         this.issueNumber = validateIssueNumber(issueNumber);
         this.volume = validateVolume(volume);
-        this.frequency = frequency != null ? frequency : "Monthly";
+        setFrequency(frequency);
+    }
+    
+    public Magazine(String isbn, String title, String author, int publicationYear, 
+                   int issueNumber, int volume, Frequency frequency) {
+        this(isbn, title, author, publicationYear, issueNumber, volume, 
+             frequency != null ? frequency.getLabel() : null);
     }
     
     private int validateIssueNumber(int issueNumber) {
@@ -44,12 +51,12 @@ public class Magazine extends LibraryItem {
     // Implementation of abstract methods from LibraryItem
     @Override
     public double calculateDailyCost() {
-        return DAILY_COST;
+        return ItemType.MAGAZINE.getDailyCost();
     }
     
     @Override
-    public String getItemType() {
-        return "Magazine";
+    public ItemType getType() {
+        return ItemType.MAGAZINE;
     }
     
     @Override
@@ -71,6 +78,13 @@ public class Magazine extends LibraryItem {
         return frequency;
     }
     
+    /**
+     * @return the parsed frequency, or null for a frequency label that is not recognized
+     */
+    public Frequency getFrequencyType() {
+        return frequencyType;
+    }
+    
     // Setters
     public void setIssueNumber(int issueNumber) {
         this.issueNumber = validateIssueNumber(issueNumber);
@@ -81,7 +95,8 @@ public class Magazine extends LibraryItem {
     }
     
     public void setFrequency(String frequency) {
-        this.frequency = frequency != null ? frequency : "Monthly";
+        this.frequency = frequency != null ? frequency : Frequency.MONTHLY.getLabel();
+        this.frequencyType = Frequency.fromLabel(this.frequency);
     }
     
     // Magazine-specific business logic
@@ -95,16 +110,8 @@ public class Magazine extends LibraryItem {
         int currentYear = java.time.LocalDate.now().getYear();
         int yearsSincePublication = currentYear - getPublicationYear();
         
-        switch (frequency.toLowerCase()) {
-            case "weekly":
-                return yearsSincePublication * 52 + issueNumber;
-            case "monthly":
-                return yearsSincePublication * 12 + issueNumber;
-            case "quarterly":
-                return yearsSincePublication * 4 + issueNumber;
-            default:
-                return issueNumber;
-        }
+        int issuesPerYear = frequencyType != null ? frequencyType.getProjectedIssuesPerYear() : 0;
+        return yearsSincePublication * issuesPerYear + issueNumber;
     }
     
     public boolean isArchiveIssue() {
@@ -117,16 +124,7 @@ public class Magazine extends LibraryItem {
     
     // Business rule: magazines have shorter borrowing periods
     public int getMaxBorrowDays() {
-        switch (frequency.toLowerCase()) {
-            case "weekly":
-                return 7;
-            case "monthly":
-                return 14;
-            case "quarterly":
-                return 21;
-            default:
-                return 14;
-        }
+        return frequencyType != null ? frequencyType.getMaxBorrowDays() : DEFAULT_MAX_BORROW_DAYS;
     }
     
     // Override toString to include magazine-specific information
@@ -136,11 +134,48 @@ public class Magazine extends LibraryItem {
                 volume, issueNumber, frequency);
     }
     
-    // Magazine frequency types as enum-like constants
-    public static class Frequency {
-        public static final String WEEKLY = "Weekly";
-        public static final String MONTHLY = "Monthly";
-        public static final String QUARTERLY = "Quarterly";
-        public static final String ANNUAL = "Annual";
+    // Magazine frequency types with their loan rules
+    public enum Frequency {
+        WEEKLY("Weekly", 52, 7),
+        MONTHLY("Monthly", 12, 14),
+        QUARTERLY("Quarterly", 4, 21),
+        ANNUAL("Annual", 0, DEFAULT_MAX_BORROW_DAYS); // annual issues are not projected
+        
+        private static final Frequency[] VALUES = values();
+        
+        private final String label;
+        private final int projectedIssuesPerYear;
+        private final int maxBorrowDays;
+        
+        Frequency(String label, int projectedIssuesPerYear, int maxBorrowDays) {
+            this.label = label;
+            this.projectedIssuesPerYear = projectedIssuesPerYear;
+            this.maxBorrowDays = maxBorrowDays;
+        }
+        
+        public String getLabel() {
+            return label;
+        }
+        
+        public int getProjectedIssuesPerYear() {
+            return projectedIssuesPerYear;
+        }
+        
+        public int getMaxBorrowDays() {
+            return maxBorrowDays;
+        }
+        
+        /**
+         * Case-insensitive lookup by label
+         * @return the frequency, or null if the label is not recognized
+         */
+        public static Frequency fromLabel(String label) {
+            for (Frequency frequency : VALUES) {
+                if (frequency.label.equalsIgnoreCase(label)) {
+                    return frequency;
+                }
+            }
+            return null;
+        }
     }
 }
\ No newline at end of file
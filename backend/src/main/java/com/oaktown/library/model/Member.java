@@ -12,6 +12,9 @@ import java.util.Objects;
  */
 public class Member {
     
+    // Business rule: regular members can borrow up to 5 items
+    public static final int MAX_BORROW_LIMIT = 5;
+    
     private String memberId;
     private String name;
     private String email;
@@ -23,6 +26,8 @@ public class Member {
     // Composition - Member has collections of borrowed items
     private List<String> currentlyBorrowedItems; // ISBNs
     private List<String> previouslyBorrowedItems; // ISBNs
+    // Loans returned before this object was loaded, counted by the DAO
+    private int returnedLoanCount;
     
     // Constructor
     public Member(String memberId, String name) {
@@ -93,6 +98,15 @@ public class Member {
         return Collections.unmodifiableList(previouslyBorrowedItems);
     }
     
+    public int getReturnedLoanCount() {
+        return returnedLoanCount;
+    }
+    
+    // Public method for DAO access
+    public void setReturnedLoanCountForDAO(int returnedLoanCount) {
+        this.returnedLoanCount = returnedLoanCount;
+    }
+    
     // Setters
     public void setName(String name) {
         this.name = Objects.requireNonNull(name, "Name cannot be null");
@@ -124,12 +138,11 @@ public class Member {
     }
     
     public int getTotalBorrowedCount() {
-        return previouslyBorrowedItems.size() + currentlyBorrowedItems.size();
+        return returnedLoanCount + previouslyBorrowedItems.size() + currentlyBorrowedItems.size();
     }
     
     public int getMaxBorrowLimit() {
-        // Business rule: regular members can borrow up to 5 items
-        return 5;
+        return MAX_BORROW_LIMIT;
     }
     
     public boolean hasBorrowedItem(String isbn) {
@@ -170,12 +183,12 @@ public class Member {
         return getMembershipDuration() <= 30; // Less than 30 days
     }
     
+    public MemberTier getTier() {
+        return MemberTier.forTotalBorrowed(getTotalBorrowedCount());
+    }
+    
     public String getMembershipLevel() {
-        int totalBorrowed = getTotalBorrowedCount();
-        if (totalBorrowed < 10) return "Bronze";
-        if (totalBorrowed < 50) return "Silver";
-        if (totalBorrowed < 100) return "Gold";
-        return "Platinum";
+        return getTier().getDisplayName();
     }
     
     // Override equals and hashCode
@@ -0,0 +1,36 @@
+package com.oaktown.library.model;
+
+/**
+ * Membership levels, earned by the total number of items a member has borrowed.
+ * The constant names are the member_tier values stored in pricing_rates.
+ */
+public enum MemberTier {
+    BRONZE("Bronze", 0),
+    SILVER("Silver", 10),
+    GOLD("Gold", 50),
+    PLATINUM("Platinum", 100);
+    
+    private static final MemberTier[] VALUES = values();
+    
+    private final String displayName;
+    private final int minTotalBorrowed;
+    
+    MemberTier(String displayName, int minTotalBorrowed) {
+        this.displayName = displayName;
+        this.minTotalBorrowed = minTotalBorrowed;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    public static MemberTier forTotalBorrowed(int totalBorrowed) {
+        MemberTier tier = BRONZE;
+        for (MemberTier candidate : VALUES) {
+            if (totalBorrowed >= candidate.minTotalBorrowed) {
+                tier = candidate;
+            }
+        }
+        return tier;
+    }
+}
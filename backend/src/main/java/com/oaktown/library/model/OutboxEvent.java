@@ -0,0 +1,75 @@
+package com.oaktown.library.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * A loan change recorded in the outbox_events table in the same transaction as the change.
+ * The id increases with commit order of the insert and doubles as the relay cursor.
+ */
+public final class OutboxEvent {
+    
+    public enum Type {
+        LOAN_BORROWED,
+        LOAN_RETURNED,
+        // Written by the relay over an id whose transaction rolled back; never delivered
+        TOMBSTONE
+    }
+    
+    private final long id;
+    private final Type type;
+    private final int loanId;
+    private final String isbn;
+    private final String memberId;
+    private final String payload;
+    private final LocalDateTime createdAt;
+    
+    public OutboxEvent(long id, Type type, int loanId, String isbn, String memberId,
+                       String payload, LocalDateTime createdAt) {
+        this.id = id;
+        this.type = type;
+        this.loanId = loanId;
+        this.isbn = isbn;
+        this.memberId = memberId;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+    
+    public long getId() {
+        return id;
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    /**
+     * The borrowed_items id of the loan
+     */
+    public int getLoanId() {
+        return loanId;
+    }
+    
+    public String getIsbn() {
+        return isbn;
+    }
+    
+    public String getMemberId() {
+        return memberId;
+    }
+    
+    /**
+     * Event details as a JSON object
+     */
+    public String getPayload() {
+        return payload;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "OutboxEvent{#" + id + " " + type + " loan " + loanId + ", " + isbn + ", " + memberId + "}";
+    }
+}
@@ -0,0 +1,56 @@
+package com.oaktown.library.model;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * One row of the pricing_rates table: the daily cost in cents for an item type,
+ * optionally limited to one member tier, over a date range.
+ */
+public final class PricingRate {
+    
+    private final ItemType itemType;
+    private final MemberTier memberTier;
+    private final LocalDate validFrom;
+    private final LocalDate validTo;
+    private final int dailyCents;
+    
+    /**
+     * @param memberTier tier the rate applies to, or null for every tier
+     * @param validTo first day the rate no longer applies, or null if open-ended
+     */
+    public PricingRate(ItemType itemType, MemberTier memberTier, LocalDate validFrom,
+                       LocalDate validTo, int dailyCents) {
+        this.itemType = Objects.requireNonNull(itemType, "Item type cannot be null");
+        this.memberTier = memberTier;
+        this.validFrom = Objects.requireNonNull(validFrom, "Start date cannot be null");
+        this.validTo = validTo;
+        if (validTo != null && !validTo.isAfter(validFrom)) {
+            throw new IllegalArgumentException("Rate must end after it starts");
+        }
+        if (dailyCents < 0) {
+            throw new IllegalArgumentException("Daily cost cannot be negative");
+        }
+        this.dailyCents = dailyCents;
+    }
+    
+    public ItemType getItemType() {
+        return itemType;
+    }
+    
+    public MemberTier getMemberTier() {
+        return memberTier;
+    }
+    
+    public LocalDate getValidFrom() {
+        return validFrom;
+    }
+    
+    public LocalDate getValidTo() {
+        return validTo;
+    }
+    
+    public int getDailyCents() {
+        return dailyCents;
+    }
+}
@@ -0,0 +1,73 @@
+package com.oaktown.library.model;
+
+import java.util.Objects;
+
+/**
+ * The recorded outcome of a client request, together with the operation, item
+ * and member it was made for, so that a request ID reused for a different
+ * request can be told apart from a genuine replay.
+ */
+public final class ProcessedRequest {
+    
+    public enum Operation {
+        BORROW,
+        RETURN
+    }
+    
+    private final String requestId;
+    private final Operation operation;
+    private final String isbn;
+    private final String memberId;
+    private final boolean success;
+    
+    public ProcessedRequest(String requestId, Operation operation, String isbn, String memberId, boolean success) {
+        this.requestId = requestId;
+        this.operation = operation;
+        this.isbn = isbn;
+        this.memberId = memberId;
+        this.success = success;
+    }
+    
+    public String getRequestId() {
+        return requestId;
+    }
+    
+    public Operation getOperation() {
+        return operation;
+    }
+    
+    public String getIsbn() {
+        return isbn;
+    }
+    
+    public String getMemberId() {
+        return memberId;
+    }
+    
+    public boolean isSuccess() {
+        return success;
+    }
+    
+    /**
+     * @return true if a replay with these arguments is the request that was recorded
+     */
+    public boolean matches(Operation operation, String isbn, String memberId) {
+        return this.operation == operation && Objects.equals(this.isbn, isbn) && Objects.equals(this.memberId, memberId);
+    }
+    
+    /**
+     * The outcome of a replay with these arguments
+     * @throws IllegalArgumentException if the request ID was recorded for a different request
+     */
+    public boolean replay(Operation operation, String isbn, String memberId) {
+        if (!matches(operation, isbn, memberId)) {
+            throw new IllegalArgumentException("Request ID " + requestId + " was already used for " + this);
+        }
+        return success;
+    }
+    
+    @Override
+    public String toString() {
+        return operation + " of " + isbn + " by " + memberId + (success ? " (succeeded)" : " (refused)");
+    }
+}
@@ -6,8 +6,6 @@ package com.oaktown.library.model;
  */
 public class ReferenceBook extends Book {
     
-    private static final double DAILY_COST = 1.00;
-    
     private boolean restricted;
     
     public ReferenceBook(String isbn, String title, String author, int publicationYear, 
@@ -25,12 +23,12 @@ public class ReferenceBook extends Book {
     // Override abstract methods from LibraryItem
     @Override
     public double calculateDailyCost() {
-        return DAILY_COST;
+        return ItemType.REFERENCE_BOOK.getDailyCost();
     }
     
     @Override
-    public String getItemType() {
-        return "Reference Book";
+    public ItemType getType() {
+        return ItemType.REFERENCE_BOOK;
     }
     
     @Override
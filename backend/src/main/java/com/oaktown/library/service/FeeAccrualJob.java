@@ -0,0 +1,118 @@
+package com.oaktown.library.service;
+
+import com.oaktown.library.dao.FeeLedgerDAO;
+import com.oaktown.library.model.FeeLedgerEntry;
+import com.oaktown.library.util.DatabaseConnection;
+import com.oaktown.library.util.Metrics;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nightly job that brings the fee ledger up to date for every open loan.
+ * Loans are read in primary key order one bounded page at a time, and each
+ * page is written back as one batched upsert in its own short transaction.
+ * Loans already accrued through the target day are skipped, so a run that
+ * is interrupted can simply be started again.
+ */
+public class FeeAccrualJob {
+    
+    private final FeeLedgerDAO feeLedgerDAO;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final Metrics metrics = Metrics.getInstance();
+    
+    private ScheduledExecutorService scheduler;
+    
+    /**
+     * Create a job using the fees.accrual.* settings from config.properties
+     */
+    public FeeAccrualJob(FeeLedgerDAO feeLedgerDAO, DatabaseConnection dbConnection) {
+        this(feeLedgerDAO,
+             dbConnection.getIntProperty("fees.accrual.batch.size", 1000),
+             dbConnection.getIntProperty("fees.accrual.pause.ms", 20));
+    }
+    
+    public FeeAccrualJob(FeeLedgerDAO feeLedgerDAO, int batchSize, long pauseMillis) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.feeLedgerDAO = feeLedgerDAO;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+    }
+    
+    /**
+     * Accrue fees for all open loans through the given day
+     * @return number of ledger entries written
+     */
+    public int runOnce(LocalDate asOf) {
+        int total = 0;
+        int afterId = 0;
+        while (true) {
+            List<FeeLedgerEntry> loans = feeLedgerDAO.findLoansToAccrue(afterId, asOf, batchSize);
+            if (loans.isEmpty()) {
+                break;
+            }
+            for (FeeLedgerEntry loan : loans) {
+                loan.accrueThrough(asOf);
+            }
+            total += feeLedgerDAO.saveEntries(loans);
+            afterId = loans.get(loans.size() - 1).getBorrowingId();
+            if (loans.size() < batchSize) {
+                break;
+            }
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        metrics.add("fees.accrued", total);
+        return total;
+    }
+    
+    /**
+     * Run the job every day at the given local time on a daemon thread
+     */
+    public synchronized void start(LocalTime runAt) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "fee-accrual");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                runOnce(LocalDate.now());
+            } catch (RuntimeException e) {
+                System.err.println("Fee accrual run failed: " + e.getMessage());
+            }
+        }, minutesUntil(runAt), TimeUnit.DAYS.toMinutes(1), TimeUnit.MINUTES);
+    }
+    
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+    
+    private static long minutesUntil(LocalTime runAt) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(runAt);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        return Duration.between(now, next).toMinutes();
+    }
+}
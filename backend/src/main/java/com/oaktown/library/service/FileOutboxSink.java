@@ -0,0 +1,61 @@
+package com.oaktown.library.service;
+
+import com.oaktown.library.model.OutboxEvent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Outbox sink that appends each loan event to a file as one JSON object per line,
+ * for log shippers and batch jobs to pick up. A batch is forced to disk before the
+ * relay saves its cursor; a redelivered batch repeats its lines with the same ids.
+ */
+public class FileOutboxSink implements OutboxSink {
+    
+    private final Path path;
+    
+    public FileOutboxSink(Path path) {
+        this.path = path;
+    }
+    
+    @Override
+    public synchronized void deliver(List<OutboxEvent> events) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (OutboxEvent event : events) {
+            lines.append(format(event)).append('\n');
+        }
+        
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.APPEND)) {
+            ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+            out.force(false);
+        }
+    }
+    
+    static String format(OutboxEvent event) {
+        return "{\"id\":" + event.getId() + "," +
+               "\"type\":\"" + event.getType() + "\"," +
+               "\"loanId\":" + event.getLoanId() + "," +
+               "\"isbn\":\"" + escape(event.getIsbn()) + "\"," +
+               "\"memberId\":\"" + escape(event.getMemberId()) + "\"," +
+               "\"createdAt\":\"" + event.getCreatedAt() + "\"," +
+               "\"payload\":" + event.getPayload() + "}";
+    }
+    
+    private static String escape(String value) {
+        return value == null ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
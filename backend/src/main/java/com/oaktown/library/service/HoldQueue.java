@@ -0,0 +1,109 @@
+package com.oaktown.library.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory FIFO of the members in this process waiting on each ISBN.
+ * Every waiter holds a future that completes with the ISBN once its hold is
+ * ready for pickup, so clients wait for that event instead of polling the
+ * item's availability. The holds table stays the source of truth for order.
+ */
+public class HoldQueue {
+    
+    private static final class Waiter {
+        final String memberId;
+        final CompletableFuture<String> ready = new CompletableFuture<>();
+        
+        Waiter(String memberId) {
+            this.memberId = memberId;
+        }
+    }
+    
+    private final ConcurrentHashMap<String, Deque<Waiter>> queues = new ConcurrentHashMap<>();
+    
+    /**
+     * Add a member to the end of an ISBN's queue
+     * @return the future for the member's hold; the existing one if the member is already queued
+     */
+    public CompletableFuture<String> enqueue(String isbn, String memberId) {
+        Waiter[] result = new Waiter[1];
+        queues.compute(isbn, (key, queue) -> {
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+            }
+            for (Waiter waiter : queue) {
+                if (waiter.memberId.equals(memberId)) {
+                    result[0] = waiter;
+                    return queue;
+                }
+            }
+            result[0] = new Waiter(memberId);
+            queue.addLast(result[0]);
+            return queue;
+        });
+        return result[0].ready;
+    }
+    
+    /**
+     * Whether anyone in this process is waiting on an ISBN
+     */
+    public boolean hasWaiters(String isbn) {
+        return queues.containsKey(isbn);
+    }
+    
+    /**
+     * Number of members in this process waiting on an ISBN
+     */
+    public int waiting(String isbn) {
+        int[] size = new int[1];
+        queues.computeIfPresent(isbn, (key, queue) -> {
+            size[0] = queue.size();
+            return queue;
+        });
+        return size[0];
+    }
+    
+    /**
+     * Tell a member that their hold is ready and drop them from the queue
+     * @return false if the member was not waiting in this process
+     */
+    public boolean notifyReady(String isbn, String memberId) {
+        Waiter waiter = remove(isbn, memberId);
+        if (waiter == null) {
+            return false;
+        }
+        waiter.ready.complete(isbn);
+        return true;
+    }
+    
+    /**
+     * Drop a member from the queue, cancelling their future
+     */
+    public void cancel(String isbn, String memberId) {
+        Waiter waiter = remove(isbn, memberId);
+        if (waiter != null) {
+            waiter.ready.cancel(false);
+        }
+    }
+    
+    private Waiter remove(String isbn, String memberId) {
+        Waiter[] removed = new Waiter[1];
+        queues.computeIfPresent(isbn, (key, queue) -> {
+            Iterator<Waiter> it = queue.iterator();
+            while (it.hasNext()) {
+                Waiter waiter = it.next();
+                if (waiter.memberId.equals(memberId)) {
+                    it.remove();
+                    removed[0] = waiter;
+                    break;
+                }
+            }
+            return queue.isEmpty() ? null : queue;
+        });
+        return removed[0];
+    }
+}
@@ -1,12 +1,48 @@
 package com.oaktown.library.service;
 
 import com.oaktown.library.dao.BorrowingDAO;
+import com.oaktown.library.dao.BorrowingRepository;
+import com.oaktown.library.dao.FileBorrowingDAO;
+import com.oaktown.library.dao.FileHoldDAO;
+import com.oaktown.library.dao.FileLibraryItemDAO;
+import com.oaktown.library.dao.FileMemberDAO;
+import com.oaktown.library.dao.HoldDAO;
+import com.oaktown.library.dao.HoldRepository;
 import com.oaktown.library.dao.LibraryItemDAO;
+import com.oaktown.library.dao.LibraryItemRepository;
 import com.oaktown.library.dao.MemberDAO;
+import com.oaktown.library.dao.MemberRepository;
+import com.oaktown.library.dao.OptimisticLockException;
+import com.oaktown.library.dao.PricingDAO;
+import com.oaktown.library.dao.ShardedBorrowingRepository;
+import com.oaktown.library.dao.ShardedHoldRepository;
+import com.oaktown.library.dao.ShardedLibraryItemRepository;
+import com.oaktown.library.dao.ShardedMemberRepository;
 import com.oaktown.library.model.*;
+import com.oaktown.library.util.AvailabilityFeed;
+import com.oaktown.library.util.BranchShards;
+import com.oaktown.library.util.CatalogSnapshot;
+import com.oaktown.library.util.DatabaseConnection;
+import com.oaktown.library.util.ExpiringCache;
+import com.oaktown.library.util.LogStore;
+import com.oaktown.library.util.Metrics;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Library service class that provides high-level operations for the library system.
@@ -15,22 +51,161 @@ import java.util.Map;
  */
 public class Library {
     
-    private final LibraryItemDAO itemDAO;
-    private final MemberDAO memberDAO;
-    private final BorrowingDAO borrowingDAO;
+    // Bounded retry for optimistic-lock conflicts on library_items
+    private static final int MAX_CONFLICT_RETRIES = 3;
+    private static final long CONFLICT_BACKOFF_MILLIS = 10;
+    
+    // Remembered outcomes of client request IDs (idempotent borrow/return)
+    private static final int COMPLETED_REQUEST_CAPACITY = 10_000;
+    private static final int REQUEST_RETENTION_HOURS = 24;
+    private static final int MAX_REQUEST_ID_LENGTH = 64;
+    
+    // Availability changes buffered between catalog snapshot reads before a rebuild is needed
+    private static final int CATALOG_CHANGE_BUFFER = 10_000;
+    
+    private final ExpiringCache<String, ProcessedRequest> completedRequests =
+        new ExpiringCache<>(COMPLETED_REQUEST_CAPACITY, REQUEST_RETENTION_HOURS, TimeUnit.HOURS);
+    private final LibraryItemRepository itemDAO;
+    private final MemberRepository memberDAO;
+    private final BorrowingRepository borrowingDAO;
+    private final HoldRepository holdDAO;
+    private final PricingEngine pricing;
+    // Databases holding loans, one per branch shard; empty on the file store
+    private final List<DatabaseConnection> loanDatabases;
+    private final HoldQueue holdQueue = new HoldQueue();
+    // Embedded store opened by this library when storage.backend=file; null on MySQL
+    private final LogStore fileStore;
+    // Columnar copy of the catalog for analytics, built on first use; both guarded by catalogLock
+    private final Object catalogLock = new Object();
+    private CatalogSnapshot catalogSnapshot;
+    private AvailabilityFeed.Subscription catalogChanges;
+    private ScheduledExecutorService requestPurger;
     
     // Constructor demonstrating dependency injection
     public Library() {
-        this.itemDAO = new LibraryItemDAO();
-        this.memberDAO = new MemberDAO();
-        this.borrowingDAO = new BorrowingDAO();
+        this(openFileStore(DatabaseConnection.getInstance()));
+    }
+    
+    private Library(LogStore fileStore) {
+        DatabaseConnection dbConnection = DatabaseConnection.getInstance();
+        BranchShards shards = fileStore == null ? BranchShards.fromConfig(dbConnection) : null;
+        if (shards != null) {
+            this.itemDAO = new ShardedLibraryItemRepository(shards);
+            this.memberDAO = new ShardedMemberRepository(shards);
+            this.borrowingDAO = new ShardedBorrowingRepository(shards);
+            this.holdDAO = new ShardedHoldRepository(shards);
+            this.pricing = loadPricing(shards.referenceShard());
+            this.loanDatabases = new ArrayList<>();
+            for (String branch : shards.branches()) {
+                this.loanDatabases.add(shards.connection(branch));
+            }
+        } else if (fileStore == null) {
+            this.itemDAO = new LibraryItemDAO();
+            this.memberDAO = new MemberDAO();
+            this.borrowingDAO = new BorrowingDAO();
+            this.holdDAO = new HoldDAO();
+            this.pricing = loadPricing(dbConnection);
+            this.loanDatabases = Collections.singletonList(dbConnection);
+        } else {
+            this.itemDAO = new FileLibraryItemDAO(fileStore);
+            this.memberDAO = new FileMemberDAO(fileStore);
+            int pickupDays = dbConnection.getIntProperty("holds.pickup.days", HoldDAO.DEFAULT_PICKUP_DAYS);
+            this.borrowingDAO = new FileBorrowingDAO(fileStore, pickupDays);
+            this.holdDAO = new FileHoldDAO(fileStore, pickupDays);
+            this.pricing = PricingEngine.listPrices();
+            this.loanDatabases = Collections.emptyList();
+        }
+        this.fileStore = fileStore;
     }
     
     // Constructor for testing with dependency injection
-    public Library(LibraryItemDAO itemDAO, MemberDAO memberDAO, BorrowingDAO borrowingDAO) {
+    public Library(LibraryItemRepository itemDAO, MemberRepository memberDAO, BorrowingRepository borrowingDAO) {
+        this(itemDAO, memberDAO, borrowingDAO, new HoldDAO(), PricingEngine.listPrices());
+    }
+    
+    public Library(LibraryItemRepository itemDAO, MemberRepository memberDAO, BorrowingRepository borrowingDAO,
+                   HoldRepository holdDAO, PricingEngine pricing) {
         this.itemDAO = itemDAO;
         this.memberDAO = memberDAO;
         this.borrowingDAO = borrowingDAO;
+        this.holdDAO = holdDAO;
+        this.pricing = pricing;
+        this.loanDatabases = Collections.emptyList();
+        this.fileStore = null;
+    }
+    
+    /**
+     * Open the embedded store when storage.backend=file
+     * @return the store, or null to use MySQL
+     */
+    private static LogStore openFileStore(DatabaseConnection dbConnection) {
+        if (!"file".equalsIgnoreCase(dbConnection.getProperty("storage.backend", "mysql"))) {
+            return null;
+        }
+        
+        try {
+            LogStore store = new LogStore(Paths.get(dbConnection.getProperty("storage.file.path", "data/oaktown-library.log")),
+                                          Boolean.parseBoolean(dbConnection.getProperty("storage.file.sync", "true")));
+            store.startCompaction(dbConnection.getIntProperty("storage.file.compact.interval.seconds", 300));
+            return store;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the library data file", e);
+        }
+    }
+    
+    /**
+     * Load the rate tables once; fall back to list prices if they cannot be read
+     */
+    private static PricingEngine loadPricing(DatabaseConnection dbConnection) {
+        try {
+            return new PricingEngine(new PricingDAO(dbConnection).loadRates());
+        } catch (SQLException | IllegalArgumentException e) {
+            System.err.println("Error loading pricing rates, using list prices: " + e.getMessage());
+            return PricingEngine.listPrices();
+        }
+    }
+    
+    /**
+     * The databases loans are stored in, for the jobs that archive them, accrue their
+     * fees and relay their events: one per branch shard, or the single MySQL database
+     * @return the databases; empty on the file store
+     */
+    public List<DatabaseConnection> getLoanDatabases() {
+        return Collections.unmodifiableList(loanDatabases);
+    }
+    
+    /**
+     * Commit any queued loan operations and stop background threads
+     */
+    public void shutdown() {
+        synchronized (this) {
+            if (requestPurger != null) {
+                requestPurger.shutdownNow();
+                requestPurger = null;
+            }
+        }
+        borrowingDAO.shutdown();
+        synchronized (catalogLock) {
+            if (catalogChanges != null) {
+                catalogChanges.close();
+            }
+        }
+        if (fileStore != null) {
+            try {
+                fileStore.close();
+            } catch (IOException e) {
+                System.err.println("Error closing library data file: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Build the in-memory ISBN and member ID presence filters so lookups of
+     * unknown keys can be answered without a database round trip
+     */
+    public void warmUpLookupFilters() {
+        itemDAO.initializeKeyFilter();
+        memberDAO.initializeKeyFilter();
     }
     
     /**
@@ -61,6 +236,40 @@ public class Library {
      * Borrow an item with specified duration
      */
     public boolean borrowItem(String isbn, Member member, int days) {
+        return performBorrow(null, isbn, member, days);
+    }
+    
+    /**
+     * Borrow an item on behalf of a client request. Resending the same request ID
+     * returns the recorded outcome instead of borrowing again; a failure that
+     * recorded nothing may be retried.
+     * @throws IllegalArgumentException if the request ID was used for a different request
+     */
+    public boolean borrowItem(String requestId, String isbn, Member member) {
+        return borrowItem(requestId, isbn, member, 14); // Default 14 days
+    }
+    
+    /**
+     * Borrow an item with specified duration on behalf of a client request
+     */
+    public boolean borrowItem(String requestId, String isbn, Member member, int days) {
+        requireRequestId(requestId);
+        
+        ProcessedRequest previous = findCompletedRequest(requestId);
+        if (previous != null) {
+            return previous.replay(ProcessedRequest.Operation.BORROW, isbn, memberIdOf(member));
+        }
+        
+        // Not cached here: only outcomes recorded in processed_requests are replayed,
+        // so a failure that wrote nothing can be retried with the same request ID
+        return performBorrow(requestId, isbn, member, days);
+    }
+    
+    /**
+     * Borrowing flow shared by the plain and idempotent variants
+     * @param requestId client request ID, or null for an unguarded borrow
+     */
+    private boolean performBorrow(String requestId, String isbn, Member member, int days) {
         // Validation
         if (isbn == null || isbn.trim().isEmpty()) {
             throw new IllegalArgumentException("ISBN cannot be null or empty");
@@ -82,24 +291,39 @@ public class Library {
             throw new IllegalStateException("Member account is not active");
         }
         
-        // Find the item
-        LibraryItem item = itemDAO.findByIsbn(isbn);
-        if (item == null) {
-            throw new IllegalArgumentException("Item with ISBN " + isbn + " not found");
-        }
-        
-        // Check if item can be borrowed
-        if (!item.canBeBorrowed()) {
-            throw new IllegalStateException("Item cannot be borrowed: " + 
-                (item.isAvailable() ? "Item restrictions apply" : "Item is already borrowed"));
+        boolean success = false;
+        for (int attempt = 0; ; attempt++) {
+            // Find the item (re-read on every attempt so a conflict sees fresh state)
+            LibraryItem item = itemDAO.findByIsbn(isbn);
+            if (item == null) {
+                throw new IllegalArgumentException("Item with ISBN " + isbn + " not found");
+            }
+            
+            // Check if item can be borrowed; whether a reserved item is kept for this member is up to the DAO
+            if (!item.canBeBorrowed() && !item.isReserved()) {
+                throw new IllegalStateException("Item cannot be borrowed: " + 
+                    (item.isAvailable() ? "Item restrictions apply" : "Item is already borrowed; place a hold to be notified"));
+            }
+            
+            // Calculate daily cost
+            int dailyCents = pricing.dailyCents(item.getType(), dbMember.getTier(), LocalDate.now());
+            double dailyCost = BigDecimal.valueOf(dailyCents, 2).doubleValue();
+            
+            // Perform the borrowing transaction
+            try {
+                success = requestId == null
+                    ? borrowingDAO.borrowItem(isbn, member.getMemberId(), days, dailyCost)
+                    : borrowingDAO.borrowItem(requestId, isbn, member.getMemberId(), days, dailyCost);
+                break;
+            } catch (OptimisticLockException e) {
+                if (attempt >= MAX_CONFLICT_RETRIES) {
+                    System.err.println("Giving up borrowing after repeated conflicts: " + e.getMessage());
+                    return false;
+                }
+                backOffAfterConflict(attempt);
+            }
         }
         
-        // Calculate daily cost
-        double dailyCost = item.calculateDailyCost();
-        
-        // Perform the borrowing transaction
-        boolean success = borrowingDAO.borrowItem(isbn, member.getMemberId(), days, dailyCost);
-        
         if (success) {
             // Update member object (for consistency)
             try {
@@ -108,6 +332,9 @@ public class Library {
                 // Member object might be out of sync, but database operation succeeded
                 System.out.println("Note: Member object may be out of sync with database");
             }
+        } else {
+            // A refused borrow may have expired a lapsed hold and made the next one ready
+            notifyHoldReady(isbn);
         }
         
         return success;
@@ -117,6 +344,32 @@ public class Library {
      * Return an item by specifying ISBN and member object
      */
     public boolean returnItem(String isbn, Member member) {
+        return performReturn(null, isbn, member);
+    }
+    
+    /**
+     * Return an item on behalf of a client request. Resending the same request ID
+     * returns the original outcome instead of returning again.
+     * @throws IllegalArgumentException if the request ID was used for a different request
+     */
+    public boolean returnItem(String requestId, String isbn, Member member) {
+        requireRequestId(requestId);
+        
+        ProcessedRequest previous = findCompletedRequest(requestId);
+        if (previous != null) {
+            return previous.replay(ProcessedRequest.Operation.RETURN, isbn, memberIdOf(member));
+        }
+        
+        // Not cached here: only outcomes recorded in processed_requests are replayed,
+        // so a failure that wrote nothing can be retried with the same request ID
+        return performReturn(requestId, isbn, member);
+    }
+    
+    /**
+     * Return flow shared by the plain and idempotent variants
+     * @param requestId client request ID, or null for an unguarded return
+     */
+    private boolean performReturn(String requestId, String isbn, Member member) {
         // Validation
         if (isbn == null || isbn.trim().isEmpty()) {
             throw new IllegalArgumentException("ISBN cannot be null or empty");
@@ -142,8 +395,22 @@ public class Library {
             throw new IllegalStateException("Member has not borrowed this item");
         }
         
-        // Perform the return transaction
-        boolean success = borrowingDAO.returnItem(isbn, member.getMemberId());
+        // Perform the return transaction, retrying if the item row changed underneath us
+        boolean success = false;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                success = requestId == null
+                    ? borrowingDAO.returnItem(isbn, member.getMemberId())
+                    : borrowingDAO.returnItem(requestId, isbn, member.getMemberId());
+                break;
+            } catch (OptimisticLockException e) {
+                if (attempt >= MAX_CONFLICT_RETRIES) {
+                    System.err.println("Giving up return after repeated conflicts: " + e.getMessage());
+                    return false;
+                }
+                backOffAfterConflict(attempt);
+            }
+        }
         
         if (success) {
             // Update member object (for consistency)
@@ -153,13 +420,159 @@ public class Library {
                 // Member object might be out of sync, but database operation succeeded
                 System.out.println("Note: Member object may be out of sync with database");
             }
+            
+            notifyHoldReady(isbn);
         }
         
         return success;
     }
     
     /**
-     * Calculate the borrowing cost for an item for specified number of days
+     * Place a hold on a borrowed item. The returned future completes with the
+     * ISBN when the item is returned and kept for this member, so callers can
+     * wait for it instead of polling availability.
+     */
+    public CompletableFuture<String> placeHold(String isbn, Member member) {
+        if (isbn == null || isbn.trim().isEmpty()) {
+            throw new IllegalArgumentException("ISBN cannot be null or empty");
+        }
+        if (member == null) {
+            throw new IllegalArgumentException("Member cannot be null");
+        }
+        
+        Member dbMember = memberDAO.findById(member.getMemberId());
+        if (dbMember == null) {
+            throw new IllegalArgumentException("Member not found in database");
+        }
+        if (!dbMember.isActive()) {
+            throw new IllegalStateException("Member account is not active");
+        }
+        
+        String memberId = dbMember.getMemberId();
+        switch (holdDAO.placeHold(isbn, memberId)) {
+            case PLACED:
+                return holdQueue.enqueue(isbn, memberId);
+            case ALREADY_HOLDING:
+                if (memberId.equals(holdDAO.findReadyHolder(isbn))) {
+                    return CompletableFuture.completedFuture(isbn);
+                }
+                return holdQueue.enqueue(isbn, memberId);
+            case ALREADY_BORROWED:
+                throw new IllegalStateException("Member is already borrowing this item");
+            case ITEM_AVAILABLE:
+                throw new IllegalStateException("Item is available; borrow it instead");
+            case NOT_FOUND:
+                throw new IllegalArgumentException("Item with ISBN " + isbn + " not found");
+            default:
+                return CompletableFuture.failedFuture(new IllegalStateException("Could not place hold on " + isbn));
+        }
+    }
+    
+    /**
+     * Cancel a member's hold; a ready hold passes to the next member in line
+     */
+    public void cancelHold(String isbn, Member member) {
+        if (member == null) {
+            throw new IllegalArgumentException("Member cannot be null");
+        }
+        
+        holdQueue.cancel(isbn, member.getMemberId());
+        String nextHolder = holdDAO.cancelHold(isbn, member.getMemberId());
+        if (nextHolder != null) {
+            holdQueue.notifyReady(isbn, nextHolder);
+        }
+    }
+    
+    /**
+     * Wake the member whose hold became ready when an item was returned.
+     * Only queries the holds table if someone in this process is waiting.
+     */
+    private void notifyHoldReady(String isbn) {
+        if (!holdQueue.hasWaiters(isbn)) {
+            return;
+        }
+        String holder = holdDAO.findReadyHolder(isbn);
+        if (holder != null && holdQueue.notifyReady(isbn, holder)) {
+            Metrics.getInstance().increment("holds.notified");
+        }
+    }
+    
+    /**
+     * Look up an already completed client request,
+     * first in memory and then in the processed_requests table
+     */
+    private ProcessedRequest findCompletedRequest(String requestId) {
+        ProcessedRequest request = completedRequests.get(requestId);
+        if (request == null) {
+            request = borrowingDAO.findProcessedRequest(requestId).orElse(null);
+            if (request != null) {
+                completedRequests.put(requestId, request);
+            }
+        }
+        if (request != null) {
+            Metrics.getInstance().increment("requests.replayed");
+        }
+        return request;
+    }
+    
+    // The member is validated later, once the request turns out not to be a replay
+    private static String memberIdOf(Member member) {
+        return member != null ? member.getMemberId() : null;
+    }
+    
+    private void requireRequestId(String requestId) {
+        if (requestId == null || requestId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Request ID cannot be null or empty");
+        }
+        if (requestId.length() > MAX_REQUEST_ID_LENGTH) {
+            throw new IllegalArgumentException("Request ID cannot be longer than " + MAX_REQUEST_ID_LENGTH + " characters");
+        }
+    }
+    
+    /**
+     * Forget request outcomes older than the retention period, in memory and in the database
+     * @return number of database records removed
+     */
+    public int purgeExpiredRequests() {
+        completedRequests.purgeExpired();
+        return borrowingDAO.purgeProcessedRequests(REQUEST_RETENTION_HOURS);
+    }
+    
+    /**
+     * Purge expired request outcomes now and then every intervalMinutes on a daemon thread
+     */
+    public synchronized void startRequestPurge(long intervalMinutes) {
+        if (requestPurger != null) {
+            return;
+        }
+        requestPurger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "request-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        requestPurger.scheduleWithFixedDelay(() -> {
+            try {
+                purgeExpiredRequests();
+            } catch (RuntimeException e) {
+                System.err.println("Request purge failed: " + e.getMessage());
+            }
+        }, 0, intervalMinutes, TimeUnit.MINUTES);
+    }
+    
+    /**
+     * Sleep before retrying after an optimistic-lock conflict (exponential backoff)
+     */
+    private void backOffAfterConflict(int attempt) {
+        try {
+            Thread.sleep(CONFLICT_BACKOFF_MILLIS << attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Calculate the borrowing cost for an item for specified number of days,
+     * at the rate that applies to every member tier
      */
     public double calculateBorrowingCost(String isbn, int days) {
         if (isbn == null || isbn.trim().isEmpty()) {
@@ -169,12 +582,42 @@ public class Library {
             throw new IllegalArgumentException("Number of days must be positive");
         }
         
-        LibraryItem item = itemDAO.findByIsbn(isbn);
-        if (item == null) {
+        ItemType type = itemDAO.findItemType(isbn);
+        if (type == null) {
             throw new IllegalArgumentException("Item with ISBN " + isbn + " not found");
         }
         
-        return item.calculateTotalCost(days);
+        long cents = pricing.quoteCents(type, null, LocalDate.now(), days);
+        return BigDecimal.valueOf(cents, 2).doubleValue();
+    }
+    
+    /**
+     * Quote the borrowing cost of a basket of items for a member with one catalog query
+     * @return cost in cents by ISBN, in request order; unknown ISBNs are left out
+     */
+    public Map<String, Long> quoteBorrowingCosts(List<String> isbns, Member member, int days) {
+        if (isbns == null) {
+            throw new IllegalArgumentException("ISBN list cannot be null");
+        }
+        if (member == null) {
+            throw new IllegalArgumentException("Member cannot be null");
+        }
+        if (days <= 0) {
+            throw new IllegalArgumentException("Number of days must be positive");
+        }
+        
+        Map<String, ItemType> types = itemDAO.findItemTypes(isbns);
+        MemberTier tier = member.getTier();
+        LocalDate today = LocalDate.now();
+        
+        Map<String, Long> quotes = new LinkedHashMap<>();
+        for (String isbn : isbns) {
+            ItemType type = types.get(isbn);
+            if (type != null) {
+                quotes.put(isbn, pricing.quoteCents(type, tier, today, days));
+            }
+        }
+        return quotes;
     }
     
     /**
@@ -213,7 +656,11 @@ public class Library {
             throw new IllegalArgumentException("Item with ISBN " + item.getIsbn() + " already exists");
         }
         
-        return itemDAO.createLibraryItem(item);
+        boolean created = itemDAO.createLibraryItem(item);
+        if (created) {
+            updateCatalogSnapshot(snapshot -> snapshot.put(item));
+        }
+        return created;
     }
     
     /**
@@ -304,7 +751,67 @@ public class Library {
             throw new IllegalStateException("Cannot remove item that is currently borrowed");
         }
         
-        return itemDAO.deleteLibraryItem(isbn);
+        boolean deleted = itemDAO.deleteLibraryItem(isbn);
+        if (deleted) {
+            updateCatalogSnapshot(snapshot -> snapshot.remove(isbn));
+        }
+        return deleted;
+    }
+    
+    /**
+     * Get the columnar catalog snapshot for analytics scans. It is streamed from
+     * storage on first use; after that, borrows and returns are applied from the
+     * availability feed and items added or removed through this library directly.
+     * If more changes pile up between calls than the feed buffers, it is rebuilt.
+     * Catalog edits made by other processes need {@link #rebuildCatalogSnapshot()}.
+     * @return the snapshot, or null if the catalog could not be read
+     */
+    public CatalogSnapshot getCatalogSnapshot() {
+        synchronized (catalogLock) {
+            if (catalogSnapshot == null || catalogChanges.takeDropped() > 0) {
+                return rebuildCatalogSnapshot();
+            }
+            applyCatalogChanges();
+            return catalogSnapshot;
+        }
+    }
+    
+    /**
+     * Stream the whole catalog into a new snapshot
+     * @return the new snapshot, or the previous one (null at first) if the catalog could not be read
+     */
+    public CatalogSnapshot rebuildCatalogSnapshot() {
+        synchronized (catalogLock) {
+            // Subscribe before scanning so that no change committed during the scan is missed.
+            // Replaying buffered changes after the scan is safe: the last one per item wins.
+            if (catalogChanges == null) {
+                catalogChanges = AvailabilityFeed.getInstance().subscribe(Collections.emptySet(), null,
+                                                                         CATALOG_CHANGE_BUFFER, null);
+            }
+            catalogChanges.takeDropped();
+            
+            CatalogSnapshot snapshot = new CatalogSnapshot();
+            if (!itemDAO.scanCatalog(snapshot::put)) {
+                return catalogSnapshot;
+            }
+            catalogSnapshot = snapshot;
+            applyCatalogChanges();
+            return catalogSnapshot;
+        }
+    }
+    
+    private void applyCatalogChanges() {
+        for (AvailabilityEvent event : catalogChanges.drain()) {
+            catalogSnapshot.setAvailable(event.getIsbn(), event.isAvailable());
+        }
+    }
+    
+    private void updateCatalogSnapshot(Consumer<CatalogSnapshot> change) {
+        synchronized (catalogLock) {
+            if (catalogSnapshot != null) {
+                change.accept(catalogSnapshot);
+            }
+        }
     }
     
     /**
@@ -0,0 +1,100 @@
+package com.oaktown.library.service;
+
+import com.oaktown.library.dao.BorrowingDAO;
+import com.oaktown.library.util.DatabaseConnection;
+import com.oaktown.library.util.Metrics;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that moves returned loans from borrowed_items to loan_history.
+ * Each run moves bounded batches, one short transaction per batch, and pauses
+ * between batches so checkouts are not held up behind the archiver's locks.
+ */
+public class LoanArchiver {
+    
+    private final BorrowingDAO borrowingDAO;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final int minAgeDays;
+    private final long pauseMillis;
+    private final Metrics metrics = Metrics.getInstance();
+    
+    private ScheduledExecutorService scheduler;
+    
+    /**
+     * Create an archiver using the loans.archive.* settings from config.properties
+     */
+    public LoanArchiver(BorrowingDAO borrowingDAO, DatabaseConnection dbConnection) {
+        this(borrowingDAO,
+             dbConnection.getIntProperty("loans.archive.batch.size", 500),
+             dbConnection.getIntProperty("loans.archive.max.batches", 20),
+             dbConnection.getIntProperty("loans.archive.min.age.days", 30),
+             dbConnection.getIntProperty("loans.archive.pause.ms", 100));
+    }
+    
+    public LoanArchiver(BorrowingDAO borrowingDAO, int batchSize, int maxBatchesPerRun,
+                        int minAgeDays, long pauseMillis) {
+        if (batchSize <= 0 || maxBatchesPerRun <= 0) {
+            throw new IllegalArgumentException("Batch size and batch count must be positive");
+        }
+        this.borrowingDAO = borrowingDAO;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.minAgeDays = minAgeDays;
+        this.pauseMillis = pauseMillis;
+    }
+    
+    /**
+     * Archive until the backlog is drained or the per-run batch budget is spent
+     * @return number of loans moved
+     */
+    public int runOnce() {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int moved = borrowingDAO.archiveReturnedLoans(batchSize, minAgeDays);
+            total += moved;
+            if (moved < batchSize) {
+                break;
+            }
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        metrics.add("loans.archived", total);
+        return total;
+    }
+    
+    /**
+     * Run the archiver now and then every intervalMinutes on a daemon thread
+     */
+    public synchronized void start(long intervalMinutes) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "loan-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                runOnce();
+            } catch (RuntimeException e) {
+                System.err.println("Loan archiver run failed: " + e.getMessage());
+            }
+        }, 0, intervalMinutes, TimeUnit.MINUTES);
+    }
+    
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.oaktown.library.service;
+
+import com.oaktown.library.dao.OutboxDAO;
+import com.oaktown.library.model.OutboxEvent;
+import com.oaktown.library.util.DatabaseConnection;
+import com.oaktown.library.util.Metrics;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background relay that drains outbox_events in id order and hands each batch to
+ * the registered sinks, off the borrow/return path. The cursor is saved only after
+ * every sink accepted a batch, so delivery is at least once.
+ *
+ * Ids are assigned at insert, not at commit, so a later id can become visible before
+ * an earlier one. The relay stops at a gap in the ids; once the event after it is older
+ * than the gap timeout it writes a tombstone over each missing id. That insert waits for
+ * a transaction still holding the id and only succeeds if it rolled back, so an event
+ * that commits late is delivered rather than skipped.
+ *
+ * With no sinks registered nothing is delivered and the cursor stays where it is.
+ */
+public class OutboxRelay {
+    
+    private static final long PURGE_INTERVAL_MINUTES = 60;
+    
+    private final OutboxDAO outboxDAO;
+    private final String consumer;
+    private final int batchSize;
+    private final long gapTimeoutSeconds;
+    private final List<OutboxSink> sinks = new CopyOnWriteArrayList<>();
+    private final Metrics metrics = Metrics.getInstance();
+    
+    private long cursor = -1;
+    private ScheduledExecutorService scheduler;
+    
+    /**
+     * Create a relay using the outbox.* settings from config.properties
+     */
+    public OutboxRelay(OutboxDAO outboxDAO, DatabaseConnection dbConnection) {
+        this(outboxDAO,
+             dbConnection.getProperty("outbox.consumer", "default"),
+             dbConnection.getIntProperty("outbox.batch.size", 200),
+             dbConnection.getIntProperty("outbox.gap.timeout.seconds", 60));
+    }
+    
+    public OutboxRelay(OutboxDAO outboxDAO, String consumer, int batchSize, long gapTimeoutSeconds) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.outboxDAO = outboxDAO;
+        this.consumer = consumer;
+        this.batchSize = batchSize;
+        this.gapTimeoutSeconds = gapTimeoutSeconds;
+    }
+    
+    public void addSink(OutboxSink sink) {
+        sinks.add(sink);
+    }
+    
+    /**
+     * Deliver every event that is ready
+     * @return number of events delivered
+     */
+    public synchronized int runOnce() {
+        if (sinks.isEmpty()) {
+            return 0;
+        }
+        if (cursor < 0) {
+            cursor = outboxDAO.readCursor(consumer);
+            if (cursor < 0) {
+                return 0;
+            }
+        }
+        
+        int total = 0;
+        while (true) {
+            List<OutboxEvent> read = outboxDAO.findEventsAfter(cursor, batchSize);
+            List<OutboxEvent> events = readyEvents(read);
+            if (events.isEmpty()) {
+                break;
+            }
+            // Tombstones only move the cursor
+            List<OutboxEvent> loanEvents = withoutTombstones(events);
+            if (!loanEvents.isEmpty() && !deliver(loanEvents)) {
+                // Keep the cursor; the whole batch is retried on the next poll
+                return total;
+            }
+            
+            long last = events.get(events.size() - 1).getId();
+            if (!outboxDAO.saveCursor(consumer, last)) {
+                // Redelivered after a restart; carry on from memory for now
+                metrics.increment("outbox.cursor.failures");
+            }
+            cursor = last;
+            total += loanEvents.size();
+            metrics.add("outbox.delivered", loanEvents.size());
+            
+            if (events.size() < read.size() || read.size() < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Hand a batch to every sink
+     * @return false if a sink failed
+     */
+    private boolean deliver(List<OutboxEvent> events) {
+        for (OutboxSink sink : sinks) {
+            try {
+                sink.deliver(events);
+            } catch (Exception e) {
+                System.err.println("Outbox sink failed, will retry: " + e.getMessage());
+                metrics.increment("outbox.sink.failures");
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * The leading run of events without an id gap, or with gaps proven to be rollbacks
+     */
+    private List<OutboxEvent> readyEvents(List<OutboxEvent> events) {
+        List<OutboxEvent> ready = new ArrayList<>(events.size());
+        LocalDateTime settled = LocalDateTime.now().minusSeconds(gapTimeoutSeconds);
+        long expected = cursor > 0 ? cursor + 1 : -1; // a new consumer starts at the oldest event
+        for (OutboxEvent event : events) {
+            if (expected > 0 && event.getId() != expected
+                    && (event.getCreatedAt().isAfter(settled) || !fillGap(expected, event.getId()))) {
+                metrics.increment("outbox.gap.waits");
+                break;
+            }
+            ready.add(event);
+            expected = event.getId() + 1;
+        }
+        return ready;
+    }
+    
+    /**
+     * Write a tombstone over every id from fromId up to, not including, toId
+     * @return false if any of them belongs to a pending or newly committed event
+     */
+    private boolean fillGap(long fromId, long toId) {
+        for (long id = fromId; id < toId; id++) {
+            if (!outboxDAO.insertTombstone(id)) {
+                return false;
+            }
+            metrics.increment("outbox.tombstones");
+        }
+        return true;
+    }
+    
+    private static List<OutboxEvent> withoutTombstones(List<OutboxEvent> events) {
+        List<OutboxEvent> loanEvents = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            if (event.getType() != OutboxEvent.Type.TOMBSTONE) {
+                loanEvents.add(event);
+            }
+        }
+        return loanEvents;
+    }
+    
+    /**
+     * Poll every pollMillis on a daemon thread, and purge delivered events hourly
+     */
+    public synchronized void start(long pollMillis, int retentionHours) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                runOnce();
+            } catch (RuntimeException e) {
+                System.err.println("Outbox relay run failed: " + e.getMessage());
+            }
+        }, 0, pollMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(() -> purge(retentionHours),
+                                         PURGE_INTERVAL_MINUTES, PURGE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+    
+    /**
+     * Delete events and tombstones older than retentionHours that every consumer has passed
+     * @return number of rows removed
+     */
+    public int purge(int retentionHours) {
+        return outboxDAO.purgeDeliveredEvents(retentionHours);
+    }
+    
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.oaktown.library.service;
+
+import com.oaktown.library.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * In-process consumer of outbox events, registered with {@link OutboxRelay}.
+ * Delivery is at least once: a batch is delivered again if any sink fails or the
+ * relay stops before saving its cursor, so sinks should ignore event ids they have seen.
+ */
+public interface OutboxSink {
+    
+    /**
+     * Handle a batch of events in id order
+     * @throws Exception to have the whole batch retried on the next poll
+     */
+    void deliver(List<OutboxEvent> events) throws Exception;
+}
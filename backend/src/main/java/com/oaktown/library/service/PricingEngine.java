@@ -0,0 +1,138 @@
+package com.oaktown.library.service;
+
+import com.oaktown.library.model.ItemType;
+import com.oaktown.library.model.MemberTier;
+import com.oaktown.library.model.PricingRate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Computes borrowing costs in exact integer cents from the pricing_rates table.
+ *
+ * Rates are loaded once into primitive arrays, one slot per item type and
+ * member tier plus one "all tiers" slot per item type. Each slot holds its
+ * date ranges sorted by start day, so a lookup is a binary search.
+ * A tier-specific rate wins over an all-tier rate; when neither covers the
+ * date, the item type's list price applies.
+ */
+public final class PricingEngine {
+
+    private static final int TIERS = MemberTier.values().length;
+    private static final int SLOTS_PER_TYPE = TIERS + 1; // last slot: rates for every tier
+    private static final int OPEN_ENDED = Integer.MAX_VALUE;
+
+    // Per slot, parallel arrays sorted by start: [start, end) in epoch days and the daily rate
+    private final int[][] rangeStarts;
+    private final int[][] rangeEnds;
+    private final int[][] rangeCents;
+    private final int[] listCents;
+
+    /**
+     * @throws IllegalArgumentException if two rates for the same type and tier overlap
+     */
+    public PricingEngine(List<PricingRate> rates) {
+        int slots = ItemType.values().length * SLOTS_PER_TYPE;
+        List<List<PricingRate>> bySlot = new ArrayList<>(slots);
+        for (int i = 0; i < slots; i++) {
+            bySlot.add(new ArrayList<>());
+        }
+        for (PricingRate rate : rates) {
+            bySlot.get(slot(rate.getItemType(), rate.getMemberTier())).add(rate);
+        }
+
+        rangeStarts = new int[slots][];
+        rangeEnds = new int[slots][];
+        rangeCents = new int[slots][];
+        for (int i = 0; i < slots; i++) {
+            List<PricingRate> slotRates = bySlot.get(i);
+            slotRates.sort(Comparator.comparing(PricingRate::getValidFrom));
+
+            int n = slotRates.size();
+            rangeStarts[i] = new int[n];
+            rangeEnds[i] = new int[n];
+            rangeCents[i] = new int[n];
+            for (int j = 0; j < n; j++) {
+                PricingRate rate = slotRates.get(j);
+                rangeStarts[i][j] = toDay(rate.getValidFrom());
+                rangeEnds[i][j] = rate.getValidTo() != null ? toDay(rate.getValidTo()) : OPEN_ENDED;
+                rangeCents[i][j] = rate.getDailyCents();
+                if (j > 0 && rangeStarts[i][j] < rangeEnds[i][j - 1]) {
+                    throw new IllegalArgumentException("Overlapping " + rate.getItemType() + " rates for tier "
+                        + (rate.getMemberTier() != null ? rate.getMemberTier() : "ALL")
+                        + " starting " + rate.getValidFrom());
+                }
+            }
+        }
+
+        ItemType[] types = ItemType.values();
+        listCents = new int[types.length];
+        for (ItemType type : types) {
+            listCents[type.ordinal()] = type.getDailyCents();
+        }
+    }
+
+    /**
+     * An engine without rate rows, charging every item type its list price
+     */
+    public static PricingEngine listPrices() {
+        return new PricingEngine(Collections.emptyList());
+    }
+
+    /**
+     * Daily rate in cents for a loan starting on the given date.
+     * A null tier quotes the rate that applies to every tier.
+     */
+    public int dailyCents(ItemType type, MemberTier tier, LocalDate borrowDate) {
+        int day = toDay(borrowDate);
+        int cents = lookup(slot(type, tier), day);
+        if (cents < 0) {
+            cents = lookup(slot(type, null), day);
+        }
+        return cents >= 0 ? cents : listCents[type.ordinal()];
+    }
+
+    /**
+     * Total cost in cents of borrowing for a number of days at the rate in force on the borrow date
+     */
+    public long quoteCents(ItemType type, MemberTier tier, LocalDate borrowDate, int days) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("Number of days must be positive");
+        }
+        return (long) dailyCents(type, tier, borrowDate) * days;
+    }
+
+    /**
+     * @return the rate of the range containing day, or -1 if no range in the slot covers it
+     */
+    private int lookup(int slot, int day) {
+        int[] starts = rangeStarts[slot];
+        int low = 0;
+        int high = starts.length - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= day) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (found >= 0 && day < rangeEnds[slot][found]) {
+            return rangeCents[slot][found];
+        }
+        return -1;
+    }
+
+    private static int slot(ItemType type, MemberTier tier) {
+        return type.ordinal() * SLOTS_PER_TYPE + (tier != null ? tier.ordinal() : TIERS);
+    }
+
+    private static int toDay(LocalDate date) {
+        return (int) date.toEpochDay();
+    }
+}
@@ -0,0 +1,175 @@
+package com.oaktown.library.util;
+
+import com.oaktown.library.model.AvailabilityEvent;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide publish/subscribe feed of item availability changes using Singleton pattern.
+ * Each subscriber has a bounded buffer; when a slow subscriber's buffer is full the
+ * oldest event is dropped, so publishing never blocks on a consumer.
+ * Subscribers filtered by ISBN are indexed by ISBN, so a publish only visits
+ * the subscribers that can match it.
+ */
+public class AvailabilityFeed {
+
+    private static final AvailabilityFeed INSTANCE = new AvailabilityFeed();
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentHashMap<String, Set<Subscription>> byIsbn = new ConcurrentHashMap<>();
+    private final Set<Subscription> anyIsbn = ConcurrentHashMap.newKeySet();
+
+    AvailabilityFeed() {
+    }
+
+    public static AvailabilityFeed getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Publish a committed borrow (available = false) or return (available = true)
+     */
+    public AvailabilityEvent publish(String isbn, String memberId, boolean available) {
+        AvailabilityEvent event = new AvailabilityEvent(sequence.incrementAndGet(), isbn, memberId,
+                                                        available, Instant.now());
+        Set<Subscription> forIsbn = byIsbn.get(isbn);
+        if (forIsbn != null) {
+            for (Subscription subscription : forIsbn) {
+                subscription.offer(event);
+            }
+        }
+        for (Subscription subscription : anyIsbn) {
+            subscription.offer(event);
+        }
+        return event;
+    }
+
+    /**
+     * Subscribe to availability changes
+     * @param isbns only events for these ISBNs; empty for every ISBN
+     * @param memberId only events caused by this member; null for any member
+     * @param capacity events buffered before the oldest is dropped
+     * @param onReady called when the buffer goes from empty to non-empty; may be null
+     */
+    public Subscription subscribe(Set<String> isbns, String memberId, int capacity, Runnable onReady) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Buffer capacity must be positive");
+        }
+        Subscription subscription = new Subscription(isbns, memberId, capacity, onReady);
+        if (subscription.isbns.isEmpty()) {
+            anyIsbn.add(subscription);
+        } else {
+            for (String isbn : subscription.isbns) {
+                byIsbn.computeIfAbsent(isbn, key -> ConcurrentHashMap.newKeySet()).add(subscription);
+            }
+        }
+        return subscription;
+    }
+
+    /**
+     * Number of open subscriptions
+     */
+    public int getSubscriberCount() {
+        Set<Subscription> all = new HashSet<>(anyIsbn);
+        byIsbn.values().forEach(all::addAll);
+        return all.size();
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        if (subscription.isbns.isEmpty()) {
+            anyIsbn.remove(subscription);
+            return;
+        }
+        for (String isbn : subscription.isbns) {
+            byIsbn.computeIfPresent(isbn, (key, subscribers) -> {
+                subscribers.remove(subscription);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+
+    /**
+     * One subscriber's filter and bounded event buffer
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final Set<String> isbns;
+        private final String memberId;
+        private final int capacity;
+        private final Runnable onReady;
+        private final ArrayDeque<AvailabilityEvent> buffer = new ArrayDeque<>();
+        private long dropped;
+        private boolean closed;
+
+        private Subscription(Set<String> isbns, String memberId, int capacity, Runnable onReady) {
+            this.isbns = isbns == null ? Collections.emptySet() : Set.copyOf(isbns);
+            this.memberId = memberId;
+            this.capacity = capacity;
+            this.onReady = onReady;
+        }
+
+        private void offer(AvailabilityEvent event) {
+            if (memberId != null && !memberId.equals(event.getMemberId())) {
+                return;
+            }
+            boolean wasEmpty;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (buffer.size() == capacity) {
+                    buffer.pollFirst();
+                    dropped++;
+                    Metrics.getInstance().increment("availability.events.dropped");
+                }
+                wasEmpty = buffer.isEmpty();
+                buffer.addLast(event);
+            }
+            if (wasEmpty && onReady != null) {
+                onReady.run();
+            }
+        }
+
+        /**
+         * Take every buffered event, oldest first
+         */
+        public synchronized List<AvailabilityEvent> drain() {
+            List<AvailabilityEvent> events = new ArrayList<>(buffer);
+            buffer.clear();
+            return events;
+        }
+
+        /**
+         * Number of events dropped since the last call
+         */
+        public synchronized long takeDropped() {
+            long count = dropped;
+            dropped = 0;
+            return count;
+        }
+
+        public synchronized boolean hasPending() {
+            return !buffer.isEmpty();
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                buffer.clear();
+            }
+            unsubscribe(this);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.oaktown.library.util;
+
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * H2 implementation of the MySQL after_borrow_insert / after_borrow_update
+ * triggers, used by the embedded database and by benchmarks that compare
+ * trigger-maintained availability with application-side writes.
+ */
+public class AvailabilityTrigger implements Trigger {
+    
+    // Column positions in borrowed_items
+    private static final int ISBN = 1;
+    private static final int MEMBER_ID = 2;
+    private static final int STATUS = 8;
+    
+    @Override
+    public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+        if (oldRow == null && "BORROWED".equals(newRow[STATUS])) {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE library_items SET current_borrower = ?, available = FALSE, version = version + 1 WHERE isbn = ?")) {
+                stmt.setString(1, (String) newRow[MEMBER_ID]);
+                stmt.setString(2, (String) newRow[ISBN]);
+                stmt.executeUpdate();
+            }
+        } else if (oldRow != null && "RETURNED".equals(newRow[STATUS]) && "BORROWED".equals(oldRow[STATUS])) {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE library_items SET current_borrower = NULL, available = TRUE, version = version + 1 WHERE isbn = ?")) {
+                stmt.setString(1, (String) newRow[ISBN]);
+                stmt.executeUpdate();
+            }
+        }
+    }
+}
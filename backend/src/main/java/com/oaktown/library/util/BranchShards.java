@@ -0,0 +1,130 @@
+package com.oaktown.library.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * The per-branch databases that members, items and loans are sharded over.
+ *
+ * The branch of a member ID or item copy ID is its prefix up to the first ':',
+ * e.g. "EAST:M001" or "EAST:978-0451524935"; IDs without a prefix belong to the
+ * default branch. Queries that are not about a single ID are fanned out to every
+ * shard in parallel and their results gathered.
+ */
+public class BranchShards {
+
+    public static final char SEPARATOR = ':';
+
+    private final Map<String, DatabaseConnection> shards;
+    private final String defaultBranch;
+    private final ExecutorService fanOut;
+
+    /**
+     * @param shards connection settings by branch code
+     * @param defaultBranch branch of IDs without a prefix, or null to reject them
+     */
+    public BranchShards(Map<String, DatabaseConnection> shards, String defaultBranch, int fanOutThreads) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        if (defaultBranch != null && !shards.containsKey(defaultBranch)) {
+            throw new IllegalArgumentException("Default branch " + defaultBranch + " has no shard");
+        }
+        this.shards = Collections.unmodifiableMap(new LinkedHashMap<>(shards));
+        this.defaultBranch = defaultBranch;
+        AtomicInteger threads = new AtomicInteger();
+        this.fanOut = Executors.newFixedThreadPool(Math.max(1, fanOutThreads), r -> {
+            Thread thread = new Thread(r, "shard-fanout-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Open the shards listed in shard.branches
+     * @return the shards, or null when sharding is not configured
+     */
+    public static BranchShards fromConfig(DatabaseConnection dbConnection) {
+        Map<String, DatabaseConnection> shards = new LinkedHashMap<>();
+        for (String branch : dbConnection.getProperty("shard.branches", "").split(",")) {
+            if (!branch.trim().isEmpty()) {
+                shards.put(branch.trim(), dbConnection.forShard(branch.trim()));
+            }
+        }
+        if (shards.isEmpty()) {
+            return null;
+        }
+        return new BranchShards(shards, dbConnection.getProperty("shard.default", null),
+                                dbConnection.getIntProperty("shard.fanout.threads", shards.size()));
+    }
+
+    /**
+     * Branch codes in configuration order
+     */
+    public Set<String> branches() {
+        return shards.keySet();
+    }
+
+    public DatabaseConnection connection(String branch) {
+        return shards.get(branch);
+    }
+
+    /**
+     * Shard that data shared by every branch, such as the pricing rates, is read from:
+     * the default branch, or else the first one configured
+     */
+    public DatabaseConnection referenceShard() {
+        return shards.get(defaultBranch != null ? defaultBranch : shards.keySet().iterator().next());
+    }
+
+    /**
+     * @return the branch an ID belongs to, or null if it names no configured branch
+     */
+    public String branchOf(String id) {
+        if (id == null) {
+            return null;
+        }
+        int separator = id.indexOf(SEPARATOR);
+        String branch = separator < 0 ? defaultBranch : id.substring(0, separator);
+        return branch != null && shards.containsKey(branch) ? branch : null;
+    }
+
+    /**
+     * Run a query on every shard in parallel and concatenate the results in branch order
+     * @param targets the per-branch object to query, e.g. a DAO, by branch code
+     */
+    public <R, T> List<T> gather(Map<String, R> targets, Function<R, List<T>> query) {
+        List<CompletableFuture<List<T>>> parts = new ArrayList<>(targets.size());
+        for (R target : targets.values()) {
+            parts.add(CompletableFuture.supplyAsync(() -> query.apply(target), fanOut));
+        }
+
+        List<T> results = new ArrayList<>();
+        for (CompletableFuture<List<T>> part : parts) {
+            try {
+                results.addAll(part.join());
+            } catch (CompletionException e) {
+                // A failed shard leaves a gap, as a failed query does on a single database
+                System.err.println("Shard query failed: " + e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Stop the fan-out threads
+     */
+    public void shutdown() {
+        fanOut.shutdown();
+    }
+}
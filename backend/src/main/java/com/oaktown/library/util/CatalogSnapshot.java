@@ -0,0 +1,460 @@
+package com.oaktown.library.util;
+
+import com.oaktown.library.model.Book;
+import com.oaktown.library.model.ItemType;
+import com.oaktown.library.model.LibraryItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Column-oriented copy of the catalog for analytics scans.
+ *
+ * Each attribute is a primitive array indexed by row: item type ordinal,
+ * publication year and page count, with availability and liveness as bitsets
+ * and authors and genres as codes into per-column dictionaries. A scan walks
+ * these arrays sequentially instead of chasing LibraryItem objects, and can be
+ * split into chunks that run as a parallel stream.
+ *
+ * Rows are added, updated in place and removed as the catalog changes; removed
+ * rows stay as dead slots until the snapshot is rebuilt.
+ */
+public class CatalogSnapshot {
+
+    /**
+     * Receives catalog rows as they are streamed from storage
+     */
+    @FunctionalInterface
+    public interface RowSink {
+        /**
+         * @param pages 0 for magazines
+         * @param genre null for magazines
+         */
+        void accept(String isbn, ItemType type, int publicationYear, int pages, String author, String genre,
+                    boolean available);
+
+        default void accept(LibraryItem item) {
+            Book book = item instanceof Book ? (Book) item : null;
+            accept(item.getIsbn(), item.getType(), item.getPublicationYear(), book != null ? book.getPages() : 0,
+                   item.getAuthor(), book != null ? book.getGenre() : null, item.isAvailable());
+        }
+    }
+
+    /**
+     * Which rows a scan looks at, and whether it runs in parallel. Immutable;
+     * every method returns a narrowed copy.
+     */
+    public static final class Scan {
+        private static final int ALL_TYPES = (1 << ItemType.values().length) - 1;
+
+        private int typeMask = ALL_TYPES;
+        private Boolean available;
+        private int minYear = Integer.MIN_VALUE;
+        private int maxYear = Integer.MAX_VALUE;
+        private int minPages = Integer.MIN_VALUE;
+        private String author;
+        private String genre;
+        private boolean parallel;
+
+        private Scan() {
+        }
+
+        public static Scan all() {
+            return new Scan();
+        }
+
+        public Scan ofTypes(ItemType... types) {
+            Scan scan = copy();
+            scan.typeMask = 0;
+            for (ItemType type : types) {
+                scan.typeMask |= 1 << type.ordinal();
+            }
+            return scan;
+        }
+
+        /**
+         * Books and reference books
+         */
+        public Scan books() {
+            return ofTypes(ItemType.BOOK, ItemType.REFERENCE_BOOK);
+        }
+
+        public Scan available(boolean available) {
+            Scan scan = copy();
+            scan.available = available;
+            return scan;
+        }
+
+        /**
+         * @param from first year, inclusive
+         * @param to last year, inclusive
+         */
+        public Scan publishedBetween(int from, int to) {
+            Scan scan = copy();
+            scan.minYear = from;
+            scan.maxYear = to;
+            return scan;
+        }
+
+        public Scan minPages(int pages) {
+            Scan scan = copy();
+            scan.minPages = pages;
+            return scan;
+        }
+
+        /**
+         * Long books, as {@link Book#isLongBook()} defines them
+         */
+        public Scan longBooks() {
+            return books().minPages(Book.LONG_BOOK_PAGES + 1);
+        }
+
+        public Scan byAuthor(String author) {
+            Scan scan = copy();
+            scan.author = author;
+            return scan;
+        }
+
+        public Scan inGenre(String genre) {
+            Scan scan = copy();
+            scan.genre = genre;
+            return scan;
+        }
+
+        /**
+         * Split the scan into chunks that run on the common fork-join pool
+         */
+        public Scan parallel() {
+            Scan scan = copy();
+            scan.parallel = true;
+            return scan;
+        }
+
+        private Scan copy() {
+            Scan scan = new Scan();
+            scan.typeMask = typeMask;
+            scan.available = available;
+            scan.minYear = minYear;
+            scan.maxYear = maxYear;
+            scan.minPages = minPages;
+            scan.author = author;
+            scan.genre = genre;
+            scan.parallel = parallel;
+            return scan;
+        }
+    }
+
+    /**
+     * Distinct values of a string column, each with a dense int code
+     */
+    private static final class Dictionary {
+        final Map<String, Integer> codes = new HashMap<>();
+        final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        /**
+         * @return the code, or -1 if the value never occurs
+         */
+        int find(String value) {
+            Integer code = codes.get(value);
+            return code != null ? code : -1;
+        }
+    }
+
+    /**
+     * Adds one matching row to a chunk's accumulator
+     */
+    @FunctionalInterface
+    private interface Accumulator {
+        void add(long[] totals, int row);
+    }
+
+    // Rows per parallel chunk; a multiple of 64 so chunks never share a bitset word
+    private static final int CHUNK_ROWS = 1 << 16;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final ItemType[] TYPES = ItemType.values();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> rowByIsbn = new HashMap<>();
+    private final Dictionary authors = new Dictionary();
+    private final Dictionary genres = new Dictionary();
+
+    // Columns; rows [0, rows) are in use, dead ones have their live bit cleared
+    private int rows;
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private short[] years = new short[INITIAL_CAPACITY];
+    private int[] pages = new int[INITIAL_CAPACITY];
+    private int[] authorCodes = new int[INITIAL_CAPACITY];
+    private int[] genreCodes = new int[INITIAL_CAPACITY];
+    private long[] availableBits = new long[INITIAL_CAPACITY / 64];
+    private long[] liveBits = new long[INITIAL_CAPACITY / 64];
+    private int minYear = Integer.MAX_VALUE;
+    private int maxYear = Integer.MIN_VALUE;
+
+    /**
+     * Add an item, or overwrite the row of an ISBN that is already present.
+     * Usable as a {@link RowSink} while streaming the catalog in.
+     */
+    public void put(String isbn, ItemType type, int publicationYear, int pageCount, String author, String genre,
+                    boolean available) {
+        lock.writeLock().lock();
+        try {
+            Integer existing = rowByIsbn.get(isbn);
+            int row = existing != null ? existing : appendRow(isbn);
+            types[row] = (byte) type.ordinal();
+            years[row] = (short) publicationYear;
+            pages[row] = pageCount;
+            authorCodes[row] = authors.encode(author);
+            genreCodes[row] = genres.encode(genre);
+            setBit(availableBits, row, available);
+            setBit(liveBits, row, true);
+            minYear = Math.min(minYear, publicationYear);
+            maxYear = Math.max(maxYear, publicationYear);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(LibraryItem item) {
+        RowSink sink = this::put;
+        sink.accept(item);
+    }
+
+    /**
+     * @return false if the ISBN is not in the snapshot
+     */
+    public boolean setAvailable(String isbn, boolean available) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowByIsbn.get(isbn);
+            if (row == null) {
+                return false;
+            }
+            setBit(availableBits, row, available);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return false if the ISBN is not in the snapshot
+     */
+    public boolean remove(String isbn) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowByIsbn.remove(isbn);
+            if (row == null) {
+                return false;
+            }
+            setBit(liveBits, row, false);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Number of items in the snapshot
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowByIsbn.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long count(Scan scan) {
+        return aggregate(scan, 1, (totals, row) -> totals[0]++)[0];
+    }
+
+    /**
+     * Matching items per type; every type is present, with 0 if none match
+     */
+    public Map<ItemType, Long> countByType(Scan scan) {
+        long[] totals = aggregate(scan, TYPES.length, (counts, row) -> counts[types[row]]++);
+        Map<ItemType, Long> byType = new EnumMap<>(ItemType.class);
+        for (ItemType type : TYPES) {
+            byType.put(type, totals[type.ordinal()]);
+        }
+        return byType;
+    }
+
+    /**
+     * Matching items per publication decade, keyed by the decade's first year (e.g. 1950)
+     */
+    public SortedMap<Integer, Long> countByDecade(Scan scan) {
+        lock.readLock().lock();
+        try {
+            SortedMap<Integer, Long> byDecade = new TreeMap<>();
+            if (rows == 0) {
+                return byDecade;
+            }
+            int firstDecade = Math.floorDiv(minYear, 10);
+            int decades = Math.floorDiv(maxYear, 10) - firstDecade + 1;
+            long[] totals = aggregate(scan, decades, (counts, row) -> counts[Math.floorDiv(years[row], 10) - firstDecade]++);
+            for (int i = 0; i < decades; i++) {
+                if (totals[i] > 0) {
+                    byDecade.put((firstDecade + i) * 10, totals[i]);
+                }
+            }
+            return byDecade;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Matching items per author, most items first
+     */
+    public Map<String, Long> countByAuthor(Scan scan) {
+        lock.readLock().lock();
+        try {
+            long[] totals = aggregate(scan, authors.values.size(), (counts, row) -> {
+                if (authorCodes[row] >= 0) {
+                    counts[authorCodes[row]]++;
+                }
+            });
+            Integer[] codes = new Integer[totals.length];
+            Arrays.setAll(codes, i -> i);
+            Arrays.sort(codes, (a, b) -> Long.compare(totals[b], totals[a]));
+
+            Map<String, Long> byAuthor = new LinkedHashMap<>();
+            for (int code : codes) {
+                if (totals[code] > 0) {
+                    byAuthor.put(authors.values.get(code), totals[code]);
+                }
+            }
+            return byAuthor;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Average page count of the matching items, or 0 if none match
+     */
+    public double averagePages(Scan scan) {
+        long[] totals = aggregate(scan, 2, (sums, row) -> {
+            sums[0] += pages[row];
+            sums[1]++;
+        });
+        return totals[1] == 0 ? 0 : (double) totals[0] / totals[1];
+    }
+
+    /**
+     * Share of the matching items that also match a narrower scan, e.g. long books among all books
+     * @return between 0 and 1; 0 if nothing matches the wider scan
+     */
+    public double share(Scan of, Scan among) {
+        lock.readLock().lock();
+        try {
+            long total = count(among);
+            return total == 0 ? 0 : (double) count(of) / total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Run an accumulator over every matching row, one chunk at a time; chunks
+     * get their own totals array, summed at the end
+     */
+    private long[] aggregate(Scan scan, int width, Accumulator accumulator) {
+        lock.readLock().lock();
+        try {
+            int authorCode = scan.author != null ? authors.find(scan.author) : -1;
+            int genreCode = scan.genre != null ? genres.find(scan.genre) : -1;
+            if ((scan.author != null && authorCode < 0) || (scan.genre != null && genreCode < 0)) {
+                return new long[width]; // Value never occurs
+            }
+
+            int chunks = (rows + CHUNK_ROWS - 1) / CHUNK_ROWS;
+            IntStream chunkIds = IntStream.range(0, chunks);
+            if (scan.parallel) {
+                chunkIds = chunkIds.parallel();
+            }
+            return chunkIds
+                .mapToObj(chunk -> scanChunk(scan, authorCode, genreCode, chunk, width, accumulator))
+                .reduce(new long[width], CatalogSnapshot::sum);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] scanChunk(Scan scan, int authorCode, int genreCode, int chunk, int width, Accumulator accumulator) {
+        long[] totals = new long[width];
+        int end = Math.min(rows, (chunk + 1) * CHUNK_ROWS);
+        for (int row = chunk * CHUNK_ROWS; row < end; row++) {
+            if (getBit(liveBits, row)
+                && (scan.typeMask & (1 << types[row])) != 0
+                && (scan.available == null || getBit(availableBits, row) == scan.available)
+                && years[row] >= scan.minYear && years[row] <= scan.maxYear
+                && pages[row] >= scan.minPages
+                && (authorCode < 0 || authorCodes[row] == authorCode)
+                && (genreCode < 0 || genreCodes[row] == genreCode)) {
+                accumulator.add(totals, row);
+            }
+        }
+        return totals;
+    }
+
+    private static long[] sum(long[] a, long[] b) {
+        long[] total = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            total[i] = a[i] + b[i];
+        }
+        return total;
+    }
+
+    private int appendRow(String isbn) {
+        if (rows == types.length) {
+            int capacity = types.length * 2;
+            types = Arrays.copyOf(types, capacity);
+            years = Arrays.copyOf(years, capacity);
+            pages = Arrays.copyOf(pages, capacity);
+            authorCodes = Arrays.copyOf(authorCodes, capacity);
+            genreCodes = Arrays.copyOf(genreCodes, capacity);
+            availableBits = Arrays.copyOf(availableBits, capacity / 64);
+            liveBits = Arrays.copyOf(liveBits, capacity / 64);
+        }
+        rowByIsbn.put(isbn, rows);
+        return rows++;
+    }
+
+    private static boolean getBit(long[] bits, int row) {
+        return (bits[row >>> 6] & (1L << row)) != 0;
+    }
+
+    private static void setBit(long[] bits, int row, boolean value) {
+        if (value) {
+            bits[row >>> 6] |= 1L << row;
+        } else {
+            bits[row >>> 6] &= ~(1L << row);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.oaktown.library.util;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Column label to position lookup for one result set, built once from its
+ * metadata so row mappers can read every row by index.
+ */
+public final class ColumnIndex {
+    
+    private final Map<String, Integer> positions;
+    
+    private ColumnIndex(Map<String, Integer> positions) {
+        this.positions = positions;
+    }
+    
+    public static ColumnIndex of(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int count = metaData.getColumnCount();
+        Map<String, Integer> positions = new HashMap<>(count * 2);
+        for (int i = 1; i <= count; i++) {
+            // First occurrence wins, as with ResultSet.findColumn
+            positions.putIfAbsent(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+        return new ColumnIndex(positions);
+    }
+    
+    /**
+     * @throws SQLException if the result set has no such column
+     */
+    public int require(String label) throws SQLException {
+        Integer position = positions.get(label.toLowerCase(Locale.ROOT));
+        if (position == null) {
+            throw new SQLException("Result set has no column " + label);
+        }
+        return position;
+    }
+    
+    /**
+     * @return the column position, or -1 if the result set has no such column
+     */
+    public int find(String label) {
+        return positions.getOrDefault(label.toLowerCase(Locale.ROOT), -1);
+    }
+}
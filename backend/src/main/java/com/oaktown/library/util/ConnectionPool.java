@@ -0,0 +1,245 @@
+package com.oaktown.library.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A bounded pool of connections to one database.
+ *
+ * At most maxConnections are handed out at once; closing a borrowed connection
+ * rolls back anything left uncommitted and returns it to the pool instead of
+ * closing it. Idle connections are reused most recently used first and checked
+ * with {@link Connection#isValid} before reuse when they have sat idle for a
+ * while, so a connection the server dropped is replaced rather than handed out.
+ * Idle connections beyond minIdle are closed once they have been unused for
+ * the idle timeout.
+ */
+public class ConnectionPool {
+
+    // Idle connections younger than this are handed out without a round trip
+    private static final long VALIDATE_AFTER_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    /**
+     * A pooled connection and when it was last returned
+     */
+    private static final class Idle {
+        final Connection conn;
+        final long since;
+
+        Idle(Connection conn, long since) {
+            this.conn = conn;
+            this.since = since;
+        }
+    }
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final boolean readOnly;
+    private final int maxConnections;
+    private final int minIdle;
+    private final long idleTimeoutNanos;
+    private final Semaphore permits;
+    // Most recently returned first; guarded by itself
+    private final Deque<Idle> idle = new ArrayDeque<>();
+
+    /**
+     * @param readOnly mark every connection read-only, e.g. for a replica
+     * @param minIdle idle connections kept open however long they go unused
+     */
+    public ConnectionPool(String url, String username, String password, boolean readOnly,
+                          int maxConnections, int minIdle, long idleTimeoutMillis) {
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("Connection limit must be positive");
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.readOnly = readOnly;
+        this.maxConnections = maxConnections;
+        this.minIdle = Math.max(0, Math.min(minIdle, maxConnections));
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.permits = new Semaphore(maxConnections, true);
+    }
+
+    /**
+     * Borrow a connection, waiting up to the timeout for one to be returned
+     * @throws SQLException if the wait times out or a new connection cannot be opened
+     */
+    public Connection getConnection(long timeoutMillis) throws SQLException {
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + timeoutMillis + " ms waiting for a connection to " + url);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted waiting for a connection to " + url, e);
+        }
+        return open();
+    }
+
+    /**
+     * Borrow a connection only if one is free right now
+     * @return the connection, or null if all maxConnections are in use
+     * @throws SQLException if a new connection cannot be opened
+     */
+    public Connection tryGetConnection() throws SQLException {
+        return permits.tryAcquire() ? open() : null;
+    }
+
+    /**
+     * Connections currently borrowed
+     */
+    public int getActiveConnections() {
+        return maxConnections - permits.availablePermits();
+    }
+
+    /**
+     * Connections open but not borrowed (for testing purposes)
+     */
+    public int getIdleConnections() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    /**
+     * Close every idle connection; borrowed ones are closed when they are returned
+     */
+    public void close() {
+        synchronized (idle) {
+            while (!idle.isEmpty()) {
+                discard(idle.pop().conn);
+            }
+        }
+    }
+
+    /**
+     * Hand out an idle connection that is still valid, or open a new one.
+     * The caller holds a permit, which is given back if this fails.
+     */
+    private Connection open() throws SQLException {
+        try {
+            Connection conn = takeIdle();
+            return lend(conn != null ? conn : connect());
+
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        Connection conn = DriverManager.getConnection(url, username, password);
+        try {
+            conn.setAutoCommit(true);
+            conn.setReadOnly(readOnly);
+            return conn;
+        } catch (SQLException e) {
+            discard(conn);
+            throw e;
+        }
+    }
+
+    /**
+     * @return a valid idle connection, or null if there is none
+     */
+    private Connection takeIdle() {
+        while (true) {
+            Idle entry;
+            synchronized (idle) {
+                entry = idle.poll();
+            }
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.since < VALIDATE_AFTER_NANOS || isValid(entry.conn)) {
+                return entry.conn;
+            }
+            discard(entry.conn);
+        }
+    }
+
+    /**
+     * Reset a returned connection and put it back, closing it if it cannot be reused
+     */
+    private void giveBack(Connection conn) {
+        try {
+            if (!conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+            conn.clearWarnings();
+            long now = System.nanoTime();
+            synchronized (idle) {
+                idle.push(new Idle(conn, now));
+                // The oldest idle connections are at the back
+                while (idle.size() > minIdle && now - idle.peekLast().since > idleTimeoutNanos) {
+                    discard(idle.pollLast().conn);
+                }
+            }
+
+        } catch (SQLException e) {
+            discard(conn);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Wrap a connection so that closing it returns it to the pool, once
+     */
+    private Connection lend(Connection conn) {
+        AtomicBoolean returned = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "close":
+                        if (returned.compareAndSet(false, true)) {
+                            giveBack(conn);
+                        }
+                        return null;
+                    case "isClosed":
+                        return returned.get() || conn.isClosed();
+                    case "equals":
+                    case "hashCode":
+                    case "toString":
+                        break;
+                    default:
+                        if (returned.get()) {
+                            throw new SQLException("Connection has been returned to the pool");
+                        }
+                }
+                try {
+                    return method.invoke(conn, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+
+    private static boolean isValid(Connection conn) {
+        try {
+            return conn.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void discard(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            // Already broken; nothing to release
+        }
+    }
+}
@@ -3,27 +3,68 @@ package com.oaktown.library.util;
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Properties;
 
 /**
  * Database connection utility class using Singleton pattern.
- * Manages database connections for the library system.
+ * Manages database connections for the library system: each database, the primary
+ * as well as every shard and replica, is reached through a bounded {@link ConnectionPool}.
  */
 public class DatabaseConnection {
     
     private static DatabaseConnection instance;
     private static final String CONFIG_FILE = "config.properties";
+    private static final int STREAMING_FETCH_SIZE = 1000;
     
     private String url;
     private String username;
     private String password;
     private String driver;
+    private boolean embedded;
+    private ReplicaRouter replicaRouter;
+    private final ConnectionPool pool;
+    private final int connectionTimeoutMillis;
+    private final Properties config = new Properties();
     
     // Private constructor for Singleton pattern
     private DatabaseConnection() {
         loadDatabaseConfig();
+        this.connectionTimeoutMillis = getIntProperty("db.connection.timeout", 30000);
+        this.pool = createPool();
+        if (embedded) {
+            initializeEmbeddedDatabase(Boolean.parseBoolean(getProperty("db.embedded.sample.data", "true")));
+        }
+    }
+    
+    /**
+     * Connection settings for one branch shard; every other setting is shared with the parent
+     */
+    private DatabaseConnection(DatabaseConnection parent, String branch) {
+        config.putAll(parent.config);
+        this.url = getProperty("shard." + branch + ".url", null);
+        if (url == null) {
+            throw new IllegalArgumentException("No shard." + branch + ".url configured");
+        }
+        this.embedded = url.startsWith("jdbc:h2:");
+        this.username = getProperty("shard." + branch + ".username", embedded ? "sa" : parent.username);
+        this.password = getProperty("shard." + branch + ".password", embedded ? "" : parent.password);
+        this.driver = embedded ? EmbeddedDatabase.DRIVER : parent.driver;
+        
+        try {
+            Class.forName(driver);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Failed to load database driver for shard " + branch, e);
+        }
+        this.connectionTimeoutMillis = getIntProperty("db.connection.timeout", 30000);
+        this.pool = createPool();
+        if (embedded) {
+            initializeEmbeddedDatabase(false);
+        }
     }
     
     // Singleton getInstance method
@@ -35,45 +76,148 @@ public class DatabaseConnection {
     }
     
     /**
-     * Load database configuration from properties file
+     * Load database configuration from properties file.
+     * Without a properties file only an explicit -Ddb.embedded=true can start the
+     * application, so a deploy missing its configuration never runs on an empty database.
      */
     private void loadDatabaseConfig() {
         Properties props = new Properties();
         try (InputStream input = getClass().getClassLoader().getResourceAsStream(CONFIG_FILE)) {
-            if (input == null) {
-                throw new RuntimeException("Unable to find " + CONFIG_FILE);
+            if (input != null) {
+                props.load(input);
+                config.putAll(props);
             }
-            props.load(input);
             
-            this.url = props.getProperty("db.url");
-            this.username = props.getProperty("db.username");
-            this.password = props.getProperty("db.password");
-            this.driver = props.getProperty("db.driver");
+            this.embedded = Boolean.parseBoolean(getProperty("db.embedded", "false"));
+            if (input == null && !embedded) {
+                throw new RuntimeException("Unable to find " + CONFIG_FILE);
+            }
+            if (embedded) {
+                this.url = EmbeddedDatabase.url(getProperty("db.embedded.path", null));
+                this.username = "sa";
+                this.password = "";
+                this.driver = EmbeddedDatabase.DRIVER;
+            } else {
+                this.url = getProperty("db.url", null);
+                this.username = getProperty("db.username", null);
+                this.password = getProperty("db.password", "");
+                this.driver = getProperty("db.driver", null);
+            }
             
-            // Load the MySQL driver
+            // Load the JDBC driver
             Class.forName(driver);
             
+            if (!embedded) {
+                this.replicaRouter = createReplicaRouter();
+            }
+            
         } catch (IOException | ClassNotFoundException e) {
             throw new RuntimeException("Failed to load database configuration", e);
         }
     }
     
     /**
-     * Get a database connection
+     * Set up read routing when db.replica.urls lists any replicas
+     * @return the router, or null to send every query to the primary
+     */
+    private ReplicaRouter createReplicaRouter() {
+        List<String> replicaUrls = new ArrayList<>();
+        for (String replicaUrl : getProperty("db.replica.urls", "").split(",")) {
+            if (!replicaUrl.trim().isEmpty()) {
+                replicaUrls.add(replicaUrl.trim());
+            }
+        }
+        if (replicaUrls.isEmpty()) {
+            return null;
+        }
+        
+        ReplicaRouter.Strategy strategy;
+        try {
+            strategy = ReplicaRouter.Strategy.valueOf(
+                getProperty("db.replica.strategy", "least_loaded").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid value for db.replica.strategy, using least_loaded");
+            strategy = ReplicaRouter.Strategy.LEAST_LOADED;
+        }
+        return new ReplicaRouter(replicaUrls,
+                                 getProperty("db.replica.username", username),
+                                 getProperty("db.replica.password", password),
+                                 getIntProperty("db.replica.max.connections", 10),
+                                 strategy,
+                                 getIntProperty("db.replica.sticky.ms", 5000));
+    }
+    
+    private ConnectionPool createPool() {
+        return new ConnectionPool(url, username, password, false,
+                                  getIntProperty("db.max.connections", 10),
+                                  getIntProperty("db.min.connections", 2),
+                                  getIntProperty("db.idle.timeout", 600000));
+    }
+    
+    /**
+     * Create the embedded database's schema on first start
+     */
+    private void initializeEmbeddedDatabase(boolean sampleData) {
+        try (Connection conn = getConnection()) {
+            if (EmbeddedDatabase.initialize(conn, sampleData)) {
+                System.out.println("Created embedded database schema at " + url);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize the embedded database", e);
+        }
+    }
+    
+    /**
+     * Borrow a connection from the pool, in auto-commit mode; closing it returns it.
+     * Waits up to db.connection.timeout ms when all db.max.connections are in use.
      * @return Connection object
      * @throws SQLException if connection fails
      */
     public Connection getConnection() throws SQLException {
         try {
-            Connection conn = DriverManager.getConnection(url, username, password);
-            conn.setAutoCommit(true); // Default to auto-commit
-            return conn;
+            return pool.getConnection(connectionTimeoutMillis);
         } catch (SQLException e) {
             System.err.println("Failed to connect to database: " + e.getMessage());
             throw e;
         }
     }
     
+    /**
+     * Get a connection for a read-only query that may be served by a replica.
+     * Falls back to the primary when no replica is configured or available.
+     */
+    public Connection getReadConnection() throws SQLException {
+        return getReadConnection(null);
+    }
+    
+    /**
+     * Get a connection for a read-only query about one member. Reads from the
+     * primary for a while after that member's own borrow or return, so the
+     * member never sees a replica that has not caught up yet.
+     */
+    public Connection getReadConnection(String memberId) throws SQLException {
+        Connection conn = replicaRouter != null ? replicaRouter.getConnection(memberId) : null;
+        return conn != null ? conn : getConnection();
+    }
+    
+    /**
+     * Record that a member's loans changed on the primary
+     */
+    public void recordWrite(String memberId) {
+        if (replicaRouter != null) {
+            replicaRouter.recordWrite(memberId);
+        }
+    }
+    
+    /**
+     * Create the connection settings of a branch shard, read from shard.{branch}.url
+     * and optionally shard.{branch}.username/password. An H2 URL is treated as an
+     * embedded database and gets the schema on first use.
+     */
+    public DatabaseConnection forShard(String branch) {
+        return new DatabaseConnection(this, branch);
+    }
+    
     /**
      * Test the database connection
      * @return true if connection successful, false otherwise
@@ -101,6 +245,49 @@ public class DatabaseConnection {
         }
     }
     
+    /**
+     * Get a raw configuration value. A JVM system property with the same name
+     * (e.g. -Ddb.url=...) overrides the value from config.properties.
+     * @param key property name
+     * @param defaultValue value returned when the property is missing or blank
+     */
+    public String getProperty(String key, String defaultValue) {
+        String value = System.getProperty(key, config.getProperty(key));
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+    
+    /**
+     * Get an integer configuration value, falling back to the default if missing or malformed
+     */
+    public int getIntProperty(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(getProperty(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+    
+    /**
+     * Configure a statement to stream large result sets row by row instead of
+     * buffering them in memory. MySQL Connector/J only streams with a fetch size
+     * of Integer.MIN_VALUE; other drivers use a regular fetch size.
+     */
+    public void enableStreaming(Statement stmt) throws SQLException {
+        if (url != null && url.startsWith("jdbc:mysql:")) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+        } else {
+            stmt.setFetchSize(STREAMING_FETCH_SIZE);
+        }
+    }
+    
+    /**
+     * @return true when running on the embedded H2 database instead of MySQL
+     */
+    public boolean isEmbedded() {
+        return embedded;
+    }
+    
     /**
      * Get database URL (for testing purposes)
      */
@@ -0,0 +1,87 @@
+package com.oaktown.library.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Embedded H2 database in MySQL compatibility mode, for running without a MySQL
+ * server (benchmarks, CI, offline kiosks). The schema is the portable copy in
+ * h2/schema.sql, with the availability triggers from h2/triggers.sql, so the DAOs
+ * run unchanged. Enabled with db.embedded=true in config.properties.
+ */
+public final class EmbeddedDatabase {
+
+    public static final String DRIVER = "org.h2.Driver";
+    // Lower-cased identifiers match the MySQL schema; MODE=MySQL accepts its dialect
+    private static final String OPTIONS = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * @param path data file path without extension, or null/empty for an in-memory database
+     *             that lives as long as the JVM
+     */
+    public static String url(String path) {
+        if (path == null || path.trim().isEmpty()) {
+            return "jdbc:h2:mem:oaktown_library" + OPTIONS + ";DB_CLOSE_DELAY=-1";
+        }
+        return "jdbc:h2:file:" + path.trim() + OPTIONS;
+    }
+
+    /**
+     * Create the schema, triggers and views unless a previous run already did
+     * @param sampleData also load sample_data.sql into a newly created schema
+     * @return true if the schema was created
+     */
+    public static boolean initialize(Connection conn, boolean sampleData) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(null, null, "library_items", null)) {
+            if (rs.next()) {
+                return false;
+            }
+        }
+
+        runScript(conn, "/h2/schema.sql");
+        runScript(conn, "/h2/triggers.sql");
+        if (sampleData) {
+            runScript(conn, "/sample_data.sql");
+        }
+        return true;
+    }
+
+    /**
+     * Run a classpath SQL script statement by statement. Comment lines and
+     * MySQL USE statements are skipped; statements end with a semicolon at end of line.
+     */
+    public static void runScript(Connection conn, String resource) throws SQLException {
+        String script;
+        try (InputStream in = EmbeddedDatabase.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing script " + resource);
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read " + resource, e);
+        }
+
+        StringBuilder sql = new StringBuilder();
+        for (String line : script.split("\n")) {
+            String trimmed = line.trim();
+            if (!trimmed.startsWith("--") && !trimmed.toUpperCase().startsWith("USE ")) {
+                sql.append(line).append('\n');
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            for (String statement : sql.toString().split(";\\s*(\n|$)")) {
+                if (!statement.trim().isEmpty()) {
+                    stmt.execute(statement);
+                }
+            }
+        }
+    }
+}
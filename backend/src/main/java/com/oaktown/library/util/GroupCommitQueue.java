@@ -0,0 +1,188 @@
+package com.oaktown.library.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces small write transactions into one commit (group commit).
+ *
+ * Operations submitted from many threads are collected by a single committer
+ * thread until maxBatch operations are waiting or maxDelayMillis has passed since
+ * the first one, and then run in one transaction through a TransactionTemplate.
+ * Each operation runs inside its own savepoint, so one that does not apply is
+ * undone without affecting the rest of the batch. Every caller's future completes
+ * only after the batch has committed.
+ *
+ * A transient failure (deadlock, lock timeout) aborts the whole transaction; the
+ * template then retries the entire batch, re-running every operation.
+ */
+public class GroupCommitQueue {
+
+    /**
+     * One unit of work in a group transaction
+     */
+    @FunctionalInterface
+    public interface Operation {
+        /**
+         * @return false if the operation did not apply; its writes are rolled back
+         *         to its savepoint. Must not commit or roll back the connection itself.
+         */
+        boolean apply(Connection conn) throws SQLException;
+    }
+
+    private static final class Pending {
+        final Operation operation;
+        final CompletableFuture<Boolean> result = new CompletableFuture<>();
+        boolean applied;
+        RuntimeException failure;
+
+        Pending(Operation operation) {
+            this.operation = operation;
+        }
+    }
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final String name;
+    private final TransactionTemplate txTemplate;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final BlockingQueue<Pending> queue;
+    private final Thread committer;
+    private final Metrics metrics = Metrics.getInstance();
+    private volatile boolean running = true;
+
+    /**
+     * @param name used for the committer thread and metrics, e.g. "loanGroupCommit"
+     * @param maxBatch most operations per transaction
+     * @param maxDelayMillis longest an operation waits for others to join its batch
+     */
+    public GroupCommitQueue(String name, TransactionTemplate txTemplate, int maxBatch, long maxDelayMillis) {
+        if (maxBatch <= 0 || maxDelayMillis < 0) {
+            throw new IllegalArgumentException("Batch size must be positive and delay not negative");
+        }
+        this.name = name;
+        this.txTemplate = txTemplate;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        // Bounded so a stalled database pushes back on callers instead of growing the heap
+        this.queue = new ArrayBlockingQueue<>(maxBatch * 16);
+        this.committer = new Thread(this::run, name);
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Queue an operation for the next group transaction, waiting for space if the queue is full
+     * @return completes with the operation's result after its batch commits; false if the
+     *         batch failed; exceptionally with any runtime exception the operation threw
+     */
+    public CompletableFuture<Boolean> submit(Operation operation) {
+        if (!running) {
+            throw new IllegalStateException(name + " is shut down");
+        }
+        Pending pending = new Pending(operation);
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.result.completeExceptionally(e);
+        }
+        return pending.result;
+    }
+
+    /**
+     * Stop accepting operations; already queued ones are still committed
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            committer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<Pending> batch) {
+        try {
+            txTemplate.execute(name, conn -> {
+                for (Pending pending : batch) {
+                    applyInSavepoint(conn, pending);
+                }
+                return null;
+            });
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Group commit of " + batch.size() + " operations failed: " + e.getMessage());
+            metrics.increment(name + ".failures");
+            for (Pending pending : batch) {
+                pending.result.complete(false);
+            }
+            return;
+        }
+
+        metrics.increment(name + ".batches");
+        metrics.add(name + ".operations", batch.size());
+        for (Pending pending : batch) {
+            if (pending.failure != null) {
+                pending.result.completeExceptionally(pending.failure);
+            } else {
+                pending.result.complete(pending.applied);
+            }
+        }
+    }
+
+    private static void applyInSavepoint(Connection conn, Pending pending) throws SQLException {
+        pending.applied = false;
+        pending.failure = null;
+        Savepoint savepoint = conn.setSavepoint();
+        try {
+            pending.applied = pending.operation.apply(conn);
+        } catch (RuntimeException e) {
+            pending.failure = e;
+        } catch (SQLException e) {
+            if (TransactionTemplate.classify(e).isTransient()) {
+                throw e; // the whole transaction is lost; let the template retry the batch
+            }
+            System.err.println("Group commit operation failed: " + e.getMessage());
+        }
+        if (pending.applied) {
+            conn.releaseSavepoint(savepoint);
+        } else {
+            conn.rollback(savepoint);
+        }
+    }
+}
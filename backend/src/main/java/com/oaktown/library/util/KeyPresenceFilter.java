@@ -0,0 +1,131 @@
+package com.oaktown.library.util;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Answers "can this key possibly exist?" without a database round trip.
+ * Combines a Bloom filter over all known keys with a short-lived cache of
+ * keys that were recently looked up and not found (covering Bloom false
+ * positives and deleted keys).
+ *
+ * The filter is inactive until {@link #rebuild} has completed once; until
+ * then every key is reported as possibly existing. Writes made by other
+ * processes are only picked up by the next rebuild.
+ */
+public class KeyPresenceFilter {
+
+    /**
+     * Streams every existing key into the sink
+     */
+    @FunctionalInterface
+    public interface KeyScanner {
+        void scan(Consumer<String> sink) throws SQLException;
+    }
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long MIN_CAPACITY = 10_000;
+
+    private final String name;
+    private final ExpiringCache<String, Boolean> negativeCache;
+    private final Metrics metrics = Metrics.getInstance();
+    private final Object rebuildLock = new Object();
+
+    private volatile BloomFilter bloom;
+    private volatile BloomFilter pending;
+
+    /**
+     * @param name metrics name, e.g. "isbn"
+     * @param negativeTtlSeconds how long a confirmed miss is remembered
+     */
+    public KeyPresenceFilter(String name, int negativeCacheSize, long negativeTtlSeconds) {
+        this.name = name;
+        this.negativeCache = new ExpiringCache<>(negativeCacheSize, negativeTtlSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return false only if the key is definitely absent
+     */
+    public boolean mightExist(String key) {
+        BloomFilter current = bloom;
+        if (current == null) {
+            return true;
+        }
+        if (!current.mightContain(key)) {
+            metrics.increment("lookup." + name + ".bloom_rejected");
+            return false;
+        }
+        if (negativeCache.get(key) != null) {
+            metrics.increment("lookup." + name + ".negative_hit");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Remember that a lookup that passed the Bloom filter found nothing
+     */
+    public void recordMissing(String key) {
+        if (bloom != null) {
+            negativeCache.put(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Register a newly created key
+     */
+    public void recordPresent(String key) {
+        negativeCache.remove(key);
+        // Read the pending filter first: if no rebuild is running yet, its scan starts
+        // after this key was committed and will see it
+        BloomFilter building = pending;
+        if (building != null) {
+            building.put(key);
+        }
+        BloomFilter current = bloom;
+        if (current != null) {
+            current.put(key);
+        }
+    }
+
+    /**
+     * Register a deleted key (Bloom filters cannot forget, so it goes into the negative cache)
+     */
+    public void recordDeleted(String key) {
+        recordMissing(key);
+    }
+
+    /**
+     * Build a fresh filter from a full key scan and swap it in.
+     * Keys created while the scan runs are added to both the old and new filter.
+     * @param expectedKeys current number of keys, used to size the filter with headroom
+     */
+    public void rebuild(long expectedKeys, KeyScanner scanner) throws SQLException {
+        synchronized (rebuildLock) {
+            BloomFilter fresh = new BloomFilter(Math.max(MIN_CAPACITY, expectedKeys * 2), FALSE_POSITIVE_RATE);
+            pending = fresh;
+            try {
+                scanner.scan(fresh::put);
+                bloom = fresh;
+                negativeCache.clear();
+            } finally {
+                pending = null;
+            }
+        }
+    }
+
+    /**
+     * Turn the filter off again; every key is reported as possibly existing
+     */
+    public void disable() {
+        synchronized (rebuildLock) {
+            bloom = null;
+            negativeCache.clear();
+        }
+    }
+
+    public boolean isActive() {
+        return bloom != null;
+    }
+}
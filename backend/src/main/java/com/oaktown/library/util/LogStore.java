@@ -0,0 +1,406 @@
+package com.oaktown.library.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded key-value store kept in one append-only, memory-mapped data file.
+ *
+ * Every write appends one record holding one or more entries, so a multi-key write
+ * is atomic: when the file is reopened a record either replays completely or, if its
+ * checksum does not match (a write torn by a crash), ends the log. An in-memory hash
+ * index maps each live key to the offset of its newest value, so a read is a hash
+ * lookup plus a copy out of the mapping, with no system call and no lock.
+ *
+ * Overwritten and deleted values stay in the file as garbage until compaction
+ * rewrites the live entries into a fresh file and swaps it in.
+ *
+ * Writes are serialized on the store's monitor. Callers that read, check and then
+ * write hold the same monitor to make the whole sequence atomic.
+ */
+public class LogStore implements Closeable {
+
+    // Record: [int payload length][int CRC32 of payload][payload]
+    // Payload: [int entry count], then per entry
+    //          [int key length][key UTF-8][int value length, -1 for a delete][value]
+    private static final int RECORD_HEADER = 8;
+    private static final int DELETED = -1;
+    private static final int MIN_CAPACITY = 1 << 20;
+    // Compaction only pays off once there is at least this much garbage
+    private static final long MIN_COMPACT_GARBAGE = 1 << 20;
+    private static final int ENTRIES_PER_COMPACTED_RECORD = 1024;
+
+    /**
+     * A mapping of the data file together with the value offsets that are valid in it.
+     * Replaced as a whole by compaction and growth so a reader never follows an
+     * offset into a file or mapping that does not hold it.
+     */
+    private static final class Segment {
+        final MappedByteBuffer buffer;
+        final Map<String, Integer> index;
+
+        Segment(MappedByteBuffer buffer, Map<String, Integer> index) {
+            this.buffer = buffer;
+            this.index = index;
+        }
+    }
+
+    private final Path path;
+    // true: force the mapping to disk before a write returns
+    private final boolean sync;
+    private final Metrics metrics = Metrics.getInstance();
+
+    private volatile Segment segment;
+    private FileChannel channel;
+    private int writePosition;
+    private long garbageBytes;
+    private boolean closed;
+    private ScheduledExecutorService compactor;
+
+    /**
+     * Open or create a store, replaying the data file to rebuild the index
+     * @param sync force every write to disk before returning
+     */
+    public LogStore(Path path, boolean sync) throws IOException {
+        this.path = path;
+        this.sync = sync;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = map(channel, channel.size());
+        Map<String, Integer> index = new ConcurrentHashMap<>();
+        this.writePosition = replay(buffer, index);
+        this.segment = new Segment(buffer, index);
+    }
+
+    /**
+     * @return the stored value, or null if the key is absent
+     */
+    public byte[] get(String key) {
+        Segment current = segment;
+        Integer offset = current.index.get(key);
+        return offset != null ? readValue(current.buffer, offset) : null;
+    }
+
+    public boolean containsKey(String key) {
+        return segment.index.containsKey(key);
+    }
+
+    /**
+     * Read every live entry whose key starts with a prefix, in no particular order
+     */
+    public Map<String, byte[]> scan(String prefix) {
+        Segment current = segment;
+        Map<String, byte[]> entries = new HashMap<>();
+        for (Map.Entry<String, Integer> entry : current.index.entrySet()) {
+            if (entry.getKey().startsWith(prefix)) {
+                entries.put(entry.getKey(), readValue(current.buffer, entry.getValue()));
+            }
+        }
+        return entries;
+    }
+
+    public synchronized void put(String key, byte[] value) throws IOException {
+        Map<String, byte[]> entries = new HashMap<>();
+        entries.put(key, value);
+        write(entries);
+    }
+
+    public synchronized void delete(String key) throws IOException {
+        Map<String, byte[]> entries = new HashMap<>();
+        entries.put(key, null);
+        write(entries);
+    }
+
+    /**
+     * Apply several puts and deletes as one atomic record
+     * @param entries new value by key; a null value deletes the key
+     */
+    public synchronized void write(Map<String, byte[]> entries) throws IOException {
+        if (closed) {
+            throw new IOException("Store " + path + " is closed");
+        }
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        List<String> keys = new ArrayList<>(entries.keySet());
+        List<byte[]> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            values.add(entries.get(key));
+        }
+        int[] valueOffsets = new int[keys.size()];
+        byte[] record = encodeRecord(keys, values, valueOffsets);
+
+        ensureCapacity(record.length);
+        Segment current = segment;
+        ByteBuffer out = current.buffer.duplicate();
+        out.position(writePosition);
+        out.put(record);
+        if (sync) {
+            current.buffer.force();
+        }
+
+        // Publish to readers only once the bytes are in place
+        for (int i = 0; i < keys.size(); i++) {
+            index(current, keys.get(i), values.get(i) != null ? writePosition + valueOffsets[i] : DELETED);
+        }
+        writePosition += record.length;
+        metrics.increment("logStore.writes");
+    }
+
+    /**
+     * Compact when at least half of the file is garbage
+     * @return true if the store was compacted
+     */
+    public synchronized boolean compactIfNeeded() throws IOException {
+        if (closed || garbageBytes < MIN_COMPACT_GARBAGE || garbageBytes * 2 < writePosition) {
+            return false;
+        }
+        compact();
+        return true;
+    }
+
+    /**
+     * Rewrite the live entries into a new file and atomically replace the data file with it.
+     * Readers holding the old mapping keep reading consistent data until they finish.
+     */
+    public synchronized void compact() throws IOException {
+        if (closed) {
+            throw new IOException("Store " + path + " is closed");
+        }
+        Segment current = segment;
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        Map<String, Integer> index = new ConcurrentHashMap<>();
+        long size = 0;
+
+        try (FileChannel out = FileChannel.open(compacted, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                StandardOpenOption.TRUNCATE_EXISTING)) {
+            List<String> keys = new ArrayList<>(ENTRIES_PER_COMPACTED_RECORD);
+            List<byte[]> values = new ArrayList<>(ENTRIES_PER_COMPACTED_RECORD);
+            List<String> live = new ArrayList<>(current.index.keySet());
+            for (int i = 0; i < live.size(); i++) {
+                keys.add(live.get(i));
+                values.add(readValue(current.buffer, current.index.get(live.get(i))));
+                if (keys.size() == ENTRIES_PER_COMPACTED_RECORD || i == live.size() - 1) {
+                    int[] valueOffsets = new int[keys.size()];
+                    byte[] record = encodeRecord(keys, values, valueOffsets);
+                    out.write(ByteBuffer.wrap(record));
+                    for (int k = 0; k < keys.size(); k++) {
+                        index.put(keys.get(k), (int) size + valueOffsets[k]);
+                    }
+                    size += record.length;
+                    keys.clear();
+                    values.clear();
+                }
+            }
+            out.force(true);
+        }
+
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // The old mapping stays valid after its channel is closed
+        channel.close();
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segment = new Segment(map(channel, size), index);
+        metrics.add("logStore.compactedBytes", writePosition - size);
+        metrics.increment("logStore.compactions");
+        writePosition = (int) size;
+        garbageBytes = 0;
+    }
+
+    /**
+     * Check for garbage on a daemon thread and compact when it outweighs the live data
+     */
+    public synchronized void startCompaction(long intervalSeconds) {
+        if (compactor != null || closed) {
+            return;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "log-store-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                compactIfNeeded();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Log store compaction failed: " + e.getMessage());
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public int size() {
+        return segment.index.size();
+    }
+
+    /**
+     * Bytes appended so far, live and garbage
+     */
+    public synchronized long getFileBytes() {
+        return writePosition;
+    }
+
+    public synchronized long getGarbageBytes() {
+        return garbageBytes;
+    }
+
+    /**
+     * Stop compaction and flush the mapping to disk. Reads keep working; writes fail.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (compactor != null) {
+            compactor.shutdownNow();
+            compactor = null;
+        }
+        segment.buffer.force();
+        channel.close();
+    }
+
+    /**
+     * Rebuild the index from the records in the file
+     * @return the offset just past the last intact record
+     */
+    private int replay(MappedByteBuffer buffer, Map<String, Integer> index) {
+        int position = 0;
+        while (position + RECORD_HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || length > buffer.capacity() - position - RECORD_HEADER) {
+                break;
+            }
+            ByteBuffer payload = slice(buffer, position + RECORD_HEADER, length);
+            CRC32 crc = new CRC32();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                System.err.println("Ignoring torn record at offset " + position + " of " + path);
+                break;
+            }
+
+            int entries = payload.getInt();
+            Segment replaying = new Segment(buffer, index);
+            for (int i = 0; i < entries; i++) {
+                byte[] key = new byte[payload.getInt()];
+                payload.get(key);
+                int valueOffset = position + RECORD_HEADER + payload.position();
+                int valueLength = payload.getInt();
+                if (valueLength > 0) {
+                    payload.position(payload.position() + valueLength);
+                }
+                index(replaying, new String(key, StandardCharsets.UTF_8),
+                      valueLength == DELETED ? DELETED : valueOffset);
+            }
+            position += RECORD_HEADER + length;
+        }
+        return position;
+    }
+
+    /**
+     * Point a key at its new value offset, or remove it for DELETED, counting what it replaces as garbage
+     */
+    private void index(Segment target, String key, int valueOffset) {
+        int keyBytes = key.getBytes(StandardCharsets.UTF_8).length;
+        Integer previous = valueOffset == DELETED ? target.index.remove(key) : target.index.put(key, valueOffset);
+        if (previous != null) {
+            garbageBytes += entryBytes(keyBytes, target.buffer.getInt(previous));
+        }
+        if (valueOffset == DELETED) {
+            garbageBytes += entryBytes(keyBytes, DELETED);
+        }
+    }
+
+    private void ensureCapacity(int recordLength) throws IOException {
+        long needed = (long) writePosition + recordLength;
+        int capacity = segment.buffer.capacity();
+        if (needed <= capacity) {
+            return;
+        }
+        long grown = Math.max(needed, (long) capacity * 2);
+        if (needed > Integer.MAX_VALUE) {
+            throw new IOException("Store " + path + " is full; compact it or archive old data");
+        }
+        // Readers of the old mapping must not see offsets past its end, so the
+        // grown mapping gets its own copy of the index
+        segment = new Segment(map(channel, Math.min(grown, Integer.MAX_VALUE)),
+                              new ConcurrentHashMap<>(segment.index));
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Store file is larger than 2 GB");
+        }
+        return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, MIN_CAPACITY));
+    }
+
+    private static byte[] encodeRecord(List<String> keys, List<byte[]> values, int[] valueOffsets) {
+        List<byte[]> encodedKeys = new ArrayList<>(keys.size());
+        int payloadLength = 4;
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] key = keys.get(i).getBytes(StandardCharsets.UTF_8);
+            encodedKeys.add(key);
+            payloadLength += entryBytes(key.length, values.get(i) != null ? values.get(i).length : DELETED);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + payloadLength);
+        record.position(RECORD_HEADER);
+        record.putInt(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] value = values.get(i);
+            record.putInt(encodedKeys.get(i).length).put(encodedKeys.get(i));
+            valueOffsets[i] = record.position();
+            if (value != null) {
+                record.putInt(value.length).put(value);
+            } else {
+                record.putInt(DELETED);
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER, payloadLength);
+        record.putInt(0, payloadLength);
+        record.putInt(4, (int) crc.getValue());
+        return record.array();
+    }
+
+    private static int entryBytes(int keyBytes, int valueLength) {
+        return 4 + keyBytes + 4 + Math.max(valueLength, 0);
+    }
+
+    private static byte[] readValue(MappedByteBuffer buffer, int offset) {
+        byte[] value = new byte[buffer.getInt(offset)];
+        ByteBuffer in = buffer.duplicate();
+        in.position(offset + 4);
+        in.get(value);
+        return value;
+    }
+
+    private static ByteBuffer slice(MappedByteBuffer buffer, int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.limit(offset + length);
+        return view.slice();
+    }
+}
@@ -0,0 +1,584 @@
+package com.oaktown.library.util;
+
+import com.oaktown.library.model.Book;
+import com.oaktown.library.model.ItemType;
+import com.oaktown.library.model.LibraryItem;
+import com.oaktown.library.model.Magazine;
+import com.oaktown.library.model.ReferenceBook;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Catalog items kept outside the Java heap, for collections too large to hold
+ * as LibraryItem objects without long GC pauses.
+ *
+ * Each item is a fixed-layout 64-byte record in a record segment. Its strings
+ * (ISBN, title, author, genre or frequency, borrower) are appended as UTF-8 to
+ * a separate string arena and referenced by offset. An open-addressing hash
+ * index, also off-heap, maps ISBNs to record numbers. Segments are direct
+ * buffers, or memory-mapped scratch files so that a large catalog does not
+ * count against -XX:MaxDirectMemorySize. Either way the heap only holds the
+ * segment tables, so the live set the collector traces does not grow with
+ * the catalog.
+ *
+ * LibraryItem objects are materialized on demand, by {@link #get} or while
+ * iterating, and are detached copies: changing one does not change the store.
+ * Replaced strings and removed records are not reclaimed; load a new store to
+ * compact.
+ */
+public class OffHeapCatalog implements Iterable<LibraryItem>, Closeable {
+
+    public static final int DEFAULT_SEGMENT_BYTES = 64 << 20;
+
+    // Record layout; string fields hold arena offsets, NULL_REF for null
+    private static final int RECORD_BYTES = 64;
+    private static final int TYPE = 0;              // byte, ItemType ordinal
+    private static final int FLAGS = 1;             // byte, LIVE | AVAILABLE | RESTRICTED
+    private static final int YEAR = 4;
+    private static final int VERSION = 8;
+    private static final int PAGES_OR_ISSUE = 12;
+    private static final int VOLUME = 16;
+    private static final int ISBN = 24;
+    private static final int TITLE = 32;
+    private static final int AUTHOR = 40;
+    private static final int GENRE_OR_FREQUENCY = 48;
+    private static final int BORROWER = 56;
+
+    private static final byte LIVE = 1;
+    private static final byte AVAILABLE = 2;
+    private static final byte RESTRICTED = 4;
+    private static final long NULL_REF = -1;
+
+    // Index slots are an int hash and an int entry: record number + 1, or EMPTY / REMOVED
+    private static final int SLOT_BYTES = 8;
+    private static final int EMPTY = 0;
+    private static final int REMOVED = -1;
+    private static final int INITIAL_SLOTS = 1024;
+    private static final double MAX_LOAD = 0.7;
+
+    private static final ItemType[] TYPES = ItemType.values();
+
+    private final int segmentBytes;
+    private final int recordsPerSegment;
+    // null: direct buffers
+    private final Path directory;
+    private final List<Path> files = new ArrayList<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<ByteBuffer> records = new ArrayList<>();
+    private final List<ByteBuffer> arena = new ArrayList<>();
+    private int recordCount;    // records written, including removed ones
+    private int size;           // live records
+    private long arenaEnd;      // next free arena offset
+
+    private ByteBuffer index;
+    private int indexSlots;     // a power of two
+    private int indexUsed;      // slots that are not EMPTY
+    private int indexGeneration;
+
+    /**
+     * A store in direct buffers of the default segment size
+     */
+    public OffHeapCatalog() {
+        this(DEFAULT_SEGMENT_BYTES, null);
+    }
+
+    private OffHeapCatalog(int segmentBytes, Path directory) {
+        if (segmentBytes < RECORD_BYTES || segmentBytes % RECORD_BYTES != 0) {
+            throw new IllegalArgumentException("Segment size must be a positive multiple of " + RECORD_BYTES);
+        }
+        this.segmentBytes = segmentBytes;
+        this.recordsPerSegment = segmentBytes / RECORD_BYTES;
+        this.directory = directory;
+        this.index = allocate("index", indexGeneration++, INITIAL_SLOTS * SLOT_BYTES);
+        this.indexSlots = INITIAL_SLOTS;
+    }
+
+    /**
+     * A store in direct buffers
+     * @param segmentBytes size of each record and string segment; a multiple of 64
+     */
+    public static OffHeapCatalog direct(int segmentBytes) {
+        return new OffHeapCatalog(segmentBytes, null);
+    }
+
+    /**
+     * A store in memory-mapped files under directory, deleted again by {@link #close()}.
+     * The files are scratch space; they are not reopened.
+     * @param segmentBytes size of each record and string segment; a multiple of 64
+     */
+    public static OffHeapCatalog mapped(Path directory, int segmentBytes) throws IOException {
+        Files.createDirectories(directory);
+        return new OffHeapCatalog(segmentBytes, directory);
+    }
+
+    /**
+     * Add an item, or overwrite the record of an ISBN that is already present
+     * @throws UncheckedIOException if a mapped segment could not be created
+     */
+    public void put(LibraryItem item) {
+        String isbn = item.getIsbn();
+        byte[] key = isbn.getBytes(UTF_8);
+        int hash = hash(isbn);
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(key, hash);
+            if (slot >= 0) {
+                writeRecord(index.getInt(slot * SLOT_BYTES + 4) - 1, item);
+                return;
+            }
+            if (recordCount == records.size() * recordsPerSegment) {
+                records.add(allocate("records", records.size(), segmentBytes));
+            }
+            int record = recordCount;
+            writeRecord(record, item);
+            insert(hash, record);
+            recordCount++;
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Materialize the item with this ISBN
+     * @return a detached copy, or null if the ISBN is not in the store
+     */
+    public LibraryItem get(String isbn) {
+        lock.readLock().lock();
+        try {
+            int record = findRecord(isbn);
+            return record >= 0 ? materialize(record) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String isbn) {
+        lock.readLock().lock();
+        try {
+            return findRecord(isbn) >= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Answered from the record without materializing the item
+     * @return null if the ISBN is not in the store
+     */
+    public Boolean isAvailable(String isbn) {
+        lock.readLock().lock();
+        try {
+            int record = findRecord(isbn);
+            return record >= 0 ? (segment(record).get(offset(record) + FLAGS) & AVAILABLE) != 0 : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Record a borrow or return, bumping the version as LibraryItemDAO.updateAvailability does
+     * @return false if the ISBN is not in the store
+     */
+    public boolean updateAvailability(String isbn, boolean available, String borrowerId) {
+        lock.writeLock().lock();
+        try {
+            int record = findRecord(isbn);
+            if (record < 0) {
+                return false;
+            }
+            ByteBuffer segment = segment(record);
+            int base = offset(record);
+            byte flags = segment.get(base + FLAGS);
+            segment.put(base + FLAGS, (byte) (available ? flags | AVAILABLE : flags & ~AVAILABLE));
+            segment.putLong(base + BORROWER, appendString(borrowerId));
+            segment.putInt(base + VERSION, segment.getInt(base + VERSION) + 1);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return false if the ISBN is not in the store
+     */
+    public boolean remove(String isbn) {
+        byte[] key = isbn.getBytes(UTF_8);
+        lock.writeLock().lock();
+        try {
+            int slot = findSlot(key, hash(isbn));
+            if (slot < 0) {
+                return false;
+            }
+            int record = index.getInt(slot * SLOT_BYTES + 4) - 1;
+            ByteBuffer segment = segment(record);
+            segment.put(offset(record) + FLAGS, (byte) (segment.get(offset(record) + FLAGS) & ~LIVE));
+            index.putInt(slot * SLOT_BYTES + 4, REMOVED);
+            size--;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Number of items in the store
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Memory held outside the heap, in bytes
+     */
+    public long offHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) (records.size() + arena.size()) * segmentBytes + (long) indexSlots * SLOT_BYTES;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Materializes one item per call to next(), in insertion order. Items put
+     * or removed while iterating may or may not be seen.
+     */
+    @Override
+    public Iterator<LibraryItem> iterator() {
+        return new Iterator<LibraryItem>() {
+            private int next = nextLive(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public LibraryItem next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                lock.readLock().lock();
+                try {
+                    LibraryItem item = materialize(next);
+                    next = nextLive(next + 1);
+                    return item;
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+        };
+    }
+
+    /**
+     * Drop every segment. Direct memory is freed once the buffers are
+     * collected; mapped files are deleted. The store must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            records.clear();
+            arena.clear();
+            index = null;
+            for (Path file : files) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    System.err.println("Error deleting catalog segment " + file + ": " + e.getMessage());
+                }
+            }
+            files.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int nextLive(int from) {
+        lock.readLock().lock();
+        try {
+            for (int record = from; record < recordCount; record++) {
+                if ((segment(record).get(offset(record) + FLAGS) & LIVE) != 0) {
+                    return record;
+                }
+            }
+            return -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void writeRecord(int record, LibraryItem item) {
+        byte flags = LIVE;
+        if (item.isAvailable()) {
+            flags |= AVAILABLE;
+        }
+        int pagesOrIssue = 0;
+        int volume = 0;
+        String genreOrFrequency = null;
+        if (item instanceof Book) {
+            pagesOrIssue = ((Book) item).getPages();
+            genreOrFrequency = ((Book) item).getGenre();
+            if (item instanceof ReferenceBook && ((ReferenceBook) item).isRestricted()) {
+                flags |= RESTRICTED;
+            }
+        } else if (item instanceof Magazine) {
+            pagesOrIssue = ((Magazine) item).getIssueNumber();
+            volume = ((Magazine) item).getVolume();
+            genreOrFrequency = ((Magazine) item).getFrequency();
+        }
+
+        // Strings first: if one does not fit, the record is left untouched
+        long isbn = appendString(item.getIsbn());
+        long title = appendString(item.getTitle());
+        long author = appendString(item.getAuthor());
+        long genreOrFrequencyRef = appendString(genreOrFrequency);
+        long borrower = appendString(item.getCurrentBorrower());
+
+        ByteBuffer segment = segment(record);
+        int base = offset(record);
+        segment.put(base + TYPE, (byte) item.getType().ordinal());
+        segment.put(base + FLAGS, flags);
+        segment.putInt(base + YEAR, item.getPublicationYear());
+        segment.putInt(base + VERSION, item.getVersion());
+        segment.putInt(base + PAGES_OR_ISSUE, pagesOrIssue);
+        segment.putInt(base + VOLUME, volume);
+        segment.putLong(base + ISBN, isbn);
+        segment.putLong(base + TITLE, title);
+        segment.putLong(base + AUTHOR, author);
+        segment.putLong(base + GENRE_OR_FREQUENCY, genreOrFrequencyRef);
+        segment.putLong(base + BORROWER, borrower);
+    }
+
+    private LibraryItem materialize(int record) {
+        ByteBuffer segment = segment(record);
+        int base = offset(record);
+        byte flags = segment.get(base + FLAGS);
+        String isbn = readString(segment.getLong(base + ISBN));
+        String title = readString(segment.getLong(base + TITLE));
+        String author = readString(segment.getLong(base + AUTHOR));
+        int year = segment.getInt(base + YEAR);
+        int pagesOrIssue = segment.getInt(base + PAGES_OR_ISSUE);
+        String genreOrFrequency = readString(segment.getLong(base + GENRE_OR_FREQUENCY));
+
+        LibraryItem item;
+        switch (TYPES[segment.get(base + TYPE)]) {
+            case REFERENCE_BOOK:
+                item = new ReferenceBook(isbn, title, author, year, pagesOrIssue, genreOrFrequency,
+                                         (flags & RESTRICTED) != 0);
+                break;
+            case MAGAZINE:
+                item = new Magazine(isbn, title, author, year, pagesOrIssue, segment.getInt(base + VOLUME),
+                                    genreOrFrequency);
+                break;
+            default:
+                item = new Book(isbn, title, author, year, pagesOrIssue, genreOrFrequency);
+                break;
+        }
+        item.setVersionForDAO(segment.getInt(base + VERSION));
+        String borrower = readString(segment.getLong(base + BORROWER));
+        if ((flags & AVAILABLE) == 0 && borrower != null) {
+            item.setBorrowerForDAO(borrower);
+        } else if ((flags & AVAILABLE) == 0) {
+            item.setReservedForDAO();
+        }
+        return item;
+    }
+
+    private ByteBuffer segment(int record) {
+        return records.get(record / recordsPerSegment);
+    }
+
+    private int offset(int record) {
+        return (record % recordsPerSegment) * RECORD_BYTES;
+    }
+
+    /**
+     * Append a length-prefixed UTF-8 string; strings never span two segments
+     * @return its arena offset, or NULL_REF for null
+     */
+    private long appendString(String value) {
+        if (value == null) {
+            return NULL_REF;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        int needed = 4 + bytes.length;
+        if (needed > segmentBytes) {
+            throw new IllegalArgumentException("String of " + bytes.length + " bytes does not fit in a segment");
+        }
+        int segment = (int) (arenaEnd / segmentBytes);
+        int offset = (int) (arenaEnd % segmentBytes);
+        if (offset + needed > segmentBytes) {
+            segment++;
+            offset = 0;
+        }
+        if (segment == arena.size()) {
+            arena.add(allocate("strings", segment, segmentBytes));
+        }
+        ByteBuffer buffer = arena.get(segment).duplicate();
+        buffer.position(offset);
+        buffer.putInt(bytes.length).put(bytes);
+
+        long ref = (long) segment * segmentBytes + offset;
+        arenaEnd = ref + needed;
+        return ref;
+    }
+
+    private String readString(long ref) {
+        if (ref == NULL_REF) {
+            return null;
+        }
+        ByteBuffer buffer = arena.get((int) (ref / segmentBytes)).duplicate();
+        buffer.position((int) (ref % segmentBytes));
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Compare a stored string with key bytes without decoding it
+     */
+    private boolean matches(long ref, byte[] key) {
+        ByteBuffer buffer = arena.get((int) (ref / segmentBytes));
+        int position = (int) (ref % segmentBytes);
+        if (buffer.getInt(position) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(position + 4 + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(String isbn) {
+        int h = isbn.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int findRecord(String isbn) {
+        int slot = findSlot(isbn.getBytes(UTF_8), hash(isbn));
+        return slot >= 0 ? index.getInt(slot * SLOT_BYTES + 4) - 1 : -1;
+    }
+
+    /**
+     * Linear probing from the hash's home slot up to the first empty slot
+     * @return the slot holding the key, or -1
+     */
+    private int findSlot(byte[] key, int hash) {
+        int mask = indexSlots - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = index.getInt(slot * SLOT_BYTES + 4);
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (entry != REMOVED && index.getInt(slot * SLOT_BYTES) == hash) {
+                int record = entry - 1;
+                if (matches(segment(record).getLong(offset(record) + ISBN), key)) {
+                    return slot;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add an entry for a key that is not in the index, reusing a removed slot if one comes first
+     */
+    private void insert(int hash, int record) {
+        if (indexUsed + 1 > indexSlots * MAX_LOAD) {
+            rehash();
+        }
+        int mask = indexSlots - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = index.getInt(slot * SLOT_BYTES + 4);
+            if (entry == EMPTY || entry == REMOVED) {
+                index.putInt(slot * SLOT_BYTES, hash);
+                index.putInt(slot * SLOT_BYTES + 4, record + 1);
+                if (entry == EMPTY) {
+                    indexUsed++;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Copy the live entries into a new index, at most a quarter full, dropping removed slots
+     */
+    private void rehash() {
+        int slots = Math.max(indexSlots, Integer.highestOneBit((size + 1) * 4));
+        if (slots > Integer.MAX_VALUE / SLOT_BYTES) {
+            throw new IllegalStateException("Catalog index is full");
+        }
+        ByteBuffer rehashed = allocate("index", indexGeneration++, slots * SLOT_BYTES);
+        int mask = slots - 1;
+        for (int old = 0; old < indexSlots; old++) {
+            int entry = index.getInt(old * SLOT_BYTES + 4);
+            if (entry == EMPTY || entry == REMOVED) {
+                continue;
+            }
+            int hash = index.getInt(old * SLOT_BYTES);
+            int slot = hash & mask;
+            while (rehashed.getInt(slot * SLOT_BYTES + 4) != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            rehashed.putInt(slot * SLOT_BYTES, hash);
+            rehashed.putInt(slot * SLOT_BYTES + 4, entry);
+        }
+        if (directory != null) {
+            deleteSegment("index", indexGeneration - 2);
+        }
+        index = rehashed;
+        indexSlots = slots;
+        indexUsed = size;
+    }
+
+    private ByteBuffer allocate(String kind, int number, int bytes) {
+        if (directory == null) {
+            return ByteBuffer.allocateDirect(bytes);
+        }
+        Path file = directory.resolve(kind + "-" + number + ".seg");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // The mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            files.add(file);
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error mapping catalog segment " + file, e);
+        }
+    }
+
+    private void deleteSegment(String kind, int number) {
+        Path file = directory.resolve(kind + "-" + number + ".seg");
+        try {
+            Files.deleteIfExists(file);
+            files.remove(file);
+        } catch (IOException e) {
+            System.err.println("Error deleting catalog segment " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.oaktown.library.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Routes read-only queries to read replicas so that heavy reads do not compete
+ * with checkouts on the primary.
+ *
+ * Each replica has its own {@link ConnectionPool}, bounded by the connection limit.
+ * A member who has just borrowed or returned something reads from the primary
+ * until the sticky window has passed, so they always see their own loans even
+ * while the replicas lag behind. When every replica is at its limit or down, the
+ * caller is told to use the primary instead of waiting.
+ *
+ * The recent writers are only known to this process: a member whose borrow went
+ * through another application instance may still read a lagging replica here.
+ */
+public class ReplicaRouter {
+
+    public enum Strategy {
+        /** Take the replicas in turn */
+        ROUND_ROBIN,
+        /** Take the replica with the fewest connections in use */
+        LEAST_LOADED
+    }
+
+    private static final int STICKY_MEMBERS = 10_000;
+    private static final int MIN_IDLE = 1;
+    private static final long IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * One replica and its pool of read-only connections
+     */
+    private static final class Replica {
+        final String url;
+        final ConnectionPool pool;
+
+        Replica(String url, ConnectionPool pool) {
+            this.url = url;
+            this.pool = pool;
+        }
+    }
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Strategy strategy;
+    private final ExpiringCache<String, Boolean> recentWriters;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Metrics metrics = Metrics.getInstance();
+
+    /**
+     * @param maxConnections connections that may be borrowed from each replica at once
+     * @param stickyMillis how long a member reads from the primary after a write;
+     *                     should exceed the usual replication lag
+     */
+    public ReplicaRouter(List<String> urls, String username, String password, int maxConnections,
+                         Strategy strategy, long stickyMillis) {
+        this(urls, username, password, maxConnections, strategy, stickyMillis, System::nanoTime);
+    }
+
+    /**
+     * Create a router with an explicit nanosecond clock for the sticky window (for testing purposes)
+     */
+    public ReplicaRouter(List<String> urls, String username, String password, int maxConnections,
+                         Strategy strategy, long stickyMillis, LongSupplier clock) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica URL is required");
+        }
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("Replica connection limit must be positive");
+        }
+        for (String url : urls) {
+            replicas.add(new Replica(url, new ConnectionPool(url, username, password, true, maxConnections,
+                                                             MIN_IDLE, IDLE_TIMEOUT_MILLIS)));
+        }
+        this.strategy = strategy;
+        this.recentWriters = new ExpiringCache<>(STICKY_MEMBERS, stickyMillis, TimeUnit.MILLISECONDS, clock);
+    }
+
+    /**
+     * Borrow a read-only connection from a replica's pool
+     * @param memberId member whose data is read, or null for catalog-wide reads
+     * @return the connection, or null if the read must go to the primary: the member
+     *         wrote recently, or no replica has a free connection
+     */
+    public Connection getConnection(String memberId) {
+        if (memberId != null && recentWriters.get(memberId) != null) {
+            metrics.increment("replica.sticky_reads");
+            return null;
+        }
+
+        for (Replica replica : candidates()) {
+            try {
+                Connection conn = replica.pool.tryGetConnection();
+                if (conn != null) {
+                    metrics.increment("replica.reads");
+                    return conn;
+                }
+
+            } catch (SQLException e) {
+                System.err.println("Failed to connect to replica " + replica.url + ": " + e.getMessage());
+            }
+        }
+
+        metrics.increment("replica.fallbacks");
+        return null;
+    }
+
+    /**
+     * Send the member's reads to the primary for the sticky window
+     */
+    public void recordWrite(String memberId) {
+        if (memberId != null) {
+            recentWriters.put(memberId, Boolean.TRUE);
+        }
+    }
+
+    public int getReplicaCount() {
+        return replicas.size();
+    }
+
+    /**
+     * Connections currently borrowed from a replica (for testing purposes)
+     */
+    public int getActiveConnections(int replica) {
+        return replicas.get(replica).pool.getActiveConnections();
+    }
+
+    /**
+     * Close the idle connections of every replica
+     */
+    public void close() {
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    /**
+     * Replicas in the order they should be tried
+     */
+    private List<Replica> candidates() {
+        List<Replica> ordered = new ArrayList<>(replicas.size());
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            ordered.add(replicas.get((start + i) % replicas.size()));
+        }
+        if (strategy == Strategy.LEAST_LOADED) {
+            // Insertion sort on a snapshot of the loads, since they change under us;
+            // being stable, it still takes equally loaded replicas in turn
+            int[] load = new int[ordered.size()];
+            for (int i = 0; i < load.length; i++) {
+                load[i] = ordered.get(i).pool.getActiveConnections();
+            }
+            for (int i = 1; i < load.length; i++) {
+                for (int j = i; j > 0 && load[j - 1] > load[j]; j--) {
+                    int swapped = load[j];
+                    load[j] = load[j - 1];
+                    load[j - 1] = swapped;
+                    Collections.swap(ordered, j, j - 1);
+                }
+            }
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,51 @@
+package com.oaktown.library.util;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps the current row of a result set to an object, reading columns by position.
+ * Mappers are obtained from a {@link Factory}, which resolves the positions once
+ * per result set instead of searching column labels on every row.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    
+    T mapRow(ResultSet rs) throws SQLException;
+    
+    /**
+     * Binds a mapper to the column layout of one result set
+     */
+    @FunctionalInterface
+    interface Factory<T> {
+        RowMapper<T> bind(ColumnIndex columns) throws SQLException;
+    }
+    
+    /**
+     * Map every remaining row, skipping rows the mapper returns null for
+     */
+    static <T> List<T> mapAll(ResultSet rs, Factory<T> factory) throws SQLException {
+        RowMapper<T> mapper = factory.bind(ColumnIndex.of(rs));
+        List<T> rows = new ArrayList<>();
+        while (rs.next()) {
+            T row = mapper.mapRow(rs);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * Map the next row
+     * @return the mapped row, or null if there are no more rows
+     */
+    static <T> T mapFirst(ResultSet rs, Factory<T> factory) throws SQLException {
+        if (!rs.next()) {
+            return null;
+        }
+        return factory.bind(ColumnIndex.of(rs)).mapRow(rs);
+    }
+}
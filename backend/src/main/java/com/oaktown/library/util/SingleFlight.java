@@ -0,0 +1,120 @@
+package com.oaktown.library.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent calls for the same key into a single execution.
+ * The first caller for a key runs the loader; callers arriving while it is
+ * still running wait for and share its result (or its exception).
+ * Nothing is cached: once the call completes the next caller loads again.
+ *
+ * Shared results are the same object instance for every waiting caller,
+ * so callers must treat them as read-only, unless a copier is given: then
+ * each caller gets its own copy.
+ */
+public class SingleFlight<K, V> {
+
+    // Per-key coalescing counts are kept for at most this many distinct keys
+    private static final int MAX_TRACKED_KEYS = 1_000;
+
+    private final String name;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<K, LongAdder> coalescedByKey = new ConcurrentHashMap<>();
+    private final Metrics metrics = Metrics.getInstance();
+
+    /**
+     * @param name metrics name, e.g. "findByIsbn"
+     */
+    public SingleFlight(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Run the loader for the key, or join the call already in flight for it
+     */
+    public V execute(K key, Supplier<V> loader) {
+        return execute(key, loader, UnaryOperator.identity());
+    }
+
+    /**
+     * Run the loader for the key, or join the call already in flight for it.
+     * The loaded value is never handed out itself: every caller, including
+     * the one that ran the loader, gets copier's copy of it, so callers may
+     * modify what they get.
+     */
+    public V execute(K key, Supplier<V> loader, UnaryOperator<V> copier) {
+        V value = share(key, loader);
+        return value != null ? copier.apply(value) : null;
+    }
+
+    private V share(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+
+        if (existing != null) {
+            recordCoalesced(key);
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        metrics.increment("singleflight." + name + ".executions");
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * Number of calls for this key that joined an in-flight call instead of loading
+     */
+    public long getCoalescedCount(K key) {
+        LongAdder counter = coalescedByKey.get(key);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * Point-in-time copy of the per-key coalescing counts
+     */
+    public Map<String, Long> getCoalescedCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        coalescedByKey.forEach((key, counter) -> counts.put(String.valueOf(key), counter.sum()));
+        return counts;
+    }
+
+    /**
+     * Number of keys with a call currently running
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private void recordCoalesced(K key) {
+        metrics.increment("singleflight." + name + ".coalesced");
+        LongAdder counter = coalescedByKey.get(key);
+        if (counter == null && coalescedByKey.size() < MAX_TRACKED_KEYS) {
+            counter = coalescedByKey.computeIfAbsent(key, k -> new LongAdder());
+        }
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.oaktown.library.util;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Canonical instances for the values of a low-cardinality string column, such
+ * as authors or genres, so that objects mapped from many rows share one String
+ * per distinct value instead of one per row.
+ *
+ * Entries are weakly referenced: once no mapped object uses a value any more,
+ * it is dropped from the pool. The pool is split into independently locked
+ * segments, and holds at most {@code maxSize} values; past that, values that
+ * are not already pooled are returned as they are, so a column that turns out
+ * to be high-cardinality costs a lookup per row but no extra memory.
+ */
+public class StringPool {
+
+    private static final int SEGMENTS = 16;
+
+    private final int maxPerSegment;
+    private final List<Map<String, WeakReference<String>>> segments = new ArrayList<>(SEGMENTS);
+
+    /**
+     * @param maxSize values kept at most, across all segments
+     */
+    public StringPool(int maxSize) {
+        if (maxSize < SEGMENTS) {
+            throw new IllegalArgumentException("Pool size must be at least " + SEGMENTS);
+        }
+        this.maxPerSegment = maxSize / SEGMENTS;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments.add(new WeakHashMap<>());
+        }
+    }
+
+    /**
+     * @return the pooled instance equal to value, or value itself if it is
+     *         new (it is pooled if there is room) or null
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        Map<String, WeakReference<String>> segment = segments.get((value.hashCode() & 0x7fffffff) % SEGMENTS);
+        synchronized (segment) {
+            WeakReference<String> ref = segment.get(value);
+            String pooled = ref != null ? ref.get() : null;
+            if (pooled != null) {
+                return pooled;
+            }
+            if (segment.size() < maxPerSegment) {
+                segment.put(value, new WeakReference<>(value));
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Number of values currently pooled
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, WeakReference<String>> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,165 @@
+package com.oaktown.library.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs a unit of work in a database transaction and retries it when the
+ * database aborts it for a transient reason (deadlock, lock wait timeout,
+ * serialization failure). Retries use exponential backoff with full jitter
+ * and are limited by an attempt budget.
+ *
+ * Callbacks may call {@code conn.rollback()} themselves before returning a
+ * "not done" result; the template then commits an empty transaction.
+ * Any exception thrown by the callback rolls the transaction back.
+ */
+public class TransactionTemplate {
+
+    /**
+     * Work to run inside a transaction
+     */
+    @FunctionalInterface
+    public interface TransactionCallback<T> {
+        T doInTransaction(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Classification of SQL failures for retry decisions
+     */
+    public enum FailureType {
+        DEADLOCK,
+        LOCK_TIMEOUT,
+        SERIALIZATION,
+        NON_TRANSIENT;
+
+        public boolean isTransient() {
+            return this != NON_TRANSIENT;
+        }
+    }
+
+    // MySQL vendor error codes
+    private static final int MYSQL_DEADLOCK = 1213;
+    private static final int MYSQL_LOCK_WAIT_TIMEOUT = 1205;
+    // H2 vendor error codes (used by the embedded/test databases)
+    private static final int H2_DEADLOCK = 40001;
+    private static final int H2_LOCK_TIMEOUT = 50200;
+
+    private static final String METRIC_PREFIX = "tx.";
+
+    private final DatabaseConnection dbConnection;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Metrics metrics = Metrics.getInstance();
+
+    /**
+     * Create a template using the retry settings from config.properties
+     */
+    public TransactionTemplate(DatabaseConnection dbConnection) {
+        this(dbConnection,
+             dbConnection.getIntProperty("db.tx.max.attempts", 4),
+             dbConnection.getIntProperty("db.tx.backoff.base.ms", 20),
+             dbConnection.getIntProperty("db.tx.backoff.max.ms", 500));
+    }
+
+    public TransactionTemplate(DatabaseConnection dbConnection, int maxAttempts,
+                               long baseBackoffMillis, long maxBackoffMillis) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Attempt budget must be positive");
+        }
+        this.dbConnection = dbConnection;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Execute the callback in a transaction, retrying transient failures.
+     * @param operation name used for metrics, e.g. "borrowItem"
+     * @return the callback's result once its transaction committed
+     * @throws SQLException the last failure if it was not transient or the budget ran out
+     */
+    public <T> T execute(String operation, TransactionCallback<T> callback) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            metrics.increment(METRIC_PREFIX + operation + ".attempts");
+            Connection conn = null;
+            try {
+                conn = dbConnection.getTransactionConnection();
+                T result = callback.doInTransaction(conn);
+                conn.commit();
+                return result;
+
+            } catch (SQLException e) {
+                rollbackQuietly(conn);
+                FailureType type = classify(e);
+                if (!type.isTransient() || attempt >= maxAttempts) {
+                    metrics.increment(METRIC_PREFIX + operation + ".failures");
+                    throw e;
+                }
+                metrics.increment(METRIC_PREFIX + operation + ".retries");
+                metrics.increment(METRIC_PREFIX + "retries." + type.name().toLowerCase());
+                backOff(attempt);
+
+            } catch (RuntimeException e) {
+                rollbackQuietly(conn);
+                throw e;
+            } finally {
+                DatabaseConnection.closeConnection(conn);
+            }
+        }
+    }
+
+    /**
+     * Classify a SQL failure by vendor code and SQLState, following the exception chain
+     */
+    public static FailureType classify(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (!(t instanceof SQLException)) {
+                continue;
+            }
+            for (SQLException sql = (SQLException) t; sql != null; sql = sql.getNextException()) {
+                int code = sql.getErrorCode();
+                if (code == MYSQL_DEADLOCK || code == H2_DEADLOCK) {
+                    return FailureType.DEADLOCK;
+                }
+                if (code == MYSQL_LOCK_WAIT_TIMEOUT || code == H2_LOCK_TIMEOUT) {
+                    return FailureType.LOCK_TIMEOUT;
+                }
+                if ("40001".equals(sql.getSQLState())) {
+                    return FailureType.SERIALIZATION;
+                }
+            }
+        }
+        return FailureType.NON_TRANSIENT;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Sleep a random time in [0, min(max, base * 2^(attempt-1))]
+     */
+    private void backOff(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void rollbackQuietly(Connection conn) {
+        if (conn != null) {
+            try {
+                conn.rollback();
+            } catch (SQLException e) {
+                System.err.println("Failed to rollback: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.oaktown.library.web;
+
+import com.oaktown.library.model.AvailabilityEvent;
+import com.oaktown.library.util.AvailabilityFeed;
+import com.oaktown.library.util.DatabaseConnection;
+import com.oaktown.library.util.Metrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-sent events endpoint for availability changes, on the JDK's built-in HTTP server.
+ *
+ * GET /events/availability?isbn=A,B streams every change to the listed ISBNs, or to
+ * all ISBNs without the filter. Events say only which item changed, never who borrowed
+ * or returned it, since the endpoint is unauthenticated. Each connection gets a
+ * bounded buffer in {@link AvailabilityFeed} and is written by a small shared pool of
+ * writer threads, so a slow client loses its oldest events instead of holding up others.
+ * After an overflow the client is sent an "overflow" event and should re-query.
+ */
+public class AvailabilityEventServer {
+
+    static final String PATH = "/events/availability";
+    private static final long HEARTBEAT_SECONDS = 15;
+
+    private final AvailabilityFeed feed;
+    private final int port;
+    private final int bufferSize;
+    private final int writerThreads;
+    private final String allowOrigin;
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+
+    private HttpServer server;
+    private ExecutorService writers;
+    private ScheduledExecutorService heartbeat;
+
+    /**
+     * Create a server using the events.* settings from config.properties
+     */
+    public AvailabilityEventServer(AvailabilityFeed feed, DatabaseConnection dbConnection) {
+        this(feed,
+             dbConnection.getIntProperty("events.http.port", 8081),
+             dbConnection.getIntProperty("events.buffer.size", 64),
+             dbConnection.getIntProperty("events.writer.threads", 4),
+             dbConnection.getProperty("events.http.allow.origin", ""));
+    }
+
+    public AvailabilityEventServer(AvailabilityFeed feed, int port, int bufferSize, int writerThreads,
+                                   String allowOrigin) {
+        if (bufferSize <= 0 || writerThreads <= 0) {
+            throw new IllegalArgumentException("Buffer size and writer threads must be positive");
+        }
+        this.feed = feed;
+        this.port = port;
+        this.bufferSize = bufferSize;
+        this.writerThreads = writerThreads;
+        this.allowOrigin = allowOrigin;
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        writers = Executors.newFixedThreadPool(writerThreads, daemon("sse-writer"));
+        heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("sse-heartbeat"));
+        heartbeat.scheduleAtFixedRate(() -> clients.forEach(Client::heartbeat),
+                                      HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext(PATH, this::handle);
+        server.start();
+    }
+
+    /**
+     * The port actually bound, useful when started on port 0
+     */
+    public synchronized int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        heartbeat.shutdownNow();
+        writers.shutdownNow();
+        clients.forEach(Client::close);
+        server = null;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+
+        String query = exchange.getRequestURI().getRawQuery();
+        Set<String> isbns = parseList(query, "isbn");
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        if (allowOrigin != null && !allowOrigin.isEmpty()) {
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", allowOrigin);
+        }
+        exchange.sendResponseHeaders(200, 0);
+
+        // The exchange stays open after this handler returns; writer threads own it from here
+        Client client = new Client(exchange);
+        client.subscription = feed.subscribe(isbns, null, bufferSize, client::schedule);
+        clients.add(client);
+        // Greets the client, plus anything published before the subscription was assigned
+        client.schedule();
+    }
+
+    /**
+     * Collect the comma-separated values of a query parameter, which may repeat
+     */
+    static Set<String> parseList(String rawQuery, String name) {
+        Set<String> values = new HashSet<>();
+        if (rawQuery == null) {
+            return values;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq < 0 || !name.equals(decode(pair.substring(0, eq)))) {
+                continue;
+            }
+            for (String value : decode(pair.substring(eq + 1)).split(",")) {
+                if (!value.trim().isEmpty()) {
+                    values.add(value.trim());
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Render one event in text/event-stream format
+     */
+    static String format(AvailabilityEvent event) {
+        return "id: " + event.getSequence() + "\n" +
+               "event: availability\n" +
+               "data: {\"isbn\":\"" + escape(event.getIsbn()) + "\"," +
+               "\"available\":" + event.isAvailable() + "," +
+               "\"timestamp\":\"" + event.getTimestamp() + "\"}\n\n";
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String escape(String value) {
+        return value == null ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * One open stream. At most one writer task runs per client at a time.
+     */
+    private final class Client {
+
+        private final HttpExchange exchange;
+        private final OutputStream out;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean greeted;
+        private volatile boolean heartbeatDue;
+        private volatile boolean closed;
+        private volatile AvailabilityFeed.Subscription subscription;
+
+        Client(HttpExchange exchange) {
+            this.exchange = exchange;
+            this.out = exchange.getResponseBody();
+        }
+
+        void heartbeat() {
+            heartbeatDue = true;
+            schedule();
+        }
+
+        void schedule() {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this::flush);
+                } catch (RuntimeException e) {
+                    // Pool shut down while stopping
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void flush() {
+            if (subscription == null) {
+                scheduled.set(false);
+                return;
+            }
+            do {
+                try {
+                    StringBuilder chunk = new StringBuilder();
+                    if (!greeted) {
+                        greeted = true;
+                        chunk.append(": connected\n\n");
+                    }
+                    long dropped = subscription.takeDropped();
+                    if (dropped > 0) {
+                        chunk.append("event: overflow\ndata: {\"dropped\":").append(dropped).append("}\n\n");
+                    }
+                    List<AvailabilityEvent> events = subscription.drain();
+                    for (AvailabilityEvent event : events) {
+                        chunk.append(format(event));
+                    }
+                    Metrics.getInstance().add("availability.events.sent", events.size());
+                    if (heartbeatDue) {
+                        heartbeatDue = false;
+                        chunk.append(": keep-alive\n\n");
+                    }
+                    if (chunk.length() > 0) {
+                        send(chunk.toString());
+                    }
+                } catch (IOException e) {
+                    close();
+                    return;
+                } finally {
+                    scheduled.set(false);
+                }
+            } while (!closed && subscription.hasPending() && scheduled.compareAndSet(false, true));
+        }
+
+        void send(String text) throws IOException {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            clients.remove(this);
+            if (subscription != null) {
+                subscription.close();
+            }
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+-- H2 (MySQL mode) version of schema.sql, used by the embedded database,
+-- benchmarks and QueryPlanTest. Keep in sync with the MySQL schema;
+-- triggers live in triggers.sql.
+-- Generated ids come from sequences: in MySQL mode H2 2.2 hands out duplicate
+-- AUTO_INCREMENT values when sessions insert concurrently.
+
+CREATE TABLE members (
+    member_id VARCHAR(10) PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    email VARCHAR(100),
+    phone VARCHAR(20),
+    address TEXT,
+    registration_date DATE DEFAULT CURRENT_DATE,
+    active BOOLEAN DEFAULT TRUE,
+    active_loans INT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE library_items (
+    isbn VARCHAR(20) PRIMARY KEY,
+    title VARCHAR(200) NOT NULL,
+    author VARCHAR(100) NOT NULL,
+    publication_year INT NOT NULL,
+    item_type ENUM('BOOK', 'REFERENCE_BOOK', 'MAGAZINE') NOT NULL,
+    current_borrower VARCHAR(10) NULL,
+    available BOOLEAN DEFAULT TRUE,
+    version INT NOT NULL DEFAULT 0,
+    created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    pages INT NULL,
+    genre VARCHAR(50) NULL,
+    restricted BOOLEAN NULL,
+    issue_number INT NULL,
+    volume INT NULL,
+    frequency VARCHAR(20) NULL,
+    FOREIGN KEY (current_borrower) REFERENCES members(member_id) ON DELETE SET NULL
+);
+
+CREATE TABLE books (
+    isbn VARCHAR(20) PRIMARY KEY,
+    pages INT NOT NULL,
+    genre VARCHAR(50),
+    FOREIGN KEY (isbn) REFERENCES library_items(isbn) ON DELETE CASCADE
+);
+
+CREATE TABLE reference_books (
+    isbn VARCHAR(20) PRIMARY KEY,
+    restricted BOOLEAN DEFAULT FALSE,
+    FOREIGN KEY (isbn) REFERENCES books(isbn) ON DELETE CASCADE
+);
+
+CREATE TABLE magazines (
+    isbn VARCHAR(20) PRIMARY KEY,
+    issue_number INT NOT NULL,
+    volume INT,
+    frequency VARCHAR(20),
+    FOREIGN KEY (isbn) REFERENCES library_items(isbn) ON DELETE CASCADE
+);
+
+CREATE SEQUENCE borrowed_items_id_seq;
+
+CREATE TABLE borrowed_items (
+    id INT DEFAULT NEXT VALUE FOR borrowed_items_id_seq PRIMARY KEY,
+    isbn VARCHAR(20) NOT NULL,
+    member_id VARCHAR(10) NOT NULL,
+    borrow_date DATE NOT NULL,
+    due_date DATE NOT NULL,
+    return_date DATE NULL,
+    daily_cost DECIMAL(5,2) DEFAULT 0.50,
+    total_cost DECIMAL(8,2) NULL,
+    status ENUM('BORROWED', 'RETURNED', 'OVERDUE') DEFAULT 'BORROWED',
+    created_timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (isbn) REFERENCES library_items(isbn) ON DELETE CASCADE,
+    FOREIGN KEY (member_id) REFERENCES members(member_id) ON DELETE CASCADE
+);
+CREATE INDEX idx_member_status ON borrowed_items (member_id, status, borrow_date, due_date, isbn, daily_cost);
+CREATE INDEX idx_isbn_status ON borrowed_items (isbn, status, member_id, borrow_date, daily_cost);
+CREATE INDEX idx_borrow_date ON borrowed_items (borrow_date);
+CREATE INDEX idx_status_due ON borrowed_items (status, due_date, isbn, member_id, borrow_date);
+CREATE INDEX idx_status_return ON borrowed_items (status, return_date);
+
+CREATE TABLE loan_history (
+    id INT PRIMARY KEY,
+    isbn VARCHAR(20) NOT NULL,
+    member_id VARCHAR(10) NOT NULL,
+    borrow_date DATE NOT NULL,
+    due_date DATE NOT NULL,
+    return_date DATE NOT NULL,
+    daily_cost DECIMAL(5,2),
+    total_cost DECIMAL(8,2),
+    created_timestamp TIMESTAMP NULL,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (isbn) REFERENCES library_items(isbn) ON DELETE CASCADE,
+    FOREIGN KEY (member_id) REFERENCES members(member_id) ON DELETE CASCADE
+);
+CREATE INDEX idx_history_member ON loan_history (member_id, return_date, isbn, borrow_date, total_cost);
+CREATE INDEX idx_history_isbn ON loan_history (isbn);
+
+CREATE TABLE processed_requests (
+    request_id VARCHAR(64) PRIMARY KEY,
+    operation ENUM('BORROW', 'RETURN') NOT NULL,
+    isbn VARCHAR(20) NOT NULL,
+    member_id VARCHAR(10) NOT NULL,
+    success BOOLEAN NOT NULL,
+    processed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_processed_at ON processed_requests (processed_at);
+
+CREATE SEQUENCE pricing_rates_id_seq;
+
+CREATE TABLE pricing_rates (
+    id INT DEFAULT NEXT VALUE FOR pricing_rates_id_seq PRIMARY KEY,
+    item_type ENUM('BOOK', 'REFERENCE_BOOK', 'MAGAZINE') NOT NULL,
+    member_tier ENUM('BRONZE', 'SILVER', 'GOLD', 'PLATINUM') NULL,
+    valid_from DATE NOT NULL,
+    valid_to DATE NULL,
+    daily_cents INT NOT NULL
+);
+CREATE INDEX idx_pricing_type ON pricing_rates (item_type, member_tier, valid_from);
+
+INSERT INTO pricing_rates (item_type, member_tier, valid_from, valid_to, daily_cents) VALUES
+('BOOK', NULL, '2000-01-01', NULL, 50),
+('REFERENCE_BOOK', NULL, '2000-01-01', NULL, 100),
+('MAGAZINE', NULL, '2000-01-01', NULL, 25);
+
+CREATE TABLE fee_ledger (
+    borrowing_id INT PRIMARY KEY,
+    member_id VARCHAR(10) NOT NULL,
+    isbn VARCHAR(20) NOT NULL,
+    chargeable_days INT NOT NULL,
+    overdue_days INT NOT NULL,
+    accrued_cents BIGINT NOT NULL,
+    accrued_through DATE NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (borrowing_id) REFERENCES borrowed_items(id) ON DELETE CASCADE
+);
+CREATE INDEX idx_fee_member ON fee_ledger (member_id, accrued_cents);
+
+CREATE SEQUENCE holds_id_seq;
+
+CREATE TABLE holds (
+    id INT DEFAULT NEXT VALUE FOR holds_id_seq PRIMARY KEY,
+    isbn VARCHAR(20) NOT NULL,
+    member_id VARCHAR(10) NOT NULL,
+    status ENUM('WAITING', 'READY', 'FULFILLED', 'CANCELLED', 'EXPIRED') NOT NULL DEFAULT 'WAITING',
+    placed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    ready_until DATE NULL
+);
+-- Indexes first so the foreign keys reuse them, as InnoDB does
+CREATE INDEX idx_hold_queue ON holds (isbn, status, id);
+CREATE INDEX idx_hold_member ON holds (member_id, status);
+ALTER TABLE holds ADD FOREIGN KEY (isbn) REFERENCES library_items(isbn) ON DELETE CASCADE;
+ALTER TABLE holds ADD FOREIGN KEY (member_id) REFERENCES members(member_id) ON DELETE CASCADE;
+
+CREATE SEQUENCE outbox_events_id_seq;
+
+CREATE TABLE outbox_events (
+    id BIGINT DEFAULT NEXT VALUE FOR outbox_events_id_seq PRIMARY KEY,
+    event_type ENUM('LOAN_BORROWED', 'LOAN_RETURNED', 'TOMBSTONE') NOT NULL,
+    loan_id INT NOT NULL,
+    isbn VARCHAR(20) NOT NULL,
+    member_id VARCHAR(10) NOT NULL,
+    payload VARCHAR(1000) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_outbox_created ON outbox_events (created_at);
+
+CREATE TABLE outbox_cursors (
+    consumer VARCHAR(64) PRIMARY KEY,
+    last_event_id BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+-- Views for easy querying. library_items already has pages/restricted/issue_number
+-- columns for the single-table layout, so they are coalesced instead of li.*
+CREATE VIEW available_items AS
+SELECT li.isbn, li.title, li.author, li.publication_year, li.item_type, li.current_borrower,
+       li.available, li.version, li.created_date,
+       COALESCE(li.pages, b.pages) AS pages,
+       COALESCE(li.restricted, rb.restricted) AS restricted,
+       COALESCE(li.issue_number, m.issue_number) AS issue_number
+FROM library_items li
+LEFT JOIN books b ON li.isbn = b.isbn
+LEFT JOIN reference_books rb ON li.isbn = rb.isbn
+LEFT JOIN magazines m ON li.isbn = m.isbn
+WHERE li.available = TRUE;
+
+CREATE VIEW current_borrowings AS
+SELECT bi.*, li.title, li.author, m.name AS member_name
+FROM borrowed_items bi
+JOIN library_items li ON bi.isbn = li.isbn
+JOIN members m ON bi.member_id = m.member_id
+WHERE bi.status = 'BORROWED';
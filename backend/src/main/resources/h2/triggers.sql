@@ -0,0 +1,6 @@
+-- H2 equivalents of the after_borrow_insert / after_borrow_update triggers
+CREATE TRIGGER after_borrow_insert AFTER INSERT ON borrowed_items
+FOR EACH ROW CALL 'com.oaktown.library.util.AvailabilityTrigger';
+
+CREATE TRIGGER after_borrow_update AFTER UPDATE ON borrowed_items
+FOR EACH ROW CALL 'com.oaktown.library.util.AvailabilityTrigger';
@@ -0,0 +1,36 @@
+-- Migration 001: optimistic locking for library_items
+-- Adds a version column that every availability write bumps, so stale
+-- readers can be detected with compare-and-set updates.
+USE oaktown_library;
+
+ALTER TABLE library_items
+    ADD COLUMN version INT NOT NULL DEFAULT 0 AFTER available;
+
+DROP TRIGGER IF EXISTS after_borrow_insert;
+DROP TRIGGER IF EXISTS after_borrow_update;
+
+DELIMITER //
+
+CREATE TRIGGER after_borrow_insert
+AFTER INSERT ON borrowed_items
+FOR EACH ROW
+BEGIN
+    IF NEW.status = 'BORROWED' THEN
+        UPDATE library_items
+        SET current_borrower = NEW.member_id, available = FALSE, version = version + 1
+        WHERE isbn = NEW.isbn;
+    END IF;
+END//
+
+CREATE TRIGGER after_borrow_update
+AFTER UPDATE ON borrowed_items
+FOR EACH ROW
+BEGIN
+    IF NEW.status = 'RETURNED' AND OLD.status = 'BORROWED' THEN
+        UPDATE library_items
+        SET current_borrower = NULL, available = TRUE, version = version + 1
+        WHERE isbn = NEW.isbn;
+    END IF;
+END//
+
+DELIMITER ;
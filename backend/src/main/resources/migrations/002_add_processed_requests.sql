@@ -0,0 +1,14 @@
+-- Migration 002: idempotency keys for borrow/return requests
+-- Remembers the outcome of each client request ID so resent requests
+-- return the original result instead of running again.
+USE oaktown_library;
+
+CREATE TABLE IF NOT EXISTS processed_requests (
+    request_id VARCHAR(64) PRIMARY KEY,
+    operation ENUM('BORROW', 'RETURN') NOT NULL,
+    isbn VARCHAR(20) NOT NULL,
+    member_id VARCHAR(10) NOT NULL,
+    success BOOLEAN NOT NULL,
+    processed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_processed_at (processed_at)
+);
@@ -0,0 +1,11 @@
+-- Migration 003: application-side availability writes
+-- Drops the triggers that keep library_items.available in sync with
+-- borrowed_items. Run together with setting
+-- borrowing.availability.writes=application, after which BorrowingDAO
+-- updates library_items itself in the same transaction as the loan row.
+-- To go back, re-run the trigger section of migrations/001_add_item_version.sql
+-- and switch the setting back to trigger.
+USE oaktown_library;
+
+DROP TRIGGER IF EXISTS after_borrow_insert;
+DROP TRIGGER IF EXISTS after_borrow_update;
@@ -0,0 +1,13 @@
+-- Migration 004: denormalized open-loan counter on members
+-- Lets the borrow limit be checked with a single conditional UPDATE
+-- instead of counting borrowed_items on every checkout.
+USE oaktown_library;
+
+ALTER TABLE members
+    ADD COLUMN active_loans INT NOT NULL DEFAULT 0 AFTER active;
+
+UPDATE members m
+SET active_loans = (
+    SELECT COUNT(*) FROM borrowed_items bi
+    WHERE bi.member_id = m.member_id AND bi.status = 'BORROWED'
+);
@@ -0,0 +1,24 @@
+-- Migration 005: hot/cold split of borrowed_items
+-- Returned loans are moved to loan_history in batches by LoanArchiver,
+-- so active-loan queries only scan open and recently returned rows.
+USE oaktown_library;
+
+CREATE TABLE IF NOT EXISTS loan_history (
+    id INT PRIMARY KEY, -- original borrowed_items.id
+    isbn VARCHAR(20) NOT NULL,
+    member_id VARCHAR(10) NOT NULL,
+    borrow_date DATE NOT NULL,
+    due_date DATE NOT NULL,
+    return_date DATE NOT NULL,
+    daily_cost DECIMAL(5,2),
+    total_cost DECIMAL(8,2),
+    created_timestamp TIMESTAMP NULL,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (isbn) REFERENCES library_items(isbn) ON DELETE CASCADE,
+    FOREIGN KEY (member_id) REFERENCES members(member_id) ON DELETE CASCADE,
+    INDEX idx_history_member (member_id, return_date),
+    INDEX idx_history_isbn (isbn)
+);
+
+ALTER TABLE borrowed_items
+    ADD INDEX idx_status_return (status, return_date);
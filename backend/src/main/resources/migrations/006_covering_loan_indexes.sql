@@ -0,0 +1,16 @@
+-- Migration 006: covering indexes for the borrowing hot queries
+-- Each index holds every column its query reads, so MySQL answers the
+-- borrowed_items part from the index without touching the table rows.
+USE oaktown_library;
+
+ALTER TABLE borrowed_items
+    DROP INDEX idx_member_status,
+    ADD INDEX idx_member_status (member_id, status, borrow_date, due_date, isbn, daily_cost),
+    DROP INDEX idx_isbn_status,
+    ADD INDEX idx_isbn_status (isbn, status, member_id, borrow_date, daily_cost),
+    DROP INDEX idx_due_date,
+    ADD INDEX idx_status_due (status, due_date, isbn, member_id, borrow_date);
+
+ALTER TABLE loan_history
+    DROP INDEX idx_history_member,
+    ADD INDEX idx_history_member (member_id, return_date, isbn, borrow_date, total_cost);
@@ -0,0 +1,27 @@
+-- Migration 007: single-table catalog layout
+-- Copies the subtype columns into library_items so item reads are a single
+-- primary-key lookup. Run before setting catalog.layout=single; items created
+-- in single mode are not written to books / reference_books / magazines, so
+-- switching back to joined requires copying them the other way.
+-- item_type stays an ENUM, which MySQL already stores as a 1-byte index.
+USE oaktown_library;
+
+ALTER TABLE library_items
+    ADD COLUMN pages INT NULL,
+    ADD COLUMN genre VARCHAR(50) NULL,
+    ADD COLUMN restricted BOOLEAN NULL,
+    ADD COLUMN issue_number INT NULL,
+    ADD COLUMN volume INT NULL,
+    ADD COLUMN frequency VARCHAR(20) NULL;
+
+UPDATE library_items li
+JOIN books b ON li.isbn = b.isbn
+SET li.pages = b.pages, li.genre = b.genre;
+
+UPDATE library_items li
+JOIN reference_books rb ON li.isbn = rb.isbn
+SET li.restricted = rb.restricted;
+
+UPDATE library_items li
+JOIN magazines m ON li.isbn = m.isbn
+SET li.issue_number = m.issue_number, li.volume = m.volume, li.frequency = m.frequency;
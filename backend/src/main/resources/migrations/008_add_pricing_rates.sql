@@ -0,0 +1,19 @@
+-- Migration 008: pricing_rates table for PricingEngine
+-- Rates are per item type, optional member tier and date range, in whole cents.
+-- The seeded rows match the list prices previously hard-coded in ItemType.
+USE oaktown_library;
+
+CREATE TABLE IF NOT EXISTS pricing_rates (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    item_type ENUM('BOOK', 'REFERENCE_BOOK', 'MAGAZINE') NOT NULL,
+    member_tier ENUM('BRONZE', 'SILVER', 'GOLD', 'PLATINUM') NULL,
+    valid_from DATE NOT NULL,
+    valid_to DATE NULL,
+    daily_cents INT NOT NULL,
+    INDEX idx_pricing_type (item_type, member_tier, valid_from)
+);
+
+INSERT INTO pricing_rates (item_type, member_tier, valid_from, valid_to, daily_cents) VALUES
+('BOOK', NULL, '2000-01-01', NULL, 50),
+('REFERENCE_BOOK', NULL, '2000-01-01', NULL, 100),
+('MAGAZINE', NULL, '2000-01-01', NULL, 25);
@@ -0,0 +1,16 @@
+-- Migration 009: fee_ledger for fees accrued by open loans
+-- Filled by FeeAccrualJob; BorrowingDAO removes a loan's row when it is returned.
+USE oaktown_library;
+
+CREATE TABLE IF NOT EXISTS fee_ledger (
+    borrowing_id INT PRIMARY KEY,
+    member_id VARCHAR(10) NOT NULL,
+    isbn VARCHAR(20) NOT NULL,
+    chargeable_days INT NOT NULL,
+    overdue_days INT NOT NULL,
+    accrued_cents BIGINT NOT NULL,
+    accrued_through DATE NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (borrowing_id) REFERENCES borrowed_items(id) ON DELETE CASCADE,
+    INDEX idx_fee_member (member_id, accrued_cents)
+);
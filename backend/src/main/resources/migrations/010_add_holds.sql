@@ -0,0 +1,17 @@
+-- Migration 010: holds queue for borrowed items
+-- BorrowingDAO.returnItem makes the oldest WAITING hold READY, and only that
+-- member can borrow the item until ready_until (holds.pickup.days).
+USE oaktown_library;
+
+CREATE TABLE IF NOT EXISTS holds (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    isbn VARCHAR(20) NOT NULL,
+    member_id VARCHAR(10) NOT NULL,
+    status ENUM('WAITING', 'READY', 'FULFILLED', 'CANCELLED', 'EXPIRED') NOT NULL DEFAULT 'WAITING',
+    placed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    ready_until DATE NULL, -- last pickup day once READY
+    FOREIGN KEY (isbn) REFERENCES library_items(isbn) ON DELETE CASCADE,
+    FOREIGN KEY (member_id) REFERENCES members(member_id) ON DELETE CASCADE,
+    INDEX idx_hold_queue (isbn, status, id),
+    INDEX idx_hold_member (member_id, status)
+);
@@ -0,0 +1,21 @@
+-- Migration 011: transactional outbox for loan events
+-- BorrowingDAO writes outbox_events with each borrow and return;
+-- OutboxRelay delivers them to in-process sinks and records its cursor.
+USE oaktown_library;
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type ENUM('LOAN_BORROWED', 'LOAN_RETURNED') NOT NULL,
+    loan_id INT NOT NULL, -- borrowed_items.id; no foreign key, events outlive archived loans
+    isbn VARCHAR(20) NOT NULL,
+    member_id VARCHAR(10) NOT NULL,
+    payload VARCHAR(1000) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_outbox_created (created_at)
+);
+
+CREATE TABLE IF NOT EXISTS outbox_cursors (
+    consumer VARCHAR(64) PRIMARY KEY,
+    last_event_id BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
@@ -0,0 +1,7 @@
+-- Migration 012: outbox tombstones
+-- OutboxRelay writes a TOMBSTONE row over an id gap once the insert proves the
+-- transaction that took the id rolled back, instead of skipping the gap on a timeout.
+USE oaktown_library;
+
+ALTER TABLE outbox_events
+    MODIFY event_type ENUM('LOAN_BORROWED', 'LOAN_RETURNED', 'TOMBSTONE') NOT NULL;
@@ -5,6 +5,13 @@ CREATE DATABASE IF NOT EXISTS oaktown_library;
 USE oaktown_library;
 
 -- Drop tables if they exist (for clean setup)
+DROP TABLE IF EXISTS outbox_cursors;
+DROP TABLE IF EXISTS outbox_events;
+DROP TABLE IF EXISTS holds;
+DROP TABLE IF EXISTS fee_ledger;
+DROP TABLE IF EXISTS pricing_rates;
+DROP TABLE IF EXISTS processed_requests;
+DROP TABLE IF EXISTS loan_history;
 DROP TABLE IF EXISTS borrowed_items;
 DROP TABLE IF EXISTS reference_books;
 DROP TABLE IF EXISTS magazines;
@@ -20,7 +27,8 @@ CREATE TABLE members (
     phone VARCHAR(20),
     address TEXT,
     registration_date DATE DEFAULT (CURRENT_DATE),
-    active BOOLEAN DEFAULT TRUE
+    active BOOLEAN DEFAULT TRUE,
+    active_loans INT NOT NULL DEFAULT 0 -- open loans, maintained by BorrowingDAO
 );
 
 -- Library Items (parent table)
@@ -32,7 +40,15 @@ CREATE TABLE library_items (
     item_type ENUM('BOOK', 'REFERENCE_BOOK', 'MAGAZINE') NOT NULL,
     current_borrower VARCHAR(10) NULL,
     available BOOLEAN DEFAULT TRUE,
+    version INT NOT NULL DEFAULT 0, -- bumped on every availability change (optimistic locking)
     created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    -- Subtype columns, only used with catalog.layout=single (NULL when not applicable)
+    pages INT NULL,
+    genre VARCHAR(50) NULL,
+    restricted BOOLEAN NULL,
+    issue_number INT NULL,
+    volume INT NULL,
+    frequency VARCHAR(20) NULL,
     FOREIGN KEY (current_borrower) REFERENCES members(member_id) ON DELETE SET NULL
 );
 
@@ -74,10 +90,109 @@ CREATE TABLE borrowed_items (
     created_timestamp TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (isbn) REFERENCES library_items(isbn) ON DELETE CASCADE,
     FOREIGN KEY (member_id) REFERENCES members(member_id) ON DELETE CASCADE,
-    INDEX idx_member_status (member_id, status),
-    INDEX idx_isbn_status (isbn, status),
+    -- Covering indexes for the BorrowingDAO/MemberDAO hot queries (InnoDB appends id to each)
+    INDEX idx_member_status (member_id, status, borrow_date, due_date, isbn, daily_cost),
+    INDEX idx_isbn_status (isbn, status, member_id, borrow_date, daily_cost),
+    INDEX idx_status_due (status, due_date, isbn, member_id, borrow_date),
     INDEX idx_borrow_date (borrow_date),
-    INDEX idx_due_date (due_date)
+    INDEX idx_status_return (status, return_date)
+);
+
+-- Loan history (returned loans moved out of borrowed_items by LoanArchiver,
+-- so the hot table only holds open and recently returned loans)
+CREATE TABLE loan_history (
+    id INT PRIMARY KEY, -- original borrowed_items.id
+    isbn VARCHAR(20) NOT NULL,
+    member_id VARCHAR(10) NOT NULL,
+    borrow_date DATE NOT NULL,
+    due_date DATE NOT NULL,
+    return_date DATE NOT NULL,
+    daily_cost DECIMAL(5,2),
+    total_cost DECIMAL(8,2),
+    created_timestamp TIMESTAMP NULL,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (isbn) REFERENCES library_items(isbn) ON DELETE CASCADE,
+    FOREIGN KEY (member_id) REFERENCES members(member_id) ON DELETE CASCADE,
+    INDEX idx_history_member (member_id, return_date, isbn, borrow_date, total_cost),
+    INDEX idx_history_isbn (isbn)
+);
+
+-- Processed client requests (idempotency keys for borrow/return replays)
+CREATE TABLE processed_requests (
+    request_id VARCHAR(64) PRIMARY KEY,
+    operation ENUM('BORROW', 'RETURN') NOT NULL,
+    isbn VARCHAR(20) NOT NULL,
+    member_id VARCHAR(10) NOT NULL,
+    success BOOLEAN NOT NULL,
+    processed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_processed_at (processed_at)
+);
+
+-- Daily borrowing rates in cents, loaded once by PricingEngine.
+-- member_tier NULL applies to every tier; valid_to is exclusive, NULL = open-ended.
+CREATE TABLE pricing_rates (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    item_type ENUM('BOOK', 'REFERENCE_BOOK', 'MAGAZINE') NOT NULL,
+    member_tier ENUM('BRONZE', 'SILVER', 'GOLD', 'PLATINUM') NULL,
+    valid_from DATE NOT NULL,
+    valid_to DATE NULL,
+    daily_cents INT NOT NULL,
+    INDEX idx_pricing_type (item_type, member_tier, valid_from)
+);
+
+INSERT INTO pricing_rates (item_type, member_tier, valid_from, valid_to, daily_cents) VALUES
+('BOOK', NULL, '2000-01-01', NULL, 50),
+('REFERENCE_BOOK', NULL, '2000-01-01', NULL, 100),
+('MAGAZINE', NULL, '2000-01-01', NULL, 25);
+
+-- Fees accrued so far by open loans, refreshed nightly by FeeAccrualJob.
+-- A loan's row is removed when it is returned and its total_cost is final.
+CREATE TABLE fee_ledger (
+    borrowing_id INT PRIMARY KEY,
+    member_id VARCHAR(10) NOT NULL,
+    isbn VARCHAR(20) NOT NULL,
+    chargeable_days INT NOT NULL,
+    overdue_days INT NOT NULL,
+    accrued_cents BIGINT NOT NULL,
+    accrued_through DATE NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (borrowing_id) REFERENCES borrowed_items(id) ON DELETE CASCADE,
+    INDEX idx_fee_member (member_id, accrued_cents)
+);
+
+-- Holds (reservations) on borrowed items, served FIFO by id per ISBN.
+-- A return makes the oldest WAITING hold READY in the same transaction.
+CREATE TABLE holds (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    isbn VARCHAR(20) NOT NULL,
+    member_id VARCHAR(10) NOT NULL,
+    status ENUM('WAITING', 'READY', 'FULFILLED', 'CANCELLED', 'EXPIRED') NOT NULL DEFAULT 'WAITING',
+    placed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    ready_until DATE NULL, -- last pickup day once READY
+    FOREIGN KEY (isbn) REFERENCES library_items(isbn) ON DELETE CASCADE,
+    FOREIGN KEY (member_id) REFERENCES members(member_id) ON DELETE CASCADE,
+    INDEX idx_hold_queue (isbn, status, id),
+    INDEX idx_hold_member (member_id, status)
+);
+
+-- Transactional outbox: one row per loan change, written in the same transaction,
+-- drained in id order by OutboxRelay
+CREATE TABLE outbox_events (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    event_type ENUM('LOAN_BORROWED', 'LOAN_RETURNED', 'TOMBSTONE') NOT NULL,
+    loan_id INT NOT NULL, -- borrowed_items.id; no foreign key, events outlive archived loans
+    isbn VARCHAR(20) NOT NULL,
+    member_id VARCHAR(10) NOT NULL,
+    payload VARCHAR(1000) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    INDEX idx_outbox_created (created_at)
+);
+
+-- Last outbox event id delivered by each relay consumer
+CREATE TABLE outbox_cursors (
+    consumer VARCHAR(64) PRIMARY KEY,
+    last_event_id BIGINT NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 );
 
 -- Triggers to update library_items availability
@@ -89,7 +204,7 @@ FOR EACH ROW
 BEGIN
     IF NEW.status = 'BORROWED' THEN
         UPDATE library_items 
-        SET current_borrower = NEW.member_id, available = FALSE 
+        SET current_borrower = NEW.member_id, available = FALSE, version = version + 1 
         WHERE isbn = NEW.isbn;
     END IF;
 END//
@@ -100,7 +215,7 @@ FOR EACH ROW
 BEGIN
     IF NEW.status = 'RETURNED' AND OLD.status = 'BORROWED' THEN
         UPDATE library_items 
-        SET current_borrower = NULL, available = TRUE 
+        SET current_borrower = NULL, available = TRUE, version = version + 1 
         WHERE isbn = NEW.isbn;
     END IF;
 END//
@@ -0,0 +1,71 @@
+package com.oaktown.library.benchmark;
+
+import com.oaktown.library.util.DatabaseConnection;
+import com.oaktown.library.util.EmbeddedDatabase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Sets up an in-memory H2 database (MySQL mode) for benchmarks and points
+ * DatabaseConnection at it through system property overrides.
+ * Must run before anything else in the JVM calls DatabaseConnection.getInstance().
+ */
+final class BenchmarkDatabase {
+    
+    private BenchmarkDatabase() {
+    }
+    
+    /**
+     * Create the schema, with or without the availability triggers
+     */
+    static DatabaseConnection create(String name, boolean withTriggers) throws SQLException {
+        System.setProperty("db.url", "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        System.setProperty("db.username", "sa");
+        System.setProperty("db.password", "");
+        System.setProperty("db.driver", "org.h2.Driver");
+        
+        DatabaseConnection db = DatabaseConnection.getInstance();
+        try (Connection conn = db.getConnection()) {
+            EmbeddedDatabase.runScript(conn, "/h2/schema.sql");
+            if (withTriggers) {
+                EmbeddedDatabase.runScript(conn, "/h2/triggers.sql");
+            }
+        }
+        return db;
+    }
+    
+    /**
+     * Insert members M0..M(n-1), each owning itemsPerMember books B{member}-{i}
+     */
+    static void seed(DatabaseConnection db, int members, int itemsPerMember) throws SQLException {
+        try (Connection conn = db.getConnection();
+             PreparedStatement member = conn.prepareStatement(
+                 "INSERT INTO members (member_id, name) VALUES (?, ?)");
+             PreparedStatement item = conn.prepareStatement(
+                 "INSERT INTO library_items (isbn, title, author, publication_year, item_type) VALUES (?, ?, 'Bench', 2000, 'BOOK')");
+             PreparedStatement book = conn.prepareStatement(
+                 "INSERT INTO books (isbn, pages, genre) VALUES (?, 200, 'Fiction')")) {
+            
+            for (int m = 0; m < members; m++) {
+                member.setString(1, "M" + m);
+                member.setString(2, "Member " + m);
+                member.executeUpdate();
+                
+                for (int i = 0; i < itemsPerMember; i++) {
+                    String isbn = isbn(m, i);
+                    item.setString(1, isbn);
+                    item.setString(2, "Title " + isbn);
+                    item.executeUpdate();
+                    book.setString(1, isbn);
+                    book.executeUpdate();
+                }
+            }
+        }
+    }
+    
+    static String isbn(int member, int index) {
+        return "B" + member + "-" + index;
+    }
+}
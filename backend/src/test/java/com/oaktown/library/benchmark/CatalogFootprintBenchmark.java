@@ -0,0 +1,150 @@
+package com.oaktown.library.benchmark;
+
+import com.oaktown.library.dao.LibraryItemDAO;
+import com.oaktown.library.model.Book;
+import com.oaktown.library.model.LibraryItem;
+import com.oaktown.library.model.Magazine;
+import com.oaktown.library.model.ReferenceBook;
+import com.oaktown.library.util.DatabaseConnection;
+import com.oaktown.library.util.RowMapper;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap retained by a cached multi-million item catalog, mapped with the pooled
+ * LibraryItemDAO.ROW_MAPPER versus a mapper that keeps every author, genre and
+ * frequency String it is handed. The retained size is reported as the
+ * retainedMB secondary result; the timings include the forced GCs.
+ *
+ * H2 hands back the String it stores, while a network driver decodes a new one
+ * per value, so the result set is wrapped to copy every getString like a
+ * driver would.
+ *
+ * Run: mvn test-compile exec:exec -Pbenchmark -Djmh.args=CatalogFootprintBenchmark
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class CatalogFootprintBenchmark {
+
+    private static final String SCAN_SQL =
+        "SELECT li.isbn, li.title, li.author, li.publication_year, li.item_type, li.current_borrower, " +
+        "li.available, li.version, b.pages, b.genre, rb.restricted, m.issue_number, m.volume, m.frequency " +
+        "FROM library_items li " +
+        "LEFT JOIN books b ON li.isbn = b.isbn " +
+        "LEFT JOIN reference_books rb ON li.isbn = rb.isbn " +
+        "LEFT JOIN magazines m ON li.isbn = m.isbn";
+
+    @Param({"2000000"})
+    public int items;
+
+    private DatabaseConnection db;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        db = BenchmarkDatabase.create("footprint", false);
+        // 50,000 authors, 40 genres plus "Reference", 3 frequencies; every tenth item a magazine
+        try (Connection conn = db.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO library_items (isbn, title, author, publication_year, item_type) " +
+                "SELECT 'I' || X, 'Title ' || X, 'Author ' || MOD(X, 50000), 1900 + MOD(X, 120), " +
+                "CASE MOD(X, 10) WHEN 0 THEN 'MAGAZINE' WHEN 1 THEN 'REFERENCE_BOOK' ELSE 'BOOK' END " +
+                "FROM SYSTEM_RANGE(1, " + items + ") AS r (x)");
+            stmt.executeUpdate("INSERT INTO books (isbn, pages, genre) " +
+                "SELECT 'I' || X, 100 + MOD(X, 900), CASE MOD(X, 10) WHEN 1 THEN 'Reference' ELSE 'Genre ' || MOD(X, 40) END " +
+                "FROM SYSTEM_RANGE(1, " + items + ") AS r (x) WHERE MOD(X, 10) <> 0");
+            stmt.executeUpdate("INSERT INTO reference_books (isbn, restricted) " +
+                "SELECT 'I' || X, FALSE FROM SYSTEM_RANGE(1, " + items + ") AS r (x) WHERE MOD(X, 10) = 1");
+            stmt.executeUpdate("INSERT INTO magazines (isbn, issue_number, volume, frequency) " +
+                "SELECT 'I' || X, 1 + MOD(X, 12), 1, CASE MOD(X, 3) WHEN 0 THEN 'Monthly' WHEN 1 THEN 'Weekly' ELSE 'Quarterly' END " +
+                "FROM SYSTEM_RANGE(1, " + items + ") AS r (x) WHERE MOD(X, 10) = 0");
+        }
+    }
+
+    /**
+     * Heap retained by the last mapped catalog
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedMB;
+    }
+
+    @Benchmark
+    public List<LibraryItem> pooled(Footprint footprint) throws SQLException {
+        return measure(footprint, LibraryItemDAO.ROW_MAPPER);
+    }
+
+    @Benchmark
+    public List<LibraryItem> unpooled(Footprint footprint) throws SQLException {
+        return measure(footprint, columns -> CatalogFootprintBenchmark::mapUnpooled);
+    }
+
+    private List<LibraryItem> measure(Footprint footprint, RowMapper.Factory<LibraryItem> mapper) throws SQLException {
+        long before = usedHeapAfterGc();
+        List<LibraryItem> catalog;
+        try (Connection conn = db.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(SCAN_SQL)) {
+            catalog = RowMapper.mapAll(decodingCopies(rs), mapper);
+        }
+        footprint.retainedMB = (usedHeapAfterGc() - before) >> 20;
+        return catalog;
+    }
+
+    /**
+     * The mapping before pooling: every String from the row is kept as is
+     */
+    private static LibraryItem mapUnpooled(ResultSet rs) throws SQLException {
+        String isbn = rs.getString("isbn");
+        String title = rs.getString("title");
+        String author = rs.getString("author");
+        int publicationYear = rs.getInt("publication_year");
+        switch (rs.getString("item_type")) {
+            case "REFERENCE_BOOK":
+                return new ReferenceBook(isbn, title, author, publicationYear, rs.getInt("pages"),
+                    rs.getString("genre"), rs.getBoolean("restricted"));
+            case "BOOK":
+                return new Book(isbn, title, author, publicationYear, rs.getInt("pages"), rs.getString("genre"));
+            case "MAGAZINE":
+                return new Magazine(isbn, title, author, publicationYear, rs.getInt("issue_number"),
+                    rs.getInt("volume"), rs.getString("frequency"));
+            default:
+                return null;
+        }
+    }
+
+    private static ResultSet decodingCopies(ResultSet rs) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+            (proxy, method, args) -> {
+                try {
+                    Object value = method.invoke(rs, args);
+                    return "getString".equals(method.getName()) && value != null ? new String((String) value) : value;
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,76 @@
+package com.oaktown.library.benchmark;
+
+import com.oaktown.library.dao.BorrowingDAO;
+import com.oaktown.library.util.DatabaseConnection;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checkout throughput with trigger-maintained availability versus
+ * application-side writes in the same transaction.
+ * Each thread acts as its own member and cycles through its own items,
+ * so the numbers measure write-path cost rather than contention.
+ * H2 keeps speeding up for about half a minute, hence the long warmup.
+ *
+ * Run: mvn test-compile exec:exec -Pbenchmark -Djmh.args=CheckoutBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 20, time = 2)
+@Measurement(iterations = 10, time = 3)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class CheckoutBenchmark {
+    
+    private static final int MEMBERS = 64;
+    private static final int ITEMS_PER_MEMBER = 4;
+    
+    @Param({"trigger", "application"})
+    public String availabilityWrites;
+    
+    private BorrowingDAO borrowingDAO;
+    private final AtomicInteger nextMember = new AtomicInteger();
+    
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        System.setProperty("borrowing.availability.writes", availabilityWrites);
+        DatabaseConnection db = BenchmarkDatabase.create("checkout", "trigger".equals(availabilityWrites));
+        BenchmarkDatabase.seed(db, MEMBERS, ITEMS_PER_MEMBER);
+        borrowingDAO = new BorrowingDAO();
+    }
+    
+    /**
+     * One simulated patron per benchmark thread
+     */
+    @State(Scope.Thread)
+    public static class Patron {
+        String memberId;
+        int member;
+        int next;
+        
+        @Setup(Level.Trial)
+        public void claim(CheckoutBenchmark benchmark) {
+            member = benchmark.nextMember.getAndIncrement() % MEMBERS;
+            memberId = "M" + member;
+        }
+        
+        String nextIsbn() {
+            next = (next + 1) % ITEMS_PER_MEMBER;
+            return BenchmarkDatabase.isbn(member, next);
+        }
+    }
+    
+    @Benchmark
+    public boolean checkoutAndReturn(Patron patron) {
+        String isbn = patron.nextIsbn();
+        if (!borrowingDAO.borrowItem(isbn, patron.memberId, 14, 0.50)) {
+            throw new IllegalStateException("Checkout failed for " + isbn);
+        }
+        return borrowingDAO.returnItem(isbn, patron.memberId);
+    }
+}
@@ -0,0 +1,81 @@
+package com.oaktown.library.benchmark;
+
+import com.oaktown.library.model.Book;
+import com.oaktown.library.model.LibraryItem;
+import com.oaktown.library.model.Magazine;
+import com.oaktown.library.util.OffHeapCatalog;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A cached catalog held as LibraryItem objects in a HashMap versus in an
+ * OffHeapCatalog, at growing catalog sizes. fullGc times one System.gc(),
+ * whose pause is proportional to the live heap it has to trace; lookup is
+ * the cost of fetching one item, which off-heap includes materializing it.
+ *
+ * Run: mvn test-compile exec:exec -Pbenchmark -Djmh.args=OffHeapCatalogBenchmark
+ */
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-XX:MaxDirectMemorySize=8g"})
+@State(Scope.Benchmark)
+public class OffHeapCatalogBenchmark {
+
+    @Param({"heap", "offheap"})
+    public String store;
+
+    @Param({"500000", "2000000", "4000000"})
+    public int items;
+
+    private OffHeapCatalog offHeap;
+    private Map<String, LibraryItem> heap;
+    private Function<String, LibraryItem> lookup;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("heap".equals(store)) {
+            heap = new HashMap<>();
+            lookup = heap::get;
+        } else {
+            offHeap = new OffHeapCatalog();
+            lookup = offHeap::get;
+        }
+        for (int i = 0; i < items; i++) {
+            LibraryItem item = i % 10 == 0
+                ? new Magazine("I" + i, "Title " + i, "Author " + i % 50_000, 1900 + i % 120, 1 + i % 12, 1, "Monthly")
+                : new Book("I" + i, "Title " + i, "Author " + i % 50_000, 1900 + i % 120, 100 + i % 900, "Genre " + i % 40);
+            if (heap != null) {
+                heap.put(item.getIsbn(), item);
+            } else {
+                offHeap.put(item);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (offHeap != null) {
+            offHeap.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void fullGc() {
+        System.gc();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public LibraryItem lookup() {
+        return lookup.apply("I" + ThreadLocalRandom.current().nextInt(items));
+    }
+}
@@ -0,0 +1,73 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.Book;
+import com.oaktown.library.model.FeeLedgerEntry;
+import com.oaktown.library.model.Member;
+import com.oaktown.library.util.DatabaseConnection;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for fee ledger writes against an in-memory H2 database.
+ */
+@DisplayName("Fee Ledger Tests")
+class FeeLedgerTest {
+
+    private FeeLedgerDAO feeLedgerDAO;
+    private BorrowingDAO borrowingDAO;
+
+    @BeforeEach
+    void setUp() {
+        System.setProperty("shard.LEDGER.url",
+            "jdbc:h2:mem:ledger_" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        DatabaseConnection db = DatabaseConnection.getInstance().forShard("LEDGER");
+        feeLedgerDAO = new FeeLedgerDAO(db);
+        borrowingDAO = new BorrowingDAO(db);
+        assertTrue(new MemberDAO(db).createMember(new Member("L1", "Alice")));
+        LibraryItemDAO items = new LibraryItemDAO(db);
+        assertTrue(items.createLibraryItem(new Book("LEDGER-1", "Moby Dick", "Melville", 1851, 635, "Fiction")));
+        assertTrue(items.createLibraryItem(new Book("LEDGER-2", "Walden", "Thoreau", 1854, 352, "Essays")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        borrowingDAO.shutdown();
+        System.clearProperty("shard.LEDGER.url");
+    }
+
+    @Test
+    @DisplayName("Accrual should not recreate the ledger row of a loan returned after it was read")
+    void testReturnedLoanNotAccrued() {
+        assertTrue(borrowingDAO.borrowItem("LEDGER-1", "L1", 14, 0.50));
+        assertTrue(borrowingDAO.borrowItem("LEDGER-2", "L1", 14, 0.50));
+        LocalDate asOf = LocalDate.now().plusDays(3);
+        List<FeeLedgerEntry> loans = feeLedgerDAO.findLoansToAccrue(0, asOf, 10);
+        assertEquals(2, loans.size());
+        for (FeeLedgerEntry loan : loans) {
+            loan.accrueThrough(asOf);
+        }
+
+        // The return deletes the ledger row before the accrual writes it
+        assertTrue(borrowingDAO.returnItem("LEDGER-1", "L1"));
+
+        assertEquals(1, feeLedgerDAO.saveEntries(loans));
+        FeeLedgerEntry open = loans.get(1);
+        assertEquals("LEDGER-2", open.getIsbn());
+        assertEquals(open.getAccruedCents(), feeLedgerDAO.getOutstandingCents("L1"));
+
+        // The next night's run updates the remaining row in place
+        long accruedBefore = open.getAccruedCents();
+        open.accrueThrough(asOf.plusDays(1));
+        assertEquals(1, feeLedgerDAO.saveEntries(loans.subList(1, 2)));
+        assertTrue(open.getAccruedCents() > accruedBefore);
+        assertEquals(open.getAccruedCents(), feeLedgerDAO.getOutstandingCents("L1"));
+    }
+}
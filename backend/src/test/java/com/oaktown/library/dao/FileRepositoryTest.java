@@ -0,0 +1,168 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.Book;
+import com.oaktown.library.model.LibraryItem;
+import com.oaktown.library.model.Magazine;
+import com.oaktown.library.model.Member;
+import com.oaktown.library.service.Library;
+import com.oaktown.library.service.PricingEngine;
+import com.oaktown.library.util.LogStore;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for the Library running on the file-backed DAOs, with no database.
+ */
+@DisplayName("File Repository Tests")
+class FileRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    private LogStore store;
+    private Library library;
+    private Member member;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        openLibrary();
+        member = new Member("M001", "Ada Lovelace", "ada@example.com", "555-0100", "1 Analytical St");
+        assertTrue(library.addMember(member));
+        assertTrue(library.addLibraryItem(new Book("978-0000000001", "Notes on the Engine", "Ada Lovelace", 1843, 120, "History")));
+        assertTrue(library.addLibraryItem(new Magazine("MAG-001", "Engine Monthly", "Babbage & Co", 2024, 3, 1, "Monthly")));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Borrowing and returning should update item, member and history")
+    void testBorrowAndReturn() {
+        assertTrue(library.borrowItem("978-0000000001", member, 7));
+
+        assertFalse(library.findItemByIsbn("978-0000000001").isAvailable());
+        assertEquals("M001", library.findItemByIsbn("978-0000000001").getCurrentBorrower());
+        assertTrue(library.findMemberById("M001").hasBorrowedItem("978-0000000001"));
+        List<Map<String, Object>> current = library.getCurrentlyBorrowedItems(member);
+        assertEquals(1, current.size());
+        assertEquals(0.50, (Double) current.get(0).get("dailyCost"), 0.001);
+
+        assertTrue(library.returnItem("978-0000000001", member));
+
+        assertTrue(library.findItemByIsbn("978-0000000001").isAvailable());
+        assertTrue(library.getCurrentlyBorrowedItems(member).isEmpty());
+        List<Map<String, Object>> history = library.getPreviouslyBorrowedItems(member);
+        assertEquals(1, history.size());
+        assertEquals(0.50, (Double) history.get(0).get("totalCost"), 0.001);
+    }
+
+    @Test
+    @DisplayName("A borrowed item should not be lent twice")
+    void testItemAlreadyBorrowed() {
+        Member other = new Member("M002", "Charles Babbage");
+        assertTrue(library.addMember(other));
+        assertTrue(library.borrowItem("MAG-001", member, 7));
+
+        assertThrows(IllegalStateException.class, () -> library.borrowItem("MAG-001", other, 7));
+        assertFalse(library.returnItem("MAG-001", other));
+    }
+
+    @Test
+    @DisplayName("A replayed request ID should return the recorded outcome")
+    void testIdempotentRequest() {
+        assertTrue(library.borrowItem("req-1", "978-0000000001", member));
+        assertTrue(library.borrowItem("req-1", "978-0000000001", member));
+
+        assertEquals(1, library.getCurrentlyBorrowedItems(member).size());
+    }
+
+    @Test
+    @DisplayName("A request ID reused for a different request should be rejected")
+    void testMismatchedReplay() {
+        assertTrue(library.borrowItem("req-1", "978-0000000001", member));
+
+        assertThrows(IllegalArgumentException.class, () -> library.borrowItem("req-1", "MAG-001", member));
+        assertThrows(IllegalArgumentException.class, () -> library.returnItem("req-1", "978-0000000001", member));
+        // Checked by the store as well, not only by the Library's cache
+        assertThrows(IllegalArgumentException.class, () ->
+            new FileBorrowingDAO(store).borrowItem("req-1", "MAG-001", "M001", 7, 0.50));
+        assertTrue(library.findItemByIsbn("MAG-001").isAvailable());
+    }
+
+    @Test
+    @DisplayName("A returned item should be kept for the member holding it")
+    void testHoldKeepsItem() throws Exception {
+        Member holder = new Member("M002", "Charles Babbage");
+        Member other = new Member("M003", "Mary Somerville");
+        assertTrue(library.addMember(holder));
+        assertTrue(library.addMember(other));
+        assertTrue(library.borrowItem("978-0000000001", member, 7));
+
+        CompletableFuture<String> ready = library.placeHold("978-0000000001", holder);
+        assertThrows(IllegalStateException.class, () -> library.placeHold("978-0000000001", member));
+        assertTrue(library.returnItem("978-0000000001", member));
+
+        assertEquals("978-0000000001", ready.get(1, TimeUnit.SECONDS));
+        assertTrue(library.findItemByIsbn("978-0000000001").isReserved());
+        assertFalse(library.borrowItem("978-0000000001", other, 7));
+        assertTrue(library.borrowItem("978-0000000001", holder, 7));
+        assertNull(store.get(FileRecords.HOLDS + "978-0000000001"));
+    }
+
+    @Test
+    @DisplayName("Cancelling a ready hold should pass the item to the next member")
+    void testCancelReadyHold() throws IOException {
+        Member holder = new Member("M002", "Charles Babbage");
+        Member next = new Member("M003", "Mary Somerville");
+        assertTrue(library.addMember(holder));
+        assertTrue(library.addMember(next));
+        assertTrue(library.borrowItem("MAG-001", member, 7));
+        library.placeHold("MAG-001", holder);
+        library.placeHold("MAG-001", next);
+        assertTrue(library.returnItem("MAG-001", member));
+
+        library.cancelHold("MAG-001", holder);
+        store.close();
+
+        openLibrary();
+        assertFalse(library.borrowItem("MAG-001", holder, 7));
+        assertTrue(library.borrowItem("MAG-001", next, 7));
+    }
+
+    @Test
+    @DisplayName("State should be rebuilt from the data file after a restart")
+    void testRestart() throws IOException {
+        assertTrue(library.borrowItem("978-0000000001", member, 7));
+        store.close();
+
+        openLibrary();
+
+        LibraryItem item = library.findItemByIsbn("978-0000000001");
+        assertEquals("M001", item.getCurrentBorrower());
+        assertEquals(2, library.listAllItems().size());
+        assertEquals("Engine Monthly", library.listAllItems().get(0).getTitle());
+        assertEquals(1, library.searchAvailableItems("engine").size());
+        assertTrue(library.returnItem("978-0000000001", library.findMemberById("M001")));
+    }
+
+    private void openLibrary() throws IOException {
+        store = new LogStore(dir.resolve("library.log"), false);
+        library = new Library(new FileLibraryItemDAO(store), new FileMemberDAO(store), new FileBorrowingDAO(store),
+                              new FileHoldDAO(store, HoldDAO.DEFAULT_PICKUP_DAYS), PricingEngine.listPrices());
+    }
+}
@@ -0,0 +1,90 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.Book;
+import com.oaktown.library.model.Member;
+import com.oaktown.library.util.DatabaseConnection;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for loan operations through the group-commit queue against an in-memory H2 database.
+ */
+@DisplayName("Group Commit Tests")
+class GroupCommitTest {
+
+    private DatabaseConnection db;
+    private BorrowingDAO borrowingDAO;
+
+    @BeforeEach
+    void setUp() {
+        System.setProperty("borrowing.group.commit.enabled", "true");
+        System.setProperty("shard.GROUP.url",
+            "jdbc:h2:mem:group_" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        db = DatabaseConnection.getInstance().forShard("GROUP");
+        borrowingDAO = new BorrowingDAO(db);
+        MemberDAO members = new MemberDAO(db);
+        assertTrue(members.createMember(new Member("G1", "Member G1")));
+        assertTrue(members.createMember(new Member("G2", "Member G2")));
+        LibraryItemDAO items = new LibraryItemDAO(db);
+        assertTrue(items.createLibraryItem(new Book("GROUP-1", "Walden", "Thoreau", 1854, 352, "Nature")));
+        assertTrue(items.createLibraryItem(new Book("GROUP-2", "Leaves of Grass", "Whitman", 1855, 95, "Poetry")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        borrowingDAO.shutdown();
+        System.clearProperty("borrowing.group.commit.enabled");
+        System.clearProperty("shard.GROUP.url");
+    }
+
+    @Test
+    @DisplayName("Guarded requests should be committed through the queue and replayed from their record")
+    void testGuardedRequests() {
+        assertTrue(borrowingDAO.borrowItem("req-1", "GROUP-1", "G1", 14, 0.50));
+        assertTrue(borrowingDAO.borrowItem("req-1", "GROUP-1", "G1", 14, 0.50));
+        assertEquals(1, borrowingDAO.getCurrentlyBorrowedItems("G1").size());
+
+        // Refused: already on loan. Only the refusal is recorded.
+        assertFalse(borrowingDAO.borrowItem("req-2", "GROUP-1", "G2", 14, 0.50));
+        assertFalse(borrowingDAO.findProcessedRequest("req-2").get().isSuccess());
+        assertTrue(borrowingDAO.getCurrentlyBorrowedItems("G2").isEmpty());
+
+        assertTrue(borrowingDAO.returnItem("req-3", "GROUP-1", "G1"));
+        assertFalse(borrowingDAO.borrowItem("req-2", "GROUP-1", "G2", 14, 0.50));
+        assertTrue(borrowingDAO.findProcessedRequest("req-3").get().isSuccess());
+    }
+
+    @Test
+    @DisplayName("A request ID reused for a different item or member should be rejected")
+    void testMismatchedReplay() {
+        assertTrue(borrowingDAO.borrowItem("req-1", "GROUP-1", "G1", 14, 0.50));
+
+        assertThrows(IllegalArgumentException.class, () -> borrowingDAO.borrowItem("req-1", "GROUP-2", "G1", 14, 0.50));
+        assertThrows(IllegalArgumentException.class, () -> borrowingDAO.borrowItem("req-1", "GROUP-1", "G2", 14, 0.50));
+        assertThrows(IllegalArgumentException.class, () -> borrowingDAO.returnItem("req-1", "GROUP-1", "G1"));
+        assertTrue(borrowingDAO.getCurrentlyBorrowedItems("G2").isEmpty());
+        assertEquals(1, borrowingDAO.getCurrentlyBorrowedItems("G1").size());
+    }
+
+    @Test
+    @DisplayName("DAOs on the same database should share one committer thread")
+    void testSharedQueue() {
+        long before = committerThreads();
+        BorrowingDAO other = new BorrowingDAO(db);
+
+        assertTrue(borrowingDAO.borrowItem("GROUP-1", "G1", 14, 0.50));
+        assertTrue(other.borrowItem("GROUP-2", "G2", 14, 0.50));
+        assertEquals(before + 1, committerThreads());
+    }
+
+    private static long committerThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+            .filter(thread -> thread.getName().equals("loanGroupCommit") && thread.isAlive())
+            .count();
+    }
+}
@@ -0,0 +1,151 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.AvailabilityEvent;
+import com.oaktown.library.model.Book;
+import com.oaktown.library.model.LibraryItem;
+import com.oaktown.library.model.Member;
+import com.oaktown.library.util.AvailabilityFeed;
+import com.oaktown.library.util.DatabaseConnection;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for lapsed ready holds against an in-memory H2 database.
+ * H1's hold was ready until yesterday, H2 is next in the queue and H3 has no hold.
+ */
+@DisplayName("Hold Expiry Tests")
+class HoldExpiryTest {
+
+    private static final String ISBN = "HOLD-1";
+
+    private DatabaseConnection db;
+    private BorrowingDAO borrowingDAO;
+    private HoldDAO holdDAO;
+
+    @BeforeEach
+    void setUp() {
+        System.setProperty("shard.HOLDS.url",
+            "jdbc:h2:mem:holds_" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        db = DatabaseConnection.getInstance().forShard("HOLDS");
+        borrowingDAO = new BorrowingDAO(db);
+        holdDAO = new HoldDAO(db);
+        MemberDAO members = new MemberDAO(db);
+        for (String memberId : new String[] {"H1", "H2", "H3"}) {
+            assertTrue(members.createMember(new Member(memberId, "Member " + memberId)));
+        }
+        assertTrue(new LibraryItemDAO(db).createLibraryItem(new Book(ISBN, "Moby Dick", "Melville", 1851, 635, "Fiction")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        borrowingDAO.shutdown();
+        System.clearProperty("shard.HOLDS.url");
+    }
+
+    @Test
+    @DisplayName("A lapsed hold should pass the item to the next waiting member only")
+    void testLapsedHoldPromotesNext() throws SQLException {
+        int lapsed = insertHold("H1", "READY", LocalDate.now().minusDays(1));
+        int waiting = insertHold("H2", "WAITING", null);
+
+        assertFalse(borrowingDAO.borrowItem(ISBN, "H3", 14, 0.50));
+        assertEquals("EXPIRED", holdStatus(lapsed));
+        assertEquals("READY", holdStatus(waiting));
+        assertEquals("H2", holdDAO.findReadyHolder(ISBN));
+
+        assertFalse(borrowingDAO.borrowItem(ISBN, "H1", 14, 0.50));
+        assertTrue(borrowingDAO.borrowItem(ISBN, "H2", 14, 0.50));
+        assertEquals("FULFILLED", holdStatus(waiting));
+    }
+
+    @Test
+    @DisplayName("The next waiting member should be able to borrow straight after the lapse")
+    void testNextMemberBorrowsAfterLapse() throws SQLException {
+        int lapsed = insertHold("H1", "READY", LocalDate.now().minusDays(1));
+        int waiting = insertHold("H2", "WAITING", null);
+
+        assertTrue(borrowingDAO.borrowItem("req-hold", ISBN, "H2", 14, 0.50));
+        assertEquals("EXPIRED", holdStatus(lapsed));
+        assertEquals("FULFILLED", holdStatus(waiting));
+    }
+
+    @Test
+    @DisplayName("A lapsed hold with nobody waiting should free the item for anyone")
+    void testLapsedHoldWithEmptyQueue() throws SQLException {
+        int lapsed = insertHold("H1", "READY", LocalDate.now().minusDays(1));
+
+        assertTrue(borrowingDAO.borrowItem(ISBN, "H3", 14, 0.50));
+        assertEquals("EXPIRED", holdStatus(lapsed));
+    }
+
+    @Test
+    @DisplayName("A return that makes a hold ready should keep the item reserved until it is cancelled")
+    void testReturnReservesItem() {
+        LibraryItemDAO items = new LibraryItemDAO(db);
+        AvailabilityFeed.Subscription changes =
+            AvailabilityFeed.getInstance().subscribe(Collections.singleton(ISBN), null, 16, null);
+        try {
+            assertTrue(borrowingDAO.borrowItem(ISBN, "H1", 14, 0.50));
+            assertEquals(HoldRepository.PlaceResult.PLACED, holdDAO.placeHold(ISBN, "H2"));
+            assertTrue(borrowingDAO.returnItem(ISBN, "H1"));
+
+            LibraryItem item = items.findByIsbn(ISBN);
+            assertFalse(item.isAvailable());
+            assertTrue(item.isReserved());
+            assertTrue(items.findAvailableByTitleKeyword("Moby").isEmpty());
+            assertEquals(HoldRepository.PlaceResult.PLACED, holdDAO.placeHold(ISBN, "H3"));
+            assertFalse(borrowingDAO.borrowItem(ISBN, "H3", 14, 0.50));
+
+            holdDAO.cancelHold(ISBN, "H3");
+            holdDAO.cancelHold(ISBN, "H2");
+            assertTrue(items.findByIsbn(ISBN).isAvailable());
+
+            List<AvailabilityEvent> events = changes.drain();
+            assertEquals(3, events.size());
+            assertFalse(events.get(0).isAvailable());
+            assertFalse(events.get(1).isAvailable());
+            assertTrue(events.get(2).isAvailable());
+        } finally {
+            changes.close();
+        }
+    }
+
+    private int insertHold(String memberId, String status, LocalDate readyUntil) throws SQLException {
+        String sql = "INSERT INTO holds (isbn, member_id, status, ready_until) VALUES (?, ?, ?, ?)";
+        try (Connection conn = db.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, new String[] {"id"})) {
+            stmt.setString(1, ISBN);
+            stmt.setString(2, memberId);
+            stmt.setString(3, status);
+            stmt.setDate(4, readyUntil != null ? Date.valueOf(readyUntil) : null);
+            stmt.executeUpdate();
+            ResultSet keys = stmt.getGeneratedKeys();
+            assertTrue(keys.next());
+            return keys.getInt(1);
+        }
+    }
+
+    private String holdStatus(int holdId) throws SQLException {
+        try (Connection conn = db.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT status FROM holds WHERE id = ?")) {
+            stmt.setInt(1, holdId);
+            ResultSet rs = stmt.executeQuery();
+            assertTrue(rs.next());
+            return rs.getString(1);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.Book;
+import com.oaktown.library.model.LibraryItem;
+import com.oaktown.library.model.Member;
+import com.oaktown.library.util.DatabaseConnection;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+/**
+ * JUnit tests for coalesced lookups against an in-memory H2 database.
+ * The first query is held back until a second lookup has joined it.
+ */
+@DisplayName("Lookup Coalescing Tests")
+class LookupCoalescingTest {
+
+    private static final String ISBN = "COALESCE-1";
+
+    private final CountDownLatch joined = new CountDownLatch(1);
+    private final AtomicBoolean firstQuery = new AtomicBoolean(true);
+    private ExecutorService executor;
+    private LibraryItemDAO dao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        System.setProperty("shard.COALESCE.url",
+            "jdbc:h2:mem:coalesce_" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        DatabaseConnection db = spy(DatabaseConnection.getInstance().forShard("COALESCE"));
+        dao = new LibraryItemDAO(db);
+        assertTrue(dao.createLibraryItem(new Book(ISBN, "Moby Dick", "Melville", 1851, 635, "Fiction")));
+        MemberDAO members = new MemberDAO(db);
+        assertTrue(members.createMember(new Member("M1", "Alice")));
+        assertTrue(members.createMember(new Member("M2", "Bob")));
+
+        doAnswer(invocation -> {
+            if (firstQuery.compareAndSet(true, false)) {
+                assertTrue(joined.await(10, TimeUnit.SECONDS));
+            }
+            return invocation.callRealMethod();
+        }).when(db).getConnection();
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        System.clearProperty("shard.COALESCE.url");
+    }
+
+    @Test
+    @DisplayName("A caller updating its coalesced item should not change the item another caller got")
+    void testUpdateDoesNotLeakToOtherWaiter() throws Exception {
+        long coalescedBefore = LibraryItemDAO.getCoalescedLookups().getOrDefault(ISBN, 0L);
+        Future<LibraryItem> first = executor.submit(() -> dao.findByIsbn(ISBN));
+        Future<LibraryItem> second = executor.submit(() -> dao.findByIsbn(ISBN));
+        while (LibraryItemDAO.getCoalescedLookups().getOrDefault(ISBN, 0L) == coalescedBefore) {
+            Thread.sleep(5);
+        }
+        joined.countDown();
+
+        LibraryItem borrower = first.get(10, TimeUnit.SECONDS);
+        LibraryItem bystander = second.get(10, TimeUnit.SECONDS);
+        assertNotSame(borrower, bystander);
+
+        assertTrue(dao.updateAvailability(borrower, false, "M1"));
+        assertEquals(1, borrower.getVersion());
+        assertEquals(0, bystander.getVersion());
+        assertTrue(bystander.isAvailable());
+        assertNull(bystander.getCurrentBorrower());
+
+        // The stale copy must still fail the optimistic version check
+        assertThrows(OptimisticLockException.class, () -> dao.updateAvailability(bystander, false, "M2"));
+    }
+}
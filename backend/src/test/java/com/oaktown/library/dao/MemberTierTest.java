@@ -0,0 +1,70 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.Book;
+import com.oaktown.library.model.Member;
+import com.oaktown.library.model.MemberTier;
+import com.oaktown.library.util.DatabaseConnection;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for member tiers loaded from an in-memory H2 database.
+ * The tier has to count returned loans, including archived ones.
+ */
+@DisplayName("Member Tier Tests")
+class MemberTierTest {
+
+    private static final String ISBN = "TIER-1";
+
+    private MemberDAO memberDAO;
+    private BorrowingDAO borrowingDAO;
+
+    @BeforeEach
+    void setUp() {
+        System.setProperty("shard.TIER.url",
+            "jdbc:h2:mem:tier_" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        DatabaseConnection db = DatabaseConnection.getInstance().forShard("TIER");
+        memberDAO = new MemberDAO(db);
+        borrowingDAO = new BorrowingDAO(db);
+        assertTrue(memberDAO.createMember(new Member("T1", "Alice")));
+        assertTrue(new LibraryItemDAO(db).createLibraryItem(new Book(ISBN, "Moby Dick", "Melville", 1851, 635, "Fiction")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        borrowingDAO.shutdown();
+        System.clearProperty("shard.TIER.url");
+    }
+
+    @Test
+    @DisplayName("A member loaded from the database should keep the tier earned by past loans")
+    void testTierFromLoanHistory() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(borrowingDAO.borrowItem(ISBN, "T1", 14, 0.50));
+            assertTrue(borrowingDAO.returnItem(ISBN, "T1"));
+        }
+        // Half of the returned loans move to loan_history
+        assertEquals(5, borrowingDAO.archiveReturnedLoans(5, 0));
+        assertTrue(borrowingDAO.borrowItem(ISBN, "T1", 14, 0.50));
+
+        Member member = memberDAO.findById("T1");
+        assertEquals(10, member.getReturnedLoanCount());
+        assertEquals(11, member.getTotalBorrowedCount());
+        assertEquals(MemberTier.SILVER, member.getTier());
+    }
+
+    @Test
+    @DisplayName("A member without returned loans should be Bronze")
+    void testNewMemberIsBronze() {
+        assertTrue(borrowingDAO.borrowItem(ISBN, "T1", 14, 0.50));
+
+        Member member = memberDAO.findById("T1");
+        assertEquals(0, member.getReturnedLoanCount());
+        assertEquals(MemberTier.BRONZE, member.getTier());
+    }
+}
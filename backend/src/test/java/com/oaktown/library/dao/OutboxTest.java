@@ -0,0 +1,129 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.Book;
+import com.oaktown.library.model.Member;
+import com.oaktown.library.model.OutboxEvent;
+import com.oaktown.library.util.DatabaseConnection;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for outbox writes and tombstones against an in-memory H2 database.
+ */
+@DisplayName("Outbox Tests")
+class OutboxTest {
+
+    private DatabaseConnection db;
+    private OutboxDAO outboxDAO;
+    private BorrowingDAO borrowingDAO;
+
+    @BeforeEach
+    void setUp() {
+        System.setProperty("shard.OUTBOX.url",
+            "jdbc:h2:mem:outbox_" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        db = DatabaseConnection.getInstance().forShard("OUTBOX");
+        outboxDAO = new OutboxDAO(db);
+        assertTrue(new MemberDAO(db).createMember(new Member("O1", "Alice")));
+        assertTrue(new LibraryItemDAO(db).createLibraryItem(new Book("OUTBOX-1", "Moby Dick", "Melville", 1851, 635, "Fiction")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (borrowingDAO != null) {
+            borrowingDAO.shutdown();
+        }
+        System.clearProperty("outbox.enabled");
+        System.clearProperty("shard.OUTBOX.url");
+    }
+
+    @Test
+    @DisplayName("Loans should not write outbox events while the outbox is disabled")
+    void testDisabledWritesNothing() {
+        borrowingDAO = new BorrowingDAO(db);
+        assertTrue(borrowingDAO.borrowItem("OUTBOX-1", "O1", 14, 0.50));
+        assertTrue(borrowingDAO.returnItem("OUTBOX-1", "O1"));
+
+        assertTrue(outboxDAO.findEventsAfter(0, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Loans should write one outbox event each while the outbox is enabled")
+    void testEnabledWritesEvents() {
+        System.setProperty("outbox.enabled", "true");
+        borrowingDAO = new BorrowingDAO(db);
+        assertTrue(borrowingDAO.borrowItem("OUTBOX-1", "O1", 14, 0.50));
+        assertTrue(borrowingDAO.returnItem("OUTBOX-1", "O1"));
+
+        List<OutboxEvent> events = outboxDAO.findEventsAfter(0, 10);
+        assertEquals(2, events.size());
+        assertEquals(OutboxEvent.Type.LOAN_BORROWED, events.get(0).getType());
+        assertEquals(OutboxEvent.Type.LOAN_RETURNED, events.get(1).getType());
+    }
+
+    @Test
+    @DisplayName("A tombstone should wait for the pending event and fail once it commits")
+    void testTombstoneLosesToLateCommit() throws Exception {
+        try (Connection conn = db.getConnection()) {
+            conn.setAutoCommit(false);
+            long id = insertPendingEvent(conn);
+            Thread committer = finishLater(conn, true);
+
+            assertFalse(outboxDAO.insertTombstone(id));
+            committer.join();
+            assertEquals(OutboxEvent.Type.LOAN_BORROWED, outboxDAO.findEventsAfter(id - 1, 1).get(0).getType());
+        }
+    }
+
+    @Test
+    @DisplayName("A tombstone should fill the id of a rolled back event")
+    void testTombstoneFillsRollback() throws Exception {
+        try (Connection conn = db.getConnection()) {
+            conn.setAutoCommit(false);
+            long id = insertPendingEvent(conn);
+            Thread rollback = finishLater(conn, false);
+
+            assertTrue(outboxDAO.insertTombstone(id));
+            rollback.join();
+            assertEquals(OutboxEvent.Type.TOMBSTONE, outboxDAO.findEventsAfter(id - 1, 1).get(0).getType());
+        }
+    }
+
+    private static long insertPendingEvent(Connection conn) throws SQLException {
+        String sql = "INSERT INTO outbox_events (event_type, loan_id, isbn, member_id, payload) " +
+                    "VALUES ('LOAN_BORROWED', 1, 'OUTBOX-1', 'O1', '{}')";
+        try (PreparedStatement stmt = conn.prepareStatement(sql, new String[] {"id"})) {
+            stmt.executeUpdate();
+            ResultSet keys = stmt.getGeneratedKeys();
+            assertTrue(keys.next());
+            return keys.getLong(1);
+        }
+    }
+
+    private static Thread finishLater(Connection conn, boolean commit) {
+        Thread thread = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+                if (commit) {
+                    conn.commit();
+                } else {
+                    conn.rollback();
+                }
+            } catch (InterruptedException | SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.start();
+        return thread;
+    }
+}
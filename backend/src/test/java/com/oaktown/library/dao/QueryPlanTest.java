@@ -0,0 +1,80 @@
+package com.oaktown.library.dao;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests that EXPLAIN the borrowing hot queries against the H2 copy of
+ * the schema and fail if any of them falls back to a full table scan.
+ */
+@DisplayName("Query Plan Tests")
+class QueryPlanTest {
+
+    private static Connection conn;
+
+    @BeforeAll
+    static void createSchema() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:queryplan;MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("RUNSCRIPT FROM 'classpath:/h2/schema.sql'");
+        }
+    }
+
+    @AfterAll
+    static void closeConnection() throws SQLException {
+        conn.close();
+    }
+
+    static Stream<Arguments> hotQueries() {
+        return Stream.of(
+            Arguments.of("find open loan", BorrowingDAO.FIND_OPEN_LOAN_SQL, "idx_isbn_status"),
+            Arguments.of("current loans", BorrowingDAO.CURRENT_LOANS_SQL, "idx_member_status"),
+            Arguments.of("borrowing history", BorrowingDAO.BORROWING_HISTORY_SQL, "idx_history_member"),
+            Arguments.of("overdue loans", BorrowingDAO.OVERDUE_LOANS_SQL, "idx_status_due"),
+            Arguments.of("member current items", MemberDAO.CURRENT_ITEMS_SQL, "idx_member_status"),
+            Arguments.of("member previous items", MemberDAO.PREVIOUS_ITEMS_SQL, "idx_history_member"),
+            Arguments.of("member returned loans", MemberDAO.RETURNED_LOANS_SQL, "idx_member_status"),
+            Arguments.of("single-table item lookup", LibraryItemDAO.SINGLE_TABLE_SELECT + "WHERE li.isbn = ?", "primary_key"),
+            Arguments.of("loans to accrue", FeeLedgerDAO.LOANS_TO_ACCRUE_SQL, "primary_key"),
+            Arguments.of("outstanding fees", FeeLedgerDAO.OUTSTANDING_SQL, "idx_fee_member"),
+            Arguments.of("next waiting hold", HoldDAO.NEXT_WAITING_SQL, "idx_hold_queue"),
+            Arguments.of("ready hold", HoldDAO.READY_HOLD_SQL, "idx_hold_queue"),
+            Arguments.of("outbox events after cursor", OutboxDAO.EVENTS_AFTER_SQL, "primary_key")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    @DisplayName("Hot queries should use their index instead of a table scan")
+    void testNoFullScan(String name, String sql, String expectedIndex) throws SQLException {
+        String plan = explain(sql);
+
+        assertFalse(plan.contains("tablescan"), name + " scans a whole table:\n" + plan);
+        assertTrue(plan.contains(expectedIndex), name + " does not use " + expectedIndex + ":\n" + plan);
+    }
+
+    private static String explain(String sql) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 1; i <= stmt.getParameterMetaData().getParameterCount(); i++) {
+                stmt.setString(i, "X");
+            }
+            ResultSet rs = stmt.executeQuery();
+            rs.next();
+            return rs.getString(1).toLowerCase();
+        }
+    }
+}
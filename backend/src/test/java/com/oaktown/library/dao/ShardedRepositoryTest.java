@@ -0,0 +1,187 @@
+package com.oaktown.library.dao;
+
+import com.oaktown.library.model.Book;
+import com.oaktown.library.model.LibraryItem;
+import com.oaktown.library.model.Member;
+import com.oaktown.library.model.ProcessedRequest;
+import com.oaktown.library.util.BranchShards;
+import com.oaktown.library.util.DatabaseConnection;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for the branch-sharded repositories.
+ * Each branch is a separate in-memory H2 database.
+ */
+@DisplayName("Sharded Repository Tests")
+class ShardedRepositoryTest {
+
+    private static final AtomicInteger RUN = new AtomicInteger();
+
+    private BranchShards shards;
+    private ShardedLibraryItemRepository items;
+    private ShardedMemberRepository members;
+    private ShardedBorrowingRepository loans;
+
+    @BeforeEach
+    void setUp() {
+        int run = RUN.incrementAndGet();
+        Map<String, DatabaseConnection> connections = new LinkedHashMap<>();
+        for (String branch : Arrays.asList("EAST", "WEST")) {
+            System.setProperty("shard." + branch + ".url", "jdbc:h2:mem:shard_" + branch.toLowerCase() + "_" + run +
+                ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+            connections.put(branch, DatabaseConnection.getInstance().forShard(branch));
+        }
+        shards = new BranchShards(connections, "EAST", 2);
+        items = new ShardedLibraryItemRepository(shards);
+        members = new ShardedMemberRepository(shards);
+        loans = new ShardedBorrowingRepository(shards);
+
+        assertTrue(members.createMember(new Member("EAST:M1", "Alice East", null, null, null)));
+        assertTrue(members.createMember(new Member("WEST:M2", "Bob West", null, null, null)));
+        assertTrue(items.createLibraryItem(book("EAST:B1", "Moby Dick")));
+        assertTrue(items.createLibraryItem(book("WEST:B2", "Anna Karenina")));
+        assertTrue(items.createLibraryItem(book("WEST:B3", "Dune")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        loans.shutdown();
+        System.clearProperty("shard.EAST.url");
+        System.clearProperty("shard.WEST.url");
+    }
+
+    @Test
+    @DisplayName("Records should be stored only on the shard of their branch")
+    void testRouting() throws SQLException {
+        assertEquals(1, count("EAST", "members"));
+        assertEquals(1, count("WEST", "members"));
+        assertEquals(1, count("EAST", "library_items"));
+        assertEquals(2, count("WEST", "library_items"));
+
+        assertEquals("Bob West", members.findById("WEST:M2").getName());
+        assertEquals("Dune", items.findByIsbn("WEST:B3").getTitle());
+        assertNull(items.findByIsbn("EAST:B3"));
+    }
+
+    @Test
+    @DisplayName("IDs without a branch should use the default shard; unknown branches are refused")
+    void testDefaultAndUnknownBranch() throws SQLException {
+        assertTrue(members.createMember(new Member("M3", "Carol", null, null, null)));
+        assertEquals(2, count("EAST", "members"));
+        assertTrue(members.memberExists("M3"));
+
+        assertFalse(members.createMember(new Member("NORTH:M4", "Dan", null, null, null)));
+        assertNull(members.findById("NORTH:M4"));
+        assertNull(shards.branchOf("NORTH:M4"));
+    }
+
+    @Test
+    @DisplayName("Catalog and member listings should be gathered from every shard")
+    void testScatterGather() {
+        assertEquals(Arrays.asList("Anna Karenina", "Dune", "Moby Dick"),
+            items.findAll().stream().map(LibraryItem::getTitle).collect(Collectors.toList()));
+        assertEquals(Arrays.asList("Anna Karenina", "Moby Dick"),
+            items.findAvailableByTitleKeyword("i").stream().map(LibraryItem::getTitle).collect(Collectors.toList()));
+        assertEquals(Arrays.asList("Alice East", "Bob West"),
+            members.findAll().stream().map(Member::getName).collect(Collectors.toList()));
+        assertEquals(1, members.findByName("West").size());
+        assertEquals(3, items.findItemTypes(Arrays.asList("EAST:B1", "WEST:B2", "WEST:B3", "NORTH:B4")).size());
+    }
+
+    @Test
+    @DisplayName("Loans should stay within a branch")
+    void testLoansWithinBranch() throws SQLException {
+        assertTrue(loans.borrowItem("EAST:B1", "EAST:M1", 14, 0.5));
+        assertFalse(loans.borrowItem("WEST:B2", "EAST:M1", 14, 0.5));
+
+        assertEquals(1, count("EAST", "borrowed_items"));
+        assertEquals(0, count("WEST", "borrowed_items"));
+        assertEquals(1, loans.getCurrentlyBorrowedItems("EAST:M1").size());
+        assertEquals(Arrays.asList("EAST:B1"), members.getCurrentlyBorrowedItems("EAST:M1"));
+        assertFalse(items.findByIsbn("EAST:B1").isAvailable());
+
+        assertFalse(loans.returnItem("EAST:B1", "WEST:M2"));
+        assertTrue(loans.returnItem("EAST:B1", "EAST:M1"));
+        assertEquals(1, loans.getBorrowingHistory("EAST:M1").size());
+    }
+
+    @Test
+    @DisplayName("Overdue loans should be merged across shards by due date")
+    void testOverdueAcrossShards() {
+        assertTrue(loans.borrowItem("EAST:B1", "EAST:M1", -2, 0.5));
+        assertTrue(loans.borrowItem("WEST:B2", "WEST:M2", -5, 0.5));
+        assertTrue(loans.borrowItem("WEST:B3", "WEST:M2", 7, 0.5));
+
+        List<Map<String, Object>> overdue = loans.getOverdueItems();
+        assertEquals(Arrays.asList("WEST:B2", "EAST:B1"),
+            overdue.stream().map(item -> item.get("isbn")).collect(Collectors.toList()));
+        assertEquals(LocalDate.now().minusDays(5), overdue.get(0).get("dueDate"));
+    }
+
+    @Test
+    @DisplayName("Processed requests should be found on whichever shard recorded them")
+    void testProcessedRequests() {
+        assertTrue(loans.borrowItem("req-1", "WEST:B2", "WEST:M2", 14, 0.5));
+        ProcessedRequest recorded = loans.findProcessedRequest("req-1").orElse(null);
+        assertNotNull(recorded);
+        assertTrue(recorded.matches(ProcessedRequest.Operation.BORROW, "WEST:B2", "WEST:M2"));
+        assertTrue(recorded.isSuccess());
+        assertFalse(loans.findProcessedRequest("req-2").isPresent());
+
+        // Replayed on the same branch: the recorded outcome, no second loan
+        assertTrue(loans.borrowItem("req-1", "WEST:B2", "WEST:M2", 14, 0.5));
+        // Reused for another loan on the same branch: rejected
+        assertThrows(IllegalArgumentException.class, () -> loans.borrowItem("req-1", "WEST:B3", "WEST:M2", 14, 0.5));
+        assertEquals(0, loans.purgeProcessedRequests(1));
+    }
+
+    @Test
+    @DisplayName("Holds should be kept on the shard of their item and promoted by its loans")
+    void testHoldsWithinBranch() throws SQLException {
+        ShardedHoldRepository holds = new ShardedHoldRepository(shards);
+        assertTrue(members.createMember(new Member("WEST:M3", "Carol West", null, null, null)));
+        assertTrue(loans.borrowItem("WEST:B2", "WEST:M2", 14, 0.5));
+
+        assertEquals(HoldRepository.PlaceResult.PLACED, holds.placeHold("WEST:B2", "WEST:M3"));
+        assertEquals(HoldRepository.PlaceResult.FAILED, holds.placeHold("WEST:B2", "EAST:M1"));
+        assertEquals(HoldRepository.PlaceResult.NOT_FOUND, holds.placeHold("NORTH:B4", "WEST:M3"));
+        assertEquals(1, count("WEST", "holds"));
+        assertEquals(0, count("EAST", "holds"));
+
+        assertTrue(loans.returnItem("WEST:B2", "WEST:M2"));
+        assertEquals("WEST:M3", holds.findReadyHolder("WEST:B2"));
+        assertFalse(loans.borrowItem("WEST:B2", "WEST:M2", 14, 0.5));
+        assertTrue(loans.borrowItem("WEST:B2", "WEST:M3", 14, 0.5));
+    }
+
+    private static Book book(String isbn, String title) {
+        return new Book(isbn, title, "Author", 2000, 100, "Fiction");
+    }
+
+    private int count(String branch, String table) throws SQLException {
+        try (Connection conn = shards.connection(branch).getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM " + table);
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -186,10 +186,26 @@ class MagazineTest {
     @Test
     @DisplayName("Frequency constants should be available")
     void testFrequencyConstants() {
-        assertEquals("Weekly", Magazine.Frequency.WEEKLY);
-        assertEquals("Monthly", Magazine.Frequency.MONTHLY);
-        assertEquals("Quarterly", Magazine.Frequency.QUARTERLY);
-        assertEquals("Annual", Magazine.Frequency.ANNUAL);
+        assertEquals("Weekly", Magazine.Frequency.WEEKLY.getLabel());
+        assertEquals("Monthly", Magazine.Frequency.MONTHLY.getLabel());
+        assertEquals("Quarterly", Magazine.Frequency.QUARTERLY.getLabel());
+        assertEquals("Annual", Magazine.Frequency.ANNUAL.getLabel());
+    }
+    
+    @Test
+    @DisplayName("Frequency should be parsed once from its label")
+    void testFrequencyType() {
+        Magazine weekly = new Magazine("W1", "Weekly", "Publisher", 2024, 1, 1, Magazine.Frequency.WEEKLY);
+        Magazine custom = new Magazine("C1", "Custom", "Publisher", 2024, 1, 1, "Custom");
+        
+        assertEquals("Weekly", weekly.getFrequency());
+        assertEquals(Magazine.Frequency.WEEKLY, weekly.getFrequencyType());
+        assertNull(custom.getFrequencyType());
+        assertEquals(Magazine.Frequency.QUARTERLY, Magazine.Frequency.fromLabel("QUARTERLY"));
+        
+        custom.setFrequency("monthly");
+        assertEquals(Magazine.Frequency.MONTHLY, custom.getFrequencyType());
+        assertEquals(ItemType.MAGAZINE, custom.getType());
     }
     
     @Test
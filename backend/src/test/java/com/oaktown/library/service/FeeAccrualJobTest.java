@@ -0,0 +1,81 @@
+package com.oaktown.library.service;
+
+import com.oaktown.library.dao.FeeLedgerDAO;
+import com.oaktown.library.model.FeeLedgerEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * JUnit tests for the FeeAccrualJob nightly job.
+ */
+@DisplayName("Fee Accrual Job Tests")
+class FeeAccrualJobTest {
+    
+    private static final LocalDate AS_OF = LocalDate.of(2026, 3, 20);
+    
+    private FeeLedgerDAO mockFeeLedgerDAO;
+    private FeeAccrualJob job;
+    
+    @BeforeEach
+    void setUp() {
+        mockFeeLedgerDAO = mock(FeeLedgerDAO.class);
+        job = new FeeAccrualJob(mockFeeLedgerDAO, 2, 0);
+        when(mockFeeLedgerDAO.saveEntries(any())).thenAnswer(inv -> inv.<List<?>>getArgument(0).size());
+    }
+    
+    @Test
+    @DisplayName("Accrual should page through loans by id until a partial page")
+    void testKeysetPaging() {
+        when(mockFeeLedgerDAO.findLoansToAccrue(0, AS_OF, 2))
+            .thenReturn(Arrays.asList(loan(3, "2026-03-10", "2026-03-24"), loan(7, "2026-03-01", "2026-03-15")));
+        when(mockFeeLedgerDAO.findLoansToAccrue(7, AS_OF, 2))
+            .thenReturn(Collections.singletonList(loan(9, "2026-03-20", "2026-04-03")));
+        
+        assertEquals(3, job.runOnce(AS_OF));
+        verify(mockFeeLedgerDAO, times(2)).findLoansToAccrue(anyInt(), any(), anyInt());
+        verify(mockFeeLedgerDAO, times(2)).saveEntries(any());
+    }
+    
+    @Test
+    @DisplayName("Accrued charges should match the return-time pricing rules")
+    void testAccruedCharges() {
+        FeeLedgerEntry current = loan(1, "2026-03-10", "2026-03-24");
+        FeeLedgerEntry overdue = loan(2, "2026-03-01", "2026-03-15");
+        FeeLedgerEntry sameDay = loan(3, "2026-03-20", "2026-04-03");
+        when(mockFeeLedgerDAO.findLoansToAccrue(0, AS_OF, 2)).thenReturn(Arrays.asList(current, overdue));
+        when(mockFeeLedgerDAO.findLoansToAccrue(2, AS_OF, 2)).thenReturn(Collections.singletonList(sameDay));
+        
+        job.runOnce(AS_OF);
+        
+        assertEquals(500, current.getAccruedCents());
+        assertEquals(0, current.getOverdueDays());
+        assertEquals(950, overdue.getAccruedCents());
+        assertEquals(5, overdue.getOverdueDays());
+        assertEquals(50, sameDay.getAccruedCents()); // minimum one day
+        assertEquals(AS_OF, sameDay.getAccruedThrough());
+    }
+    
+    @Test
+    @DisplayName("An empty first page should write nothing")
+    void testNothingToAccrue() {
+        when(mockFeeLedgerDAO.findLoansToAccrue(0, AS_OF, 2)).thenReturn(Collections.emptyList());
+        
+        assertEquals(0, job.runOnce(AS_OF));
+        verify(mockFeeLedgerDAO, never()).saveEntries(any());
+    }
+    
+    private static FeeLedgerEntry loan(int id, String borrowDate, String dueDate) {
+        return new FeeLedgerEntry(id, "M1", "ISBN-" + id,
+            LocalDate.parse(borrowDate), LocalDate.parse(dueDate), 50);
+    }
+}
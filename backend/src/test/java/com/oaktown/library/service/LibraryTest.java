@@ -1,8 +1,10 @@
 package com.oaktown.library.service;
 
 import com.oaktown.library.dao.BorrowingDAO;
+import com.oaktown.library.dao.HoldDAO;
 import com.oaktown.library.dao.LibraryItemDAO;
 import com.oaktown.library.dao.MemberDAO;
+import com.oaktown.library.dao.OptimisticLockException;
 import com.oaktown.library.model.*;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -14,6 +16,8 @@ import org.mockito.MockitoAnnotations;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -34,6 +38,9 @@ class LibraryTest {
     @Mock
     private BorrowingDAO mockBorrowingDAO;
     
+    @Mock
+    private HoldDAO mockHoldDAO;
+    
     private Library library;
     private Member testMember;
     private Book testBook;
@@ -43,7 +50,7 @@ class LibraryTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        library = new Library(mockItemDAO, mockMemberDAO, mockBorrowingDAO);
+        library = new Library(mockItemDAO, mockMemberDAO, mockBorrowingDAO, mockHoldDAO, PricingEngine.listPrices());
         
         // Create test objects
         testMember = new Member("M123", "John Doe", "john@email.com", "555-0123", "123 Main St");
@@ -105,6 +112,114 @@ class LibraryTest {
         verify(mockBorrowingDAO).borrowItem(isbn, testMember.getMemberId(), 14, 0.50);
     }
     
+    @Test
+    @DisplayName("Borrow item should reload and retry after an optimistic lock conflict")
+    void testBorrowItemRetriesOnConflict() {
+        String isbn = testBook.getIsbn();
+        
+        when(mockMemberDAO.findById(testMember.getMemberId())).thenReturn(testMember);
+        when(mockItemDAO.findByIsbn(isbn)).thenReturn(testBook);
+        when(mockBorrowingDAO.borrowItem(isbn, testMember.getMemberId(), 14, 0.50))
+            .thenThrow(new OptimisticLockException(isbn, 0))
+            .thenReturn(true);
+        
+        boolean result = library.borrowItem(isbn, testMember);
+        
+        assertTrue(result);
+        verify(mockItemDAO, times(2)).findByIsbn(isbn);
+        verify(mockBorrowingDAO, times(2)).borrowItem(isbn, testMember.getMemberId(), 14, 0.50);
+    }
+    
+    @Test
+    @DisplayName("Borrow item should give up after bounded optimistic lock retries")
+    void testBorrowItemGivesUpAfterConflicts() {
+        String isbn = testBook.getIsbn();
+        
+        when(mockMemberDAO.findById(testMember.getMemberId())).thenReturn(testMember);
+        when(mockItemDAO.findByIsbn(isbn)).thenReturn(testBook);
+        when(mockBorrowingDAO.borrowItem(isbn, testMember.getMemberId(), 14, 0.50))
+            .thenThrow(new OptimisticLockException(isbn, 0));
+        
+        assertFalse(library.borrowItem(isbn, testMember));
+        verify(mockBorrowingDAO, times(4)).borrowItem(isbn, testMember.getMemberId(), 14, 0.50);
+        assertFalse(testMember.hasBorrowedItem(isbn));
+    }
+    
+    @Test
+    @DisplayName("Replayed borrow request should return the original outcome without borrowing again")
+    void testBorrowItemReplayedRequest() {
+        String isbn = testBook.getIsbn();
+        
+        when(mockMemberDAO.findById(testMember.getMemberId())).thenReturn(testMember);
+        when(mockItemDAO.findByIsbn(isbn)).thenReturn(testBook);
+        when(mockBorrowingDAO.borrowItem("req-1", isbn, testMember.getMemberId(), 14, 0.50)).thenReturn(true);
+        doReturn(Optional.empty(), Optional.of(processed("req-1", ProcessedRequest.Operation.BORROW, isbn, true)))
+            .when(mockBorrowingDAO).findProcessedRequest("req-1");
+        
+        assertTrue(library.borrowItem("req-1", isbn, testMember));
+        assertTrue(library.borrowItem("req-1", isbn, testMember));
+        assertTrue(library.borrowItem("req-1", isbn, testMember));
+        
+        verify(mockBorrowingDAO, times(1)).borrowItem("req-1", isbn, testMember.getMemberId(), 14, 0.50);
+        verify(mockBorrowingDAO, times(2)).findProcessedRequest("req-1");
+        verify(mockBorrowingDAO, never()).borrowItem(isbn, testMember.getMemberId(), 14, 0.50);
+    }
+    
+    @Test
+    @DisplayName("Failed borrow that recorded nothing should be retried under the same request ID")
+    void testBorrowItemUnrecordedFailureRetried() {
+        String isbn = testBook.getIsbn();
+        
+        when(mockMemberDAO.findById(testMember.getMemberId())).thenReturn(testMember);
+        when(mockItemDAO.findByIsbn(isbn)).thenReturn(testBook);
+        when(mockBorrowingDAO.findProcessedRequest("req-3")).thenReturn(Optional.empty());
+        when(mockBorrowingDAO.borrowItem("req-3", isbn, testMember.getMemberId(), 14, 0.50))
+            .thenReturn(false, true);
+        
+        assertFalse(library.borrowItem("req-3", isbn, testMember));
+        assertTrue(library.borrowItem("req-3", isbn, testMember));
+        
+        verify(mockBorrowingDAO, times(2)).borrowItem("req-3", isbn, testMember.getMemberId(), 14, 0.50);
+    }
+    
+    @Test
+    @DisplayName("Request outcome recorded in the database should be replayed after a restart")
+    void testReturnItemReplayedFromDatabase() {
+        when(mockBorrowingDAO.findProcessedRequest("req-2"))
+            .thenReturn(Optional.of(processed("req-2", ProcessedRequest.Operation.RETURN, testBook.getIsbn(), true)));
+        
+        assertTrue(library.returnItem("req-2", testBook.getIsbn(), testMember));
+        
+        verify(mockBorrowingDAO, never()).returnItem(anyString(), anyString(), anyString());
+        verify(mockItemDAO, never()).findByIsbn(anyString());
+    }
+    
+    @Test
+    @DisplayName("Request ID reused for a different operation, item or member should be rejected")
+    void testMismatchedReplayRejected() {
+        String isbn = testBook.getIsbn();
+        when(mockBorrowingDAO.findProcessedRequest("req-4"))
+            .thenReturn(Optional.of(processed("req-4", ProcessedRequest.Operation.BORROW, isbn, true)));
+        
+        assertThrows(IllegalArgumentException.class, () -> library.borrowItem("req-4", "978-0000000000", testMember));
+        assertThrows(IllegalArgumentException.class, () ->
+            library.borrowItem("req-4", isbn, new Member("M999", "Someone Else")));
+        assertThrows(IllegalArgumentException.class, () -> library.returnItem("req-4", isbn, testMember));
+        assertTrue(library.borrowItem("req-4", isbn, testMember));
+        
+        verify(mockBorrowingDAO, never()).borrowItem(anyString(), anyString(), anyString(), anyInt(), anyDouble());
+        verify(mockBorrowingDAO, never()).returnItem(anyString(), anyString(), anyString());
+    }
+    
+    @Test
+    @DisplayName("Idempotent operations should reject missing request IDs")
+    void testBlankRequestId() {
+        assertThrows(IllegalArgumentException.class, () ->
+            library.borrowItem("  ", testBook.getIsbn(), testMember));
+        assertThrows(IllegalArgumentException.class, () ->
+            library.returnItem(null, testBook.getIsbn(), testMember));
+    }
+    
     @Test
     @DisplayName("Borrow item should throw exception for null parameters")
     void testBorrowItemNullParameters() {
@@ -173,6 +288,40 @@ class LibraryTest {
         
         assertTrue(result);
         verify(mockBorrowingDAO).returnItem(isbn, testMember.getMemberId());
+        verify(mockHoldDAO, never()).findReadyHolder(anyString());
+    }
+    
+    @Test
+    @DisplayName("A placed hold should complete when the return makes it ready")
+    void testHoldCompletesOnReturn() {
+        String isbn = testBook.getIsbn();
+        Member waiting = new Member("M456", "Jane Roe", "jane@email.com", "555-0456", "456 Oak St");
+        testMember.borrowItem(isbn);
+        testBook.borrowItem(testMember.getMemberId());
+        
+        when(mockMemberDAO.findById(waiting.getMemberId())).thenReturn(waiting);
+        when(mockMemberDAO.findById(testMember.getMemberId())).thenReturn(testMember);
+        when(mockHoldDAO.placeHold(isbn, waiting.getMemberId())).thenReturn(HoldDAO.PlaceResult.PLACED);
+        when(mockItemDAO.findByIsbn(isbn)).thenReturn(testBook);
+        when(mockBorrowingDAO.returnItem(isbn, testMember.getMemberId())).thenReturn(true);
+        when(mockHoldDAO.findReadyHolder(isbn)).thenReturn(waiting.getMemberId());
+        
+        CompletableFuture<String> hold = library.placeHold(isbn, waiting);
+        assertFalse(hold.isDone());
+        
+        assertTrue(library.returnItem(isbn, testMember));
+        
+        assertEquals(isbn, hold.getNow(null));
+    }
+    
+    @Test
+    @DisplayName("Placing a hold on an available item should be rejected")
+    void testHoldOnAvailableItem() {
+        String isbn = testBook.getIsbn();
+        when(mockMemberDAO.findById(testMember.getMemberId())).thenReturn(testMember);
+        when(mockHoldDAO.placeHold(isbn, testMember.getMemberId())).thenReturn(HoldDAO.PlaceResult.ITEM_AVAILABLE);
+        
+        assertThrows(IllegalStateException.class, () -> library.placeHold(isbn, testMember));
     }
     
     @Test
@@ -191,12 +340,30 @@ class LibraryTest {
         String isbn = testBook.getIsbn();
         int days = 10;
         
-        when(mockItemDAO.findByIsbn(isbn)).thenReturn(testBook);
+        when(mockItemDAO.findItemType(isbn)).thenReturn(ItemType.BOOK);
         
         double result = library.calculateBorrowingCost(isbn, days);
         
         assertEquals(5.0, result, 0.001); // 0.50 * 10 days
-        verify(mockItemDAO).findByIsbn(isbn);
+        verify(mockItemDAO).findItemType(isbn);
+        verify(mockItemDAO, never()).findByIsbn(isbn);
+    }
+    
+    @Test
+    @DisplayName("Quote borrowing costs should price a basket with one type lookup")
+    void testQuoteBorrowingCosts() {
+        List<String> isbns = Arrays.asList(testBook.getIsbn(), "UNKNOWN", testMagazine.getIsbn());
+        
+        when(mockItemDAO.findItemTypes(isbns)).thenReturn(Map.of(
+            testBook.getIsbn(), ItemType.BOOK,
+            testMagazine.getIsbn(), ItemType.MAGAZINE));
+        
+        Map<String, Long> quotes = library.quoteBorrowingCosts(isbns, testMember, 7);
+        
+        assertEquals(List.of(testBook.getIsbn(), testMagazine.getIsbn()), List.copyOf(quotes.keySet()));
+        assertEquals(350L, quotes.get(testBook.getIsbn()));
+        assertEquals(175L, quotes.get(testMagazine.getIsbn()));
+        verify(mockItemDAO, times(1)).findItemTypes(isbns);
     }
     
     @Test
@@ -394,4 +561,9 @@ class LibraryTest {
         assertThrows(IllegalArgumentException.class, () -> library.removeLibraryItem(null));
         assertThrows(IllegalArgumentException.class, () -> library.updateMember(null));
     }
-}
\ No newline at end of file
+    
+    private ProcessedRequest processed(String requestId, ProcessedRequest.Operation operation, String isbn,
+                                       boolean success) {
+        return new ProcessedRequest(requestId, operation, isbn, testMember.getMemberId(), success);
+    }
+}
@@ -0,0 +1,50 @@
+package com.oaktown.library.service;
+
+import com.oaktown.library.dao.BorrowingDAO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * JUnit tests for the LoanArchiver background job.
+ */
+@DisplayName("Loan Archiver Tests")
+class LoanArchiverTest {
+    
+    private BorrowingDAO mockBorrowingDAO;
+    private LoanArchiver archiver;
+    
+    @BeforeEach
+    void setUp() {
+        mockBorrowingDAO = mock(BorrowingDAO.class);
+        archiver = new LoanArchiver(mockBorrowingDAO, 100, 3, 30, 0);
+    }
+    
+    @Test
+    @DisplayName("Archiving should stop after the first partial batch")
+    void testStopsWhenDrained() {
+        when(mockBorrowingDAO.archiveReturnedLoans(100, 30)).thenReturn(100, 42);
+        
+        assertEquals(142, archiver.runOnce());
+        verify(mockBorrowingDAO, times(2)).archiveReturnedLoans(100, 30);
+    }
+    
+    @Test
+    @DisplayName("Archiving should not exceed the per-run batch budget")
+    void testBatchBudget() {
+        when(mockBorrowingDAO.archiveReturnedLoans(100, 30)).thenReturn(100);
+        
+        assertEquals(300, archiver.runOnce());
+        verify(mockBorrowingDAO, times(3)).archiveReturnedLoans(100, 30);
+    }
+    
+    @Test
+    @DisplayName("Invalid batch settings should be rejected")
+    void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () ->
+            new LoanArchiver(mockBorrowingDAO, 0, 3, 30, 0));
+    }
+}
@@ -0,0 +1,131 @@
+package com.oaktown.library.service;
+
+import com.oaktown.library.dao.OutboxDAO;
+import com.oaktown.library.model.OutboxEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * JUnit tests for the OutboxRelay delivery loop.
+ */
+@DisplayName("Outbox Relay Tests")
+class OutboxRelayTest {
+    
+    private OutboxDAO mockOutboxDAO;
+    private OutboxRelay relay;
+    private List<OutboxEvent> delivered;
+    
+    @BeforeEach
+    void setUp() {
+        mockOutboxDAO = mock(OutboxDAO.class);
+        relay = new OutboxRelay(mockOutboxDAO, "test", 2, 60);
+        delivered = new ArrayList<>();
+        relay.addSink(delivered::addAll);
+        when(mockOutboxDAO.readCursor("test")).thenReturn(10L);
+        when(mockOutboxDAO.saveCursor(anyString(), anyLong())).thenReturn(true);
+        when(mockOutboxDAO.findEventsAfter(anyLong(), anyInt())).thenReturn(Collections.emptyList());
+    }
+    
+    @Test
+    @DisplayName("Events should be delivered in batches and the cursor advanced after each")
+    void testDeliversAndAdvancesCursor() {
+        when(mockOutboxDAO.findEventsAfter(10, 2)).thenReturn(Arrays.asList(event(11, 0), event(12, 0)));
+        when(mockOutboxDAO.findEventsAfter(12, 2)).thenReturn(Collections.singletonList(event(13, 0)));
+        
+        assertEquals(3, relay.runOnce());
+        assertEquals(3, delivered.size());
+        verify(mockOutboxDAO).saveCursor("test", 12);
+        verify(mockOutboxDAO).saveCursor("test", 13);
+    }
+    
+    @Test
+    @DisplayName("A failing sink should leave the cursor for the batch to be retried")
+    void testFailedSinkRetries() {
+        when(mockOutboxDAO.findEventsAfter(10, 2)).thenReturn(Collections.singletonList(event(11, 0)));
+        relay.addSink(events -> {
+            throw new IllegalStateException("down");
+        });
+        
+        assertEquals(0, relay.runOnce());
+        assertEquals(0, relay.runOnce());
+        verify(mockOutboxDAO, never()).saveCursor(anyString(), anyLong());
+        assertEquals(2, delivered.size()); // at least once: the healthy sink saw it twice
+    }
+    
+    @Test
+    @DisplayName("A recent id gap should hold back later events until a tombstone fills it")
+    void testWaitsOnRecentGap() {
+        when(mockOutboxDAO.findEventsAfter(10, 2)).thenReturn(Arrays.asList(event(11, 0), event(13, 0)));
+        when(mockOutboxDAO.findEventsAfter(11, 2)).thenReturn(Collections.singletonList(event(13, 0)));
+        
+        assertEquals(1, relay.runOnce());
+        verify(mockOutboxDAO).saveCursor("test", 11);
+        verify(mockOutboxDAO, never()).insertTombstone(anyLong());
+        
+        when(mockOutboxDAO.findEventsAfter(11, 2)).thenReturn(Collections.singletonList(event(13, 120)));
+        when(mockOutboxDAO.insertTombstone(12)).thenReturn(true);
+        assertEquals(1, relay.runOnce());
+        verify(mockOutboxDAO).saveCursor("test", 13);
+    }
+    
+    @Test
+    @DisplayName("An old gap should not be skipped while its transaction may still commit")
+    void testOldGapNotSkipped() {
+        when(mockOutboxDAO.findEventsAfter(10, 2)).thenReturn(Collections.singletonList(event(12, 600)));
+        when(mockOutboxDAO.insertTombstone(11)).thenReturn(false);
+        
+        assertEquals(0, relay.runOnce());
+        verify(mockOutboxDAO, never()).saveCursor(anyString(), anyLong());
+        
+        // The late transaction commits; its event is delivered before the one after it
+        when(mockOutboxDAO.findEventsAfter(10, 2)).thenReturn(Arrays.asList(event(11, 0), event(12, 600)));
+        assertEquals(2, relay.runOnce());
+        assertEquals(11, delivered.get(0).getId());
+        verify(mockOutboxDAO).saveCursor("test", 12);
+    }
+    
+    @Test
+    @DisplayName("Tombstones should move the cursor without reaching the sinks")
+    void testTombstonesSkipped() {
+        OutboxEvent tombstone = new OutboxEvent(11, OutboxEvent.Type.TOMBSTONE, 0, "", "", "{}",
+                                                LocalDateTime.now());
+        when(mockOutboxDAO.findEventsAfter(10, 2)).thenReturn(Arrays.asList(tombstone, event(12, 0)));
+        
+        assertEquals(1, relay.runOnce());
+        assertEquals(1, delivered.size());
+        assertEquals(12, delivered.get(0).getId());
+        verify(mockOutboxDAO).saveCursor("test", 12);
+    }
+    
+    @Test
+    @DisplayName("Without sinks the relay should not move the cursor")
+    void testNoSinksKeepsCursor() {
+        OutboxRelay idle = new OutboxRelay(mockOutboxDAO, "test", 2, 60);
+        when(mockOutboxDAO.findEventsAfter(10, 2)).thenReturn(Collections.singletonList(event(11, 0)));
+        
+        assertEquals(0, idle.runOnce());
+        verify(mockOutboxDAO, never()).saveCursor(anyString(), anyLong());
+        
+        // The first sink gets the events that were held back
+        idle.addSink(delivered::addAll);
+        assertEquals(1, idle.runOnce());
+        assertEquals(1, delivered.size());
+        verify(mockOutboxDAO).saveCursor("test", 11);
+    }
+    
+    private static OutboxEvent event(long id, int ageSeconds) {
+        return new OutboxEvent(id, OutboxEvent.Type.LOAN_BORROWED, (int) id, "ISBN-" + id, "M1", "{}",
+                               LocalDateTime.now().minusSeconds(ageSeconds));
+    }
+}
@@ -0,0 +1,77 @@
+package com.oaktown.library.service;
+
+import com.oaktown.library.model.ItemType;
+import com.oaktown.library.model.MemberTier;
+import com.oaktown.library.model.PricingRate;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for the PricingEngine rate lookups.
+ */
+@DisplayName("Pricing Engine Tests")
+class PricingEngineTest {
+
+    private static final LocalDate JAN_1 = LocalDate.of(2026, 1, 1);
+    private static final LocalDate JUL_1 = LocalDate.of(2026, 7, 1);
+
+    private final PricingEngine engine = new PricingEngine(Arrays.asList(
+        new PricingRate(ItemType.BOOK, null, JAN_1, JUL_1, 40),
+        new PricingRate(ItemType.BOOK, null, JUL_1, null, 60),
+        new PricingRate(ItemType.BOOK, MemberTier.GOLD, JAN_1, null, 30)
+    ));
+
+    @Test
+    @DisplayName("Without rate rows every type should use its list price")
+    void testListPrices() {
+        PricingEngine listPrices = PricingEngine.listPrices();
+
+        assertEquals(50, listPrices.dailyCents(ItemType.BOOK, MemberTier.BRONZE, JAN_1));
+        assertEquals(100, listPrices.dailyCents(ItemType.REFERENCE_BOOK, null, JAN_1));
+        assertEquals(25, listPrices.dailyCents(ItemType.MAGAZINE, MemberTier.PLATINUM, JAN_1));
+    }
+
+    @Test
+    @DisplayName("Date ranges should be start-inclusive and end-exclusive")
+    void testDateRanges() {
+        assertEquals(40, engine.dailyCents(ItemType.BOOK, MemberTier.BRONZE, JAN_1));
+        assertEquals(40, engine.dailyCents(ItemType.BOOK, MemberTier.BRONZE, JUL_1.minusDays(1)));
+        assertEquals(60, engine.dailyCents(ItemType.BOOK, MemberTier.BRONZE, JUL_1));
+        assertEquals(50, engine.dailyCents(ItemType.BOOK, MemberTier.BRONZE, JAN_1.minusDays(1)));
+    }
+
+    @Test
+    @DisplayName("A tier rate should win over the all-tier rate")
+    void testTierOverride() {
+        assertEquals(30, engine.dailyCents(ItemType.BOOK, MemberTier.GOLD, JUL_1));
+        assertEquals(60, engine.dailyCents(ItemType.BOOK, MemberTier.SILVER, JUL_1));
+        assertEquals(60, engine.dailyCents(ItemType.BOOK, null, JUL_1));
+        assertEquals(25, engine.dailyCents(ItemType.MAGAZINE, MemberTier.GOLD, JUL_1));
+    }
+
+    @Test
+    @DisplayName("Quotes should be exact multiples of the daily rate in cents")
+    void testQuoteCents() {
+        assertEquals(280L, engine.quoteCents(ItemType.BOOK, MemberTier.BRONZE, JAN_1, 7));
+        assertEquals(1_000_000L * 60, engine.quoteCents(ItemType.BOOK, null, JUL_1, 1_000_000));
+        assertThrows(IllegalArgumentException.class, () ->
+            engine.quoteCents(ItemType.BOOK, null, JAN_1, 0));
+    }
+
+    @Test
+    @DisplayName("Overlapping rates for the same type and tier should be rejected")
+    void testOverlappingRates() {
+        List<PricingRate> overlapping = Arrays.asList(
+            new PricingRate(ItemType.MAGAZINE, null, JAN_1, null, 20),
+            new PricingRate(ItemType.MAGAZINE, null, JUL_1, null, 30));
+
+        assertThrows(IllegalArgumentException.class, () -> new PricingEngine(overlapping));
+    }
+}
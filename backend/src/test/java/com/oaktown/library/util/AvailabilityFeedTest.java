@@ -0,0 +1,89 @@
+package com.oaktown.library.util;
+
+import com.oaktown.library.model.AvailabilityEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for the AvailabilityFeed subscriptions.
+ */
+@DisplayName("Availability Feed Tests")
+class AvailabilityFeedTest {
+
+    private AvailabilityFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = new AvailabilityFeed();
+    }
+
+    @Test
+    @DisplayName("Subscribers should only receive events matching their filters")
+    void testFilters() {
+        AvailabilityFeed.Subscription byIsbn = feed.subscribe(Set.of("A", "B"), null, 10, null);
+        AvailabilityFeed.Subscription byMember = feed.subscribe(Collections.emptySet(), "M1", 10, null);
+        AvailabilityFeed.Subscription everything = feed.subscribe(null, null, 10, null);
+
+        feed.publish("A", "M2", false);
+        feed.publish("C", "M1", true);
+        feed.publish("B", "M1", true);
+
+        assertEquals(List.of("A", "B"), isbns(byIsbn.drain()));
+        assertEquals(List.of("C", "B"), isbns(byMember.drain()));
+        assertEquals(List.of("A", "C", "B"), isbns(everything.drain()));
+    }
+
+    @Test
+    @DisplayName("A full buffer should drop its oldest events")
+    void testDropOldest() {
+        AvailabilityFeed.Subscription subscription = feed.subscribe(null, null, 2, null);
+
+        feed.publish("A", "M1", false);
+        feed.publish("B", "M1", false);
+        feed.publish("C", "M1", false);
+
+        assertEquals(List.of("B", "C"), isbns(subscription.drain()));
+        assertEquals(1, subscription.takeDropped());
+        assertEquals(0, subscription.takeDropped());
+    }
+
+    @Test
+    @DisplayName("The ready callback should fire only when the buffer becomes non-empty")
+    void testReadyCallback() {
+        AtomicInteger signals = new AtomicInteger();
+        AvailabilityFeed.Subscription subscription = feed.subscribe(null, null, 10, signals::incrementAndGet);
+
+        feed.publish("A", "M1", false);
+        feed.publish("B", "M1", false);
+        assertEquals(1, signals.get());
+
+        subscription.drain();
+        feed.publish("C", "M1", true);
+        assertEquals(2, signals.get());
+    }
+
+    @Test
+    @DisplayName("Closed subscriptions should stop receiving events")
+    void testClose() {
+        AvailabilityFeed.Subscription subscription = feed.subscribe(Set.of("A"), null, 10, null);
+        assertEquals(1, feed.getSubscriberCount());
+
+        subscription.close();
+        feed.publish("A", "M1", false);
+
+        assertEquals(0, feed.getSubscriberCount());
+        assertFalse(subscription.hasPending());
+    }
+
+    private static List<String> isbns(List<AvailabilityEvent> events) {
+        return events.stream().map(AvailabilityEvent::getIsbn).collect(java.util.stream.Collectors.toList());
+    }
+}
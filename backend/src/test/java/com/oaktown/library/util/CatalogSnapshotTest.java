@@ -0,0 +1,120 @@
+package com.oaktown.library.util;
+
+import com.oaktown.library.model.Book;
+import com.oaktown.library.model.ItemType;
+import com.oaktown.library.model.LibraryItem;
+import com.oaktown.library.model.Magazine;
+import com.oaktown.library.model.ReferenceBook;
+import com.oaktown.library.util.CatalogSnapshot.Scan;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for the columnar catalog snapshot
+ */
+@DisplayName("Catalog Snapshot Tests")
+class CatalogSnapshotTest {
+
+    private CatalogSnapshot snapshot;
+    private List<LibraryItem> items;
+
+    @BeforeEach
+    void setUp() {
+        items = Arrays.asList(
+            new Book("B1", "Moby Dick", "Melville", 1851, 635, "Fiction"),
+            new Book("B2", "Bartleby", "Melville", 1853, 64, "Fiction"),
+            new Book("B3", "Dune", "Herbert", 1965, 412, "Science Fiction"),
+            new ReferenceBook("R1", "Atlas", "Various", 1998, 900, true),
+            new Magazine("M1", "Weekly", "Editors", 1999, 12));
+        snapshot = new CatalogSnapshot();
+        items.forEach(snapshot::put);
+    }
+
+    @Test
+    @DisplayName("Rows should be added, updated in place and removed")
+    void testPutUpdateRemove() {
+        assertEquals(5, snapshot.size());
+        assertEquals(5, snapshot.count(Scan.all().available(true)));
+
+        assertTrue(snapshot.setAvailable("B1", false));
+        assertFalse(snapshot.setAvailable("X1", false));
+        assertEquals(1, snapshot.count(Scan.all().available(false)));
+
+        snapshot.put(new Book("B3", "Dune", "Herbert", 1965, 412, "Classics"));
+        assertEquals(5, snapshot.size());
+        assertEquals(0, snapshot.count(Scan.all().inGenre("Science Fiction")));
+        assertEquals(1, snapshot.count(Scan.all().inGenre("Classics")));
+
+        assertTrue(snapshot.remove("B1"));
+        assertFalse(snapshot.remove("B1"));
+        assertEquals(4, snapshot.size());
+        assertEquals(0, snapshot.count(Scan.all().available(false)));
+        assertEquals(1, snapshot.count(Scan.all().byAuthor("Melville")));
+    }
+
+    @Test
+    @DisplayName("Scans should combine type, year, page and dictionary filters")
+    void testFilters() {
+        assertEquals(4, snapshot.count(Scan.all().books()));
+        assertEquals(1, snapshot.count(Scan.all().ofTypes(ItemType.MAGAZINE)));
+        assertEquals(2, snapshot.count(Scan.all().publishedBetween(1850, 1899)));
+        assertEquals(2, snapshot.count(Scan.all().byAuthor("Melville")));
+        assertEquals(1, snapshot.count(Scan.all().byAuthor("Melville").minPages(100)));
+        assertEquals(0, snapshot.count(Scan.all().byAuthor("Nobody")));
+        assertEquals(0, snapshot.count(Scan.all().inGenre("Poetry")));
+    }
+
+    @Test
+    @DisplayName("Group-by aggregations should cover the matching rows")
+    void testGroupings() {
+        Map<ItemType, Long> byType = snapshot.countByType(Scan.all());
+        assertEquals(Long.valueOf(3), byType.get(ItemType.BOOK));
+        assertEquals(Long.valueOf(1), byType.get(ItemType.REFERENCE_BOOK));
+        assertEquals(Long.valueOf(1), byType.get(ItemType.MAGAZINE));
+
+        SortedMap<Integer, Long> byDecade = snapshot.countByDecade(Scan.all());
+        assertEquals(Arrays.asList(1850, 1960, 1990), new ArrayList<>(byDecade.keySet()));
+        assertEquals(Long.valueOf(2), byDecade.get(1850));
+        assertEquals(Long.valueOf(2), byDecade.get(1990));
+
+        Map<String, Long> byAuthor = snapshot.countByAuthor(Scan.all().books());
+        assertEquals("Melville", byAuthor.keySet().iterator().next());
+        assertFalse(byAuthor.containsKey("Editors"));
+    }
+
+    @Test
+    @DisplayName("Page statistics should agree with the Book model")
+    void testPageStatistics() {
+        assertEquals((635 + 64 + 412 + 900) / 4.0, snapshot.averagePages(Scan.all().books()), 1e-9);
+        assertEquals(0, snapshot.averagePages(Scan.all().byAuthor("Nobody")));
+
+        long longBooks = items.stream().filter(item -> item instanceof Book && ((Book) item).isLongBook()).count();
+        assertEquals(longBooks, snapshot.count(Scan.all().longBooks()));
+        assertEquals(longBooks / 4.0, snapshot.share(Scan.all().longBooks(), Scan.all().books()), 1e-9);
+    }
+
+    @Test
+    @DisplayName("A parallel scan should match a sequential one across many chunks")
+    void testParallelScan() {
+        CatalogSnapshot large = new CatalogSnapshot();
+        for (int i = 0; i < 200_000; i++) {
+            large.put("I" + i, ItemType.values()[i % 3], 1900 + i % 120, i % 1000,
+                      "Author" + i % 50, i % 3 == 2 ? null : "Genre" + i % 7, i % 5 != 0);
+        }
+        Scan scan = Scan.all().books().available(true).minPages(300);
+        assertEquals(large.count(scan), large.count(scan.parallel()));
+        assertEquals(large.countByDecade(scan), large.countByDecade(scan.parallel()));
+        assertEquals(large.countByAuthor(scan), large.countByAuthor(scan.parallel()));
+        assertEquals(large.averagePages(scan), large.averagePages(scan.parallel()), 1e-9);
+    }
+}
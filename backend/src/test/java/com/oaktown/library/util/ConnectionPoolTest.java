@@ -0,0 +1,118 @@
+package com.oaktown.library.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for the bounded connection pool, on an in-memory H2 database.
+ */
+@DisplayName("Connection Pool Tests")
+class ConnectionPoolTest {
+
+    private String url;
+
+    @BeforeEach
+    void setUp() {
+        url = "jdbc:h2:mem:pool_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+    }
+
+    @Test
+    @DisplayName("A returned connection should be reused")
+    void testReuse() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(url, "sa", "", false, 2, 1, 60000);
+
+        String session;
+        try (Connection conn = pool.getConnection(1000)) {
+            session = sessionId(conn);
+            assertEquals(1, pool.getActiveConnections());
+        }
+        assertEquals(0, pool.getActiveConnections());
+        assertEquals(1, pool.getIdleConnections());
+
+        try (Connection conn = pool.getConnection(1000)) {
+            assertEquals(session, sessionId(conn));
+        }
+    }
+
+    @Test
+    @DisplayName("Borrowing beyond the limit should wait and then time out")
+    void testLimit() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(url, "sa", "", false, 1, 1, 60000);
+
+        try (Connection conn = pool.getConnection(1000)) {
+            assertNull(pool.tryGetConnection());
+            assertThrows(SQLException.class, () -> pool.getConnection(50));
+        }
+        try (Connection conn = pool.tryGetConnection()) {
+            assertNotNull(conn);
+        }
+    }
+
+    @Test
+    @DisplayName("Returning a connection should roll back and restore auto-commit, once")
+    void testReturnResetsState() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(url, "sa", "", false, 2, 1, 60000);
+        try (Connection conn = pool.getConnection(1000);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE t (id INT)");
+        }
+
+        Connection conn = pool.getConnection(1000);
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO t VALUES (1)");
+        }
+        conn.close();
+        conn.close();
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, conn::createStatement);
+        assertEquals(0, pool.getActiveConnections());
+
+        try (Connection reused = pool.getConnection(1000);
+             Statement stmt = reused.createStatement()) {
+            assertTrue(reused.getAutoCommit());
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM t")) {
+                rs.next();
+                assertEquals(0, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A connection that died while idle should be replaced")
+    void testValidation() throws Exception {
+        ConnectionPool pool = new ConnectionPool(url, "sa", "", false, 2, 1, 60000);
+        String session;
+        try (Connection conn = pool.getConnection(1000)) {
+            session = sessionId(conn);
+        }
+        try (Connection admin = DriverManager.getConnection(url, "sa", "");
+             Statement stmt = admin.createStatement()) {
+            stmt.execute("CALL ABORT_SESSION(" + session + ")");
+        }
+        // Idle long enough to be checked before reuse
+        Thread.sleep(1100);
+
+        try (Connection conn = pool.getConnection(1000)) {
+            assertTrue(conn.isValid(1));
+            assertNotEquals(session, sessionId(conn));
+        }
+    }
+
+    private static String sessionId(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT SESSION_ID()")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.oaktown.library.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for the EmbeddedDatabase schema setup.
+ */
+@DisplayName("Embedded Database Tests")
+class EmbeddedDatabaseTest {
+
+    private Connection conn;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        conn = DriverManager.getConnection(
+            "jdbc:h2:mem:embedded" + System.nanoTime() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE", "sa", "");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    @DisplayName("Should create the schema and sample data once")
+    void testInitialize() throws SQLException {
+        assertTrue(EmbeddedDatabase.initialize(conn, true));
+        assertFalse(EmbeddedDatabase.initialize(conn, true));
+
+        assertEquals(5, count("SELECT COUNT(*) FROM members"));
+        assertEquals(12, count("SELECT COUNT(*) FROM library_items"));
+        assertEquals(3, count("SELECT COUNT(*) FROM pricing_rates"));
+        assertEquals(1, count("SELECT COUNT(*) FROM current_borrowings WHERE member_id = 'M002'"));
+    }
+
+    @Test
+    @DisplayName("The availability triggers and views should follow loans")
+    void testTriggersAndViews() throws SQLException {
+        EmbeddedDatabase.initialize(conn, false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO members (member_id, name) VALUES ('M1', 'Reader')");
+            stmt.execute("INSERT INTO library_items (isbn, title, author, publication_year, item_type) " +
+                         "VALUES ('B1', 'Title', 'Author', 2000, 'BOOK')");
+            stmt.execute("INSERT INTO books (isbn, pages, genre) VALUES ('B1', 100, 'Fiction')");
+            assertEquals(1, count("SELECT COUNT(*) FROM available_items WHERE isbn = 'B1' AND pages = 100"));
+
+            stmt.execute("INSERT INTO borrowed_items (isbn, member_id, borrow_date, due_date, status) " +
+                         "VALUES ('B1', 'M1', CURRENT_DATE, CURRENT_DATE, 'BORROWED')");
+            assertEquals(0, count("SELECT COUNT(*) FROM available_items"));
+            assertEquals(1, count("SELECT COUNT(*) FROM library_items WHERE current_borrower = 'M1'"));
+
+            stmt.execute("UPDATE borrowed_items SET status = 'RETURNED' WHERE isbn = 'B1'");
+            assertEquals(1, count("SELECT COUNT(*) FROM available_items"));
+        }
+    }
+
+    @Test
+    @DisplayName("An empty path should give an in-memory URL")
+    void testUrl() {
+        assertTrue(EmbeddedDatabase.url(null).startsWith("jdbc:h2:mem:"));
+        assertTrue(EmbeddedDatabase.url(" ").startsWith("jdbc:h2:mem:"));
+        assertTrue(EmbeddedDatabase.url("data/library").startsWith("jdbc:h2:file:data/library;MODE=MySQL"));
+    }
+
+    private int count(String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.oaktown.library.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for the bounded expiring cache.
+ */
+@DisplayName("Expiring Cache Tests")
+class ExpiringCacheTest {
+
+    private AtomicLong now;
+    private ExpiringCache<String, Boolean> cache;
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong();
+        cache = new ExpiringCache<>(2, 10, TimeUnit.SECONDS, now::get);
+    }
+
+    @Test
+    @DisplayName("Entries should expire after their time to live")
+    void testExpiry() {
+        cache.put("a", true);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(9));
+        assertEquals(Boolean.TRUE, cache.get("a"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Least recently used entry should be evicted when full")
+    void testCapacity() {
+        cache.put("a", true);
+        cache.put("b", false);
+        cache.get("a");
+        cache.put("c", true);
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+        assertEquals(Boolean.TRUE, cache.get("a"));
+        assertEquals(Boolean.TRUE, cache.get("c"));
+    }
+
+    @Test
+    @DisplayName("Purge should drop only expired entries")
+    void testPurgeExpired() {
+        cache.put("a", true);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        cache.put("b", true);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+
+        assertEquals(1, cache.purgeExpired());
+        assertEquals(Boolean.TRUE, cache.get("b"));
+    }
+}
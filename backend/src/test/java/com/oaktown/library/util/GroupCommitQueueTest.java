@@ -0,0 +1,87 @@
+package com.oaktown.library.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.Savepoint;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * JUnit tests for the GroupCommitQueue batching.
+ */
+@DisplayName("Group Commit Queue Tests")
+class GroupCommitQueueTest {
+
+    private Connection mockConn;
+    private GroupCommitQueue queue;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DatabaseConnection mockDb = mock(DatabaseConnection.class);
+        mockConn = mock(Connection.class);
+        when(mockDb.getTransactionConnection()).thenReturn(mockConn);
+        when(mockConn.setSavepoint()).thenAnswer(inv -> mock(Savepoint.class));
+        queue = new GroupCommitQueue("testGroup", new TransactionTemplate(mockDb, 3, 0, 0), 3, 200);
+    }
+
+    @AfterEach
+    void tearDown() {
+        queue.shutdown();
+    }
+
+    @Test
+    @DisplayName("Operations submitted together should share one commit")
+    void testSingleCommitPerBatch() throws Exception {
+        CompletableFuture<Boolean> first = queue.submit(conn -> true);
+        CompletableFuture<Boolean> second = queue.submit(conn -> false);
+        CompletableFuture<Boolean> third = queue.submit(conn -> true);
+
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertFalse(second.get(5, TimeUnit.SECONDS));
+        assertTrue(third.get(5, TimeUnit.SECONDS));
+        verify(mockConn, times(1)).commit();
+        verify(mockConn, times(1)).rollback(any(Savepoint.class));
+        verify(mockConn, times(2)).releaseSavepoint(any(Savepoint.class));
+    }
+
+    @Test
+    @DisplayName("A runtime exception should fail only its own operation")
+    void testOperationException() throws Exception {
+        CompletableFuture<Boolean> failing = queue.submit(conn -> {
+            throw new IllegalStateException("conflict");
+        });
+        CompletableFuture<Boolean> healthy = queue.submit(conn -> true);
+
+        assertTrue(healthy.get(5, TimeUnit.SECONDS));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+
+    @Test
+    @DisplayName("A deadlock should retry the whole batch")
+    void testDeadlockRetriesBatch() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<Boolean> result = queue.submit(conn -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new SQLTransactionRollbackException("Deadlock found", "40001", 1213);
+            }
+            return true;
+        });
+
+        assertTrue(result.get(5, TimeUnit.SECONDS));
+        assertEquals(2, calls.get());
+        verify(mockConn, times(1)).rollback();
+    }
+}
@@ -0,0 +1,86 @@
+package com.oaktown.library.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for the Bloom filter backed key presence filter.
+ */
+@DisplayName("Key Presence Filter Tests")
+class KeyPresenceFilterTest {
+
+    private KeyPresenceFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new KeyPresenceFilter("test", 100, 60);
+    }
+
+    @Test
+    @DisplayName("Filter should admit every key before it has been built")
+    void testInactiveFilterAdmitsEverything() {
+        assertFalse(filter.isActive());
+        assertTrue(filter.mightExist("anything"));
+
+        filter.recordMissing("anything");
+        assertTrue(filter.mightExist("anything"));
+    }
+
+    @Test
+    @DisplayName("Built filter should admit known keys and reject most unknown keys")
+    void testRebuildFromScan() throws SQLException {
+        filter.rebuild(3, sink -> Arrays.asList("978-0060935467", "MAG-2024-001", "M001").forEach(sink));
+
+        assertTrue(filter.mightExist("978-0060935467"));
+        assertTrue(filter.mightExist("MAG-2024-001"));
+        assertTrue(filter.mightExist("M001"));
+
+        int admitted = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightExist("JUNK-" + i)) {
+                admitted++;
+            }
+        }
+        assertTrue(admitted < 300, "false positive rate too high: " + admitted);
+    }
+
+    @Test
+    @DisplayName("Created keys should be admitted and deleted keys rejected")
+    void testCreateAndDelete() throws SQLException {
+        filter.rebuild(0, sink -> { });
+
+        filter.recordMissing("NEW-1");
+        filter.recordPresent("NEW-1");
+        assertTrue(filter.mightExist("NEW-1"));
+
+        filter.recordDeleted("NEW-1");
+        assertFalse(filter.mightExist("NEW-1"));
+    }
+
+    @Test
+    @DisplayName("Keys created during a rebuild should not be lost")
+    void testCreateDuringRebuild() throws SQLException {
+        filter.rebuild(1, sink -> {
+            sink.accept("OLD-1");
+            filter.recordPresent("NEW-1");
+        });
+
+        assertTrue(filter.mightExist("OLD-1"));
+        assertTrue(filter.mightExist("NEW-1"));
+    }
+
+    @Test
+    @DisplayName("Disabled filter should admit every key again")
+    void testDisable() throws SQLException {
+        filter.rebuild(1, sink -> sink.accept("A"));
+        filter.disable();
+
+        assertTrue(filter.mightExist("B"));
+    }
+}
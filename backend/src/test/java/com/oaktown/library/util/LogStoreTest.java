@@ -0,0 +1,176 @@
+package com.oaktown.library.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for the LogStore append-only file store.
+ */
+@DisplayName("Log Store Tests")
+class LogStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @DisplayName("Values should survive reopening the file")
+    void testReopen() throws IOException {
+        Path file = dir.resolve("data.log");
+        try (LogStore store = new LogStore(file, true)) {
+            store.put("a", bytes("one"));
+            store.put("b", bytes("two"));
+            store.put("a", bytes("three"));
+            store.delete("b");
+        }
+
+        try (LogStore store = new LogStore(file, true)) {
+            assertEquals("three", text(store.get("a")));
+            assertNull(store.get("b"));
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    @DisplayName("A multi-key write should apply all of its entries")
+    void testAtomicWrite() throws IOException {
+        try (LogStore store = new LogStore(dir.resolve("data.log"), false)) {
+            store.put("item:1", bytes("on shelf"));
+            Map<String, byte[]> writes = new HashMap<>();
+            writes.put("item:1", bytes("on loan"));
+            writes.put("loan:1", bytes("open"));
+            store.write(writes);
+
+            assertEquals("on loan", text(store.get("item:1")));
+            assertEquals(2, store.scan("").size());
+            assertEquals(1, store.scan("loan:").size());
+        }
+    }
+
+    @Test
+    @DisplayName("A torn record at the end of the file should be ignored")
+    void testTornRecord() throws IOException {
+        Path file = dir.resolve("data.log");
+        long tail;
+        try (LogStore store = new LogStore(file, true)) {
+            store.put("kept", bytes("value"));
+            tail = store.getFileBytes();
+            store.put("torn", bytes("value"));
+        }
+
+        // Corrupt the last byte of the second record's payload
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            long end = tail + 8 + 4 + 4 + "torn".length() + 4 + "value".length() - 1;
+            raf.seek(end);
+            int last = raf.read();
+            raf.seek(end);
+            raf.write(last ^ 0xFF);
+        }
+
+        try (LogStore store = new LogStore(file, true)) {
+            assertEquals("value", text(store.get("kept")));
+            assertNull(store.get("torn"));
+            assertEquals(tail, store.getFileBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Compaction should drop garbage and keep the live entries")
+    void testCompaction() throws IOException {
+        Path file = dir.resolve("data.log");
+        byte[] large = new byte[64 * 1024];
+        try (LogStore store = new LogStore(file, false)) {
+            for (int i = 0; i < 40; i++) {
+                store.put("blob", large);
+                store.put("counter", bytes(Integer.toString(i)));
+            }
+            assertTrue(store.getGarbageBytes() > store.getFileBytes() / 2);
+
+            assertTrue(store.compactIfNeeded());
+            assertEquals(0, store.getGarbageBytes());
+            assertTrue(store.getFileBytes() < 2 * large.length);
+            assertEquals("39", text(store.get("counter")));
+
+            store.put("after", bytes("compaction"));
+        }
+
+        try (LogStore store = new LogStore(file, false)) {
+            assertEquals("39", text(store.get("counter")));
+            assertEquals(large.length, store.get("blob").length);
+            assertEquals("compaction", text(store.get("after")));
+        }
+    }
+
+    @Test
+    @DisplayName("Writes should fail once the store is closed")
+    void testClosed() throws IOException {
+        LogStore store = new LogStore(dir.resolve("data.log"), false);
+        store.put("a", bytes("one"));
+        store.close();
+
+        assertEquals("one", text(store.get("a")));
+        assertThrows(IOException.class, () -> store.put("b", bytes("two")));
+    }
+
+    @Test
+    @DisplayName("Readers should keep working while a writer grows the file")
+    void testReadWhileGrowing() throws Exception {
+        byte[] large = new byte[64 * 1024];
+        try (LogStore store = new LogStore(dir.resolve("data.log"), false)) {
+            AtomicBoolean writing = new AtomicBoolean(true);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            List<Thread> readers = new ArrayList<>();
+            for (int r = 0; r < 3; r++) {
+                Thread reader = new Thread(() -> {
+                    try {
+                        while (writing.get()) {
+                            for (byte[] value : store.scan("blob:").values()) {
+                                assertEquals(large.length, value.length);
+                            }
+                            byte[] latest = store.get("blob:" + (store.size() - 1));
+                            assertTrue(latest == null || latest.length == large.length);
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                });
+                reader.start();
+                readers.add(reader);
+            }
+
+            // 100 values of 64 KB grow the 1 MB mapping several times over
+            for (int i = 0; i < 100; i++) {
+                store.put("blob:" + i, large);
+            }
+            writing.set(false);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+
+            assertNull(failure.get());
+            assertEquals(100, store.size());
+            assertEquals(large.length, store.get("blob:0").length);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] value) {
+        return value == null ? null : new String(value, StandardCharsets.UTF_8);
+    }
+}
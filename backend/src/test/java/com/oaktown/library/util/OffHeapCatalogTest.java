@@ -0,0 +1,170 @@
+package com.oaktown.library.util;
+
+import com.oaktown.library.model.Book;
+import com.oaktown.library.model.LibraryItem;
+import com.oaktown.library.model.Magazine;
+import com.oaktown.library.model.ReferenceBook;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for the off-heap catalog store.
+ * Segments are kept small so records and strings spill over several of them.
+ */
+@DisplayName("Off-Heap Catalog Tests")
+class OffHeapCatalogTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    private OffHeapCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = OffHeapCatalog.direct(SEGMENT_BYTES);
+    }
+
+    @AfterEach
+    void tearDown() {
+        catalog.close();
+    }
+
+    @Test
+    @DisplayName("Items of every type should be materialized as they were stored")
+    void testRoundTrip() {
+        Book book = new Book("B1", "Moby Dick", "Melville", 1851, 635, "Fiction");
+        book.setVersionForDAO(3);
+        book.setBorrowerForDAO("M1");
+        catalog.put(book);
+        catalog.put(new ReferenceBook("R1", "Atlas", "Various", 1998, 900, "Geography", true));
+        catalog.put(new Magazine("G1", "Weekly", "Editors", 1999, 12, 4, "Weekly"));
+
+        Book storedBook = (Book) catalog.get("B1");
+        assertEquals("Moby Dick", storedBook.getTitle());
+        assertEquals("Melville", storedBook.getAuthor());
+        assertEquals(1851, storedBook.getPublicationYear());
+        assertEquals(635, storedBook.getPages());
+        assertEquals("Fiction", storedBook.getGenre());
+        assertEquals(3, storedBook.getVersion());
+        assertFalse(storedBook.isAvailable());
+        assertEquals("M1", storedBook.getCurrentBorrower());
+
+        ReferenceBook reference = (ReferenceBook) catalog.get("R1");
+        assertTrue(reference.isRestricted());
+        assertEquals("Geography", reference.getGenre());
+        assertTrue(reference.isAvailable());
+
+        Magazine magazine = (Magazine) catalog.get("G1");
+        assertEquals(12, magazine.getIssueNumber());
+        assertEquals(4, magazine.getVolume());
+        assertEquals(Magazine.Frequency.WEEKLY, magazine.getFrequencyType());
+
+        assertNull(catalog.get("X1"));
+        assertEquals(3, catalog.size());
+    }
+
+    @Test
+    @DisplayName("Availability updates, overwrites and removals should apply in place")
+    void testUpdates() {
+        catalog.put(new Book("B1", "Moby Dick", "Melville", 1851, 635, "Fiction"));
+
+        assertTrue(catalog.updateAvailability("B1", false, "M7"));
+        assertFalse(catalog.updateAvailability("X1", false, "M7"));
+        assertEquals(Boolean.FALSE, catalog.isAvailable("B1"));
+        assertNull(catalog.isAvailable("X1"));
+        LibraryItem borrowed = catalog.get("B1");
+        assertEquals("M7", borrowed.getCurrentBorrower());
+        assertEquals(1, borrowed.getVersion());
+
+        catalog.put(new Book("B1", "Moby-Dick", "Herman Melville", 1851, 640, "Classics"));
+        assertEquals(1, catalog.size());
+        assertEquals("Moby-Dick", catalog.get("B1").getTitle());
+        assertTrue(catalog.get("B1").isAvailable());
+
+        assertTrue(catalog.remove("B1"));
+        assertFalse(catalog.remove("B1"));
+        assertFalse(catalog.contains("B1"));
+        assertEquals(0, catalog.size());
+
+        catalog.put(new Book("B1", "Moby Dick", "Melville", 1851, 635, "Fiction"));
+        assertEquals("Moby Dick", catalog.get("B1").getTitle());
+    }
+
+    @Test
+    @DisplayName("A catalog larger than one segment and the initial index should stay addressable")
+    void testGrowth() {
+        for (int i = 0; i < 5_000; i++) {
+            catalog.put(new Book("B" + i, "Title " + i, "Author " + i % 40, 1900 + i % 120, 100 + i, "Fiction"));
+        }
+        for (int i = 0; i < 5_000; i += 2) {
+            assertTrue(catalog.remove("B" + i));
+        }
+
+        assertEquals(2_500, catalog.size());
+        assertTrue(catalog.offHeapBytes() > 100 * SEGMENT_BYTES);
+        for (int i = 0; i < 5_000; i++) {
+            assertEquals(i % 2 == 1, catalog.contains("B" + i), "B" + i);
+        }
+        assertEquals("Title 4999", catalog.get("B4999").getTitle());
+    }
+
+    @Test
+    @DisplayName("Iteration should materialize live items in insertion order")
+    void testIteration() {
+        for (int i = 0; i < 200; i++) {
+            catalog.put(new Book("B" + i, "Title " + i, "Author", 2000, 100, "Fiction"));
+        }
+        catalog.remove("B0");
+        catalog.remove("B100");
+
+        List<String> isbns = new ArrayList<>();
+        for (LibraryItem item : catalog) {
+            isbns.add(item.getIsbn());
+        }
+        assertEquals(198, isbns.size());
+        assertEquals("B1", isbns.get(0));
+        assertFalse(isbns.contains("B100"));
+        assertEquals("B199", isbns.get(197));
+    }
+
+    @Test
+    @DisplayName("A memory-mapped store should delete its files on close")
+    void testMapped(@TempDir Path directory) throws IOException {
+        OffHeapCatalog mapped = OffHeapCatalog.mapped(directory, SEGMENT_BYTES);
+        for (int i = 0; i < 2_000; i++) {
+            mapped.put(new Magazine("G" + i, "Issue " + i, "Editors", 2020, 1 + i % 12, 1, "Monthly"));
+        }
+        assertEquals("Issue 1999", mapped.get("G1999").getTitle());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.count() > 2);
+        }
+
+        mapped.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Strings that cannot fit in a segment should be rejected")
+    void testOversizedString() {
+        StringBuilder title = new StringBuilder();
+        while (title.length() < SEGMENT_BYTES) {
+            title.append("Long title ");
+        }
+        assertThrows(IllegalArgumentException.class,
+            () -> catalog.put(new Book("B1", title.toString(), "Author", 2000, 100, "Fiction")));
+    }
+}
@@ -0,0 +1,166 @@
+package com.oaktown.library.util;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for routing reads to replicas.
+ * Two in-memory H2 databases stand in for the replicas; each knows its own name.
+ */
+@DisplayName("Replica Router Tests")
+class ReplicaRouterTest {
+
+    private static final String REPLICA_A = url("replica_a");
+    private static final String REPLICA_B = url("replica_b");
+
+    private AtomicLong now;
+
+    @BeforeAll
+    static void createReplicas() throws SQLException {
+        for (String name : Arrays.asList("replica_a", "replica_b")) {
+            try (Connection conn = DriverManager.getConnection(url(name), "sa", "");
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE whoami (name VARCHAR(20))");
+                stmt.execute("INSERT INTO whoami VALUES ('" + name + "')");
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        now = new AtomicLong();
+    }
+
+    @Test
+    @DisplayName("Round robin should take the replicas in turn")
+    void testRoundRobin() throws SQLException {
+        ReplicaRouter router = router(ReplicaRouter.Strategy.ROUND_ROBIN, 10);
+
+        List<String> served = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            try (Connection conn = router.getConnection(null)) {
+                served.add(whoami(conn));
+            }
+        }
+        assertEquals(Arrays.asList("replica_a", "replica_b", "replica_a", "replica_b"), served);
+    }
+
+    @Test
+    @DisplayName("Least loaded should pick the replica with the fewest open connections")
+    void testLeastLoaded() throws SQLException {
+        ReplicaRouter router = router(ReplicaRouter.Strategy.LEAST_LOADED, 10);
+
+        try (Connection first = router.getConnection(null);
+             Connection second = router.getConnection(null);
+             Connection third = router.getConnection(null)) {
+            assertNotEquals(whoami(first), whoami(second));
+            assertEquals(3, router.getActiveConnections(0) + router.getActiveConnections(1));
+
+            // Free one replica; the next read must land there
+            String freed = whoami(second);
+            second.close();
+            try (Connection fourth = router.getConnection(null)) {
+                assertEquals(freed, whoami(fourth));
+            }
+            assertNotNull(third);
+        }
+        assertEquals(0, router.getActiveConnections(0));
+        assertEquals(0, router.getActiveConnections(1));
+    }
+
+    @Test
+    @DisplayName("Closing a replica connection should free its slot once")
+    void testRelease() throws SQLException {
+        ReplicaRouter router = router(ReplicaRouter.Strategy.ROUND_ROBIN, 10);
+
+        Connection conn = router.getConnection(null);
+        assertEquals(1, router.getActiveConnections(0));
+
+        conn.close();
+        conn.close();
+        assertTrue(conn.isClosed());
+        assertEquals(0, router.getActiveConnections(0));
+    }
+
+    @Test
+    @DisplayName("Reads should fall back to the primary when every replica is full")
+    void testFallbackWhenFull() throws SQLException {
+        ReplicaRouter router = router(ReplicaRouter.Strategy.LEAST_LOADED, 1);
+
+        try (Connection first = router.getConnection(null);
+             Connection second = router.getConnection(null)) {
+            assertNotNull(first);
+            assertNotNull(second);
+            assertNull(router.getConnection(null));
+        }
+        try (Connection conn = router.getConnection(null)) {
+            assertNotNull(conn);
+        }
+    }
+
+    @Test
+    @DisplayName("An unreachable replica should be skipped")
+    void testUnreachableReplica() throws SQLException {
+        String missing = "jdbc:h2:mem:no_such_replica;IFEXISTS=TRUE";
+        ReplicaRouter router = new ReplicaRouter(Arrays.asList(missing, REPLICA_B), "sa", "", 10,
+            ReplicaRouter.Strategy.ROUND_ROBIN, 5000, now::get);
+
+        for (int i = 0; i < 2; i++) {
+            try (Connection conn = router.getConnection(null)) {
+                assertEquals("replica_b", whoami(conn));
+            }
+        }
+        assertEquals(0, router.getActiveConnections(0));
+    }
+
+    @Test
+    @DisplayName("A member should read from the primary for the sticky window after a write")
+    void testReadYourWrites() throws SQLException {
+        ReplicaRouter router = router(ReplicaRouter.Strategy.ROUND_ROBIN, 10);
+        router.recordWrite("M001");
+
+        assertNull(router.getConnection("M001"));
+        try (Connection other = router.getConnection("M002");
+             Connection catalog = router.getConnection(null)) {
+            assertNotNull(other);
+            assertNotNull(catalog);
+        }
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(5000));
+        try (Connection conn = router.getConnection("M001")) {
+            assertNotNull(conn);
+        }
+    }
+
+    private ReplicaRouter router(ReplicaRouter.Strategy strategy, int maxConnections) {
+        return new ReplicaRouter(Arrays.asList(REPLICA_A, REPLICA_B), "sa", "", maxConnections,
+            strategy, 5000, now::get);
+    }
+
+    private static String whoami(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT name FROM whoami")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private static String url(String name) {
+        return "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+    }
+}
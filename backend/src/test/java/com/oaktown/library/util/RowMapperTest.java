@@ -0,0 +1,73 @@
+package com.oaktown.library.util;
+
+import org.h2.tools.SimpleResultSet;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for RowMapper and ColumnIndex.
+ */
+@DisplayName("Row Mapper Tests")
+class RowMapperTest {
+
+    private static SimpleResultSet twoRows() {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.addColumn("ISBN", Types.VARCHAR, 20, 0);
+        rs.addColumn("title", Types.VARCHAR, 200, 0);
+        rs.addRow("978-1", "Dune");
+        rs.addRow("978-2", "Emma");
+        return rs;
+    }
+
+    @Test
+    @DisplayName("Column positions should be resolved once and case-insensitively")
+    void testBindOnce() throws SQLException {
+        AtomicInteger binds = new AtomicInteger();
+
+        List<String> rows = RowMapper.mapAll(twoRows(), columns -> {
+            binds.incrementAndGet();
+            int isbn = columns.require("isbn");
+            int title = columns.require("TITLE");
+            return rs -> rs.getString(isbn) + ":" + rs.getString(title);
+        });
+
+        assertEquals(List.of("978-1:Dune", "978-2:Emma"), rows);
+        assertEquals(1, binds.get());
+    }
+
+    @Test
+    @DisplayName("Rows mapped to null should be skipped")
+    void testSkipNullRows() throws SQLException {
+        List<String> rows = RowMapper.mapAll(twoRows(), columns -> {
+            int title = columns.require("title");
+            return rs -> rs.getString(title).startsWith("D") ? rs.getString(title) : null;
+        });
+
+        assertEquals(List.of("Dune"), rows);
+    }
+
+    @Test
+    @DisplayName("Missing columns should be reported by require and find")
+    void testMissingColumn() throws SQLException {
+        ColumnIndex columns = ColumnIndex.of(twoRows());
+
+        assertEquals(-1, columns.find("pages"));
+        assertThrows(SQLException.class, () -> columns.require("pages"));
+    }
+
+    @Test
+    @DisplayName("mapFirst should return null for an empty result set")
+    void testMapFirstEmpty() throws SQLException {
+        SimpleResultSet empty = new SimpleResultSet();
+        empty.addColumn("isbn", Types.VARCHAR, 20, 0);
+
+        assertNull(RowMapper.mapFirst(empty, columns -> rs -> "row"));
+    }
+}
@@ -0,0 +1,95 @@
+package com.oaktown.library.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for single-flight request coalescing.
+ */
+@DisplayName("Single Flight Tests")
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    @DisplayName("Concurrent calls for the same key should share one execution")
+    void testConcurrentCallsCoalesce() throws Exception {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(pool.submit(() -> flight.execute("isbn-1", () -> {
+                    executions.incrementAndGet();
+                    await(release);
+                    return "loaded";
+                })));
+            }
+
+            // Wait until every other caller has joined the in-flight call
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (flight.getCoalescedCount("isbn-1") < CALLERS - 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, executions.get());
+        assertEquals(CALLERS - 1, flight.getCoalescedCount("isbn-1"));
+        assertEquals(0, flight.getInFlightCount());
+    }
+
+    @Test
+    @DisplayName("Sequential calls should each execute since results are not cached")
+    void testSequentialCallsExecuteAgain() {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test");
+        AtomicInteger executions = new AtomicInteger();
+
+        flight.execute("M001", executions::incrementAndGet);
+        flight.execute("M001", executions::incrementAndGet);
+
+        assertEquals(2, executions.get());
+        assertEquals(0, flight.getCoalescedCount("M001"));
+    }
+
+    @Test
+    @DisplayName("Loader exceptions should propagate and clear the in-flight entry")
+    void testExceptionPropagates() {
+        SingleFlight<String, String> flight = new SingleFlight<>("test");
+
+        assertThrows(IllegalStateException.class, () ->
+            flight.execute("bad", () -> {
+                throw new IllegalStateException("database down");
+            }));
+
+        assertEquals("ok", flight.execute("bad", () -> "ok"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.oaktown.library.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for the bounded weak string pool.
+ */
+@DisplayName("String Pool Tests")
+class StringPoolTest {
+
+    @Test
+    @DisplayName("Equal strings should map to one instance")
+    void testIntern() {
+        StringPool pool = new StringPool(64);
+        String first = pool.intern(new String("Fiction"));
+        String second = pool.intern(new String("Fiction"));
+
+        assertSame(first, second);
+        assertEquals("Fiction", second);
+        assertNull(pool.intern(null));
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    @DisplayName("A full pool should pass new values through unpooled")
+    void testBounded() {
+        StringPool pool = new StringPool(16);
+        List<String> kept = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            kept.add(pool.intern("value" + i));
+        }
+        assertEquals(16, pool.size());
+
+        String fresh = new String("fresh");
+        assertSame(fresh, pool.intern(fresh));
+        assertNotSame(fresh, pool.intern(new String("fresh")));
+        assertEquals(16, pool.size());
+    }
+
+    @Test
+    @DisplayName("Concurrent callers should agree on the pooled instance")
+    void testConcurrentIntern() throws Exception {
+        StringPool pool = new StringPool(1_024);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            ConcurrentHashMap<String, String> seen = new ConcurrentHashMap<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        String pooled = pool.intern(new String("genre" + i % 100));
+                        assertSame(seen.computeIfAbsent(pooled, key -> pooled), pooled);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            assertEquals(100, pool.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Values no longer referenced should be dropped from the pool")
+    void testWeakEntries() throws InterruptedException {
+        StringPool pool = new StringPool(64);
+        pool.intern(new String("ephemeral"));
+
+        for (int i = 0; i < 50 && pool.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(0, pool.size());
+    }
+}
@@ -0,0 +1,121 @@
+package com.oaktown.library.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * JUnit tests for the TransactionTemplate retry executor.
+ */
+@DisplayName("Transaction Template Tests")
+class TransactionTemplateTest {
+
+    private DatabaseConnection mockDb;
+    private Connection mockConn;
+    private TransactionTemplate template;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        mockDb = mock(DatabaseConnection.class);
+        mockConn = mock(Connection.class);
+        when(mockDb.getTransactionConnection()).thenReturn(mockConn);
+        template = new TransactionTemplate(mockDb, 3, 0, 0);
+        Metrics.getInstance().reset();
+    }
+
+    @Test
+    @DisplayName("Successful callback should commit once and return its result")
+    void testCommitOnSuccess() throws SQLException {
+        String result = template.execute("op", conn -> "done");
+
+        assertEquals("done", result);
+        verify(mockConn).commit();
+        verify(mockConn).close();
+        assertEquals(1, Metrics.getInstance().get("tx.op.attempts"));
+    }
+
+    @Test
+    @DisplayName("MySQL deadlock should be retried until the callback succeeds")
+    void testRetryOnDeadlock() throws SQLException {
+        AtomicInteger calls = new AtomicInteger();
+
+        boolean result = template.execute("op", conn -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new SQLTransactionRollbackException("Deadlock found", "40001", 1213);
+            }
+            return true;
+        });
+
+        assertTrue(result);
+        assertEquals(2, calls.get());
+        verify(mockConn, times(1)).rollback();
+        assertEquals(1, Metrics.getInstance().get("tx.op.retries"));
+        assertEquals(1, Metrics.getInstance().get("tx.retries.deadlock"));
+    }
+
+    @Test
+    @DisplayName("Lock wait timeouts should give up once the attempt budget is spent")
+    void testAttemptBudget() {
+        AtomicInteger calls = new AtomicInteger();
+
+        SQLException thrown = assertThrows(SQLException.class, () ->
+            template.execute("op", conn -> {
+                calls.incrementAndGet();
+                throw new SQLException("Lock wait timeout exceeded", "HY000", 1205);
+            }));
+
+        assertEquals(1205, thrown.getErrorCode());
+        assertEquals(3, calls.get());
+        assertEquals(2, Metrics.getInstance().get("tx.retries.lock_timeout"));
+        assertEquals(1, Metrics.getInstance().get("tx.op.failures"));
+    }
+
+    @Test
+    @DisplayName("Non-transient failures should not be retried")
+    void testNoRetryOnConstraintViolation() throws SQLException {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(SQLException.class, () ->
+            template.execute("op", conn -> {
+                calls.incrementAndGet();
+                throw new SQLException("Duplicate entry", "23000", 1062);
+            }));
+
+        assertEquals(1, calls.get());
+        verify(mockConn).rollback();
+        verify(mockConn, never()).commit();
+    }
+
+    @Test
+    @DisplayName("Runtime exceptions should roll back and propagate unchanged")
+    void testRuntimeExceptionRollsBack() throws SQLException {
+        assertThrows(IllegalStateException.class, () ->
+            template.execute("op", conn -> {
+                throw new IllegalStateException("conflict");
+            }));
+
+        verify(mockConn).rollback();
+        verify(mockConn).close();
+    }
+
+    @Test
+    @DisplayName("Classification should inspect chained exceptions")
+    void testClassifyChained() {
+        SQLException outer = new SQLException("Batch failed", "HY000", 0);
+        outer.setNextException(new SQLException("Deadlock", "40001", 1213));
+
+        assertEquals(TransactionTemplate.FailureType.DEADLOCK, TransactionTemplate.classify(outer));
+        assertEquals(TransactionTemplate.FailureType.SERIALIZATION,
+            TransactionTemplate.classify(new SQLException("Serialization failure", "40001", 0)));
+        assertEquals(TransactionTemplate.FailureType.NON_TRANSIENT,
+            TransactionTemplate.classify(new SQLException("Syntax error", "42000", 1064)));
+    }
+}
@@ -0,0 +1,72 @@
+package com.oaktown.library.web;
+
+import com.oaktown.library.util.AvailabilityFeed;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * JUnit tests for the AvailabilityEventServer SSE endpoint.
+ */
+@DisplayName("Availability Event Server Tests")
+class AvailabilityEventServerTest {
+
+    private final AvailabilityFeed feed = AvailabilityFeed.getInstance();
+    private AvailabilityEventServer server;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new AvailabilityEventServer(feed, 0, 8, 1, "");
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("A filtered stream should receive matching events in SSE format")
+    void testStreamsMatchingEvents() throws Exception {
+        URL url = new URL("http://localhost:" + server.getPort() + AvailabilityEventServer.PATH + "?isbn=SSE-1,SSE-2");
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setReadTimeout(5000);
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
+            assertEquals("text/event-stream; charset=utf-8", conn.getContentType());
+            assertNull(conn.getHeaderField("Access-Control-Allow-Origin"));
+            assertEquals(": connected", reader.readLine());
+            assertEquals("", reader.readLine());
+
+            feed.publish("OTHER", "M1", false);
+            feed.publish("SSE-2", "M1", true);
+
+            assertTrue(reader.readLine().startsWith("id: "));
+            assertEquals("event: availability", reader.readLine());
+            String data = reader.readLine();
+            assertTrue(data.startsWith("data: {\"isbn\":\"SSE-2\",\"available\":true,\"timestamp\":"), data);
+            assertFalse(data.contains("M1"), data);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    @Test
+    @DisplayName("Query filters should accept repeated and comma-separated values")
+    void testParseList() {
+        assertEquals(Set.of("A", "B", "C"), AvailabilityEventServer.parseList("isbn=A,B&member=M1&isbn=C", "isbn"));
+        assertEquals(Set.of("M 1"), AvailabilityEventServer.parseList("member=M%201", "member"));
+        assertTrue(AvailabilityEventServer.parseList(null, "isbn").isEmpty());
+    }
+}